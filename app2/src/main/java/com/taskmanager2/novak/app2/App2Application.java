@@ -6,6 +6,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /*
  * Главный класс Spring Boot приложения.
@@ -26,6 +27,9 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 // Указывает, где искать JPA-сущности (Entity-классы)
 @EntityScan(basePackages = "com.taskmanager2.novak.persistence2.entity")
 
+// Включает выполнение фоновых заданий по расписанию (@Scheduled), например архивирования задач
+@EnableScheduling
+
 public class App2Application {
 
     /**
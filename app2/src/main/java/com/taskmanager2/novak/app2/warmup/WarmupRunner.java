@@ -0,0 +1,247 @@
+package com.taskmanager2.novak.app2.warmup;
+
+/*Прогрев приложения перед приёмом трафика:
+Сразу после запуска первые запросы медленные: JIT ещё не скомпилировал контроллеры, сериализаторы Jackson,
+ цепочку фильтров и BCrypt, Hibernate не построил планы запросов, а пул соединений пуст.
+Прогрев выполняется до того, как приложение объявит готовность: Spring Boot публикует ReadinessState.ACCEPTING_TRAFFIC
+ только после всех ApplicationRunner, поэтому /actuator/health/readiness отвечает OUT_OF_SERVICE, пока прогрев идёт.
+Шаги (все только на чтение, ничего не пишут):
+ - открытие соединений пула до его максимального размера;
+ - запросы TaskStore и UserRepository (страницы, выборки по статусу, счётчики, поиск пользователя);
+ - сериализация страницы задач всеми конвертерами Jackson (JSON, CBOR, Smile);
+ - проверка пароля BCrypt;
+ - синтетические HTTP-запросы к самому себе: страницы входа и регистрации, статика, неудачный вход
+   несуществующего пользователя и запрос к API без сессии (цепочка Spring Security и перенаправление на вход).
+Раунды запросов выполняются в нескольких потоках, пока не пройдёт заданное число раундов или не истечёт бюджет времени.
+Ошибка прогрева не мешает запуску: она только пишется в журнал.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.repository.UserRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.service.TaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    // Имя пользователя, которого заведомо нет: вход и поиск по нему ничего не меняют
+    private static final String ABSENT_USERNAME = "warmup-absent-user";
+
+    // Размер страницы задач при прогреве (как у первой страницы в интерфейсе)
+    private static final int PAGE_SIZE = 50;
+
+    private final ApplicationContext context;
+    private final DataSource dataSource;
+    private final TaskStore taskStore;
+    private final TaskService taskService;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final List<AbstractJackson2HttpMessageConverter> converters;
+
+    // Бюджет времени на весь прогрев
+    private final Duration budget;
+
+    // Число раундов запросов (на все потоки вместе)
+    private final int rounds;
+
+    // Потоков, выполняющих раунды
+    private final int threads;
+
+    // Сколько соединений пула открыть (0 — по максимальному размеру пула Hikari)
+    private final int connections;
+
+    // Сколько раз проверить пароль BCrypt
+    private final int bcryptRounds;
+
+    public WarmupRunner(ApplicationContext context,
+                        DataSource dataSource,
+                        TaskStore taskStore,
+                        TaskService taskService,
+                        UserRepository userRepository,
+                        PasswordEncoder passwordEncoder,
+                        List<AbstractJackson2HttpMessageConverter> converters,
+                        @Value("${taskmanager.warmup.budget:30s}") Duration budget,
+                        @Value("${taskmanager.warmup.rounds:300}") int rounds,
+                        @Value("${taskmanager.warmup.threads:4}") int threads,
+                        @Value("${taskmanager.warmup.connections:0}") int connections,
+                        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                        @Value("${taskmanager.warmup.bcrypt-rounds:5}") int bcryptRounds) {
+        this.context = context;
+        this.dataSource = dataSource;
+        this.taskStore = taskStore;
+        this.taskService = taskService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.converters = converters;
+        this.budget = budget;
+        this.rounds = rounds;
+        this.threads = Math.max(1, threads);
+        this.connections = connections > 0 ? connections : maximumPoolSize;
+        this.bcryptRounds = bcryptRounds;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        AtomicInteger completedRounds = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int opened = openConnections(deadline);
+            String baseUrl = baseUrl();
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            String passwordHash = passwordEncoder.encode(ABSENT_USERNAME);
+
+            AtomicInteger nextRound = new AtomicInteger();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    int round;
+                    while ((round = nextRound.getAndIncrement()) < rounds && System.nanoTime() < deadline) {
+                        runRound(round, client, baseUrl, passwordHash);
+                        completedRounds.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    break;
+                } catch (Exception e) {
+                    logger.warn("Warm-up worker failed: {}", e.toString());
+                }
+            }
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            if (completedRounds.get() < rounds) {
+                logger.warn("Warm-up budget of {} ran out after {} of {} rounds, {} pool connections opened",
+                        budget, completedRounds.get(), rounds, opened);
+            } else {
+                logger.info("Warm-up finished in {} ms: {} rounds, {} pool connections opened",
+                        elapsedMillis, completedRounds.get(), opened);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Один раунд: запросы к хранилищу, сериализация, BCrypt (в первых раундах) и HTTP-запросы к себе
+    private void runRound(int round, HttpClient client, String baseUrl, String passwordHash) {
+        try {
+            TaskStatus status = TaskStatus.values()[round % TaskStatus.values().length];
+            taskStore.findById(0L);
+            taskStore.countByStatusTask(status);
+            taskStore.findByStatusTaskAndIdGreaterThanOrderByIdAsc(status, 0L, Limit.of(PAGE_SIZE));
+            userRepository.findByUsername(ABSENT_USERNAME);
+            userRepository.existsByUsername(ABSENT_USERNAME);
+
+            // Страница задач через сервис (включает count) и её сериализация во все форматы API
+            Object page = taskService.getTasksPage(null, PAGE_SIZE, round % 2 == 0 ? null : status.name());
+            for (AbstractJackson2HttpMessageConverter converter : converters) {
+                converter.getObjectMapper().writeValueAsBytes(page);
+            }
+
+            if (round < bcryptRounds) {
+                passwordEncoder.matches(ABSENT_USERNAME, passwordHash);
+            }
+
+            if (baseUrl != null) {
+                send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/login")).GET());
+                send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/register")).GET());
+                send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/css/styles.css")).GET());
+                send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/page")).GET());
+                if (round < bcryptRounds) {
+                    send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                            .header("Content-Type", "application/x-www-form-urlencoded")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "username=" + ABSENT_USERNAME + "&password=" + ABSENT_USERNAME)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.debug("Warm-up round {} failed: {}", round, e.toString());
+        }
+    }
+
+    private static void send(HttpClient client, HttpRequest.Builder request) throws Exception {
+        client.send(request.timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    // Одновременное удержание нескольких соединений заставляет пул открыть их сейчас, а не под первыми запросами
+    private int openConnections(long deadline) {
+        List<Connection> held = new ArrayList<>();
+        try {
+            while (held.size() < connections && System.nanoTime() < deadline) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            logger.warn("Warm-up opened only {} pool connections: {}", held.size(), e.toString());
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("Failed to return warm-up connection: {}", e.toString());
+                }
+            }
+        }
+        return held.size();
+    }
+
+    // Адрес собственного веб-сервера или null, если приложение запущено без него
+    private String baseUrl() {
+        if (context instanceof WebServerApplicationContext web && web.getWebServer() != null
+                && web.getWebServer().getPort() > 0) {
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            if (contextPath.endsWith("/")) {
+                contextPath = contextPath.substring(0, contextPath.length() - 1);
+            }
+            return "http://localhost:" + web.getWebServer().getPort() + contextPath;
+        }
+        return null;
+    }
+}
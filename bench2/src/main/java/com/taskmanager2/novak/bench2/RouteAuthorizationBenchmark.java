@@ -0,0 +1,153 @@
+package com.taskmanager2.novak.bench2;
+
+import com.taskmanager2.novak.security2.authz.RouteAuthorizationManager;
+import com.taskmanager2.novak.security2.authz.RoutePermissions;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Стоимость проверки доступа к запросу: таблица маршрутов (RouteAuthorizationManager) против цепочки
+ * сопоставителей Spring Security (AntPathRequestMatcher по порядку правил) с теми же правилами, что в
+ * RoutePermissions. Перед замером обе проверки сравниваются на всех запросах набора: если решения расходятся,
+ * бенчмарк не запускается — эталонную цепочку нужно обновить вместе с RoutePermissions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteAuthorizationBenchmark {
+
+    private static final String[] ALL_ROLES = {"DIRECTOR", "ECONOMIST", "ACCOUNTANT", "VISITOR", "ADMIN"};
+
+    // Запросы набора: метод и путь; их число — @OperationsPerInvocation бенчмарков
+    private static final String[][] REQUESTS = {
+            {"GET", "/api/tasks/page"}, {"POST", "/api/tasks"}, {"PUT", "/api/tasks/5"}, {"GET", "/api/tasks/filter"},
+            {"GET", "/api/analytics/wip"}, {"GET", "/api/check-role"}, {"GET", "/api/archive/tasks"},
+            {"DELETE", "/api/tasks/7"}, {"GET", "/api/attachments/3"}, {"POST", "/api/dependencies"},
+            {"GET", "/css/styles.css"}, {"GET", "/actuator/health/liveness"}
+    };
+
+    @Param({"DIRECTOR", "VISITOR"})
+    public String role;
+
+    private AuthorizationManager<RequestAuthorizationContext> routeTable;
+    private AuthorizationManager<HttpServletRequest> requestMatchers;
+    private RequestAuthorizationContext[] contexts;
+    private HttpServletRequest[] requests;
+    private Supplier<Authentication> authentication;
+
+    @Setup
+    public void setUp() {
+        routeTable = new RouteAuthorizationManager(RoutePermissions.table());
+        requestMatchers = requestMatchers();
+        Authentication user = new UsernamePasswordAuthenticationToken(role, "password",
+                AuthorityUtils.createAuthorityList("ROLE_" + role));
+        authentication = () -> user;
+        requests = new HttpServletRequest[REQUESTS.length];
+        contexts = new RequestAuthorizationContext[REQUESTS.length];
+        for (int i = 0; i < REQUESTS.length; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(REQUESTS[i][0], REQUESTS[i][1]);
+            request.setServletPath(REQUESTS[i][1]);
+            requests[i] = request;
+            contexts[i] = new RequestAuthorizationContext(request);
+            boolean expected = requestMatchers.check(authentication, request).isGranted();
+            if (routeTable.check(authentication, contexts[i]).isGranted() != expected) {
+                throw new IllegalStateException("Route table and request matchers disagree on "
+                        + REQUESTS[i][0] + " " + REQUESTS[i][1] + " for role " + role);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void routeTable(Blackhole blackhole) {
+        for (RequestAuthorizationContext context : contexts) {
+            blackhole.consume(routeTable.check(authentication, context).isGranted());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void requestMatchers(Blackhole blackhole) {
+        for (HttpServletRequest request : requests) {
+            blackhole.consume(requestMatchers.check(authentication, request).isGranted());
+        }
+    }
+
+    // Те же правила в том же порядке, что в RoutePermissions, в виде цепочки сопоставителей Spring Security
+    private static AuthorizationManager<HttpServletRequest> requestMatchers() {
+        AuthorizationManager<RequestAuthorizationContext> permitAll = (user, context) -> new AuthorizationDecision(true);
+        return RequestMatcherDelegatingAuthorizationManager.builder()
+                .add(any("/", "/login", "/logout", "/register", "/css/**", "/js/**"), permitAll)
+                .add(any("/admin/**", "/api/admin/**"), roles("ADMIN"))
+                .add(any("/actuator/health/**"), permitAll)
+                .add(any("/actuator/**"), roles("ADMIN"))
+                .add(any("/api/users/**"), roles("ADMIN"))
+                .add(any("/api/tasks/import/**"), roles("DIRECTOR", "ADMIN"))
+                .add(match(HttpMethod.POST, "/api/tasks"), roles("DIRECTOR", "ADMIN"))
+                .add(any("/tasks", "/api/tasks", "/api/tasks/page"), roles(ALL_ROLES))
+                .add(match(HttpMethod.POST, "/api/tasks/transitions"), roles(ALL_ROLES))
+                .add(match(HttpMethod.PUT, "/api/tasks/**"), roles("DIRECTOR", "ADMIN"))
+                .add(match(HttpMethod.DELETE, "/api/tasks/**"), roles("DIRECTOR", "ECONOMIST", "ADMIN"))
+                .add(match(HttpMethod.GET, "/api/archive/**"), roles(ALL_ROLES))
+                .add(any("/api/analytics/**"), roles("DIRECTOR", "ECONOMIST"))
+                .add(any("/api/tasks/filter"), roles("DIRECTOR", "ECONOMIST", "ACCOUNTANT", "ADMIN"))
+                .add(match(HttpMethod.GET, "/api/attachments/**"), roles(ALL_ROLES))
+                .add(match(HttpMethod.HEAD, "/api/attachments/**"), roles(ALL_ROLES))
+                .add(match(HttpMethod.POST, "/api/attachments/**"), roles("DIRECTOR", "ADMIN"))
+                .add(match(HttpMethod.DELETE, "/api/attachments/**"), roles("DIRECTOR", "ADMIN"))
+                .add(match(HttpMethod.GET, "/api/dependencies/**"), roles(ALL_ROLES))
+                .add(match(HttpMethod.POST, "/api/dependencies/**"), roles("DIRECTOR", "ADMIN"))
+                .add(match(HttpMethod.DELETE, "/api/dependencies/**"), roles("DIRECTOR", "ADMIN"))
+                .add(AnyRequestMatcher.INSTANCE, AuthenticatedAuthorizationManager.authenticated())
+                .build();
+    }
+
+    private static RequestMatcher any(String... patterns) {
+        RequestMatcher[] matchers = new RequestMatcher[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            matchers[i] = new AntPathRequestMatcher(patterns[i]);
+        }
+        return matchers.length == 1 ? matchers[0] : new OrRequestMatcher(matchers);
+    }
+
+    private static RequestMatcher match(HttpMethod method, String pattern) {
+        return new AntPathRequestMatcher(pattern, method.name());
+    }
+
+    private static AuthorizationManager<RequestAuthorizationContext> roles(String... roles) {
+        return AuthorityAuthorizationManager.hasAnyRole(roles);
+    }
+}
@@ -0,0 +1,127 @@
+package com.taskmanager2.novak.bench2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.web2.json.TaskJsonBody;
+import com.taskmanager2.novak.web2.json.TaskJsonFragments;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ответ со списком задач в JSON: сборка из кэша готовых фрагментов (TaskJsonFragments) против обычной
+ * сериализации списка через ObjectMapper. warmFragments — все задачи уже в кэше (повторный запрос того же списка),
+ * coldFragments — кэш пуст (первый запрос после запуска или после изменения всех задач): каждая задача
+ * кодируется и сохраняется. Ответ пишется в поток, который только считает байты.
+ * Перед замером ответы обоих способов сравниваются побайтно.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskJsonFragmentsBenchmark {
+
+    // С запасом на 100 000 задач: вытеснение в замер не попадает
+    private static final DataSize CACHE_SIZE = DataSize.ofMegabytes(256);
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<TaskEntity> tasks;
+    private TaskJsonBody body;
+    private TaskJsonFragments warm;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Те же модули и настройки дат, что у ObjectMapper приложения (Spring Boot строит его этим же builder)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tasks = new ArrayList<>(rows);
+        TaskStatus[] statuses = TaskStatus.values();
+        Instant changedAt = Instant.parse("2026-10-01T08:30:00Z");
+        for (int i = 1; i <= rows; i++) {
+            TaskEntity task = new TaskEntity();
+            task.setId((long) i);
+            task.setNameTask("Подготовить отчёт №" + i);
+            task.setStatusTask(statuses[i % 3]);
+            task.setStatusChangedAt(changedAt.plusSeconds(i));
+            task.setDueAt(i % 4 == 0 ? changedAt.plusSeconds(86_400L + i) : null);
+            tasks.add(task);
+        }
+        body = TaskJsonBody.of(tasks);
+        warm = new TaskJsonFragments(objectMapper, CACHE_SIZE);
+
+        byte[] expected = objectMapper.writeValueAsBytes(tasks);
+        for (TaskJsonFragments fragments : List.of(warm, new TaskJsonFragments(objectMapper, CACHE_SIZE))) {
+            ByteArrayOutputStream actual = new ByteArrayOutputStream(expected.length);
+            fragments.write(body, actual, length -> {
+            });
+            if (!Arrays.equals(expected, actual.toByteArray())) {
+                throw new IllegalStateException("Fragment cache output differs from ObjectMapper output");
+            }
+        }
+    }
+
+    @Benchmark
+    public long jackson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, tasks);
+        return out.count;
+    }
+
+    @Benchmark
+    public long warmFragments() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        warm.write(body, out, length -> {
+        });
+        return out.count;
+    }
+
+    @Benchmark
+    public long coldFragments() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        new TaskJsonFragments(objectMapper, CACHE_SIZE).write(body, out, length -> {
+        });
+        return out.count;
+    }
+
+    /**
+     * Поток ответа, который только считает байты
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
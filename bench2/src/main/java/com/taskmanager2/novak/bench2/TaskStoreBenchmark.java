@@ -0,0 +1,174 @@
+package com.taskmanager2.novak.bench2;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskRepository;
+import com.taskmanager2.novak.persistence2.store.JpaTaskStore;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.storage2.EmbeddedTaskStore;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище задач: встроенное (EmbeddedTaskStore, профиль embedded) против JPA (JpaTaskStore над файловой H2).
+ * Оба работают в контексте Spring с JpaTransactionManager, как в приложении: создание задачи идёт в транзакции
+ * (как TaskService.createTask), чтение — без неё. Перед замером в хранилище загружается tasks задач.
+ * По умолчанию журнал встроенного хранилища без fsync, как и H2, которая не сбрасывает файл при каждом коммите;
+ * стоимость fsync видна с -p fsync=true.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskStoreBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"embedded", "jpa"})
+    public String store;
+
+    @Param({"10000"})
+    public int tasks;
+
+    @Param({"false"})
+    public boolean fsync;
+
+    private Path directory;
+    private AnnotationConfigApplicationContext context;
+    private TaskStore taskStore;
+    private TransactionTemplate transactionTemplate;
+    private long maxId;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("task-store-bench");
+        context = new AnnotationConfigApplicationContext();
+        // Свойства вида 5m для Duration, как в приложении
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", Map.of(
+                "taskmanager.storage.dir", directory.resolve("embedded").toString(),
+                "taskmanager.storage.fsync", String.valueOf(fsync),
+                "bench.h2.url", "jdbc:h2:file:" + directory.resolve("h2/tasks"))));
+        if (store.equals("embedded")) {
+            context.getEnvironment().setActiveProfiles("embedded");
+        }
+        context.register(JpaConfig.class, JpaTaskStore.class, EmbeddedTaskStore.class);
+        context.refresh();
+        taskStore = context.getBean(TaskStore.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        // Загрузка пачками по 1000; статусы чередуются, чтобы в индексе по статусу была треть задач
+        TaskStatus[] statuses = TaskStatus.values();
+        for (int from = 0; from < tasks; from += 1000) {
+            List<TaskEntity> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(tasks, from + 1000); i++) {
+                batch.add(task("Task " + i, statuses[i % 3]));
+            }
+            transactionTemplate.executeWithoutResult(status -> taskStore.saveAll(batch));
+            maxId = Math.max(maxId, batch.get(batch.size() - 1).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public TaskEntity create() {
+        return transactionTemplate.execute(status -> taskStore.save(task("New task", TaskStatus.TO_DO)));
+    }
+
+    @Benchmark
+    public TaskEntity findById() {
+        return taskStore.findById(ThreadLocalRandom.current().nextLong(1, maxId + 1)).orElse(null);
+    }
+
+    @Benchmark
+    public List<TaskEntity> page() {
+        long after = ThreadLocalRandom.current().nextLong(0, maxId);
+        return taskStore.findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus.TO_DO, after, Limit.of(PAGE_SIZE));
+    }
+
+    private static TaskEntity task(String name, TaskStatus status) {
+        TaskEntity task = new TaskEntity();
+        task.setNameTask(name);
+        task.setStatusTask(status);
+        return task;
+    }
+
+    /**
+     * JPA без автоконфигурации Spring Boot: пул Hikari над файловой H2 и схема, создаваемая Hibernate
+     */
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = TaskRepository.class)
+    static class JpaConfig {
+
+        @Bean
+        DataSource dataSource(Environment environment) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(environment.getRequiredProperty("bench.h2.url"));
+            dataSource.setUsername("sa");
+            return dataSource;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(TaskEntity.class.getPackageName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+            return factory;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.taskmanager2.novak.common2.collection;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с открытой адресацией: положительный long-ключ → int-значение, без упаковки в объекты.
+ * Ключ 0 зарезервирован под пустую ячейку (id задач начинаются с 1).
+ * Удаление — со сдвигом следующих элементов цепочки назад, поэтому «надгробий» нет и поиск не деградирует.
+ * Используется встроенным хранилищем задач (id задачи → строка таблицы), колесом сроков (id задачи → таймер)
+ * и графом зависимостей (id задачи → узел, пара узлов → ребро).
+ * Не потокобезопасна: доступ синхронизирует вызывающий.
+ */
+public final class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int get(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == 0) {
+                return MISSING;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                values[index] = value;
+                return;
+            }
+            if (current == 0) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size >= resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public void remove(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == 0) {
+                return;
+            }
+            if (current == key) {
+                break;
+            }
+            index = (index + 1) & mask;
+        }
+        size--;
+
+        // Сдвиг назад: элементы, которые могли «перепрыгнуть» освобождённую ячейку, переносим в неё
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = indexOf(keys[next]);
+            boolean movable = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+            if (movable) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(long key) {
+        // Перемешивание битов (вариант финализатора MurmurHash3): последовательные id не должны идти подряд
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+}
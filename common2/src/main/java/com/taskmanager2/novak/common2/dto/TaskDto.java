@@ -34,6 +34,12 @@ public class TaskDto {
     @NotNull(message = "Task status cannot be null")
     private String statusTask;
 
+    /**
+     * Срок выполнения в формате ISO-8601 (например, 2025-03-01T18:00:00Z или 2025-03-01T18:00:00+03:00).
+     * null — срок не задаётся (при обновлении — остаётся прежним), пустая строка — срока нет.
+     */
+    private String dueAt;
+
     // Геттеры и сеттеры — используются для доступа к полям объекта
 
     public String getNameTask() {
@@ -51,4 +57,12 @@ public class TaskDto {
     public void setStatusTask(String statusTask) {
         this.statusTask = statusTask;
     }
+
+    public String getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(String dueAt) {
+        this.dueAt = dueAt;
+    }
 }
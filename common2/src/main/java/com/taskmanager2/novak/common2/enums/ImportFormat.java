@@ -0,0 +1,35 @@
+// Пакет, содержащий перечисления для проекта
+package com.taskmanager2.novak.common2.enums;
+
+/**
+ * Формат файла импорта задач.
+ */
+public enum ImportFormat {
+
+    /**
+     * CSV: одна задача на строку, столбцы nameTask и statusTask.
+     * Необязательная первая строка-заголовок задаёт порядок столбцов.
+     */
+    CSV,
+
+    /**
+     * NDJSON: один JSON-объект {"nameTask": ..., "statusTask": ...} на строку.
+     */
+    NDJSON;
+
+    /**
+     * Разбор формата из параметра запроса без учёта регистра и без исключения на неизвестное значение
+     * @param name имя формата (может быть null)
+     * @return формат или null, если имя неизвестно
+     */
+    public static ImportFormat fromName(String name) {
+        if (name != null) {
+            for (ImportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+// Пакет, содержащий перечисления для проекта
+package com.taskmanager2.novak.common2.enums;
+
+/**
+ * Состояние задания импорта задач.
+ */
+public enum ImportStatus {
+
+    /**
+     * Файл загружается и обрабатывается.
+     */
+    RUNNING,
+
+    /**
+     * Файл обработан до конца.
+     */
+    COMPLETED,
+
+    /**
+     * Загрузка прервалась или произошла ошибка записи.
+     * Задание можно продолжить, отправив тот же файл с тем же id задания.
+     */
+    FAILED
+}
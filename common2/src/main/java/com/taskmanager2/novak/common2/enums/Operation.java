@@ -0,0 +1,100 @@
+// Пакет, содержащий перечисления для проекта
+package com.taskmanager2.novak.common2.enums;
+
+import static com.taskmanager2.novak.common2.enums.RoleType.ACCOUNTANT;
+import static com.taskmanager2.novak.common2.enums.RoleType.ADMIN;
+import static com.taskmanager2.novak.common2.enums.RoleType.DIRECTOR;
+import static com.taskmanager2.novak.common2.enums.RoleType.ECONOMIST;
+import static com.taskmanager2.novak.common2.enums.RoleType.VISITOR;
+
+/**
+ * Операции системы и роли, которым они разрешены.
+ * Набор ролей операции компилируется в битовую маску (бит 1 << ordinal роли), поэтому проверка доступа —
+ * одно побитовое И без разбора выражений. Какие запросы относятся к какой операции, задаёт таблица маршрутов
+ * (RoutePermissions в security2).
+ */
+public enum Operation {
+
+    /**
+     * Доступно всем, в том числе без входа: вход, регистрация, статика, проверки живости.
+     */
+    PUBLIC(true, false),
+
+    /**
+     * Любой вошедший пользователь независимо от роли.
+     */
+    AUTHENTICATED(false, true),
+
+    TASK_READ(DIRECTOR, ECONOMIST, ACCOUNTANT, VISITOR, ADMIN),
+    TASK_FILTER(DIRECTOR, ECONOMIST, ACCOUNTANT, ADMIN),
+    TASK_CREATE(DIRECTOR, ADMIN),
+    TASK_UPDATE(DIRECTOR, ADMIN),
+    TASK_DELETE(DIRECTOR, ECONOMIST, ADMIN),
+
+    /**
+     * Массовый перевод статусов; какие переходы разрешены каждой роли, проверяет сервис.
+     */
+    TASK_TRANSITION(DIRECTOR, ECONOMIST, ACCOUNTANT, VISITOR, ADMIN),
+    TASK_IMPORT(DIRECTOR, ADMIN),
+    ARCHIVE_READ(DIRECTOR, ECONOMIST, ACCOUNTANT, VISITOR, ADMIN),
+    ANALYTICS_READ(DIRECTOR, ECONOMIST),
+    ADMIN_PANEL(ADMIN),
+    USER_MANAGEMENT(ADMIN),
+
+    /**
+     * Эндпоинты actuator, кроме проверок живости.
+     */
+    MONITORING(ADMIN);
+
+    private final boolean anonymous;
+    private final boolean anyRole;
+
+    // Биты разрешённых ролей
+    private final int roles;
+
+    Operation(boolean anonymous, boolean anyRole) {
+        this.anonymous = anonymous;
+        this.anyRole = anyRole;
+        this.roles = 0;
+    }
+
+    Operation(RoleType... allowed) {
+        this.anonymous = false;
+        this.anyRole = false;
+        int mask = 0;
+        for (RoleType role : allowed) {
+            mask |= maskOf(role);
+        }
+        this.roles = mask;
+    }
+
+    /**
+     * @return бит роли в масках операций
+     */
+    public static int maskOf(RoleType role) {
+        return 1 << role.ordinal();
+    }
+
+    /**
+     * @return true, если операция доступна без входа
+     */
+    public boolean isAnonymous() {
+        return anonymous;
+    }
+
+    /**
+     * Проверка доступа вошедшего пользователя
+     * @param roleMask биты ролей пользователя (0 — ни одной известной роли)
+     * @return true, если операция разрешена хотя бы одной из ролей (или любому вошедшему)
+     */
+    public boolean allows(int roleMask) {
+        return anonymous || anyRole || (roles & roleMask) != 0;
+    }
+
+    /**
+     * @return true, если операция разрешена роли
+     */
+    public boolean allows(RoleType role) {
+        return allows(maskOf(role));
+    }
+}
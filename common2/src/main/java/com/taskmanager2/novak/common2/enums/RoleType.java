@@ -1,6 +1,9 @@
 // Пакет, содержащий перечисления для проекта
 package com.taskmanager2.novak.common2.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Перечисление для ролей пользователей в системе.
  * Каждая роль определяет права и доступ пользователя.
@@ -29,5 +32,23 @@ public enum RoleType {
      * Роль посетителя — ограниченный доступ, только для чтения.
      */
     VISITOR,
-    ADMIN // Добавляем новую роль
+    ADMIN; // Добавляем новую роль
+
+    // Роли по имени для разбора без исключений
+    private static final Map<String, RoleType> BY_NAME = new HashMap<>();
+
+    static {
+        for (RoleType role : values()) {
+            BY_NAME.put(role.name(), role);
+        }
+    }
+
+    /**
+     * Разбор роли из строки без исключения на неизвестное значение (см. TaskStatus.fromName).
+     * @param name имя роли без префикса ROLE_ (может быть null)
+     * @return роль или null, если имя неизвестно
+     */
+    public static RoleType fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
 }
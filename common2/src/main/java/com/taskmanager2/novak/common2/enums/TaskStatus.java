@@ -1,6 +1,9 @@
 // Пакет, содержащий перечисления для проекта
 package com.taskmanager2.novak.common2.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Перечисление для статусов задач в системе.
  * Каждому статусу соответствует определенная стадия выполнения задачи.
@@ -28,5 +31,24 @@ public enum TaskStatus {
      * Задача завершена.
      * Статус для задач, которые были успешно выполнены.
      */
-    DONE
+    DONE;
+
+    // Статусы по имени для разбора без исключений
+    private static final Map<String, TaskStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (TaskStatus status : values()) {
+            BY_NAME.put(status.name(), status);
+        }
+    }
+
+    /**
+     * Разбор статуса из строки. В отличие от valueOf не бросает исключение на неизвестное значение:
+     * неверный ввод от клиента — обычная ситуация, и строить на нём исключение со стеком незачем.
+     * @param name имя статуса (может быть null)
+     * @return статус или null, если имя неизвестно
+     */
+    public static TaskStatus fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
 }
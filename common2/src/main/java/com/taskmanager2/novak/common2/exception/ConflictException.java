@@ -0,0 +1,18 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Операция противоречит текущему состоянию данных.
+ */
+public class ConflictException extends TaskManagerException {
+
+    private final String message;
+
+    public ConflictException(String message) {
+        this.message = message;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,23 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Пользователь с таким именем уже существует.
+ */
+public class DuplicateUsernameException extends ConflictException {
+
+    private final String username;
+
+    public DuplicateUsernameException(String username) {
+        super(null);
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Username already exists: " + username;
+    }
+}
@@ -0,0 +1,31 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Роли пользователя не разрешён переход задач между статусами.
+ */
+public class ForbiddenTransitionException extends TaskManagerException {
+
+    private final String role;
+    private final Object from;
+    private final Object to;
+
+    /**
+     * @param role роль пользователя (без префикса ROLE_)
+     * @param from исходный статус
+     * @param to   целевой статус
+     */
+    public ForbiddenTransitionException(String role, Object from, Object to) {
+        this.role = role;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Transition " + from + " -> " + to + " is not allowed for role " + role;
+    }
+}
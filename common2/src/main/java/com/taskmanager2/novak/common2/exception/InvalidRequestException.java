@@ -0,0 +1,18 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Запрос содержит недопустимые данные.
+ */
+public class InvalidRequestException extends TaskManagerException {
+
+    private final String message;
+
+    public InvalidRequestException(String message) {
+        this.message = message;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return message;
+    }
+}
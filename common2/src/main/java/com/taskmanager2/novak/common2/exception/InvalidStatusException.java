@@ -0,0 +1,23 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Передан неизвестный статус задачи.
+ */
+public class InvalidStatusException extends InvalidRequestException {
+
+    private final String value;
+
+    public InvalidStatusException(String value) {
+        super(null);
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return "Unknown task status: " + value;
+    }
+}
@@ -0,0 +1,32 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Запрошенная сущность не существует.
+ */
+public class NotFoundException extends TaskManagerException {
+
+    private final String entity;
+    private final Object id;
+
+    /**
+     * @param entity название сущности для сообщения (например, "Task")
+     * @param id     идентификатор, по которому искали
+     */
+    public NotFoundException(String entity, Object id) {
+        this.entity = entity;
+        this.id = id;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return entity + " not found with id: " + id;
+    }
+}
@@ -0,0 +1,28 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Тело запроса больше допустимого размера.
+ */
+public class PayloadTooLargeException extends TaskManagerException {
+
+    private final String what;
+    private final long maxBytes;
+
+    /**
+     * @param what     что загружалось (для сообщения, например "Attachment")
+     * @param maxBytes допустимый размер в байтах
+     */
+    public PayloadTooLargeException(String what, long maxBytes) {
+        this.what = what;
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    protected String buildMessage() {
+        return what + " exceeds the maximum size of " + maxBytes + " bytes";
+    }
+}
@@ -0,0 +1,26 @@
+package com.taskmanager2.novak.common2.exception;
+
+/**
+ * Базовое исключение прикладных ошибок (не найдено, неверный ввод, конфликт).
+ * Такие ошибки — ожидаемая часть работы API, а не сбой: поэтому исключение не собирает стек вызовов
+ * и не поддерживает подавленные исключения. Создание стоит как обычный объект, даже если клиент
+ * шлёт неверные запросы тысячами в секунду.
+ * Сообщение строится только при обращении к getMessage(), то есть обычно только при формировании ответа.
+ * Преобразование в HTTP-ответ выполняет обработчик в web2 по типу исключения.
+ */
+public abstract class TaskManagerException extends RuntimeException {
+
+    protected TaskManagerException() {
+        super(null, null, false, false);
+    }
+
+    @Override
+    public String getMessage() {
+        return buildMessage();
+    }
+
+    /**
+     * Текст ошибки для клиента
+     */
+    protected abstract String buildMessage();
+}
@@ -0,0 +1,36 @@
+package com.taskmanager2.novak.common2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: шаг аутентификации — поиск пользователя или вычисление BCrypt.
+ * Позволяет отделить время хеширования паролей от времени запросов к БД.
+ */
+@Name("taskmanager.Authentication")
+@Label("Authentication")
+@Category({"TaskManager", "Security"})
+@Description("Поиск пользователя при входе или проверка/хеширование пароля")
+@StackTrace(false)
+public class AuthenticationEvent extends Event {
+
+    @Label("Operation")
+    @Description("loadUser, passwordMatches или passwordEncode")
+    public String operation;
+
+    @Label("Status")
+    @Description("OK, NOT_FOUND, BAD_CREDENTIALS или простое имя исключения")
+    public String status;
+
+    @Label("Source")
+    @Description("Где найден пользователь: memory или database")
+    public String source;
+
+    @Label("Principal Role")
+    @Description("Роль найденного пользователя")
+    public String principalRole;
+}
@@ -0,0 +1,36 @@
+package com.taskmanager2.novak.common2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: обработка запроса контроллером — от вызова обработчика до завершения ответа
+ * (включая сериализацию тела и отрисовку шаблона, но без фильтров перед DispatcherServlet).
+ */
+@Name("taskmanager.RequestHandling")
+@Label("Request Handling")
+@Category({"TaskManager", "Web"})
+@Description("Обработка HTTP-запроса контроллером")
+@StackTrace(false)
+public class RequestHandlingEvent extends Event {
+
+    @Label("Operation")
+    @Description("Метод HTTP и шаблон пути, например GET /api/tasks/{id}")
+    public String operation;
+
+    @Label("Handler")
+    @Description("Контроллер и метод-обработчик")
+    public String handler;
+
+    @Label("Status")
+    @Description("HTTP-статус ответа")
+    public int status;
+
+    @Label("Principal Role")
+    @Description("Роль пользователя или anonymous")
+    public String principalRole;
+}
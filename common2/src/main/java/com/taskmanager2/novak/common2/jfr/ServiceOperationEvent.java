@@ -0,0 +1,36 @@
+package com.taskmanager2.novak.common2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: вызов метода сервиса (TaskService, UserService) вместе с транзакцией и коммитом.
+ * Пока запись JFR не идёт, событие не фиксируется и почти ничего не стоит.
+ */
+@Name("taskmanager.ServiceOperation")
+@Label("Service Operation")
+@Category({"TaskManager", "Service"})
+@Description("Вызов метода сервисного слоя, включая транзакцию")
+@StackTrace(false)
+public class ServiceOperationEvent extends Event {
+
+    @Label("Operation")
+    @Description("Класс и метод сервиса, например TaskService.getTasksPage")
+    public String operation;
+
+    @Label("Status")
+    @Description("OK или простое имя исключения")
+    public String status;
+
+    @Label("Rows")
+    @Description("Число возвращённых строк (элементов списка или страницы, 1 для сущности)")
+    public int rows;
+
+    @Label("Principal Role")
+    @Description("Роль пользователя, выполнившего операцию, или system")
+    public String principalRole;
+}
@@ -0,0 +1,131 @@
+package com.taskmanager2.novak.common2.timing;
+
+/**
+ * Замер времени фаз обработки одного запроса (см. TimingPhase).
+ *
+ * Экземпляр привязан к потоку запроса: его открывает фильтр Server-Timing, а слои приложения отмечают начало
+ * и конец фаз статическими методами begin/end. Вне запроса (фоновые задания, поток конвейера записи)
+ * эти методы ничего не делают.
+ * Сбор не выделяет память: каждому потоку принадлежит один переиспользуемый экземпляр с массивами по фазам.
+ * Вложенные begin/end одной фазы (сервис, вызывающий сервис) считаются один раз — по внешней паре.
+ * Запись ответа (WRITE) внутри сериализации вычитается из сериализации, поэтому они не пересекаются;
+ * SQL же входит во время сервиса, в котором выполнялся.
+ */
+public final class RequestTimings {
+
+    private static final TimingPhase[] PHASES = TimingPhase.values();
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<RequestTimings> PER_THREAD = ThreadLocal.withInitial(RequestTimings::new);
+
+    private final long[] elapsed = new long[PHASES.length];
+    private final long[] openedAt = new long[PHASES.length];
+    private final int[] depth = new int[PHASES.length];
+    private final int[] count = new int[PHASES.length];
+    private long startedAt;
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Начало замера запроса в текущем потоке
+     * @return экземпляр потока, очищенный от прошлого запроса
+     */
+    public static RequestTimings open() {
+        RequestTimings timings = PER_THREAD.get();
+        timings.reset();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Окончание замера запроса: дальнейшие begin/end в потоке игнорируются
+     */
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Начало фазы в запросе текущего потока
+     */
+    public static void begin(TimingPhase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.beginPhase(phase, System.nanoTime());
+        }
+    }
+
+    /**
+     * Конец фазы в запросе текущего потока
+     */
+    public static void end(TimingPhase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.endPhase(phase, System.nanoTime());
+        }
+    }
+
+    /**
+     * Завершение фазы, если она ещё открыта (например, цепочка безопасности отклонила запрос)
+     */
+    public void endIfOpen(TimingPhase phase) {
+        while (depth[phase.ordinal()] > 0) {
+            endPhase(phase, System.nanoTime());
+        }
+    }
+
+    /**
+     * Время фазы на текущий момент в наносекундах, включая ещё не закрытую часть
+     */
+    public long elapsedNanos(TimingPhase phase) {
+        int index = phase.ordinal();
+        long result = elapsed[index];
+        if (depth[index] > 0) {
+            result += System.nanoTime() - openedAt[index];
+        }
+        return Math.max(result, 0);
+    }
+
+    /**
+     * Сколько раз фаза начиналась (для SQL — число выполненных запросов)
+     */
+    public int count(TimingPhase phase) {
+        return count[phase.ordinal()];
+    }
+
+    /**
+     * Время с открытия замера в наносекундах
+     */
+    public long totalNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    private void beginPhase(TimingPhase phase, long now) {
+        int index = phase.ordinal();
+        if (depth[index]++ == 0) {
+            openedAt[index] = now;
+            count[index]++;
+        }
+    }
+
+    private void endPhase(TimingPhase phase, long now) {
+        int index = phase.ordinal();
+        if (depth[index] == 0 || --depth[index] > 0) {
+            return;
+        }
+        long duration = now - openedAt[index];
+        elapsed[index] += duration;
+        if (phase == TimingPhase.WRITE && depth[TimingPhase.SERIALIZATION.ordinal()] > 0) {
+            elapsed[TimingPhase.SERIALIZATION.ordinal()] -= duration;
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            elapsed[i] = 0;
+            depth[i] = 0;
+            count[i] = 0;
+        }
+        startedAt = System.nanoTime();
+    }
+}
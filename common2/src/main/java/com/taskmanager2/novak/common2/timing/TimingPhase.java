@@ -0,0 +1,33 @@
+package com.taskmanager2.novak.common2.timing;
+
+/**
+ * Фазы обработки запроса, время которых собирает RequestTimings.
+ * Имя метрики попадает в заголовок Server-Timing и в строку журнала.
+ */
+public enum TimingPhase {
+
+    // Цепочка фильтров Spring Security (аутентификация сессии, проверка прав)
+    SECURITY("security"),
+
+    // Вызовы TaskService/UserService, включая транзакцию и SQL внутри них
+    SERVICE("service"),
+
+    // Выполнение SQL-запросов через Hibernate (без чтения строк результата)
+    SQL("sql"),
+
+    // Сериализация тела ответа конвертерами Jackson, без времени записи в сокет
+    SERIALIZATION("serialization"),
+
+    // Ожидание записи тела ответа клиенту
+    WRITE("write");
+
+    private final String metric;
+
+    TimingPhase(String metric) {
+        this.metric = metric;
+    }
+
+    public String metric() {
+        return metric;
+    }
+}
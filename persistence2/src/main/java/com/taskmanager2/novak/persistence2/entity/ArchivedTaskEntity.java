@@ -0,0 +1,83 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Сущность архивной задачи.
+ * Завершённые (DONE) задачи, статус которых не менялся дольше заданного срока, переносятся из таблицы tasks
+ * в таблицу archived_tasks, чтобы основная («горячая») таблица оставалась маленькой и её индексы помещались в память.
+ * Идентификатор не генерируется: задача сохраняет id, который у неё был в таблице tasks.
+ * Архив только для чтения — записи в него вставляются переносом из tasks, а не через эту сущность.
+ */
+@Entity
+@Table(name = "archived_tasks")  // Указывает на таблицу "archived_tasks" в базе данных
+public class ArchivedTaskEntity {
+
+    /**
+     * Идентификатор задачи (тот же, что был в таблице tasks).
+     */
+    @Id
+    private Long id;
+
+    /**
+     * Название задачи.
+     */
+    @Column(name = "name_task", nullable = false)
+    private String nameTask;
+
+    /**
+     * Статус задачи на момент архивирования.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_task", nullable = false)
+    private TaskStatus statusTask;
+
+    /**
+     * Время последней смены статуса до архивирования.
+     */
+    @Column(name = "status_changed_at")
+    private Instant statusChangedAt;
+
+    /**
+     * Срок выполнения задачи до архивирования; null — срока не было.
+     */
+    @Column(name = "due_at")
+    private Instant dueAt;
+
+    /**
+     * Время переноса задачи в архив.
+     */
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    // Геттеры (архивная задача не изменяется)
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNameTask() {
+        return nameTask;
+    }
+
+    public TaskStatus getStatusTask() {
+        return statusTask;
+    }
+
+    public Instant getStatusChangedAt() {
+        return statusChangedAt;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+}
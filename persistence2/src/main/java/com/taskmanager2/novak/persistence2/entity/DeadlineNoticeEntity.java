@@ -0,0 +1,95 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Отправленное уведомление о сроке задачи (напоминание или просрочка).
+ * Ключ — задача, вид уведомления и срок, к которому оно относится: уведомление о том же сроке отправляется один раз,
+ * даже если таймер сработал на нескольких узлах или повторно после перезапуска. Узел сначала вставляет строку
+ * и отправляет уведомление, только если вставка прошла; поэтому строка всегда вставляется (isNew),
+ * и одновременная вставка с другого узла падает на первичном ключе.
+ * Смена срока даёт новый ключ, и о новом сроке снова напоминается.
+ */
+@Entity
+@Table(name = "deadline_notices",  // Указывает на таблицу "deadline_notices" в базе данных
+        indexes = {
+                // Удаление уведомлений вместе с задачей
+                @Index(name = "idx_deadline_notices_task", columnList = "task_id"),
+                // Удаление давних уведомлений по сроку хранения
+                @Index(name = "idx_deadline_notices_due", columnList = "due_at")
+        })
+public class DeadlineNoticeEntity implements Persistable<String> {
+
+    /**
+     * Ключ уведомления: "id задачи/вид/срок в миллисекундах epoch".
+     */
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    @Column(name = "task_id", nullable = false)
+    private long taskId;
+
+    /**
+     * Вид уведомления (REMINDER, OVERDUE).
+     */
+    @Column(name = "kind", nullable = false, length = 16)
+    private String kind;
+
+    /**
+     * Срок задачи, к которому относится уведомление.
+     */
+    @Column(name = "due_at", nullable = false)
+    private Instant dueAt;
+
+    @Column(name = "sent_at", nullable = false)
+    private Instant sentAt;
+
+    /**
+     * true для созданного в коде уведомления, false для загруженного из базы.
+     */
+    @Transient
+    private boolean isNew;
+
+    protected DeadlineNoticeEntity() {
+    }
+
+    public DeadlineNoticeEntity(String id, long taskId, String kind, Instant dueAt, Instant sentAt) {
+        this.id = id;
+        this.taskId = taskId;
+        this.kind = kind;
+        this.dueAt = dueAt;
+        this.sentAt = sentAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+}
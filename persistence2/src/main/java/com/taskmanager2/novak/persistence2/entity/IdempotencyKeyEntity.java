@@ -0,0 +1,118 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Ключ идемпотентности запроса к API и сохранённый ответ на него.
+ * Строка вставляется до выполнения запроса (status = null — запрос выполняется) и дополняется ответом после него.
+ * Новый ключ всегда вставляется (isNew), а не сливается с существующей строкой: из одновременных запросов
+ * с одним ключом на разных узлах INSERT пройдёт только у одного, остальные упадут на первичном ключе.
+ */
+@Entity
+@Table(name = "idempotency_keys",  // Указывает на таблицу "idempotency_keys" в базе данных
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyKeyEntity implements Persistable<String> {
+
+    /**
+     * Наибольший размер сохраняемого тела ответа.
+     */
+    public static final int MAX_BODY_BYTES = 65536;
+
+    /**
+     * Хэш пользователя и ключа из заголовка запроса.
+     */
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    /**
+     * Хэш метода, пути и параметров запроса.
+     */
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    /**
+     * HTTP-статус ответа; null, пока запрос выполняется.
+     */
+    @Column(name = "status")
+    private Integer status;
+
+    /**
+     * Тип содержимого ответа.
+     */
+    @Column(name = "content_type")
+    private String contentType;
+
+    /**
+     * Тело ответа.
+     */
+    @Column(name = "body", length = MAX_BODY_BYTES)
+    private byte[] body;
+
+    /**
+     * До какого момента выполняющий запрос узел удерживает ключ; после — ключ может перехватить другой узел.
+     */
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    /**
+     * Когда ключ удаляется и перестаёт защищать от повтора.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * true для созданного в коде ключа, false для загруженного из базы.
+     */
+    @Transient
+    private boolean isNew;
+
+    protected IdempotencyKeyEntity() {
+    }
+
+    public IdempotencyKeyEntity(String id, String fingerprint, Instant lockedUntil, Instant expiresAt) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.lockedUntil = lockedUntil;
+        this.expiresAt = expiresAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,60 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Строка файла импорта, отклонённая при разборе или проверке.
+ */
+@Entity
+@Table(name = "import_job_errors",  // Указывает на таблицу "import_job_errors" в базе данных
+        indexes = @Index(name = "idx_import_errors_job_line", columnList = "job_id, line_number"))
+public class ImportErrorEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор задания импорта.
+     */
+    @Column(name = "job_id", nullable = false, length = 64)
+    private String jobId;
+
+    /**
+     * Номер строки в файле (с 1, считая заголовок).
+     */
+    @Column(name = "line_number", nullable = false)
+    private long lineNumber;
+
+    /**
+     * Причина отклонения.
+     */
+    @Column(name = "message", nullable = false, length = 500)
+    private String message;
+
+    protected ImportErrorEntity() {
+    }
+
+    public ImportErrorEntity(String jobId, long lineNumber, String message) {
+        this.jobId = jobId;
+        this.lineNumber = lineNumber;
+        this.message = message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
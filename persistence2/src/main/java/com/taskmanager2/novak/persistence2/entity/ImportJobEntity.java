@@ -0,0 +1,144 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import com.taskmanager2.novak.common2.enums.ImportFormat;
+import com.taskmanager2.novak.common2.enums.ImportStatus;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Задание импорта задач из файла.
+ * Хранит прогресс импорта: сколько строк файла обработано (записано в tasks или попало в отчёт об ошибках).
+ * Счётчики обновляются в той же транзакции, что и запись очередной пачки задач, поэтому после сбоя
+ * импорт продолжается ровно с первой необработанной строки.
+ * Id задания выбирает клиент (или сервер, если клиент его не передал).
+ */
+@Entity
+@Table(name = "import_jobs")  // Указывает на таблицу "import_jobs" в базе данных
+public class ImportJobEntity implements Persistable<String> {
+
+    /**
+     * Идентификатор задания.
+     */
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    /**
+     * Формат файла.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false)
+    private ImportFormat format;
+
+    /**
+     * Состояние задания.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ImportStatus status;
+
+    /**
+     * Пользователь, запустивший импорт.
+     */
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Время последнего изменения прогресса; по нему определяется зависшее задание.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /**
+     * Сколько строк файла (считая заголовок) обработано.
+     */
+    @Column(name = "lines_processed", nullable = false)
+    private long linesProcessed;
+
+    /**
+     * Сколько задач создано.
+     */
+    @Column(name = "rows_imported", nullable = false)
+    private long rowsImported;
+
+    /**
+     * Сколько строк отклонено.
+     */
+    @Column(name = "rows_failed", nullable = false)
+    private long rowsFailed;
+
+    /**
+     * Причина прерывания задания (для состояния FAILED).
+     */
+    @Column(name = "message", length = 500)
+    private String message;
+
+    @Transient
+    private boolean isNew;
+
+    protected ImportJobEntity() {
+    }
+
+    public ImportJobEntity(String id, ImportFormat format, String createdBy, Instant createdAt) {
+        this.id = id;
+        this.format = format;
+        this.status = ImportStatus.RUNNING;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public long getLinesProcessed() {
+        return linesProcessed;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,77 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Блокировка фонового задания в базе данных.
+ * Каждому заданию соответствует одна строка. Узел приложения, которому удалось выставить lockedUntil
+ * в будущее (условным UPDATE), выполняет задание; остальные узлы пропускают запуск, пока срок не истечёт.
+ * Срок аренды защищает от вечной блокировки, если узел упал, не сняв её.
+ * Новая блокировка всегда вставляется (isNew), а не сливается с существующей строкой: при одновременной
+ * вставке с другого узла INSERT должен упасть на первичном ключе, а не перезаписать чужую блокировку.
+ */
+@Entity
+@Table(name = "job_locks")  // Указывает на таблицу "job_locks" в базе данных
+public class JobLockEntity implements Persistable<String> {
+
+    /**
+     * Имя задания.
+     */
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    /**
+     * До какого момента блокировка удерживается.
+     */
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    /**
+     * Идентификатор узла, удерживающего блокировку.
+     */
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    /**
+     * true для созданной в коде блокировки, false для загруженной из базы.
+     */
+    @Transient
+    private boolean isNew;
+
+    protected JobLockEntity() {
+    }
+
+    public JobLockEntity(String name, Instant lockedUntil, String lockedBy) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+        this.lockedBy = lockedBy;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+}
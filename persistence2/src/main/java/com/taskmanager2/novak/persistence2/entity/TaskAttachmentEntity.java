@@ -0,0 +1,112 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Вложение задачи (таблица task_attachments): имя и тип файла плюс ссылка на содержимое по хэшу SHA-256.
+ * Само содержимое лежит в хранилище файлов; одинаковые файлы (в том числе у разных задач) хранятся один раз.
+ * Задача указана идентификатором, а не связью с TaskEntity: задачи могут храниться и вне базы (профиль embedded).
+ */
+@Entity
+@Table(name = "task_attachments",  // Указывает на таблицу "task_attachments" в базе данных
+        indexes = {
+                @Index(name = "idx_task_attachments_task", columnList = "task_id"),
+                @Index(name = "idx_task_attachments_sha256", columnList = "sha256")
+        })
+public class TaskAttachmentEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор задачи.
+     */
+    @Column(name = "task_id", nullable = false)
+    private long taskId;
+
+    /**
+     * Имя файла, под которым его загрузили.
+     */
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    /**
+     * Тип содержимого, указанный при загрузке.
+     */
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    /**
+     * Размер в байтах.
+     */
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    /**
+     * Хэш SHA-256 содержимого (hex) — ключ файла в хранилище.
+     */
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    /**
+     * Время загрузки.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Имя пользователя, загрузившего файл.
+     */
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    protected TaskAttachmentEntity() {
+    }
+
+    public TaskAttachmentEntity(long taskId, String fileName, String contentType, long size, String sha256,
+                                Instant createdAt, String createdBy) {
+        this.taskId = taskId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.sha256 = sha256;
+        this.createdAt = createdAt;
+        this.createdBy = createdBy;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+}
@@ -0,0 +1,64 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений задач: одна строка на транзакцию, изменившую задачи.
+ * Узлы приложения читают журнал, чтобы узнать об изменениях, сделанных другими узлами, и сбросить свои кэши.
+ * Сами изменённые задачи не хранятся — только затронутые статусы (битовая маска по ordinal TaskStatus).
+ */
+@Entity
+@Table(name = "task_changes",  // Указывает на таблицу "task_changes" в базе данных
+        indexes = @Index(name = "idx_task_changes_changed_at", columnList = "changed_at"))
+public class TaskChangeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор узла, сделавшего изменение.
+     */
+    @Column(name = "node_id", nullable = false, length = 128)
+    private String nodeId;
+
+    /**
+     * Затронутые статусы: бит 1 << ordinal для старого и нового статуса каждой изменённой задачи.
+     */
+    @Column(name = "statuses", nullable = false)
+    private int statuses;
+
+    /**
+     * Время изменения (по часам узла); используется для очистки старых записей.
+     */
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    protected TaskChangeEntity() {
+    }
+
+    public TaskChangeEntity(String nodeId, int statuses, Instant changedAt) {
+        this.nodeId = nodeId;
+        this.statuses = statuses;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getStatuses() {
+        return statuses;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,78 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Зависимость между задачами (таблица task_dependencies): задача blockedId не может начаться, пока не завершена
+ * задача blockerId. Зависимости образуют ориентированный граф без циклов (ребро blockerId → blockedId);
+ * отсутствие циклов проверяется при вставке под блокировкой графа (TaskDependencyGraphEntity).
+ * Задачи указаны идентификаторами, а не связями с TaskEntity: задачи могут храниться и вне базы (профиль embedded).
+ */
+@Entity
+@Table(name = "task_dependencies",  // Указывает на таблицу "task_dependencies" в базе данных
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_dependencies_pair",
+                columnNames = {"blocker_id", "blocked_id"}),
+        indexes = @Index(name = "idx_task_dependencies_blocked", columnList = "blocked_id"))
+public class TaskDependencyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Задача, которую нужно завершить раньше.
+     */
+    @Column(name = "blocker_id", nullable = false)
+    private long blockerId;
+
+    /**
+     * Задача, которая ждёт завершения blockerId.
+     */
+    @Column(name = "blocked_id", nullable = false)
+    private long blockedId;
+
+    /**
+     * Время добавления зависимости.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Имя пользователя, добавившего зависимость.
+     */
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    protected TaskDependencyEntity() {
+    }
+
+    public TaskDependencyEntity(long blockerId, long blockedId, Instant createdAt, String createdBy) {
+        this.blockerId = blockerId;
+        this.blockedId = blockedId;
+        this.createdAt = createdAt;
+        this.createdBy = createdBy;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getBlockerId() {
+        return blockerId;
+    }
+
+    public long getBlockedId() {
+        return blockedId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+}
@@ -0,0 +1,70 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Версия графа зависимостей задач (таблица task_dependency_graph, одна строка).
+ * Каждое изменение зависимостей сначала блокирует эту строку (SELECT ... FOR UPDATE), поэтому изменения графа
+ * идут по одному: проверка цикла видит все уже добавленные рёбра, и два встречных ребра не пройдут проверку
+ * одновременно. Версия увеличивается при каждом изменении — по ней узлы замечают изменения, сделанные другими узлами.
+ * Строка вставляется (isNew), а не сливается: при одновременном запуске узлов INSERT второго упадёт на первичном ключе.
+ */
+@Entity
+@Table(name = "task_dependency_graph")  // Указывает на таблицу "task_dependency_graph" в базе данных
+public class TaskDependencyGraphEntity implements Persistable<Integer> {
+
+    /**
+     * Идентификатор единственной строки.
+     */
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    /**
+     * Номер последнего изменения зависимостей.
+     */
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * true для созданной в коде строки, false для загруженной из базы.
+     */
+    @Transient
+    private boolean isNew;
+
+    protected TaskDependencyGraphEntity() {
+    }
+
+    public TaskDependencyGraphEntity(long version) {
+        this.id = SINGLETON_ID;
+        this.version = version;
+        this.isNew = true;
+    }
+
+    @Override
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Увеличение версии (сохраняется при коммите транзакции, в которой строка заблокирована)
+     *
+     * @return новая версия
+     */
+    public long nextVersion() {
+        return ++version;
+    }
+}
@@ -7,6 +7,8 @@ import com.taskmanager2.novak.common2.enums.TaskStatus;
 // Импорт аннотаций JPA для работы с базой данных
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 /**
  * Сущность для представления задачи в базе данных.
  * Используется JPA для отображения этой сущности на таблицу в базе данных.
@@ -19,7 +21,9 @@ import jakarta.persistence.*;
  TO_DO, IN_PROGRESS, DONE).
  */
 @Entity
-@Table(name = "tasks")  // Указывает на таблицу "tasks" в базе данных
+@Table(name = "tasks",  // Указывает на таблицу "tasks" в базе данных
+        // Индекс для выборки задач-кандидатов на архивирование (статус + давность смены статуса)
+        indexes = @Index(name = "idx_tasks_status_changed", columnList = "status_task, status_changed_at"))
 public class TaskEntity {
 
     /**
@@ -47,6 +51,21 @@ public class TaskEntity {
     @Column(name = "status_task", nullable = false)
     private TaskStatus statusTask;
 
+    /**
+     * Время последней смены статуса.
+     * Выставляется в setStatusTask при фактическом изменении статуса; по нему архивируются давно завершённые задачи.
+     * Для задач, созданных до появления столбца, равно null.
+     */
+    @Column(name = "status_changed_at")
+    private Instant statusChangedAt;
+
+    /**
+     * Срок выполнения задачи; null — срока нет.
+     * По нему подсистема сроков (DeadlineScheduler) напоминает о приближении срока и сообщает о просрочке.
+     */
+    @Column(name = "due_at")
+    private Instant dueAt;
+
     // Геттеры и сеттеры (методы доступа к полям класса)
 
     public Long getId() {
@@ -70,6 +89,25 @@ public class TaskEntity {
     }
 
     public void setStatusTask(TaskStatus statusTask) {
+        if (this.statusTask != statusTask) {
+            this.statusChangedAt = Instant.now();
+        }
         this.statusTask = statusTask;
     }
+
+    public Instant getStatusChangedAt() {
+        return statusChangedAt;
+    }
+
+    public void setStatusChangedAt(Instant statusChangedAt) {
+        this.statusChangedAt = statusChangedAt;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(Instant dueAt) {
+        this.dueAt = dueAt;
+    }
 }
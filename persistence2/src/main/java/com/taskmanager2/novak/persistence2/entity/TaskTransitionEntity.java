@@ -0,0 +1,91 @@
+// Пакет, содержащий сущности для работы с базой данных
+package com.taskmanager2.novak.persistence2.entity;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала переходов задач между статусами (таблица task_transitions).
+ * Журнал только дополняется: по строке на создание задачи, каждую смену статуса и удаление.
+ * Строки не изменяются и не удаляются, в том числе при архивировании задачи, — по ним считается время в статусах.
+ */
+@Entity
+@Table(name = "task_transitions",  // Указывает на таблицу "task_transitions" в базе данных
+        indexes = @Index(name = "idx_task_transitions_task", columnList = "task_id"))
+public class TaskTransitionEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор задачи.
+     */
+    @Column(name = "task_id", nullable = false)
+    private long taskId;
+
+    /**
+     * Статус до перехода (null при создании задачи).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status")
+    private TaskStatus fromStatus;
+
+    /**
+     * Статус после перехода (null при удалении задачи).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status")
+    private TaskStatus toStatus;
+
+    /**
+     * Время перехода (по часам узла).
+     */
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    /**
+     * Имя пользователя, выполнившего переход.
+     */
+    @Column(name = "principal", nullable = false)
+    private String principal;
+
+    protected TaskTransitionEntity() {
+    }
+
+    public TaskTransitionEntity(long taskId, TaskStatus fromStatus, TaskStatus toStatus, Instant changedAt,
+                                String principal) {
+        this.taskId = taskId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.changedAt = changedAt;
+        this.principal = principal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public TaskStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public TaskStatus getToStatus() {
+        return toStatus;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+}
@@ -0,0 +1,69 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.ArchivedTaskEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий архивных задач.
+ * Наружу архив доступен только для чтения; единственный метод записи — перенос задач из таблицы tasks.
+ * Поэтому репозиторий расширяет Repository, а не JpaRepository, и не открывает save/delete.
+ */
+public interface ArchivedTaskRepository extends Repository<ArchivedTaskEntity, Long> {
+
+    /**
+     * Поиск архивной задачи по id.
+     *
+     * @param id идентификатор задачи
+     * @return задача, если она есть в архиве
+     */
+    Optional<ArchivedTaskEntity> findById(Long id);
+
+    /**
+     * Страница архивных задач по ключу: задачи с id больше курсора в порядке возрастания id.
+     *
+     * @param id    курсор — id последней задачи предыдущей страницы (0 для первой страницы)
+     * @param limit размер страницы
+     * @return задачи страницы
+     */
+    List<ArchivedTaskEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Страница архивных задач с заданным статусом по ключу.
+     *
+     * @param statusTask статус задач
+     * @param id         курсор — id последней задачи предыдущей страницы (0 для первой страницы)
+     * @param limit      размер страницы
+     * @return задачи страницы
+     */
+    List<ArchivedTaskEntity> findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id, Limit limit);
+
+    /**
+     * @return число задач в архиве
+     */
+    long count();
+
+    /**
+     * Копирование задач из таблицы tasks в архив одним INSERT ... SELECT.
+     * Удаление из tasks выполняется отдельно в той же транзакции.
+     *
+     * @param ids        идентификаторы переносимых задач
+     * @param archivedAt время архивирования
+     * @return число скопированных строк
+     */
+    @Modifying
+    @Query(value = "INSERT INTO archived_tasks (id, name_task, status_task, status_changed_at, due_at, archived_at) "
+            + "SELECT id, name_task, status_task, status_changed_at, due_at, :archivedAt FROM tasks WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyFromTasks(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
+}
@@ -0,0 +1,47 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.DeadlineNoticeEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий отправленных уведомлений о сроках задач.
+ */
+public interface DeadlineNoticeRepository extends JpaRepository<DeadlineNoticeEntity, String> {
+
+    /**
+     * Какие из уведомлений уже отправлены (проверка пачкой при загрузке сроков).
+     *
+     * @param ids ключи уведомлений
+     * @return отправленные ключи из переданных
+     */
+    @Query("select n.id from DeadlineNoticeEntity n where n.id in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Удаление уведомлений задачи (одним DELETE).
+     *
+     * @param taskId идентификатор задачи
+     * @return число удалённых строк
+     */
+    @Modifying
+    @Query("delete from DeadlineNoticeEntity n where n.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") long taskId);
+
+    /**
+     * Удаление уведомлений о сроках, прошедших раньше cutoff.
+     *
+     * @param cutoff граница срока
+     * @return число удалённых строк
+     */
+    @Modifying
+    @Query("delete from DeadlineNoticeEntity n where n.dueAt < :cutoff")
+    int deleteByDueAtBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,70 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий ключей идемпотентности.
+ * Перехват, завершение и освобождение ключа — условные UPDATE и DELETE: они меняют строку, только пока запрос
+ * по ней не завершён, поэтому узлы не перезаписывают чужие сохранённые ответы.
+ */
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    /**
+     * Перехват ключа, чей узел не завершил запрос за срок удержания (например, упал).
+     *
+     * @param id    ключ
+     * @param now   текущее время
+     * @param until до какого момента удерживать ключ
+     * @return 1, если ключ перехвачен, иначе 0
+     */
+    @Modifying
+    @Query("update IdempotencyKeyEntity k set k.lockedUntil = :until "
+            + "where k.id = :id and k.status is null and k.lockedUntil <= :now and k.expiresAt > :now")
+    int takeOver(@Param("id") String id, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Сохранение ответа на выполненный запрос.
+     *
+     * @return 1, если ответ сохранён, иначе 0 (ключ уже удалён или завершён)
+     */
+    @Modifying
+    @Query("update IdempotencyKeyEntity k set k.status = :status, k.contentType = :contentType, k.body = :body "
+            + "where k.id = :id and k.status is null")
+    int complete(@Param("id") String id, @Param("status") int status,
+                 @Param("contentType") String contentType, @Param("body") byte[] body);
+
+    /**
+     * Удаление незавершённого ключа: запрос не удался, повтор должен выполниться заново.
+     *
+     * @return 1, если ключ удалён, иначе 0
+     */
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.id = :id and k.status is null")
+    int release(@Param("id") String id);
+
+    /**
+     * Удаление ключа с истёкшим сроком хранения.
+     *
+     * @return 1, если ключ удалён, иначе 0
+     */
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.id = :id and k.expiresAt <= :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") Instant now);
+
+    /**
+     * Удаление всех ключей с истёкшим сроком хранения.
+     *
+     * @param now текущее время
+     * @return число удалённых ключей
+     */
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,25 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.ImportErrorEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Репозиторий отчёта об ошибках импорта.
+ */
+public interface ImportErrorRepository extends JpaRepository<ImportErrorEntity, Long> {
+
+    /**
+     * Страница ошибок задания по номеру строки.
+     *
+     * @param jobId      идентификатор задания
+     * @param lineNumber курсор — номер строки последней ошибки предыдущей страницы (0 для первой страницы)
+     * @param limit      размер страницы
+     * @return ошибки в порядке номеров строк
+     */
+    List<ImportErrorEntity> findByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(String jobId, long lineNumber,
+                                                                                  Limit limit);
+}
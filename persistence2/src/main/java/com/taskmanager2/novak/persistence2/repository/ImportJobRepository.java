@@ -0,0 +1,64 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.common2.enums.ImportStatus;
+import com.taskmanager2.novak.persistence2.entity.ImportJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий заданий импорта задач.
+ * Изменение состояния и прогресса — условные UPDATE, без загрузки сущности в контекст.
+ */
+public interface ImportJobRepository extends JpaRepository<ImportJobEntity, String> {
+
+    /**
+     * Захват задания для продолжения: проходит, если задание прервано (FAILED)
+     * или числится выполняемым, но не обновлялось с момента staleBefore (узел или соединение пропали).
+     *
+     * @param id          идентификатор задания
+     * @param now         текущее время
+     * @param staleBefore граница, раньше которой выполняемое задание считается зависшим
+     * @return 1, если задание захвачено, иначе 0
+     */
+    @Modifying
+    @Query("update ImportJobEntity j set j.status = com.taskmanager2.novak.common2.enums.ImportStatus.RUNNING, "
+            + "j.updatedAt = :now, j.message = null where j.id = :id "
+            + "and (j.status = com.taskmanager2.novak.common2.enums.ImportStatus.FAILED "
+            + "or (j.status = com.taskmanager2.novak.common2.enums.ImportStatus.RUNNING and j.updatedAt < :staleBefore))")
+    int claim(@Param("id") String id, @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    /**
+     * Продвижение прогресса после записи очередной пачки.
+     *
+     * @param id             идентификатор задания
+     * @param linesProcessed новое число обработанных строк файла
+     * @param imported       сколько задач создано в пачке
+     * @param failed         сколько строк отклонено в пачке
+     * @param now            текущее время
+     * @return число изменённых строк
+     */
+    @Modifying
+    @Query("update ImportJobEntity j set j.linesProcessed = :linesProcessed, j.rowsImported = j.rowsImported + :imported, "
+            + "j.rowsFailed = j.rowsFailed + :failed, j.updatedAt = :now where j.id = :id")
+    int advance(@Param("id") String id, @Param("linesProcessed") long linesProcessed, @Param("imported") long imported,
+                @Param("failed") long failed, @Param("now") Instant now);
+
+    /**
+     * Завершение задания.
+     *
+     * @param id      идентификатор задания
+     * @param status  итоговое состояние
+     * @param message причина прерывания или null
+     * @param now     текущее время
+     * @return число изменённых строк
+     */
+    @Modifying
+    @Query("update ImportJobEntity j set j.status = :status, j.message = :message, j.updatedAt = :now where j.id = :id")
+    int finish(@Param("id") String id, @Param("status") ImportStatus status, @Param("message") String message,
+               @Param("now") Instant now);
+}
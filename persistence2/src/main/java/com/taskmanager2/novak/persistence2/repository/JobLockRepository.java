@@ -0,0 +1,44 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.JobLockEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий блокировок фоновых заданий.
+ * Захват и освобождение — условные UPDATE: база сама гарантирует, что из нескольких узлов строку изменит только один.
+ */
+public interface JobLockRepository extends JpaRepository<JobLockEntity, String> {
+
+    /**
+     * Захват (или продление) блокировки, если она свободна, просрочена или уже принадлежит этому узлу.
+     *
+     * @param name  имя задания
+     * @param owner идентификатор узла
+     * @param now   текущее время
+     * @param until до какого момента удерживать блокировку
+     * @return 1, если блокировка захвачена, иначе 0
+     */
+    @Modifying
+    @Query("update JobLockEntity l set l.lockedUntil = :until, l.lockedBy = :owner "
+            + "where l.name = :name and (l.lockedUntil <= :now or l.lockedBy = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Освобождение блокировки, если она принадлежит этому узлу.
+     *
+     * @param name  имя задания
+     * @param owner идентификатор узла
+     * @param now   текущее время (становится новым сроком, то есть блокировка сразу свободна)
+     * @return 1, если блокировка снята, иначе 0
+     */
+    @Modifying
+    @Query("update JobLockEntity l set l.lockedUntil = :now where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+}
@@ -0,0 +1,60 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskAttachmentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий вложений задач.
+ * Содержимое вложений хранится по хэшу, поэтому здесь же — проверки, ссылается ли ещё какое-нибудь вложение на хэш.
+ */
+public interface TaskAttachmentRepository extends JpaRepository<TaskAttachmentEntity, Long> {
+
+    /**
+     * Вложения задачи в порядке загрузки.
+     *
+     * @param taskId идентификатор задачи
+     * @return вложения задачи
+     */
+    List<TaskAttachmentEntity> findByTaskIdOrderByIdAsc(long taskId);
+
+    /**
+     * Хэши содержимого вложений задачи (с повторами).
+     *
+     * @param taskId идентификатор задачи
+     * @return хэши SHA-256
+     */
+    @Query("select a.sha256 from TaskAttachmentEntity a where a.taskId = :taskId")
+    List<String> findHashesByTaskId(@Param("taskId") long taskId);
+
+    /**
+     * Удаление всех вложений задачи (одним DELETE).
+     *
+     * @param taskId идентификатор задачи
+     * @return число удалённых строк
+     */
+    @Modifying
+    @Query("delete from TaskAttachmentEntity a where a.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") long taskId);
+
+    /**
+     * @param sha256 хэш содержимого
+     * @return true, если на содержимое ссылается хотя бы одно вложение
+     */
+    boolean existsBySha256(String sha256);
+
+    /**
+     * Какие из хэшей ещё используются вложениями.
+     *
+     * @param hashes проверяемые хэши
+     * @return используемые хэши из переданных
+     */
+    @Query("select distinct a.sha256 from TaskAttachmentEntity a where a.sha256 in :hashes")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -0,0 +1,44 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskChangeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Репозиторий журнала изменений задач.
+ * Журнал читается по возрастанию id от последней прочитанной записи и периодически очищается по времени.
+ */
+public interface TaskChangeRepository extends JpaRepository<TaskChangeEntity, Long> {
+
+    /**
+     * Записи журнала после заданной в порядке возрастания id.
+     *
+     * @param id    id последней прочитанной записи
+     * @param limit максимум записей
+     * @return записи журнала
+     */
+    List<TaskChangeEntity> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * @return id последней записи журнала или 0, если журнал пуст
+     */
+    @Query("select coalesce(max(c.id), 0) from TaskChangeEntity c")
+    long findMaxId();
+
+    /**
+     * Удаление записей старше заданного момента.
+     *
+     * @param cutoff граница времени
+     * @return число удалённых записей
+     */
+    @Modifying
+    @Query("delete from TaskChangeEntity c where c.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
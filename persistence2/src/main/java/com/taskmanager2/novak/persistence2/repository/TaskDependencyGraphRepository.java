@@ -0,0 +1,34 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyGraphEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий версии графа зависимостей.
+ */
+public interface TaskDependencyGraphRepository extends JpaRepository<TaskDependencyGraphEntity, Integer> {
+
+    /**
+     * Строка версии с блокировкой до конца транзакции вызывающего (SELECT ... FOR UPDATE).
+     *
+     * @param id идентификатор строки
+     * @return строка версии, если она уже создана
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select g from TaskDependencyGraphEntity g where g.id = :id")
+    Optional<TaskDependencyGraphEntity> findForUpdate(@Param("id") int id);
+
+    /**
+     * @param id идентификатор строки
+     * @return текущая версия графа без блокировки
+     */
+    @Query("select g.version from TaskDependencyGraphEntity g where g.id = :id")
+    Optional<Long> findVersion(@Param("id") int id);
+}
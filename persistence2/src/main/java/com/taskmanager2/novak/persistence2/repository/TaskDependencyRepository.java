@@ -0,0 +1,61 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий зависимостей между задачами.
+ */
+public interface TaskDependencyRepository extends JpaRepository<TaskDependencyEntity, Long>,
+        TaskDependencyRepositoryCustom {
+
+    /**
+     * Страница зависимостей по ключу (загрузка графа в память).
+     *
+     * @param id    курсор
+     * @param limit размер страницы
+     * @return зависимости с id больше курсора в порядке возрастания id
+     */
+    List<TaskDependencyEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * @param blockerId задача, которую нужно завершить раньше
+     * @param blockedId задача, которая её ждёт
+     * @return зависимость, если она есть
+     */
+    Optional<TaskDependencyEntity> findByBlockerIdAndBlockedId(long blockerId, long blockedId);
+
+    /**
+     * Задачи, которых ждёт задача.
+     *
+     * @param blockedId идентификатор задачи
+     * @return зависимости в порядке добавления
+     */
+    List<TaskDependencyEntity> findByBlockedIdOrderByIdAsc(long blockedId);
+
+    /**
+     * Задачи, которые ждут задачу.
+     *
+     * @param blockerId идентификатор задачи
+     * @return зависимости в порядке добавления
+     */
+    List<TaskDependencyEntity> findByBlockerIdOrderByIdAsc(long blockerId);
+
+    /**
+     * Удаление всех зависимостей задачи с обеих сторон (одним DELETE).
+     *
+     * @param taskId идентификатор задачи
+     * @return число удалённых строк
+     */
+    @Modifying
+    @Query("delete from TaskDependencyEntity d where d.blockerId = :taskId or d.blockedId = :taskId")
+    int deleteByTaskId(@Param("taskId") long taskId);
+}
@@ -0,0 +1,19 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+/**
+ * Поиск пути по графу зависимостей в базе данных.
+ */
+public interface TaskDependencyRepositoryCustom {
+
+    /**
+     * Есть ли путь по рёбрам blocker → blocked от задачи from до задачи to.
+     * Обход в ширину: на каждом шаге одним запросом читаются преемники всей границы обхода (пачками ids в IN).
+     * Вызывается под блокировкой графа, чтобы рёбра не менялись во время обхода.
+     *
+     * @param from начальная задача
+     * @param to   искомая задача
+     * @return true, если to достижима из from (в том числе from == to)
+     */
+    boolean pathExists(long from, long to);
+}
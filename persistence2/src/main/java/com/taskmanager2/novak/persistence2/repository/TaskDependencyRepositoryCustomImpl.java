@@ -0,0 +1,55 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Реализация поиска пути по графу зависимостей (подключается к TaskDependencyRepository по имени класса).
+ * Запросы выполняются в транзакции вызывающего.
+ */
+class TaskDependencyRepositoryCustomImpl implements TaskDependencyRepositoryCustom {
+
+    // Задач границы обхода в одном запросе (параметров в IN)
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    private static final String SUCCESSORS = "select distinct d.blockedId from TaskDependencyEntity d "
+            + "where d.blockerId in :ids";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean pathExists(long from, long to) {
+        if (from == to) {
+            return true;
+        }
+        Set<Long> visited = new HashSet<>();
+        visited.add(from);
+        List<Long> frontier = List.of(from);
+        while (!frontier.isEmpty()) {
+            List<Long> next = new ArrayList<>();
+            for (int start = 0; start < frontier.size(); start += IDS_PER_STATEMENT) {
+                List<Long> ids = frontier.subList(start, Math.min(start + IDS_PER_STATEMENT, frontier.size()));
+                List<Long> successors = entityManager.createQuery(SUCCESSORS, Long.class)
+                        .setParameter("ids", ids)
+                        .getResultList();
+                for (Long successor : successors) {
+                    if (successor == to) {
+                        return true;
+                    }
+                    if (visited.add(successor)) {
+                        next.add(successor);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return false;
+    }
+}
@@ -8,8 +8,16 @@ import com.taskmanager2.novak.persistence2.entity.TaskEntity;
 import com.taskmanager2.novak.common2.enums.TaskStatus;
 
 // Импорт JpaRepository для работы с базой данных через Spring Data JPA
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,4 +46,96 @@ public interface TaskRepository extends JpaRepository<TaskEntity, Long> {
      * @return Список задач, соответствующих переданному статусу.
      */
     List<TaskEntity> findByStatusTask(TaskStatus statusTask);
+
+    /**
+     * Страница задач по ключу (keyset pagination): задачи с id больше курсора в порядке возрастания id.
+     * В отличие от OFFSET, стоимость запроса не растёт с номером страницы — поиск идёт по первичному ключу.
+     *
+     * @param id    курсор — id последней задачи предыдущей страницы (0 для первой страницы)
+     * @param limit размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Страница задач с заданным статусом по ключу.
+     *
+     * @param statusTask статус задач
+     * @param id         курсор — id последней задачи предыдущей страницы (0 для первой страницы)
+     * @param limit      размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id, Limit limit);
+
+    /**
+     * Страница задач со сроком выполнения и статусом, отличным от заданного, по ключу.
+     * Поиск идёт по первичному ключу; вызывается один раз при запуске (загрузка сроков), а не периодически.
+     *
+     * @param statusTask исключаемый статус (завершённые задачи сроков не ждут)
+     * @param id         курсор — id последней задачи предыдущей страницы (0 для первой страницы)
+     * @param limit      размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id,
+                                                                                  Limit limit);
+
+    /**
+     * Количество задач с заданным статусом.
+     *
+     * @param statusTask статус задач
+     * @return число задач
+     */
+    long countByStatusTask(TaskStatus statusTask);
+
+    /**
+     * Пачка задач-кандидатов на архивирование: задачи с заданным статусом, не менявшие его с момента cutoff.
+     * Задачи без времени смены статуса (созданные до появления столбца) считаются давними.
+     * Задачи с вложениями не архивируются: архив вложений не хранит, а строки task_attachments архивной задачи
+     * были бы недоступны через API и держали бы файлы содержимого в хранилище.
+     * Строки блокируются (SELECT ... FOR UPDATE) до конца транзакции переноса, чтобы их не изменили между
+     * выборкой и удалением.
+     *
+     * @param statusTask статус архивируемых задач
+     * @param cutoff     граница давности смены статуса
+     * @param limit      размер пачки
+     * @return задачи пачки в порядке возрастания id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from TaskEntity t where t.statusTask = :status "
+            + "and (t.statusChangedAt is null or t.statusChangedAt < :cutoff) "
+            + "and not exists (select a.id from TaskAttachmentEntity a where a.taskId = t.id) order by t.id")
+    List<TaskEntity> findArchiveCandidates(@Param("status") TaskStatus statusTask, @Param("cutoff") Instant cutoff,
+                                           Limit limit);
+
+    /**
+     * Пачка id задач для массового перехода между статусами: задачи с заданным статусом, id в диапазоне
+     * (afterId, maxId] и названием по шаблону LIKE (спецсимволы экранируются '!').
+     * Строки блокируются (SELECT ... FOR UPDATE) до конца транзакции, чтобы их не изменили до UPDATE.
+     *
+     * @param statusTask  текущий статус задач
+     * @param afterId     нижняя граница id (не включается)
+     * @param maxId       верхняя граница id (включается)
+     * @param namePattern шаблон названия
+     * @param limit       размер пачки
+     * @return id задач пачки в порядке возрастания
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.id from TaskEntity t where t.statusTask = :status and t.id > :afterId and t.id <= :maxId "
+            + "and t.nameTask like :namePattern escape '!' order by t.id")
+    List<Long> findIdsForTransition(@Param("status") TaskStatus statusTask, @Param("afterId") long afterId,
+                                    @Param("maxId") long maxId, @Param("namePattern") String namePattern,
+                                    Limit limit);
+
+    /**
+     * Смена статуса задач одним UPDATE.
+     *
+     * @param ids        идентификаторы задач
+     * @param statusTask новый статус
+     * @param changedAt  время смены статуса
+     * @return число изменённых строк
+     */
+    @Modifying
+    @Query("update TaskEntity t set t.statusTask = :status, t.statusChangedAt = :changedAt where t.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") TaskStatus statusTask,
+                     @Param("changedAt") Instant changedAt);
 }
@@ -0,0 +1,33 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskTransitionEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий журнала переходов задач между статусами.
+ * Журнал только дополняется, поэтому методов изменения и удаления нет; вставка — пачками через insertAll.
+ */
+public interface TaskTransitionRepository extends Repository<TaskTransitionEntity, Long>,
+        TaskTransitionRepositoryCustom {
+
+    /**
+     * Записи журнала после заданной в порядке возрастания id.
+     *
+     * @param id    id последней прочитанной записи
+     * @param limit максимум записей
+     * @return записи журнала
+     */
+    List<TaskTransitionEntity> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * История переходов одной задачи.
+     *
+     * @param taskId идентификатор задачи
+     * @return переходы в порядке записи
+     */
+    List<TaskTransitionEntity> findByTaskIdOrderByIdAsc(long taskId);
+}
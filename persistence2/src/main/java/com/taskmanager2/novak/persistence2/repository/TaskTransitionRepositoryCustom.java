@@ -0,0 +1,22 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskTransitionEntity;
+
+import java.util.List;
+
+/**
+ * Пакетная вставка в журнал переходов.
+ */
+public interface TaskTransitionRepositoryCustom {
+
+    /**
+     * Вставка записей многострочными INSERT ... VALUES (по нескольку сотен строк в запросе).
+     * Id записей генерирует база (IDENTITY), поэтому Hibernate такие вставки не группирует сам,
+     * а переход тысяч задач одной транзакцией давал бы тысячи отдельных запросов.
+     * Сущности после вставки не получают id и в контекст постоянства не попадают.
+     *
+     * @param transitions записи журнала
+     */
+    void insertAll(List<TaskTransitionEntity> transitions);
+}
@@ -0,0 +1,51 @@
+// Пакет, содержащий репозитории для работы с базой данных
+package com.taskmanager2.novak.persistence2.repository;
+
+import com.taskmanager2.novak.persistence2.entity.TaskTransitionEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+/**
+ * Реализация пакетной вставки журнала переходов (подключается к TaskTransitionRepository по имени класса).
+ * Запросы выполняются в транзакции вызывающего.
+ */
+class TaskTransitionRepositoryCustomImpl implements TaskTransitionRepositoryCustom {
+
+    // Строк в одном INSERT (5 параметров на строку)
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT = "INSERT INTO task_transitions "
+            + "(task_id, from_status, to_status, changed_at, principal) VALUES ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<TaskTransitionEntity> transitions) {
+        for (int from = 0; from < transitions.size(); from += ROWS_PER_STATEMENT) {
+            List<TaskTransitionEntity> rows = transitions.subList(from,
+                    Math.min(from + ROWS_PER_STATEMENT, transitions.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT.length() + rows.size() * 28).append(INSERT);
+            for (int i = 0; i < rows.size(); i++) {
+                int p = i * 5;
+                sql.append(i == 0 ? "" : ",").append("(?").append(p + 1).append(",?").append(p + 2)
+                        .append(",?").append(p + 3).append(",?").append(p + 4).append(",?").append(p + 5).append(')');
+            }
+            Query query = entityManager.createNativeQuery(sql.toString());
+            for (int i = 0; i < rows.size(); i++) {
+                TaskTransitionEntity row = rows.get(i);
+                int p = i * 5;
+                query.setParameter(p + 1, row.getTaskId());
+                query.setParameter(p + 2, row.getFromStatus() == null ? null : row.getFromStatus().name());
+                query.setParameter(p + 3, row.getToStatus() == null ? null : row.getToStatus().name());
+                query.setParameter(p + 4, row.getChangedAt());
+                query.setParameter(p + 5, row.getPrincipal());
+            }
+            query.executeUpdate();
+        }
+    }
+}
@@ -6,10 +6,12 @@ import com.taskmanager2.novak.persistence2.entity.UserEntity;
 
 // Импорт JpaRepository для работы с базой данных через Spring Data JPA
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 // Импорт аннотации @Repository для пометки интерфейса как Spring Bean
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -51,4 +53,29 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
      * @return true, если пользователь с таким именем существует, иначе false.
      */
     boolean existsByUsername(String username); // Добавляем этот метод
+
+    /**
+     * Имена всех пользователей (без загрузки сущностей) — для заполнения фильтра имён при запуске.
+     *
+     * @return список имён пользователей.
+     */
+    @Query("select u.username from UserEntity u")
+    List<String> findAllUsernames();
+
+    /**
+     * Краткие данные всех пользователей (id, имя, роль) без хеша пароля — для каталога пользователей в памяти.
+     *
+     * @return список проекций пользователей.
+     */
+    List<UserSummaryView> findAllProjectedBy();
+
+    /**
+     * Версия таблицы users одним агрегатным запросом — по ней каталог пользователей в памяти замечает изменения,
+     * сделанные на других узлах.
+     *
+     * @return число пользователей, наибольший id и сумма id.
+     */
+    @Query("select count(u) as count, coalesce(max(u.id), 0) as maxId, coalesce(sum(u.id), 0) as idSum"
+            + " from UserEntity u")
+    UserTableVersion findTableVersion();
 }
@@ -0,0 +1,14 @@
+package com.taskmanager2.novak.persistence2.repository;
+
+/**
+ * Проекция пользователя без пароля: Spring Data выбирает из таблицы users только эти столбцы.
+ */
+public interface UserSummaryView {
+
+    Long getId();
+
+    String getUsername();
+
+    // Роль с префиксом ROLE_, как она хранится в users.role
+    String getRole();
+}
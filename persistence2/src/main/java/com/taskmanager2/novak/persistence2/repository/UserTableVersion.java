@@ -0,0 +1,14 @@
+package com.taskmanager2.novak.persistence2.repository;
+
+/**
+ * Версия таблицы users: число пользователей, наибольший id и сумма id.
+ * Ключи IDENTITY только растут, поэтому любое добавление или удаление пользователя меняет хотя бы одно из чисел.
+ */
+public interface UserTableVersion {
+
+    long getCount();
+
+    long getMaxId();
+
+    long getIdSum();
+}
@@ -0,0 +1,127 @@
+// Пакет, содержащий абстракцию хранилища задач
+package com.taskmanager2.novak.persistence2.store;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище задач в базе данных через Spring Data JPA (используется по умолчанию).
+ * Все операции делегируются TaskRepository и выполняются в транзакциях вызывающего кода.
+ */
+@Component
+@Profile("!embedded")
+public class JpaTaskStore implements TaskStore {
+
+    private final TaskRepository taskRepository;
+
+    public JpaTaskStore(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    public TaskEntity save(TaskEntity task) {
+        return taskRepository.save(task);
+    }
+
+    @Override
+    public List<TaskEntity> saveAll(List<TaskEntity> tasks) {
+        return taskRepository.saveAll(tasks);
+    }
+
+    @Override
+    public Optional<TaskEntity> findById(Long id) {
+        return taskRepository.findById(id);
+    }
+
+    @Override
+    public List<TaskEntity> findAllById(Iterable<Long> ids) {
+        return taskRepository.findAllById(ids);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return taskRepository.existsById(id);
+    }
+
+    @Override
+    public List<TaskEntity> findAll() {
+        return taskRepository.findAll();
+    }
+
+    @Override
+    public List<TaskEntity> findByStatusTask(TaskStatus statusTask) {
+        return taskRepository.findByStatusTask(statusTask);
+    }
+
+    @Override
+    public List<TaskEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+        return taskRepository.findByIdGreaterThanOrderByIdAsc(id, limit);
+    }
+
+    @Override
+    public List<TaskEntity> findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id, Limit limit) {
+        return taskRepository.findByStatusTaskAndIdGreaterThanOrderByIdAsc(statusTask, id, limit);
+    }
+
+    @Override
+    public List<TaskEntity> findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id,
+                                                                                         Limit limit) {
+        return taskRepository.findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(statusTask, id, limit);
+    }
+
+    @Override
+    public long count() {
+        return taskRepository.count();
+    }
+
+    @Override
+    public long countByStatusTask(TaskStatus statusTask) {
+        return taskRepository.countByStatusTask(statusTask);
+    }
+
+    @Override
+    public List<Long> transitionStatus(TaskStatus from, TaskStatus to, long afterId, long maxId, String namePrefix,
+                                       int limit, Instant changedAt) {
+        // Выборка с блокировкой строк и один UPDATE по списку id — в транзакции вызывающего
+        List<Long> ids = taskRepository.findIdsForTransition(from, afterId, maxId, likePrefix(namePrefix),
+                Limit.of(limit));
+        if (!ids.isEmpty()) {
+            taskRepository.updateStatus(ids, to, changedAt);
+        }
+        return ids;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        taskRepository.deleteById(id);
+    }
+
+    @Override
+    public void delete(TaskEntity task) {
+        taskRepository.delete(task);
+    }
+
+    // Шаблон LIKE для начала названия: %, _ и сам символ экранирования ! в префиксе экранируются
+    private static String likePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return "%";
+        }
+        StringBuilder pattern = new StringBuilder(prefix.length() + 8);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '%' || c == '_' || c == '!') {
+                pattern.append('!');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
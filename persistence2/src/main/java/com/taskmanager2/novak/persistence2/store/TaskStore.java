@@ -0,0 +1,142 @@
+// Пакет, содержащий абстракцию хранилища задач
+package com.taskmanager2.novak.persistence2.store;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище задач — операции, на которые опирается сервисный слой.
+ * Реализации выбираются профилем Spring:
+ * по умолчанию — JpaTaskStore (таблица tasks через TaskRepository),
+ * в профиле embedded — встроенное хранилище из модуля storage2 (память + журнал упреждающей записи).
+ * Сигнатуры повторяют методы TaskRepository, чтобы JPA-реализация оставалась простым делегированием.
+ *
+ * Возвращаемые задачи — отдельные объекты: изменения в них сохраняются только вызовом save.
+ */
+public interface TaskStore {
+
+    /**
+     * Сохранение новой или изменённой задачи.
+     *
+     * @param task задача; новой задаче (id == null) присваивается id
+     * @return сохранённая задача
+     */
+    TaskEntity save(TaskEntity task);
+
+    /**
+     * Сохранение нескольких задач.
+     *
+     * @param tasks задачи
+     * @return сохранённые задачи в том же порядке
+     */
+    List<TaskEntity> saveAll(List<TaskEntity> tasks);
+
+    /**
+     * @param id идентификатор задачи
+     * @return задача, если она есть
+     */
+    Optional<TaskEntity> findById(Long id);
+
+    /**
+     * Задачи по набору id (отсутствующие пропускаются, порядок не гарантируется).
+     *
+     * @param ids идентификаторы задач
+     * @return найденные задачи
+     */
+    List<TaskEntity> findAllById(Iterable<Long> ids);
+
+    /**
+     * @param id идентификатор задачи
+     * @return true, если задача есть
+     */
+    boolean existsById(Long id);
+
+    /**
+     * @return все задачи
+     */
+    List<TaskEntity> findAll();
+
+    /**
+     * @param statusTask статус
+     * @return задачи с заданным статусом
+     */
+    List<TaskEntity> findByStatusTask(TaskStatus statusTask);
+
+    /**
+     * Страница задач по ключу: задачи с id больше курсора в порядке возрастания id.
+     *
+     * @param id    курсор
+     * @param limit размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Страница задач с заданным статусом по ключу.
+     *
+     * @param statusTask статус
+     * @param id         курсор
+     * @param limit      размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id, Limit limit);
+
+    /**
+     * Страница задач со сроком выполнения и статусом, отличным от заданного, по ключу
+     * (по ней подсистема сроков загружает ожидающие сроки при запуске).
+     *
+     * @param statusTask исключаемый статус
+     * @param id         курсор
+     * @param limit      размер страницы
+     * @return задачи страницы
+     */
+    List<TaskEntity> findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id,
+                                                                                  Limit limit);
+
+    /**
+     * @return число задач
+     */
+    long count();
+
+    /**
+     * @param statusTask статус
+     * @return число задач с заданным статусом
+     */
+    long countByStatusTask(TaskStatus statusTask);
+
+    /**
+     * Перевод пачки задач из одного статуса в другой по условию: задачи со статусом from, id в диапазоне
+     * (afterId, maxId] и названием, начинающимся с namePrefix. Берутся первые limit таких задач в порядке id.
+     * Выбранные задачи до конца транзакции вызывающего не может изменить никто другой.
+     *
+     * @param from       текущий статус задач
+     * @param to         новый статус
+     * @param afterId    нижняя граница id (не включается)
+     * @param maxId      верхняя граница id (включается)
+     * @param namePrefix начало названия или null, если название не важно
+     * @param limit      размер пачки
+     * @param changedAt  время смены статуса для всех задач пачки
+     * @return id переведённых задач в порядке возрастания
+     */
+    List<Long> transitionStatus(TaskStatus from, TaskStatus to, long afterId, long maxId, String namePrefix,
+                                int limit, Instant changedAt);
+
+    /**
+     * Удаление задачи по id; отсутствие задачи не считается ошибкой.
+     *
+     * @param id идентификатор задачи
+     */
+    void deleteById(Long id);
+
+    /**
+     * Удаление задачи.
+     *
+     * @param task задача
+     */
+    void delete(TaskEntity task);
+}
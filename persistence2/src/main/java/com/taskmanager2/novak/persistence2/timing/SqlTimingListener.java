@@ -0,0 +1,34 @@
+package com.taskmanager2.novak.persistence2.timing;
+
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate: время выполнения SQL-запросов и пакетов добавляется к фазе SQL
+ * замера текущего запроса (RequestTimings), а число выполнений — к счётчику запросов.
+ * Подготовка выражения не учитывается: драйвер MySQL по умолчанию готовит его на клиенте, без обращения к серверу.
+ * Подключается свойством hibernate.session.events.auto, Hibernate создаёт экземпляр на каждую сессию.
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestTimings.begin(TimingPhase.SQL);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.end(TimingPhase.SQL);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestTimings.begin(TimingPhase.SQL);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimings.end(TimingPhase.SQL);
+    }
+}
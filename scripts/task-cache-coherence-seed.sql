@@ -0,0 +1,4 @@
+-- Пользователь-директор для проверки согласованности кэша задач (пароль: coherence).
+-- Выполняется только сценарием task-cache-coherence.sh на файловой H2.
+MERGE INTO users (username, password, role) KEY (username)
+VALUES ('coherence', '$2a$10$Gg04XGoeF0T7UN/AcdbH8.zcqF3JELj/WNKJmjfRpvhaeLlqqz2Vq', 'ROLE_DIRECTOR');
@@ -0,0 +1,143 @@
+#!/usr/bin/env bash
+# Проверка согласованности кэша списков задач между двумя узлами.
+#
+# Запускает два экземпляра app2 на одной базе, прогревает кэш узла B, меняет задачи через узел A
+# и ждёт, пока узел B увидит каждое изменение (через журнал task_changes). Печатает задержку
+# распространения и завершается с ошибкой, если изменение не дошло за отведённое время.
+#
+# По умолчанию база — файловая H2 в режиме AUTO_SERVER (оба процесса открывают один файл),
+# а директор coherence/coherence создаётся скриптом task-cache-coherence-seed.sql.
+# Для MySQL задайте DB_URL, DB_USER, DB_PASSWORD и учётную запись директора APP_USER, APP_PASSWORD.
+#
+# Перед запуском соберите приложение: mvn -B install -DskipTests
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${JAR:-$ROOT/app2/target/app2-0.0.1-SNAPSHOT.jar}"
+WORK="${WORK:-$(mktemp -d)}"
+PORT_A="${PORT_A:-18081}"
+PORT_B="${PORT_B:-18082}"
+POLL_MS="${POLL_MS:-500}"
+# Сколько ждать распространения одного изменения (мс)
+DEADLINE_MS="${DEADLINE_MS:-$((POLL_MS * 4 + 2000))}"
+
+if [[ -z "${DB_URL:-}" ]]; then
+    DB_URL="jdbc:h2:file:$WORK/h2/taskmanager2;AUTO_SERVER=TRUE"
+    DB_USER="sa"
+    DB_PASSWORD=""
+    SEED=(--spring.jpa.defer-datasource-initialization=true
+          --spring.sql.init.mode=always
+          "--spring.sql.init.data-locations=file:$ROOT/scripts/task-cache-coherence-seed.sql")
+    APP_USER="coherence"
+    APP_PASSWORD="coherence"
+else
+    SEED=()
+    : "${APP_USER:?APP_USER (director or admin) is required with DB_URL}"
+    : "${APP_PASSWORD:?APP_PASSWORD is required with DB_URL}"
+fi
+
+PIDS=()
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT
+
+start_node() {
+    local name="$1" port="$2"
+    shift 2
+    java -jar "$JAR" \
+        "--server.port=$port" \
+        "--spring.datasource.url=$DB_URL" \
+        "--spring.datasource.username=$DB_USER" \
+        "--spring.datasource.password=$DB_PASSWORD" \
+        "--taskmanager.audit.dir=$WORK/audit-$name" \
+        "--taskmanager.archive.enabled=false" \
+        "--taskmanager.task-cache.poll-interval-ms=$POLL_MS" \
+        "--logging.level.root=WARN" \
+        "$@" >"$WORK/node-$name.log" 2>&1 &
+    PIDS+=("$!")
+}
+
+wait_ready() {
+    local port="$1"
+    for _ in $(seq 1 120); do
+        if curl -s -o /dev/null "http://localhost:$port/login"; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "Node on port $port did not start, see logs in $WORK" >&2
+    exit 1
+}
+
+login() {
+    local port="$1" jar="$2"
+    curl -s -o /dev/null -c "$jar" -d "username=$APP_USER&password=$APP_PASSWORD" "http://localhost:$port/login"
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+# Ждёт, пока GET path на узле B станет (или перестанет быть) содержащим строку
+await_on_b() {
+    local description="$1" path="$2" needle="$3" expect="$4"
+    local started
+    started=$(now_ms)
+    while true; do
+        local body found=absent
+        body=$(curl -s -b "$WORK/cookies-b" "http://localhost:$PORT_B$path")
+        if [[ "$body" == *"$needle"* ]]; then
+            found=present
+        fi
+        local elapsed=$(( $(now_ms) - started ))
+        if [[ "$found" == "$expect" ]]; then
+            echo "OK   $description: visible on node B after ${elapsed} ms"
+            return 0
+        fi
+        if (( elapsed > DEADLINE_MS )); then
+            echo "FAIL $description: not visible on node B after ${elapsed} ms" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+}
+
+echo "Work directory: $WORK"
+# Узел A стартует первым и создаёт схему; B запускается после, чтобы не гоняться за DDL
+start_node a "$PORT_A" "${SEED[@]}"
+wait_ready "$PORT_A"
+start_node b "$PORT_B"
+wait_ready "$PORT_B"
+
+login "$PORT_A" "$WORK/cookies-a"
+login "$PORT_B" "$WORK/cookies-b"
+
+name="coherence-$(date +%s)-$RANDOM"
+
+# Прогрев кэша узла B: все задачи и выборки по статусам
+for path in /api/tasks "/api/tasks/filter?status=TO_DO" "/api/tasks/filter?status=DONE"; do
+    curl -s -o /dev/null -b "$WORK/cookies-b" "http://localhost:$PORT_B$path"
+    curl -s -o /dev/null -b "$WORK/cookies-b" "http://localhost:$PORT_B$path"
+done
+
+created=$(curl -s -b "$WORK/cookies-a" -d "nameTask=$name&statusTask=TO_DO" "http://localhost:$PORT_A/api/tasks")
+id=$(grep -o '"id":[0-9]*' <<<"$created" | head -1 | cut -d: -f2)
+if [[ -z "$id" ]]; then
+    echo "FAIL could not create a task on node A: $created" >&2
+    exit 1
+fi
+await_on_b "create" /api/tasks "$name" present
+await_on_b "create (TO_DO filter)" "/api/tasks/filter?status=TO_DO" "$name" present
+
+curl -s -o /dev/null -b "$WORK/cookies-a" -X PUT -d "nameTask=$name&statusTask=DONE" "http://localhost:$PORT_A/api/tasks/$id"
+await_on_b "update (DONE filter)" "/api/tasks/filter?status=DONE" "$name" present
+await_on_b "update (TO_DO filter)" "/api/tasks/filter?status=TO_DO" "$name" absent
+
+curl -s -o /dev/null -b "$WORK/cookies-a" -X DELETE "http://localhost:$PORT_A/api/tasks/$id"
+await_on_b "delete" /api/tasks "$name" absent
+
+echo "Node B stayed coherent with node A (poll interval ${POLL_MS} ms)"
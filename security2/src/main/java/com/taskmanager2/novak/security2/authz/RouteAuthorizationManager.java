@@ -0,0 +1,78 @@
+package com.taskmanager2.novak.security2.authz;
+
+import com.taskmanager2.novak.common2.enums.Operation;
+import com.taskmanager2.novak.common2.enums.RoleType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Единственная проверка доступа к запросам: операция запроса ищется в таблице маршрутов,
+ * затем роли пользователя (битовая маска) сравниваются с маской операции.
+ * Для открытых операций аутентификация не запрашивается.
+ */
+public class RouteAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    // Полномочие ROLE_<роль> -> бит роли
+    private static final Map<String, Integer> ROLE_BITS = new HashMap<>();
+
+    static {
+        for (RoleType role : RoleType.values()) {
+            ROLE_BITS.put("ROLE_" + role.name(), Operation.maskOf(role));
+        }
+    }
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final RouteTable table;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public RouteAuthorizationManager(RouteTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Operation operation = operationOf(context.getRequest());
+        if (operation.isAnonymous()) {
+            return GRANTED;
+        }
+        Authentication user = authentication.get();
+        if (user == null || !user.isAuthenticated() || trustResolver.isAnonymous(user)) {
+            return DENIED;
+        }
+        return operation.allows(roleMask(user)) ? GRANTED : DENIED;
+    }
+
+    /**
+     * @return операция, к которой таблица маршрутов относит запрос
+     */
+    public Operation operationOf(HttpServletRequest request) {
+        // Путь внутри приложения уже декодирован и нормализован контейнером (и проверен файрволом Spring Security)
+        String path = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        return table.lookup(request.getMethod(), pathInfo == null ? path : path + pathInfo);
+    }
+
+    // Биты известных ролей пользователя
+    private static int roleMask(Authentication user) {
+        int mask = 0;
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            Integer bit = ROLE_BITS.get(authority.getAuthority());
+            if (bit != null) {
+                mask |= bit;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager2.novak.security2.authz;
+
+import com.taskmanager2.novak.common2.enums.Operation;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Права доступа к маршрутам приложения — единственное место, где они объявлены.
+ * Каждое правило относит запросы к операции (Operation), а роли операции задаёт само перечисление.
+ * Из подходящих запросу правил действует первое; запрос без правила доступен любому вошедшему пользователю.
+ */
+public final class RoutePermissions {
+
+    private RoutePermissions() {
+    }
+
+    public static RouteTable table() {
+        return new RouteTable.Builder()
+                // Вход, выход, регистрация и статика открыты всем
+                .route(Operation.PUBLIC, "/", "/login", "/logout", "/register", "/css/**", "/js/**")
+                // Страницы админки и её API
+                .route(Operation.ADMIN_PANEL, "/admin/**", "/api/admin/**")
+                // Проверки живости и готовности открыты для балансировщика и оркестратора
+                .route(Operation.PUBLIC, "/actuator/health/**")
+                // Остальные эндпоинты actuator (лимиты параллельности, снимки JFR и др.)
+                .route(Operation.MONITORING, "/actuator/**")
+                .route(Operation.USER_MANAGEMENT, "/api/users/**")
+                .route(Operation.TASK_IMPORT, "/api/tasks/import/**")
+                .route(HttpMethod.POST, Operation.TASK_CREATE, "/api/tasks")
+                .route(Operation.TASK_READ, "/tasks", "/api/tasks", "/api/tasks/page")
+                // Разрешённые каждой роли переходы проверяет сервис
+                .route(HttpMethod.POST, Operation.TASK_TRANSITION, "/api/tasks/transitions")
+                .route(HttpMethod.PUT, Operation.TASK_UPDATE, "/api/tasks/**")
+                .route(HttpMethod.DELETE, Operation.TASK_DELETE, "/api/tasks/**")
+                .route(HttpMethod.GET, Operation.ARCHIVE_READ, "/api/archive/**")
+                .route(Operation.ANALYTICS_READ, "/api/analytics/**")
+                .route(Operation.TASK_FILTER, "/api/tasks/filter")
+                // Вложения читают те же роли, что и задачи, а добавляют и удаляют — те, кто может изменять задачи
+                .route(HttpMethod.GET, Operation.TASK_READ, "/api/attachments/**")
+                .route(HttpMethod.HEAD, Operation.TASK_READ, "/api/attachments/**")
+                .route(HttpMethod.POST, Operation.TASK_UPDATE, "/api/attachments/**")
+                .route(HttpMethod.DELETE, Operation.TASK_UPDATE, "/api/attachments/**")
+                // Зависимости между задачами — так же, как вложения
+                .route(HttpMethod.GET, Operation.TASK_READ, "/api/dependencies/**")
+                .route(HttpMethod.POST, Operation.TASK_UPDATE, "/api/dependencies/**")
+                .route(HttpMethod.DELETE, Operation.TASK_UPDATE, "/api/dependencies/**")
+                .build(Operation.AUTHENTICATED);
+    }
+}
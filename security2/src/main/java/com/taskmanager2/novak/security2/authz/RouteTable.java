@@ -0,0 +1,149 @@
+package com.taskmanager2.novak.security2.authz;
+
+import com.taskmanager2.novak.common2.enums.Operation;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированная таблица маршрутов: правило связывает метод (или любой метод), путь и операцию.
+ * Путь правила — точный ("/api/tasks") или префикс ("/api/tasks/**" — сам путь и всё под ним).
+ * Как и в списке сопоставителей Spring Security, из подходящих запросу правил действует первое объявленное.
+ * При сборке для каждого точного пути и каждого префикса запоминается номер первого подходящего правила
+ * по каждому методу, поэтому поиск — HashMap.get точного пути и по одному на уровень вложенности пути,
+ * без перебора правил.
+ */
+public final class RouteTable {
+
+    private static final String ANY_SEGMENTS = "/**";
+
+    // Номер правила "нет подходящего"
+    private static final int NONE = Integer.MAX_VALUE;
+
+    // Методы с отдельной ячейкой; прочие методы попадают в последнюю ячейку, куда пишутся только правила без метода
+    private static final List<String> METHODS =
+            List.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+    private static final int SLOTS = METHODS.size() + 1;
+
+    // Операции по номеру правила
+    private final Operation[] operations;
+
+    // Операция запроса, которому не подошло ни одно правило
+    private final Operation fallback;
+
+    // Точный путь (префикс без "/**") -> номер первого подходящего правила по ячейкам методов
+    private final Map<String, int[]> exact;
+    private final Map<String, int[]> prefixes;
+
+    private RouteTable(Operation[] operations, Operation fallback, Map<String, int[]> exact,
+                       Map<String, int[]> prefixes) {
+        this.operations = operations;
+        this.fallback = fallback;
+        this.exact = exact;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * @param method HTTP-метод запроса
+     * @param path   путь запроса внутри приложения (без контекста и строки запроса)
+     * @return операция первого подходящего правила или операция по умолчанию
+     */
+    public Operation lookup(String method, String path) {
+        int slot = slotOf(method);
+        int first = firstRule(exact.get(path), slot);
+        // Префикс "/a/**" подходит и к "/a", поэтому проверяется и сам путь
+        String prefix = path;
+        while (true) {
+            first = Math.min(first, firstRule(prefixes.get(prefix), slot));
+            int slash = prefix.lastIndexOf('/');
+            if (slash < 0) {
+                break;
+            }
+            prefix = prefix.substring(0, slash);
+        }
+        return first == NONE ? fallback : operations[first];
+    }
+
+    private static int firstRule(int[] rules, int slot) {
+        return rules == null ? NONE : rules[slot];
+    }
+
+    // Ячейка метода; порядок совпадает с METHODS
+    private static int slotOf(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "HEAD" -> 1;
+            case "POST" -> 2;
+            case "PUT" -> 3;
+            case "PATCH" -> 4;
+            case "DELETE" -> 5;
+            case "OPTIONS" -> 6;
+            case "TRACE" -> 7;
+            default -> METHODS.size();
+        };
+    }
+
+    /**
+     * Сборка таблицы: правила добавляются в порядке приоритета
+     */
+    public static final class Builder {
+
+        private final List<Operation> operations = new ArrayList<>();
+        private final Map<String, int[]> exact = new HashMap<>();
+        private final Map<String, int[]> prefixes = new HashMap<>();
+
+        /**
+         * Правило для любого метода
+         */
+        public Builder route(Operation operation, String... patterns) {
+            return route(null, operation, patterns);
+        }
+
+        /**
+         * Правило для одного метода (null — любой метод)
+         */
+        public Builder route(HttpMethod method, Operation operation, String... patterns) {
+            int rule = operations.size();
+            operations.add(operation);
+            for (String pattern : patterns) {
+                if (pattern.endsWith(ANY_SEGMENTS)) {
+                    mark(prefixes, pattern.substring(0, pattern.length() - ANY_SEGMENTS.length()), method, rule);
+                } else if (pattern.contains("*") || pattern.contains("{")) {
+                    throw new IllegalArgumentException("Unsupported route pattern '" + pattern
+                            + "', expected an exact path or a prefix ending with " + ANY_SEGMENTS);
+                } else {
+                    mark(exact, pattern, method, rule);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @param fallback операция запроса, которому не подошло ни одно правило
+         */
+        public RouteTable build(Operation fallback) {
+            return new RouteTable(operations.toArray(new Operation[0]), fallback, Map.copyOf(exact),
+                    Map.copyOf(prefixes));
+        }
+
+        private static void mark(Map<String, int[]> paths, String path, HttpMethod method, int rule) {
+            int[] rules = paths.computeIfAbsent(path, key -> {
+                int[] empty = new int[SLOTS];
+                Arrays.fill(empty, NONE);
+                return empty;
+            });
+            if (method == null) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    rules[slot] = Math.min(rules[slot], rule);
+                }
+            } else {
+                int slot = slotOf(method.name());
+                rules[slot] = Math.min(rules[slot], rule);
+            }
+        }
+    }
+}
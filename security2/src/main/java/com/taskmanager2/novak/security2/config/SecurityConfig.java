@@ -5,19 +5,25 @@ PasswordEncoder - используется BCrypt для хеширования
 SecurityFilterChain - определяет правила доступа к URL и настройки аутентификации
 AuthenticationSuccessHandler - определяет логику перенаправления после успешного входа
 UserDetailsService - комбинированный сервис, который сначала проверяет пользователей в памяти, затем в базе данных
-Роли и доступ - настроены различные уровни доступа для разных ролей пользователей
+Роли и доступ - права на маршруты объявлены в одном месте (RoutePermissions) и проверяются одним
+ RouteAuthorizationManager: операция запроса находится по пути и методу, её роли — битовая маска (Operation)
+Поиск пользователя и BCrypt записываются в JFR (AuthenticationEvent), чтобы при профилировании было видно,
+ на что уходит время входа
 Конфигурация обеспечивает гибридный подход к аутентификации, используя как предопределенных пользователей в памяти,
  так и пользователей из базы данных.
   */
 
 
 
+import com.taskmanager2.novak.common2.jfr.AuthenticationEvent;
 import com.taskmanager2.novak.persistence2.repository.UserRepository;
+import com.taskmanager2.novak.security2.authz.RouteAuthorizationManager;
+import com.taskmanager2.novak.security2.authz.RoutePermissions;
+import com.taskmanager2.novak.security2.jfr.RecordingPasswordEncoder;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.Authentication;
@@ -25,7 +31,6 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
@@ -42,10 +47,10 @@ public class SecurityConfig {
         this.userRepository = userRepository;
     }
 
-    // Бин для кодирования паролей с использованием BCrypt
+    // Бин для кодирования паролей с использованием BCrypt (с записью времени хеширования в JFR)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new RecordingPasswordEncoder();
     }
 
     // Основная конфигурация безопасности
@@ -53,33 +58,20 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(auth -> auth
-                // Разрешаем доступ всем к следующим URL
-                .requestMatchers("/", "/login", "/register", "/css/**", "/js/**").permitAll()
-                // Доступ к админским URL только для роли ADMIN
-                .requestMatchers("/admin/**").hasRole("ADMIN")
-                // Доступ к задачам для нескольких ролей
-                .requestMatchers("/tasks", "/api/tasks").hasAnyRole("DIRECTOR", "ECONOMIST", "ACCOUNTANT", "VISITOR", "ADMIN")
-                // POST запросы к задачам только для директора и админа
-                .requestMatchers(HttpMethod.POST, "/api/tasks").hasAnyRole("DIRECTOR", "ADMIN")
-                // PUT запросы к задачам только для директора и админа
-                .requestMatchers(HttpMethod.PUT, "/api/tasks/**").hasAnyRole("DIRECTOR", "ADMIN")
-                // DELETE запросы к задачам для директора, экономиста и админа
-                .requestMatchers(HttpMethod.DELETE, "/api/tasks/**").hasAnyRole("DIRECTOR", "ECONOMIST", "ADMIN")
-                // Фильтрация задач для директора, экономиста, бухгалтера и админа
-                .requestMatchers("/api/tasks/filter").hasAnyRole("DIRECTOR", "ECONOMIST", "ACCOUNTANT", "ADMIN")
-                // Все остальные запросы требуют аутентификации
-                .anyRequest().authenticated()
+                // Доступ ко всем запросам решает одна таблица маршрутов (RoutePermissions): путь и метод
+                // находятся в ней поиском по хэшу, роли сравниваются битовой маской
+                .anyRequest().access(new RouteAuthorizationManager(RoutePermissions.table()))
             )
             .formLogin(form -> form
                 // Настраиваем форму входа
                 .loginPage("/login") // Страница входа
                 .successHandler(authenticationSuccessHandler()) // Обработчик успешного входа
-                .permitAll() // Разрешаем доступ всем к странице входа
+                // Страница входа открыта всем по таблице маршрутов
             )
             .logout(logout -> logout
                 // Настраиваем выход
                 .logoutSuccessUrl("/login?logout") // URL после выхода
-                .permitAll() // Разрешаем доступ всем к выходу
+                // Выход открыт всем по таблице маршрутов
             )
             .csrf(csrf -> csrf.disable()); // Отключаем CSRF защиту (не рекомендуется для продакшена)
 
@@ -145,19 +137,51 @@ public class SecurityConfig {
 
         // Возвращаем UserDetailsService, который сначала проверяет память, потом базу данных
         return username -> {
+            AuthenticationEvent event = new AuthenticationEvent();
+            event.begin();
+            String source = "memory";
+            String status = "OK";
+            UserDetails user = null;
             try {
-                // Пытаемся найти пользователя в памяти
-                return inMemoryManager.loadUserByUsername(username);
+                try {
+                    // Пытаемся найти пользователя в памяти
+                    user = inMemoryManager.loadUserByUsername(username);
+                } catch (UsernameNotFoundException e) {
+                    // Если не найден в памяти, ищем в базе данных
+                    source = "database";
+                    user = userRepository.findByUsername(username)
+                        .map(entity -> User.builder()
+                            .username(entity.getUsername())
+                            .password(entity.getPassword())
+                            .roles(entity.getRole().replace("ROLE_", "")) // Удаляем префикс ROLE_
+                            .build())
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                }
+                return user;
             } catch (UsernameNotFoundException e) {
-                // Если не найден в памяти, ищем в базе данных
-                return userRepository.findByUsername(username)
-                    .map(user -> User.builder()
-                        .username(user.getUsername())
-                        .password(user.getPassword())
-                        .roles(user.getRole().replace("ROLE_", "")) // Удаляем префикс ROLE_
-                        .build())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                status = "NOT_FOUND";
+                throw e;
+            } catch (RuntimeException e) {
+                status = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = "loadUser";
+                    event.status = status;
+                    event.source = source;
+                    event.principalRole = user == null ? null : roleOf(user);
+                    event.commit();
+                }
             }
         };
     }
+
+    // Роль пользователя без префикса ROLE_ для событий JFR
+    private static String roleOf(UserDetails user) {
+        return user.getAuthorities().stream()
+            .map(authority -> authority.getAuthority().replace("ROLE_", ""))
+            .findFirst()
+            .orElse(null);
+    }
 }
\ No newline at end of file
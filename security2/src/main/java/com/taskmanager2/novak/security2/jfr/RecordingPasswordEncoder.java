@@ -0,0 +1,39 @@
+package com.taskmanager2.novak.security2.jfr;
+
+import com.taskmanager2.novak.common2.jfr.AuthenticationEvent;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt с записью каждого хеширования и проверки пароля в JFR (AuthenticationEvent),
+ * чтобы время BCrypt при входе и регистрации было видно отдельно от запросов к БД.
+ */
+public class RecordingPasswordEncoder extends BCryptPasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        String encoded = super.encode(rawPassword);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "passwordEncode";
+            event.status = "OK";
+            event.commit();
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        boolean matches = super.matches(rawPassword, encodedPassword);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "passwordMatches";
+            event.status = matches ? "OK" : "BAD_CREDENTIALS";
+            event.commit();
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,130 @@
+package com.taskmanager2.novak.security2.authz;
+
+import com.taskmanager2.novak.common2.enums.RoleType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Матрица доступа: для каждого метода и пути — решение для гостя, вошедшего пользователя без известной роли
+ * и каждой роли. Таблица маршрутов (RoutePermissions, RouteTable) и маски ролей операций (Operation) проверяются
+ * вместе, через RouteAuthorizationManager, поэтому перестановка правил или изменение ролей операции, меняющие
+ * решение, видны здесь. Строки с граничными путями ("/cssx", "/actuator/healthz", "/api/tasks/importx") фиксируют
+ * сопоставление префиксов, строки с одним путём и разными методами — приоритет правил.
+ */
+class RouteAuthorizationManagerTest {
+
+    private static final RouteAuthorizationManager MANAGER = new RouteAuthorizationManager(RoutePermissions.table());
+
+    // Пользователи в порядке столбцов матрицы
+    private static final Map<String, Authentication> USERS = new LinkedHashMap<>();
+
+    static {
+        USERS.put("anonymous", new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        USERS.put("no role", user("ROLE_UNKNOWN"));
+        for (RoleType role : new RoleType[]{RoleType.ADMIN, RoleType.DIRECTOR, RoleType.ECONOMIST,
+                RoleType.ACCOUNTANT, RoleType.VISITOR}) {
+            USERS.put(role.name(), user("ROLE_" + role.name()));
+        }
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            # метод  | путь                          | гость | без роли | ADMIN | DIRECTOR | ECONOMIST | ACCOUNTANT | VISITOR
+            GET      | /                             | +     | +        | +     | +        | +         | +          | +
+            POST     | /login                        | +     | +        | +     | +        | +         | +          | +
+            GET      | /register                     | +     | +        | +     | +        | +         | +          | +
+            POST     | /logout                       | +     | +        | +     | +        | +         | +          | +
+            GET      | /css/styles.css               | +     | +        | +     | +        | +         | +          | +
+            GET      | /css                          | +     | +        | +     | +        | +         | +          | +
+            GET      | /js/app.js                    | +     | +        | +     | +        | +         | +          | +
+            GET      | /cssx                         | -     | +        | +     | +        | +         | +          | +
+            GET      | /admin                        | -     | -        | +     | -        | -         | -          | -
+            POST     | /admin/users                  | -     | -        | +     | -        | -         | -          | -
+            GET      | /api/admin/audit              | -     | -        | +     | -        | -         | -          | -
+            GET      | /actuator/health              | +     | +        | +     | +        | +         | +          | +
+            GET      | /actuator/health/liveness     | +     | +        | +     | +        | +         | +          | +
+            GET      | /actuator                     | -     | -        | +     | -        | -         | -          | -
+            GET      | /actuator/healthz             | -     | -        | +     | -        | -         | -          | -
+            POST     | /actuator/jfr                 | -     | -        | +     | -        | -         | -          | -
+            GET      | /api/users                    | -     | -        | +     | -        | -         | -          | -
+            DELETE   | /api/users/5                  | -     | -        | +     | -        | -         | -          | -
+            OPTIONS  | /api/users/page               | -     | -        | +     | -        | -         | -          | -
+            PROPFIND | /api/users                    | -     | -        | +     | -        | -         | -          | -
+            GET      | /api/usersx                   | -     | +        | +     | +        | +         | +          | +
+            POST     | /api/tasks/import             | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/tasks/import/abc/errors  | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/tasks/importx            | -     | +        | +     | +        | +         | +          | +
+            PUT      | /api/tasks/importx            | -     | -        | +     | +        | -         | -          | -
+            GET      | /tasks                        | -     | -        | +     | +        | +         | +          | +
+            POST     | /tasks                        | -     | -        | +     | +        | +         | +          | +
+            GET      | /tasks/                       | -     | +        | +     | +        | +         | +          | +
+            GET      | /api/tasks                    | -     | -        | +     | +        | +         | +          | +
+            POST     | /api/tasks                    | -     | -        | +     | +        | -         | -          | -
+            PUT      | /api/tasks                    | -     | -        | +     | +        | +         | +          | +
+            GET      | /api/tasks/page               | -     | -        | +     | +        | +         | +          | +
+            POST     | /api/tasks/transitions        | -     | -        | +     | +        | +         | +          | +
+            GET      | /api/tasks/transitions        | -     | +        | +     | +        | +         | +          | +
+            PUT      | /api/tasks/transitions        | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/tasks/5                  | -     | +        | +     | +        | +         | +          | +
+            PUT      | /api/tasks/5                  | -     | -        | +     | +        | -         | -          | -
+            PATCH    | /api/tasks/5                  | -     | +        | +     | +        | +         | +          | +
+            DELETE   | /api/tasks/5                  | -     | -        | +     | +        | +         | -          | -
+            PROPFIND | /api/tasks/5                  | -     | +        | +     | +        | +         | +          | +
+            GET      | /api/tasks/filter             | -     | -        | +     | +        | +         | +          | -
+            PUT      | /api/tasks/filter             | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/archive/tasks            | -     | -        | +     | +        | +         | +          | +
+            HEAD     | /api/archive/tasks            | -     | +        | +     | +        | +         | +          | +
+            POST     | /api/archive/tasks/5          | -     | +        | +     | +        | +         | +          | +
+            GET      | /api/analytics/wip            | -     | -        | -     | +        | +         | -          | -
+            POST     | /api/analytics/cycle-time     | -     | -        | -     | +        | +         | -          | -
+            GET      | /api/attachments/7            | -     | -        | +     | +        | +         | +          | +
+            HEAD     | /api/attachments/7            | -     | -        | +     | +        | +         | +          | +
+            POST     | /api/attachments/tasks/5      | -     | -        | +     | +        | -         | -          | -
+            PUT      | /api/attachments/7            | -     | +        | +     | +        | +         | +          | +
+            DELETE   | /api/attachments/7            | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/dependencies/ready       | -     | -        | +     | +        | +         | +          | +
+            POST     | /api/dependencies             | -     | -        | +     | +        | -         | -          | -
+            DELETE   | /api/dependencies             | -     | -        | +     | +        | -         | -          | -
+            GET      | /api/check-role               | -     | +        | +     | +        | +         | +          | +
+            GET      | /error                        | -     | +        | +     | +        | +         | +          | +
+            GET      | /nothing                      | -     | +        | +     | +        | +         | +          | +
+            """)
+    void decidesAccessPerRole(String method, String path, String anonymous, String noRole, String admin,
+                              String director, String economist, String accountant, String visitor) {
+        String[] expected = {anonymous, noRole, admin, director, economist, accountant, visitor};
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        RequestAuthorizationContext context = new RequestAuthorizationContext(request);
+
+        List<String> mismatches = new ArrayList<>();
+        int column = 0;
+        for (Map.Entry<String, Authentication> user : USERS.entrySet()) {
+            boolean allow = "+".equals(expected[column++]);
+            boolean granted = MANAGER.check(user::getValue, context).isGranted();
+            if (granted != allow) {
+                mismatches.add(user.getKey() + (allow ? " denied" : " allowed"));
+            }
+        }
+        assertTrue(mismatches.isEmpty(), () -> method + " " + path + " (" + MANAGER.operationOf(request) + "): "
+                + String.join(", ", mismatches));
+    }
+
+    private static Authentication user(String authority) {
+        return new UsernamePasswordAuthenticationToken("user", "password",
+                AuthorityUtils.createAuthorityList(authority));
+    }
+}
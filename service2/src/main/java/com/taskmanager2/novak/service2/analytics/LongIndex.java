@@ -0,0 +1,75 @@
+package com.taskmanager2.novak.service2.analytics;
+
+/**
+ * Хеш-таблица с открытой адресацией: положительный long-ключ → номер строки (int), без упаковки в объекты.
+ * Ключ 0 зарезервирован под пустую ячейку (id задач начинаются с 1). Удаления нет: строки задач не удаляются.
+ * Не потокобезопасна: доступ синхронизирует вызывающий.
+ */
+final class LongIndex {
+
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIndex(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1);
+    }
+
+    int get(long key) {
+        int index = indexOf(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        if (size * 2 >= keys.length) {
+            rehash(keys.length * 2);
+        }
+        int index = indexOf(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
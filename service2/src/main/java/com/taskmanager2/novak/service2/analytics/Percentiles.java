@@ -0,0 +1,84 @@
+package com.taskmanager2.novak.service2.analytics;
+
+import com.taskmanager2.novak.service2.dto.DurationStats;
+
+/**
+ * Процентили по ближайшему рангу без полной сортировки.
+ * Нужные ранги ищутся по возрастанию быстрым выбором (quickselect): каждый следующий — только в части массива
+ * правее предыдущего, поэтому вместо O(n log n) сортировки выходит в среднем несколько проходов по массиву.
+ */
+final class Percentiles {
+
+    private static final int[] PERCENTILES = {50, 75, 85, 95};
+
+    private Percentiles() {
+    }
+
+    /**
+     * Статистика по первым count значениям массива; порядок значений в массиве меняется
+     */
+    static DurationStats of(long[] values, int count) {
+        if (count == 0) {
+            return new DurationStats(0, 0, 0, 0, 0, 0, 0);
+        }
+        long sum = 0;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+            max = Math.max(max, values[i]);
+        }
+        long[] ranks = new long[PERCENTILES.length];
+        int from = 0;
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            int k = Math.max((int) Math.ceil(PERCENTILES[i] / 100.0 * count) - 1, 0);
+            ranks[i] = select(values, from, count - 1, k);
+            from = k;
+        }
+        return new DurationStats(count, sum / count, ranks[0], ranks[1], ranks[2], ranks[3], max);
+    }
+
+    // k-й по величине элемент на отрезке [left, right]; после вызова слева от k нет больших, справа — меньших
+    private static long select(long[] a, int left, int right, int k) {
+        while (left < right) {
+            // Опорный элемент — медиана трёх, чтобы почти упорядоченные данные не давали квадратичного времени
+            int middle = (left + right) >>> 1;
+            if (a[middle] < a[left]) {
+                swap(a, middle, left);
+            }
+            if (a[right] < a[left]) {
+                swap(a, right, left);
+            }
+            if (a[right] < a[middle]) {
+                swap(a, right, middle);
+            }
+            long pivot = a[middle];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return a[k];
+            }
+        }
+        return a[k];
+    }
+
+    private static void swap(long[] a, int i, int j) {
+        long t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,430 @@
+package com.taskmanager2.novak.service2.analytics;
+
+/*Аналитика времени цикла по журналу переходов (в памяти узла):
+Данные хранятся по столбцам в массивах примитивов, без объекта на запись:
+ - периоды пребывания задач в статусе (начало, конец, статус) — добавляются, когда задача покидает статус;
+ - завершения (время перехода в DONE, время цикла от первого IN_PROGRESS, время от создания);
+ - текущее состояние каждой задачи (статус, с какого момента, начало работы, время создания) — строка на задачу,
+   найденная по id через LongIndex.
+Запрос — один проход по нужным столбцам без выделения объектов на строку, поэтому за период любой длины
+ ответ считается за миллисекунды даже на миллионах переходов.
+Обновление инкрементальное: раз в poll-interval-ms читаются новые строки task_transitions (включая записанные
+ другими узлами) и применяются к столбцам. Пропуски id учитывает IdWatermark, как при чтении task_changes.
+При запуске журнал читается целиком; задачи, о которых в журнале нет строк (созданные до его появления),
+ добавляются из хранилища задач с текущим статусом и временем его смены. До окончания загрузки запросы
+ отклоняются (503).
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskTransitionEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskTransitionRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.cache.IdWatermark;
+import com.taskmanager2.novak.service2.dto.CycleTimeReport;
+import com.taskmanager2.novak.service2.dto.DurationStats;
+import com.taskmanager2.novak.service2.dto.ThroughputReport;
+import com.taskmanager2.novak.service2.dto.WipReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskAnalytics.class);
+
+    // Строк журнала за один запрос
+    private static final int BATCH_SIZE = 5000;
+
+    // Нет статуса (задача удалена или ещё не встречалась)
+    private static final byte NONE = -1;
+
+    // Момент неизвестен (задача старше журнала и без времени смены статуса)
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final byte TO_DO = (byte) TaskStatus.TO_DO.ordinal();
+    private static final byte IN_PROGRESS = (byte) TaskStatus.IN_PROGRESS.ordinal();
+    private static final byte DONE = (byte) TaskStatus.DONE.ordinal();
+
+    private final TaskTransitionRepository transitionRepository;
+    private final TaskStore taskStore;
+    private final IdWatermark watermark;
+
+    // Запросы читают столбцы под общей блокировкой, применение журнала — под блокировкой записи
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Текущее состояние задач: строка по id
+    private final LongIndex taskRows = new LongIndex(1024);
+    private byte[] taskStatus = new byte[1024];
+    private long[] taskSince = new long[1024];
+    private long[] taskStarted = new long[1024];
+    private long[] taskCreated = new long[1024];
+    private int taskCount;
+
+    // Завершённые периоды пребывания в статусе
+    private long[] stintStart = new long[1024];
+    private long[] stintEnd = new long[1024];
+    private byte[] stintStatus = new byte[1024];
+    private int stintCount;
+
+    // Завершения (переходы в DONE); -1 — длительность неизвестна
+    private long[] doneAt = new long[1024];
+    private long[] doneCycle = new long[1024];
+    private long[] doneLead = new long[1024];
+    private int doneCount;
+
+    private volatile boolean ready;
+    private long applied;
+
+    public TaskAnalytics(TaskTransitionRepository transitionRepository,
+                         TaskStore taskStore,
+                         @Value("${taskmanager.analytics.gap-timeout:10s}") Duration gapTimeout) {
+        this.transitionRepository = transitionRepository;
+        this.taskStore = taskStore;
+        this.watermark = new IdWatermark(gapTimeout.toMillis());
+    }
+
+    /**
+     * Периодическое чтение журнала переходов; первый запуск загружает журнал целиком
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${taskmanager.analytics.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            if (ready) {
+                readTransitions(System.currentTimeMillis());
+            } else {
+                load();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read task transition log: {}", e.toString());
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        readTransitions(System.currentTimeMillis());
+        long seeded = seedFromTasks();
+        ready = true;
+        logger.info("Task analytics loaded in {} ms: {} transitions, {} tasks without history",
+                (System.nanoTime() - started) / 1_000_000, applied, seeded);
+    }
+
+    private void readTransitions(long now) {
+        long after = watermark.position();
+        List<TaskTransitionEntity> rows;
+        do {
+            rows = transitionRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (TaskTransitionEntity row : rows) {
+                    after = row.getId();
+                    if (watermark.accept(row.getId())) {
+                        apply(row.getTaskId(), code(row.getFromStatus()), code(row.getToStatus()),
+                                row.getChangedAt().toEpochMilli());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (rows.size() == BATCH_SIZE);
+        watermark.advance(now);
+    }
+
+    // Задачи без строк в журнале — с текущим статусом с момента его последней смены
+    private long seedFromTasks() {
+        long seeded = 0;
+        long after = 0;
+        List<TaskEntity> tasks;
+        do {
+            tasks = taskStore.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (TaskEntity task : tasks) {
+                    after = task.getId();
+                    if (taskRows.get(task.getId()) != LongIndex.MISSING) {
+                        continue;
+                    }
+                    int row = newTask(task.getId());
+                    byte status = code(task.getStatusTask());
+                    long since = task.getStatusChangedAt() != null ? task.getStatusChangedAt().toEpochMilli() : UNKNOWN;
+                    taskStatus[row] = status;
+                    taskSince[row] = since;
+                    taskStarted[row] = status == IN_PROGRESS ? since : UNKNOWN;
+                    seeded++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (tasks.size() == BATCH_SIZE);
+        return seeded;
+    }
+
+    // Применение одного перехода; вызывается под блокировкой записи
+    private void apply(long taskId, byte from, byte to, long at) {
+        applied++;
+        int row = taskRows.get(taskId);
+        if (row == LongIndex.MISSING) {
+            row = newTask(taskId);
+        }
+        if (from == NONE) {
+            // Создание: предыдущее состояние (если задача была добавлена из хранилища до своей строки) не учитываем
+            taskCreated[row] = at;
+            taskStarted[row] = UNKNOWN;
+        } else if (taskStatus[row] == from && taskSince[row] != UNKNOWN && at >= taskSince[row]) {
+            addStint(from, taskSince[row], at);
+        }
+        if (to == IN_PROGRESS && taskStarted[row] == UNKNOWN) {
+            taskStarted[row] = at;
+        }
+        if (to == DONE && from != DONE) {
+            long cycle = taskStarted[row] != UNKNOWN ? at - taskStarted[row] : -1;
+            long lead = taskCreated[row] != UNKNOWN ? at - taskCreated[row] : -1;
+            addDone(at, cycle, lead);
+            // Повторно открытая задача начинает новый цикл
+            taskStarted[row] = UNKNOWN;
+        }
+        taskStatus[row] = to;
+        taskSince[row] = at;
+    }
+
+    private int newTask(long taskId) {
+        if (taskCount == taskStatus.length) {
+            int capacity = taskCount * 2;
+            taskStatus = Arrays.copyOf(taskStatus, capacity);
+            taskSince = Arrays.copyOf(taskSince, capacity);
+            taskStarted = Arrays.copyOf(taskStarted, capacity);
+            taskCreated = Arrays.copyOf(taskCreated, capacity);
+        }
+        int row = taskCount++;
+        taskRows.put(taskId, row);
+        taskStatus[row] = NONE;
+        taskSince[row] = UNKNOWN;
+        taskStarted[row] = UNKNOWN;
+        taskCreated[row] = UNKNOWN;
+        return row;
+    }
+
+    private void addStint(byte status, long start, long end) {
+        if (stintCount == stintStart.length) {
+            int capacity = stintCount * 2;
+            stintStart = Arrays.copyOf(stintStart, capacity);
+            stintEnd = Arrays.copyOf(stintEnd, capacity);
+            stintStatus = Arrays.copyOf(stintStatus, capacity);
+        }
+        stintStart[stintCount] = start;
+        stintEnd[stintCount] = end;
+        stintStatus[stintCount] = status;
+        stintCount++;
+    }
+
+    private void addDone(long at, long cycle, long lead) {
+        if (doneCount == doneAt.length) {
+            int capacity = doneCount * 2;
+            doneAt = Arrays.copyOf(doneAt, capacity);
+            doneCycle = Arrays.copyOf(doneCycle, capacity);
+            doneLead = Arrays.copyOf(doneLead, capacity);
+        }
+        doneAt[doneCount] = at;
+        doneCycle[doneCount] = cycle;
+        doneLead[doneCount] = lead;
+        doneCount++;
+    }
+
+    /**
+     * Время цикла, время от создания и время в статусах за период [from, to)
+     */
+    public CycleTimeReport cycleTime(Instant from, Instant to) {
+        long start = from.toEpochMilli();
+        long end = to.toEpochMilli();
+        long[] cycles;
+        long[] leads;
+        int cycleCount = 0;
+        int leadCount = 0;
+        long[][] dwell = new long[STATUSES.length][];
+        int[] dwellCount = new int[STATUSES.length];
+        // Под блокировкой только выборка значений; процентили считаются уже без неё
+        lock.readLock().lock();
+        try {
+            checkReady();
+            cycles = new long[doneCount];
+            leads = new long[doneCount];
+            for (int i = 0; i < doneCount; i++) {
+                long at = doneAt[i];
+                if (at >= start && at < end) {
+                    if (doneCycle[i] >= 0) {
+                        cycles[cycleCount++] = doneCycle[i];
+                    }
+                    if (doneLead[i] >= 0) {
+                        leads[leadCount++] = doneLead[i];
+                    }
+                }
+            }
+            for (int i = 0; i < stintCount; i++) {
+                long stop = stintEnd[i];
+                if (stop >= start && stop < end) {
+                    int status = stintStatus[i];
+                    if (dwell[status] == null) {
+                        dwell[status] = new long[Math.min(stintCount - i, 1024)];
+                    } else if (dwellCount[status] == dwell[status].length) {
+                        dwell[status] = Arrays.copyOf(dwell[status], dwellCount[status] * 2);
+                    }
+                    dwell[status][dwellCount[status]++] = stop - stintStart[i];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<TaskStatus, DurationStats> timeInStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            long[] values = dwell[status.ordinal()];
+            timeInStatus.put(status, Percentiles.of(values == null ? new long[0] : values,
+                    dwellCount[status.ordinal()]));
+        }
+        return new CycleTimeReport(from, to, Percentiles.of(cycles, cycleCount), Percentiles.of(leads, leadCount),
+                timeInStatus);
+    }
+
+    /**
+     * Число завершённых задач по дням за период [from, to) в заданном часовом поясе
+     */
+    public ThroughputReport throughput(Instant from, Instant to, ZoneId zone) {
+        // Границы дней: bounds[i] — начало i-го дня (первый день начинается с from), bounds[days] — to
+        LocalDate firstDay = from.atZone(zone).toLocalDate();
+        List<LocalDate> dates = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        starts.add(from.toEpochMilli());
+        dates.add(firstDay);
+        for (LocalDate day = firstDay.plusDays(1); ; day = day.plusDays(1)) {
+            long dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            if (dayStart >= to.toEpochMilli()) {
+                break;
+            }
+            dates.add(day);
+            starts.add(dayStart);
+        }
+        long[] bounds = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            bounds[i] = starts.get(i);
+        }
+        bounds[starts.size()] = to.toEpochMilli();
+
+        long[] counts = new long[dates.size()];
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            checkReady();
+            for (int i = 0; i < doneCount; i++) {
+                long at = doneAt[i];
+                if (at >= bounds[0] && at < bounds[bounds.length - 1]) {
+                    int index = Arrays.binarySearch(bounds, at);
+                    counts[index >= 0 ? index : -index - 2]++;
+                    total++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ThroughputReport.Day> days = new ArrayList<>(dates.size());
+        for (int i = 0; i < dates.size(); i++) {
+            days.add(new ThroughputReport.Day(dates.get(i), counts[i]));
+        }
+        return new ThroughputReport(from, to, zone.getId(), total, days);
+    }
+
+    /**
+     * Число задач в TO_DO и IN_PROGRESS в моменты from, from + step, ... (не позже to)
+     */
+    public WipReport wip(Instant from, Instant to, Duration step) {
+        long start = from.toEpochMilli();
+        long stepMillis = step.toMillis();
+        int samples = (int) ((to.toEpochMilli() - start) / stepMillis) + 1;
+
+        // Разностные массивы: +1 в первом моменте, где задача в статусе, -1 в первом, где уже нет
+        long[] toDo = new long[samples + 1];
+        long[] inProgress = new long[samples + 1];
+        lock.readLock().lock();
+        try {
+            checkReady();
+            for (int i = 0; i < stintCount; i++) {
+                byte status = stintStatus[i];
+                if (status == TO_DO || status == IN_PROGRESS) {
+                    mark(status == TO_DO ? toDo : inProgress, stintStart[i], stintEnd[i], start, stepMillis, samples);
+                }
+            }
+            for (int row = 0; row < taskCount; row++) {
+                byte status = taskStatus[row];
+                if (status == TO_DO || status == IN_PROGRESS) {
+                    mark(status == TO_DO ? toDo : inProgress, taskSince[row], Long.MAX_VALUE, start, stepMillis,
+                            samples);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<WipReport.Sample> result = new ArrayList<>(samples);
+        long toDoCount = 0;
+        long inProgressCount = 0;
+        for (int k = 0; k < samples; k++) {
+            toDoCount += toDo[k];
+            inProgressCount += inProgress[k];
+            result.add(new WipReport.Sample(Instant.ofEpochMilli(start + k * stepMillis), toDoCount, inProgressCount));
+        }
+        return new WipReport(from, to, step, result);
+    }
+
+    // Учёт периода [since, until) в разностном массиве моментов start + k * step
+    private static void mark(long[] diff, long since, long until, long start, long step, int samples) {
+        int first = firstSampleAtOrAfter(since, start, step, samples);
+        int last = firstSampleAtOrAfter(until, start, step, samples);
+        if (first < last) {
+            diff[first]++;
+            diff[last]--;
+        }
+    }
+
+    private static int firstSampleAtOrAfter(long time, long start, long step, int samples) {
+        if (time <= start) {
+            return 0;
+        }
+        long offset = time - start;
+        if (offset > step * (long) (samples - 1)) {
+            return samples;
+        }
+        return (int) ((offset + step - 1) / step);
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new RejectedExecutionException("Task analytics are still loading, retry later");
+        }
+    }
+
+    private static byte code(TaskStatus status) {
+        return status == null ? NONE : (byte) status.ordinal();
+    }
+}
@@ -0,0 +1,82 @@
+package com.taskmanager2.novak.service2.analytics;
+
+/*Журнал переходов задач между статусами (таблица task_transitions):
+Обновление задачи перезаписывает статус на месте, поэтому история переходов сохраняется отдельно —
+ по строке на создание, каждую смену статуса и удаление. Переименование без смены статуса и перенос в архив
+ (статус не меняется) в журнал не попадают.
+Строки транзакции копятся и вставляются перед коммитом в той же транзакции пачечными INSERT — откаченное
+ изменение в журнал не попадает, а массовый переход тысяч задач не превращается в тысячи отдельных запросов.
+Все изменения задач публикуют события в своей транзакции: обычное создание и обновление, пачки массового
+ перехода, импорта и конвейера групповой записи (его обработчик выполняется в транзакции пачки). Событие вне
+ транзакции (сейчас таких публикаций нет) записывается сразу отдельной транзакцией.
+Журнал общий для всех узлов; его читает TaskAnalytics.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.TaskTransitionEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskTransitionRepository;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class TaskTransitionLog {
+
+    private final TaskTransitionRepository transitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskTransitionLog(TaskTransitionRepository transitionRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.transitionRepository = transitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Учёт перехода: внутри транзакции копится до её коммита, вне транзакции пишется сразу
+     */
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.action() == ChangeAction.ARCHIVE || event.oldStatus() == event.newStatus()) {
+            return;
+        }
+        TaskTransitionEntity transition = new TaskTransitionEntity(event.taskId(), event.oldStatus(),
+                event.newStatus(), Instant.ofEpochMilli(event.timestamp()), event.principal());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> transitionRepository.insertAll(List.of(transition)));
+            return;
+        }
+        PendingTransitions pending = (PendingTransitions) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingTransitions();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.transitions.add(transition);
+    }
+
+    /**
+     * Переходы текущей транзакции; вставляются перед коммитом
+     */
+    private final class PendingTransitions implements TransactionSynchronization {
+
+        final List<TaskTransitionEntity> transitions = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            transitionRepository.insertAll(transitions);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TaskTransitionLog.this);
+        }
+    }
+}
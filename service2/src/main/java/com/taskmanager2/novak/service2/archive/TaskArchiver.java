@@ -0,0 +1,163 @@
+package com.taskmanager2.novak.service2.archive;
+
+/*Перенос давно завершённых задач в архив (горячие/холодные данные):
+Задачи в статусе DONE, не менявшие статус дольше maxAge, переносятся из таблицы tasks в archived_tasks.
+ Задачи с вложениями остаются в tasks: архив хранит только сами задачи, а вложения архивной задачи стали бы
+ недоступны, и их файлы никогда не попали бы к сборщику (OrphanBlobCollector).
+Перенос идёт небольшими пачками, каждая — отдельная короткая транзакция: строки пачки блокируются
+ (SELECT ... FOR UPDATE), копируются одним INSERT ... SELECT и удаляются одним DELETE.
+Короткие транзакции не держат блокировки долго и не порождают огромных событий репликации.
+Между пачками делается пауза не меньше времени самой пачки (и не меньше throttle-ms): чем медленнее база
+ отвечает, тем реже идут пачки — это ограничивает нагрузку на реплики и их отставание.
+Задание запускается по расписанию на всех узлах, но выполняется только на том, кто захватил блокировку в базе (JobLock).
+Один запуск ограничен числом пачек и половиной срока аренды блокировки; оставшееся доделает следующий запуск.
+Перенос работает с таблицами БД, поэтому при встроенном хранилище задач (профиль embedded) не запускается.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.ArchivedTaskRepository;
+import com.taskmanager2.novak.persistence2.repository.TaskRepository;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Component
+@Profile("!embedded")
+@ConditionalOnProperty(prefix = "taskmanager.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskArchiver.class);
+
+    // Имя задания в таблице блокировок
+    static final String LOCK_NAME = "task-archiver";
+
+    // Имя, от которого публикуются события архивирования
+    private static final String PRINCIPAL = "archiver";
+
+    private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final JobLock jobLock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Сколько задача должна пробыть в DONE, чтобы попасть в архив
+    private final Duration maxAge;
+
+    // Размер пачки (строк в одной транзакции)
+    private final int batchSize;
+
+    // Минимальная пауза между пачками
+    private final long throttleMillis;
+
+    // Максимум пачек за один запуск
+    private final int maxBatchesPerRun;
+
+    // Срок аренды блокировки задания
+    private final Duration lockLease;
+
+    public TaskArchiver(TaskRepository taskRepository,
+                        ArchivedTaskRepository archivedTaskRepository,
+                        JobLock jobLock,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${taskmanager.archive.max-age:30d}") Duration maxAge,
+                        @Value("${taskmanager.archive.batch-size:500}") int batchSize,
+                        @Value("${taskmanager.archive.throttle-ms:200}") long throttleMillis,
+                        @Value("${taskmanager.archive.max-batches-per-run:200}") int maxBatchesPerRun,
+                        @Value("${taskmanager.archive.lock-lease:10m}") Duration lockLease) {
+        this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.jobLock = jobLock;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.throttleMillis = throttleMillis;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.lockLease = lockLease;
+    }
+
+    /**
+     * Периодический запуск переноса; на остальных узлах запуск пропускается, пока блокировка занята
+     */
+    @Scheduled(initialDelayString = "${taskmanager.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${taskmanager.archive.interval-ms:600000}")
+    public void run() {
+        if (!jobLock.tryAcquire(LOCK_NAME, lockLease)) {
+            logger.debug("Task archiver is running on another node, skipping");
+            return;
+        }
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            logger.error("Task archiving failed", e);
+        } finally {
+            jobLock.release(LOCK_NAME);
+        }
+    }
+
+    // Перенос пачками, пока есть кандидаты и не исчерпан лимит запуска
+    private void archive() {
+        Instant cutoff = Instant.now().minus(maxAge);
+        long deadline = System.nanoTime() + lockLease.toNanos() / 2;
+        long total = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun && System.nanoTime() < deadline; batch++) {
+            long started = System.nanoTime();
+            Integer moved = transactionTemplate.execute(status -> moveBatch(cutoff));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                break; // кандидаты закончились
+            }
+
+            long batchMillis = (System.nanoTime() - started) / 1_000_000;
+            try {
+                Thread.sleep(Math.max(throttleMillis, batchMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("Archived {} tasks done before {}", total, cutoff);
+        }
+    }
+
+    // Перенос одной пачки в текущей транзакции
+    private int moveBatch(Instant cutoff) {
+        List<TaskEntity> candidates = taskRepository.findArchiveCandidates(TaskStatus.DONE, cutoff, Limit.of(batchSize));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = candidates.stream().map(TaskEntity::getId).toList();
+        archivedTaskRepository.copyFromTasks(ids, Instant.now());
+        taskRepository.deleteAllByIdInBatch(ids);
+
+        // События уходят подписчикам (аудит, версия данных) после коммита пачки
+        long timestamp = System.currentTimeMillis();
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new TaskChangedEvent(ChangeAction.ARCHIVE, id, TaskStatus.DONE, null,
+                    PRINCIPAL, timestamp));
+        }
+        return ids.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.taskmanager2.novak.service2.attachment;
+
+import com.taskmanager2.novak.service2.dto.AttachmentDto;
+
+import java.nio.file.Path;
+
+/**
+ * Вложение и путь к его содержимому в хранилище (для отдачи файла).
+ *
+ * @param attachment описание вложения
+ * @param path       файл содержимого
+ */
+public record AttachmentFile(AttachmentDto attachment, Path path) {
+}
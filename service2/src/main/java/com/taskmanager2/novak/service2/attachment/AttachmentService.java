@@ -0,0 +1,175 @@
+package com.taskmanager2.novak.service2.attachment;
+
+/*Вложения задач:
+Описание вложения (задача, имя, тип, размер, хэш) — строка task_attachments, содержимое — файл
+ в ContentAddressedBlobStore по хэшу SHA-256. Одинаковое содержимое хранится один раз, сколько бы
+ вложений на него ни ссылалось.
+Загрузка: тело потоково пишется во временный файл (хэш считается по пути), затем под блокировкой хэша
+ вставляется строка и файл публикуется в хранилище. Строка вставляется раньше публикации: сборщик удаляет файл,
+ только если на хэш не ссылается ни одна строка, поэтому опубликованный файл с новой строкой он не тронет.
+Удаление вложения или задачи удаляет только строки; хэши после коммита передаются сборщику (OrphanBlobCollector),
+ который удалит файлы, если на них больше никто не ссылается.
+ * */
+
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.persistence2.entity.TaskAttachmentEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskAttachmentRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.attachment.ContentAddressedBlobStore.StagedBlob;
+import com.taskmanager2.novak.service2.dto.AttachmentDto;
+import com.taskmanager2.novak.service2.event.Principals;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class AttachmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentService.class);
+
+    // Наибольшая длина имени файла (столбец file_name)
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+
+    private final TaskAttachmentRepository attachmentRepository;
+    private final TaskStore taskStore;
+    private final ContentAddressedBlobStore blobStore;
+    private final OrphanBlobCollector collector;
+    private final TransactionTemplate transactionTemplate;
+
+    // Наибольший размер одного вложения
+    private final long maxSizeBytes;
+
+    public AttachmentService(TaskAttachmentRepository attachmentRepository,
+                             TaskStore taskStore,
+                             ContentAddressedBlobStore blobStore,
+                             OrphanBlobCollector collector,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${taskmanager.attachments.max-size:100MB}") DataSize maxSize) {
+        this.attachmentRepository = attachmentRepository;
+        this.taskStore = taskStore;
+        this.blobStore = blobStore;
+        this.collector = collector;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSizeBytes = maxSize.toBytes();
+    }
+
+    public long maxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * Загрузка вложения задачи
+     * @param taskId      идентификатор задачи
+     * @param fileName    имя файла (путь отбрасывается)
+     * @param contentType тип содержимого
+     * @param content     содержимое; читается до конца
+     * @return созданное вложение
+     */
+    public AttachmentDto upload(long taskId, String fileName, String contentType, InputStream content)
+            throws IOException {
+        if (!taskStore.existsById(taskId)) {
+            throw new NotFoundException("Task", taskId);
+        }
+        String name = sanitizeFileName(fileName);
+        String principal = Principals.current();
+
+        StagedBlob staged = blobStore.stage(content, maxSizeBytes);
+        try {
+            synchronized (blobStore.lockFor(staged.sha256())) {
+                TaskAttachmentEntity saved = transactionTemplate.execute(status -> attachmentRepository.save(
+                        new TaskAttachmentEntity(taskId, name, contentType, staged.size(), staged.sha256(),
+                                Instant.now(), principal)));
+                try {
+                    boolean stored = blobStore.publish(staged);
+                    logger.info("Attachment {} ({} bytes, {}) added to task {}", saved.getId(), staged.size(),
+                            stored ? "new content" : "deduplicated", taskId);
+                } catch (IOException | RuntimeException e) {
+                    transactionTemplate.executeWithoutResult(status -> attachmentRepository.deleteById(saved.getId()));
+                    throw e;
+                }
+                return toDto(saved);
+            }
+        } finally {
+            blobStore.discard(staged);
+        }
+    }
+
+    /**
+     * Вложения задачи в порядке загрузки
+     */
+    public List<AttachmentDto> list(long taskId) {
+        if (!taskStore.existsById(taskId)) {
+            throw new NotFoundException("Task", taskId);
+        }
+        return attachmentRepository.findByTaskIdOrderByIdAsc(taskId).stream()
+                .map(AttachmentService::toDto)
+                .toList();
+    }
+
+    /**
+     * Вложение и файл его содержимого
+     */
+    public AttachmentFile open(long id) {
+        TaskAttachmentEntity attachment = attachmentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Attachment", id));
+        return new AttachmentFile(toDto(attachment), blobStore.path(attachment.getSha256()));
+    }
+
+    /**
+     * Удаление вложения; файл содержимого удалит сборщик, если на него больше никто не ссылается
+     */
+    public void delete(long id) {
+        TaskAttachmentEntity attachment = attachmentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Attachment", id));
+        transactionTemplate.executeWithoutResult(status -> attachmentRepository.deleteById(id));
+        logger.info("Attachment {} deleted from task {}", id, attachment.getTaskId());
+        collector.enqueue(List.of(attachment.getSha256()));
+    }
+
+    /**
+     * Удаление вложений удаляемой задачи в транзакции вызывающего (TaskService.deleteTask).
+     * Хэши передаются сборщику только после коммита: при откате вложения остаются на месте
+     */
+    public void deleteForTask(long taskId) {
+        List<String> hashes = attachmentRepository.findHashesByTaskId(taskId);
+        if (hashes.isEmpty()) {
+            return;
+        }
+        attachmentRepository.deleteByTaskId(taskId);
+        collector.enqueueAfterCommit(hashes);
+    }
+
+    // Имя файла без пути и управляющих символов
+    private static String sanitizeFileName(String fileName) {
+        String name = fileName == null ? "" : fileName;
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        StringBuilder clean = new StringBuilder(name.length());
+        name.codePoints()
+                .filter(c -> !Character.isISOControl(c))
+                .forEach(clean::appendCodePoint);
+        name = clean.toString().strip();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            throw new InvalidRequestException("Attachment file name is required");
+        }
+        if (name.length() > MAX_FILE_NAME_LENGTH) {
+            throw new InvalidRequestException("Attachment file name is longer than " + MAX_FILE_NAME_LENGTH
+                    + " characters");
+        }
+        return name;
+    }
+
+    private static AttachmentDto toDto(TaskAttachmentEntity entity) {
+        return new AttachmentDto(entity.getId(), entity.getTaskId(), entity.getFileName(), entity.getContentType(),
+                entity.getSize(), entity.getSha256(), entity.getCreatedAt(), entity.getCreatedBy());
+    }
+}
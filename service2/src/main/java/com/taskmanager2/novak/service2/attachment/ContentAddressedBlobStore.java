@@ -0,0 +1,261 @@
+package com.taskmanager2.novak.service2.attachment;
+
+/*Хранилище содержимого вложений, адресуемое по содержимому:
+Ключ файла — хэш SHA-256 его содержимого, путь — <dir>/ab/cd/<хэш> (первые две пары символов хэша — каталоги),
+ чтобы в одном каталоге не копились сотни тысяч файлов. Одинаковые файлы хранятся один раз.
+Загрузка идёт потоково: тело запроса пишется во временный файл в <dir>/tmp кусками по 64KB, хэш считается
+ по тем же кускам, поэтому в памяти не держится ни весь файл, ни второй его проход.
+Готовый временный файл переносится на своё место атомарным переименованием (tmp и хранилище на одном диске);
+ если такое содержимое уже есть, временный файл удаляется, а у существующего обновляется время изменения —
+ сборщик (OrphanBlobCollector) не трогает недавно изменённые файлы.
+Файл, на который больше не ссылается ни одно вложение, удаляет сборщик; его проверки и публикация загрузки
+ с тем же хэшем на этом узле разделены блокировкой хэша (lockFor).
+При нескольких узлах каталог должен быть общим (сетевой диск).
+ * */
+
+import com.taskmanager2.novak.common2.exception.PayloadTooLargeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Component
+public class ContentAddressedBlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedBlobStore.class);
+
+    // Размер куска при записи загрузки
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Число блокировок хэшей (хэш выбирает одну из них)
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String TEMP_DIR = "tmp";
+
+    private final Path root;
+    private final Path tempDir;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ContentAddressedBlobStore(@Value("${taskmanager.attachments.dir:attachments}") Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(TEMP_DIR);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(tempDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create attachment directory " + tempDir, e);
+        }
+    }
+
+    /**
+     * Запись потока во временный файл с подсчётом хэша
+     * @param in       содержимое
+     * @param maxBytes допустимый размер; при превышении запись прерывается
+     * @return временный файл, ещё не перенесённый в хранилище
+     */
+    public StagedBlob stage(InputStream in, long maxBytes) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    size += count;
+                    if (size > maxBytes) {
+                        throw new PayloadTooLargeException("Attachment", maxBytes);
+                    }
+                    digest.update(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                }
+            }
+            return new StagedBlob(temp, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Перенос временного файла в хранилище. Вызывается под блокировкой хэша
+     * @return true, если содержимое новое; false, если такое уже хранилось (временный файл удалён)
+     */
+    public boolean publish(StagedBlob staged) throws IOException {
+        Path target = path(staged.sha256());
+        if (Files.exists(target)) {
+            // Свежее время изменения защищает файл от сборщика, пока на него ещё не сослалось новое вложение
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            Files.deleteIfExists(staged.temp());
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Тот же файл только что опубликовал другой узел
+            Files.deleteIfExists(staged.temp());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Удаление временного файла, не попавшего в хранилище (загрузка не удалась)
+     */
+    public void discard(StagedBlob staged) {
+        deleteQuietly(staged.temp());
+    }
+
+    /**
+     * @param sha256 хэш содержимого (64 hex-символа в нижнем регистре)
+     * @return путь файла в хранилище
+     */
+    public Path path(String sha256) {
+        if (!isHash(sha256)) {
+            throw new IllegalArgumentException("Not a SHA-256 hex digest: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * @return true, если файл есть и не изменялся с момента cutoff
+     */
+    public boolean isOlderThan(String sha256, Instant cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path(sha256)).toInstant().isBefore(cutoff);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Удаление файла из хранилища. Вызывается под блокировкой хэша
+     * @return true, если файл был
+     */
+    public boolean delete(String sha256) throws IOException {
+        return Files.deleteIfExists(path(sha256));
+    }
+
+    /**
+     * Блокировка хэша: публикация файла и его удаление сборщиком на этом узле не идут одновременно
+     */
+    public Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Обход хранилища: хэши файлов, не изменявшихся с момента cutoff, передаются пачками
+     * @param cutoff    граница времени изменения
+     * @param batchSize размер пачки
+     * @param consumer  обработчик пачки
+     */
+    public void forEachBlobOlderThan(Instant cutoff, int batchSize, Consumer<List<String>> consumer)
+            throws IOException {
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!isHash(name) || root.relativize(file).getNameCount() != 3) {
+                    continue;
+                }
+                try {
+                    if (!Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        continue;
+                    }
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                batch.add(name);
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Удаление временных файлов, в которые давно не писали (загрузка оборвалась вместе с узлом)
+     * @return число удалённых файлов
+     */
+    public int deleteStaleTemp(Instant cutoff) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDir)) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Загрузка как раз завершилась
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isHash(String value) {
+        if (value == null || value.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary attachment file {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * Загруженный во временный файл блок содержимого
+     *
+     * @param temp   временный файл
+     * @param sha256 хэш содержимого
+     * @param size   размер в байтах
+     */
+    public record StagedBlob(Path temp, String sha256, long size) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.taskmanager2.novak.service2.attachment;
+
+/*Сборка файлов вложений, на которые больше не ссылается ни одно вложение:
+Удаление вложения или задачи (TaskService.deleteTask) после коммита ставит хэши в очередь кандидатов,
+ и фоновое задание раз в gc-interval проверяет их: файл удаляется, если на хэш нет ни одной строки task_attachments
+ и файл не изменялся дольше gc-grace. Проверка и удаление идут под блокировкой хэша, поэтому одновременная загрузка
+ того же содержимого на этом узле не потеряет файл. Недавно изменённый файл (его только что загрузили ещё раз —
+ возможно, на другом узле) остаётся в очереди до истечения gc-grace.
+Очередь живёт в памяти узла; то, что она потеряла при перезапуске, и то, что не дошло до очереди, находит полный
+ обход хранилища раз в sweep-interval. Обход выполняет один узел (блокировка JobLock); он же удаляет брошенные
+ временные файлы оборвавшихся загрузок.
+ * */
+
+import com.taskmanager2.novak.persistence2.repository.TaskAttachmentRepository;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@Component
+public class OrphanBlobCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanBlobCollector.class);
+
+    // Имя задания полного обхода в таблице блокировок
+    static final String SWEEP_LOCK_NAME = "attachment-blob-sweep";
+
+    // Хэшей в одном запросе проверки ссылок при обходе
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final ContentAddressedBlobStore blobStore;
+    private final TaskAttachmentRepository attachmentRepository;
+    private final JobLock jobLock;
+
+    // Хэши, на которые могли перестать ссылаться
+    private final ConcurrentLinkedQueue<String> candidates = new ConcurrentLinkedQueue<>();
+
+    // Сколько файл не должен изменяться, чтобы его можно было удалить
+    private final Duration grace;
+
+    private final long sweepIntervalMillis;
+
+    public OrphanBlobCollector(ContentAddressedBlobStore blobStore,
+                               TaskAttachmentRepository attachmentRepository,
+                               JobLock jobLock,
+                               @Value("${taskmanager.attachments.gc-grace:10m}") Duration grace,
+                               @Value("${taskmanager.attachments.sweep-interval-ms:3600000}") long sweepIntervalMillis) {
+        this.blobStore = blobStore;
+        this.attachmentRepository = attachmentRepository;
+        this.jobLock = jobLock;
+        this.grace = grace;
+        this.sweepIntervalMillis = sweepIntervalMillis;
+    }
+
+    /**
+     * Постановка хэшей в очередь проверки
+     */
+    public void enqueue(Collection<String> hashes) {
+        candidates.addAll(hashes);
+    }
+
+    /**
+     * Постановка хэшей в очередь после коммита текущей транзакции (при откате — не ставятся)
+     */
+    public void enqueueAfterCommit(Collection<String> hashes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(hashes);
+            return;
+        }
+        List<String> copy = List.copyOf(hashes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(copy);
+            }
+        });
+    }
+
+    /**
+     * Проверка кандидатов из очереди
+     */
+    @Scheduled(initialDelayString = "${taskmanager.attachments.gc-interval-ms:10000}",
+            fixedDelayString = "${taskmanager.attachments.gc-interval-ms:10000}")
+    public void collectCandidates() {
+        Set<String> batch = new LinkedHashSet<>();
+        String hash;
+        while ((hash = candidates.poll()) != null) {
+            batch.add(hash);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(grace);
+        List<String> retry = new ArrayList<>();
+        int deleted = 0;
+        for (String candidate : batch) {
+            try {
+                switch (collect(candidate, cutoff)) {
+                    case DELETED -> deleted++;
+                    case RECENT -> retry.add(candidate);
+                    case KEPT -> {
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to collect attachment content {}: {}", candidate, e.toString());
+                retry.add(candidate);
+            }
+        }
+        candidates.addAll(retry);
+        if (deleted > 0) {
+            logger.info("Deleted {} unreferenced attachment files", deleted);
+        }
+    }
+
+    /**
+     * Полный обход хранилища. Блокировка не снимается: она держится весь период, поэтому за период
+     * хранилище обходит только один узел
+     */
+    @Scheduled(initialDelayString = "${taskmanager.attachments.sweep-interval-ms:3600000}",
+            fixedDelayString = "${taskmanager.attachments.sweep-interval-ms:3600000}")
+    public void sweep() {
+        try {
+            if (!jobLock.tryAcquire(SWEEP_LOCK_NAME, Duration.ofMillis(sweepIntervalMillis))) {
+                return;
+            }
+            Instant cutoff = Instant.now().minus(grace);
+            int[] deleted = {0};
+            blobStore.forEachBlobOlderThan(cutoff, SWEEP_BATCH_SIZE, hashes -> {
+                Set<String> referenced = new HashSet<>(attachmentRepository.findReferencedHashes(hashes));
+                for (String hash : hashes) {
+                    if (referenced.contains(hash)) {
+                        continue;
+                    }
+                    try {
+                        if (collect(hash, cutoff) == Outcome.DELETED) {
+                            deleted[0]++;
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Failed to collect attachment content {}: {}", hash, e.toString());
+                    }
+                }
+            });
+            int staleTemp = blobStore.deleteStaleTemp(cutoff);
+            if (deleted[0] > 0 || staleTemp > 0) {
+                logger.info("Attachment sweep deleted {} unreferenced files and {} abandoned uploads",
+                        deleted[0], staleTemp);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Attachment sweep failed: {}", e.toString());
+        }
+    }
+
+    // Удаление файла, если на хэш никто не ссылается и файл давно не изменялся
+    private Outcome collect(String hash, Instant cutoff) throws IOException {
+        synchronized (blobStore.lockFor(hash)) {
+            if (attachmentRepository.existsBySha256(hash)) {
+                return Outcome.KEPT;
+            }
+            if (!blobStore.isOlderThan(hash, cutoff)) {
+                // Файла уже нет — или его только что загрузили снова, и ссылка вот-вот появится
+                return Files.exists(blobStore.path(hash)) ? Outcome.RECENT : Outcome.KEPT;
+            }
+            return blobStore.delete(hash) ? Outcome.DELETED : Outcome.KEPT;
+        }
+    }
+
+    // Исход проверки хэша: файл удалён; оставлен (на хэш ссылаются или файла уже нет); изменялся после cutoff
+    private enum Outcome {
+        DELETED,
+        KEPT,
+        RECENT
+    }
+}
@@ -0,0 +1,17 @@
+package com.taskmanager2.novak.service2.audit;
+
+/**
+ * Тип сущности, изменение которой записано в журнал аудита.
+ */
+public enum AuditEntityType {
+
+    /**
+     * Задача. Поля oldValue/newValue записи содержат TaskStatus.
+     */
+    TASK,
+
+    /**
+     * Пользователь. Поля oldValue/newValue записи содержат RoleType.
+     */
+    USER
+}
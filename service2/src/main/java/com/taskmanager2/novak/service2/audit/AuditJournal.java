@@ -0,0 +1,275 @@
+package com.taskmanager2.novak.service2.audit;
+
+/*Журнал аудита изменений задач и пользователей:
+Записи хранятся в компактном двоичном формате (см. AuditSegment) в сегментах фиксированного размера,
+ отображённых в память. Запись не берёт блокировок: место резервируется CAS-операцией,
+ а данные копируются в отображённую память без системных вызовов.
+Когда сегмент заполняется, создаётся следующий (ротация), а самые старые сегменты сверх лимита удаляются.
+Фоновый поток периодически сбрасывает текущий сегмент на диск (force).
+Чтение выполняется по диапазону времени: сегменты, целиком лежащие раньше начала диапазона, пропускаются.
+ Отображения сегментов держатся в памяти (сегменты этого запуска читаются через отображение записи, сегменты
+ прошлых запусков отображаются один раз при открытии журнала), поэтому чтение не отображает файлы заново;
+ отображение сегмента освобождается, когда ротация удаляет сегмент.
+Запись, место под которую зарезервировано, но ещё не дописано (или брошено при сбое), чтение пропускает
+ по зарезервированной длине и продолжает со следующей.
+ * */
+
+import com.taskmanager2.novak.common2.enums.RoleType;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Component
+public class AuditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Максимальная длина имени пользователя в записи (байт UTF-8)
+    private static final int MAX_PRINCIPAL_BYTES = 255;
+
+    // Запас на расхождение времени события и времени создания сегмента при отсечении сегментов
+    private static final long SEGMENT_TIME_SLACK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // Значение поля статуса/роли, когда его нет
+    private static final byte NO_VALUE = -1;
+
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+    private static final RoleType[] ROLES = RoleType.values();
+    private static final AuditEntityType[] ENTITY_TYPES = AuditEntityType.values();
+    private static final ChangeAction[] ACTIONS = ChangeAction.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long flushIntervalMillis;
+
+    // Сегменты, доступные для чтения, по номеру; отображение каждого создаётся один раз
+    private final ConcurrentSkipListMap<Long, AuditSegment> segments = new ConcurrentSkipListMap<>();
+
+    // Сегмент, в который идёт запись; подменяется только при ротации
+    private volatile AuditSegment current;
+    private long nextSequence;
+    private final Object rotationLock = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    public AuditJournal(@Value("${taskmanager.audit.dir:audit}") String directory,
+                        @Value("${taskmanager.audit.segment-size-mb:16}") int segmentSizeMb,
+                        @Value("${taskmanager.audit.max-segments:64}") int maxSegments,
+                        @Value("${taskmanager.audit.flush-interval-ms:1000}") long flushIntervalMillis) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.maxSegments = maxSegments;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(directory);
+
+        // Продолжаем нумерацию после уже существующих сегментов; старые остаются доступны для чтения
+        List<Path> existing = listSegments();
+        for (Path path : existing) {
+            try {
+                segments.put(sequenceOf(path), AuditSegment.openReadOnly(path));
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable audit segment {}: {}", path, e.getMessage());
+            }
+        }
+        nextSequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+        current = createSegment();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> current.force(),
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Audit journal opened in {}", directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    void close() {
+        flusher.shutdown();
+        current.force();
+    }
+
+    /**
+     * Добавление записи об изменении задачи
+     */
+    public void appendTask(ChangeAction action, long taskId, TaskStatus oldStatus, TaskStatus newStatus,
+                           String principal, long timestamp) {
+        append(AuditEntityType.TASK, action, taskId, code(oldStatus), code(newStatus), principal, timestamp);
+    }
+
+    /**
+     * Добавление записи об изменении пользователя
+     */
+    public void appendUser(ChangeAction action, long userId, RoleType oldRole, RoleType newRole,
+                           String principal, long timestamp) {
+        append(AuditEntityType.USER, action, userId, code(oldRole), code(newRole), principal, timestamp);
+    }
+
+    private void append(AuditEntityType entityType, ChangeAction action, long entityId,
+                        byte oldValue, byte newValue, String principal, long timestamp) {
+        byte[] principalBytes = principal.getBytes(StandardCharsets.UTF_8);
+        if (principalBytes.length > MAX_PRINCIPAL_BYTES) {
+            principalBytes = Arrays.copyOf(principalBytes, MAX_PRINCIPAL_BYTES);
+        }
+        int length = (AuditSegment.OFFSET_PRINCIPAL + principalBytes.length + 7) & ~7;
+
+        AuditSegment segment = current;
+        int position = segment.reserve(length);
+        while (position < 0) {
+            segment = rotate(segment);
+            position = segment.reserve(length);
+        }
+        segment.write(position, length, timestamp, entityId, (byte) entityType.ordinal(), (byte) action.ordinal(),
+                oldValue, newValue, principalBytes);
+    }
+
+    /**
+     * Чтение записей журнала за период
+     * @param from  начало периода (включительно)
+     * @param to    конец периода (не включительно)
+     * @param limit максимальное число возвращаемых записей
+     * @return записи в порядке записи в журнал
+     */
+    public List<AuditRecord> scan(Instant from, Instant to, int limit) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<AuditRecord> result = new ArrayList<>();
+
+        // Снимок списка: сегмент, удалённый ротацией во время чтения, дочитывается по своему отображению
+        List<AuditSegment> segments = new ArrayList<>(this.segments.values());
+        for (int i = 0; i < segments.size() && result.size() < limit; i++) {
+            AuditSegment segment = segments.get(i);
+            if (segment.createdAt() - SEGMENT_TIME_SLACK_MILLIS >= toMillis) {
+                break; // этот и все следующие сегменты начинаются после конца периода
+            }
+            boolean nextStartsBefore = i + 1 < segments.size()
+                    && segments.get(i + 1).createdAt() + SEGMENT_TIME_SLACK_MILLIS < fromMillis;
+            if (nextStartsBefore) {
+                continue; // сегмент целиком раньше начала периода
+            }
+            scanSegment(segment, fromMillis, toMillis, limit, result);
+        }
+        return result;
+    }
+
+    private void scanSegment(AuditSegment segment, long fromMillis, long toMillis, int limit,
+                             List<AuditRecord> result) {
+        int position = AuditSegment.HEADER_SIZE;
+        int length;
+        while (result.size() < limit && (length = segment.recordLength(position)) != 0) {
+            if (length < 0) {
+                position -= length; // запись ещё пишется или брошена — пропускаем зарезервированное место
+                continue;
+            }
+            long timestamp = segment.timestamp(position);
+            if (timestamp >= fromMillis && timestamp < toMillis) {
+                result.add(decode(segment, position, timestamp));
+            }
+            position += length;
+        }
+    }
+
+    private AuditRecord decode(AuditSegment segment, int position, long timestamp) {
+        AuditEntityType entityType = ENTITY_TYPES[segment.entityType(position)];
+        return new AuditRecord(
+                Instant.ofEpochMilli(timestamp),
+                entityType,
+                ACTIONS[segment.action(position)],
+                segment.entityId(position),
+                valueName(entityType, segment.oldValue(position)),
+                valueName(entityType, segment.newValue(position)),
+                new String(segment.principal(position), StandardCharsets.UTF_8));
+    }
+
+    // Ротация: только один поток создаёт новый сегмент, остальные подхватывают его
+    private AuditSegment rotate(AuditSegment full) {
+        synchronized (rotationLock) {
+            if (current == full) {
+                try {
+                    full.force();
+                    current = createSegment();
+                    deleteOldSegments();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to rotate audit journal", e);
+                }
+            }
+            return current;
+        }
+    }
+
+    private AuditSegment createSegment() throws IOException {
+        long sequence = nextSequence++;
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        AuditSegment segment = AuditSegment.create(path, segmentSize, System.currentTimeMillis());
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    // Удаление самых старых сегментов сверх лимита; отображение освобождается вместе с последней ссылкой на сегмент
+    private void deleteOldSegments() throws IOException {
+        while (segments.size() > maxSegments) {
+            Map.Entry<Long, AuditSegment> oldest = segments.pollFirstEntry();
+            Files.deleteIfExists(oldest.getValue().path());
+        }
+    }
+
+    // Файлы сегментов в порядке номеров (имена дополнены нулями, поэтому сортировка по имени верна)
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte code(Enum<?> value) {
+        return value == null ? NO_VALUE : (byte) value.ordinal();
+    }
+
+    private static String valueName(AuditEntityType entityType, byte code) {
+        if (code == NO_VALUE) {
+            return null;
+        }
+        return entityType == AuditEntityType.TASK ? TASK_STATUSES[code].name() : ROLES[code].name();
+    }
+}
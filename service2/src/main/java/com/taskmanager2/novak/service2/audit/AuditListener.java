@@ -0,0 +1,32 @@
+package com.taskmanager2.novak.service2.audit;
+
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import com.taskmanager2.novak.service2.event.UserChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Переносит события изменения задач и пользователей в журнал аудита.
+ * Записи делаются только после успешного коммита, поэтому откаченные изменения в журнал не попадают.
+ */
+@Component
+public class AuditListener {
+
+    private final AuditJournal auditJournal;
+
+    public AuditListener(AuditJournal auditJournal) {
+        this.auditJournal = auditJournal;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        auditJournal.appendTask(event.action(), event.taskId(), event.oldStatus(), event.newStatus(),
+                event.principal(), event.timestamp());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        auditJournal.appendUser(event.action(), event.userId(), event.oldRole(), event.newRole(),
+                event.principal(), event.timestamp());
+    }
+}
@@ -0,0 +1,25 @@
+package com.taskmanager2.novak.service2.audit;
+
+import com.taskmanager2.novak.service2.event.ChangeAction;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала аудита в разобранном виде (результат чтения журнала).
+ *
+ * @param timestamp  время изменения
+ * @param entityType тип изменённой сущности
+ * @param action     тип изменения
+ * @param entityId   идентификатор сущности
+ * @param oldValue   статус задачи или роль пользователя до изменения (null, если не было)
+ * @param newValue   статус задачи или роль пользователя после изменения (null, если не стало)
+ * @param principal  кто выполнил изменение
+ */
+public record AuditRecord(Instant timestamp,
+                          AuditEntityType entityType,
+                          ChangeAction action,
+                          long entityId,
+                          String oldValue,
+                          String newValue,
+                          String principal) {
+}
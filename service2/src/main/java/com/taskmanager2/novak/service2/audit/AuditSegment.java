@@ -0,0 +1,179 @@
+package com.taskmanager2.novak.service2.audit;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Один сегмент журнала аудита — файл фиксированного размера, отображённый в память.
+ *
+ * Формат сегмента (little-endian):
+ * заголовок HEADER_SIZE байт: magic (int), версия (int), время создания сегмента (long), резерв;
+ * далее записи подряд, каждая выровнена на 8 байт:
+ *   длина записи (int): при резервировании места туда атомарно пишется минус длина, по завершении записи —
+ *   длина; отрицательное значение означает запись в процессе (или брошенную при сбое) и пропускается читателем,
+ *   время (long), id сущности (long), тип сущности (byte), действие (byte),
+ *   старое значение (byte, ordinal или -1), новое значение (byte, ordinal или -1),
+ *   длина имени пользователя (short), имя пользователя в UTF-8.
+ * Нулевая длина означает конец записанных данных: зарезервированное место нулевым не бывает.
+ */
+final class AuditSegment {
+
+    static final int MAGIC = 0x544D414A; // "TMAJ"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 32;
+
+    // Смещения полей внутри записи
+    static final int OFFSET_TIMESTAMP = 4;
+    static final int OFFSET_ENTITY_ID = 12;
+    static final int OFFSET_ENTITY_TYPE = 20;
+    static final int OFFSET_ACTION = 21;
+    static final int OFFSET_OLD_VALUE = 22;
+    static final int OFFSET_NEW_VALUE = 23;
+    static final int OFFSET_PRINCIPAL_LENGTH = 24;
+    static final int OFFSET_PRINCIPAL = 26;
+
+    // Атомарный доступ к полю длины записи в отображённой памяти (позиции выровнены на 8 байт)
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+    private final int capacity;
+
+    // Подсказка, где искать свободное место: конец последней известной зарезервированной записи
+    private final AtomicInteger writePosition = new AtomicInteger(HEADER_SIZE);
+
+    private AuditSegment(Path path, MappedByteBuffer buffer, long createdAt) {
+        this.path = path;
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.capacity = buffer.capacity();
+    }
+
+    /**
+     * Создаёт новый сегмент и отображает его в память для записи.
+     */
+    static AuditSegment create(Path path, int size, long createdAt) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, createdAt);
+            return new AuditSegment(path, buffer, createdAt);
+        }
+    }
+
+    /**
+     * Открывает существующий сегмент только для чтения.
+     * @throws IOException если файл не является сегментом журнала
+     */
+    static AuditSegment openReadOnly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an audit segment: " + path);
+            }
+            return new AuditSegment(path, buffer, buffer.getLong(8));
+        }
+    }
+
+    /**
+     * Резервирует место под запись: CAS поля длины первой свободной записи с 0 на минус длину.
+     * Резервирование и пометка места — одна операция, поэтому читатель не встретит нулевую длину
+     * посреди зарезервированных записей.
+     * @param length длина записи, кратная 8
+     * @return позиция записи или -1, если сегмент заполнен
+     */
+    int reserve(int length) {
+        int position = writePosition.get();
+        while (position + length <= capacity) {
+            int existing = (int) LENGTH.compareAndExchange(buffer, position, 0, -length);
+            if (existing == 0) {
+                writePosition.accumulateAndGet(position + length, Math::max);
+                return position;
+            }
+            position += Math.abs(existing); // место уже занято другим писателем — переходим за его запись
+        }
+        return -1;
+    }
+
+    /**
+     * Записывает запись в зарезервированную область.
+     * Длина пишется последней с release-семантикой, поэтому читатель никогда не видит запись наполовину.
+     */
+    void write(int position, int length, long timestamp, long entityId, byte entityType, byte action,
+               byte oldValue, byte newValue, byte[] principal) {
+        buffer.putLong(position + OFFSET_TIMESTAMP, timestamp);
+        buffer.putLong(position + OFFSET_ENTITY_ID, entityId);
+        buffer.put(position + OFFSET_ENTITY_TYPE, entityType);
+        buffer.put(position + OFFSET_ACTION, action);
+        buffer.put(position + OFFSET_OLD_VALUE, oldValue);
+        buffer.put(position + OFFSET_NEW_VALUE, newValue);
+        buffer.putShort(position + OFFSET_PRINCIPAL_LENGTH, (short) principal.length);
+        buffer.put(position + OFFSET_PRINCIPAL, principal);
+        LENGTH.setRelease(buffer, position, length);
+    }
+
+    /**
+     * Длина записи по позиции; 0 — дальше данных нет, отрицательная — место зарезервировано, запись не завершена.
+     */
+    int recordLength(int position) {
+        if (position + OFFSET_PRINCIPAL > capacity) {
+            return 0;
+        }
+        return (int) LENGTH.getAcquire(buffer, position);
+    }
+
+    long timestamp(int position) {
+        return buffer.getLong(position + OFFSET_TIMESTAMP);
+    }
+
+    long entityId(int position) {
+        return buffer.getLong(position + OFFSET_ENTITY_ID);
+    }
+
+    byte entityType(int position) {
+        return buffer.get(position + OFFSET_ENTITY_TYPE);
+    }
+
+    byte action(int position) {
+        return buffer.get(position + OFFSET_ACTION);
+    }
+
+    byte oldValue(int position) {
+        return buffer.get(position + OFFSET_OLD_VALUE);
+    }
+
+    byte newValue(int position) {
+        return buffer.get(position + OFFSET_NEW_VALUE);
+    }
+
+    byte[] principal(int position) {
+        byte[] bytes = new byte[buffer.getShort(position + OFFSET_PRINCIPAL_LENGTH)];
+        buffer.get(position + OFFSET_PRINCIPAL, bytes);
+        return bytes;
+    }
+
+    // Сброс изменённых страниц на диск
+    void force() {
+        buffer.force();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,82 @@
+package com.taskmanager2.novak.service2.cache;
+
+import java.util.TreeSet;
+
+/**
+ * Граница чтения таблицы-журнала с id IDENTITY (task_changes, task_transitions).
+ * IDENTITY выдаёт id при вставке, а коммит может прийти позже, поэтому строка с меньшим id иногда становится
+ * видна после строки с большим. Граница сдвигается только по непрерывному ряду прочитанных id; строки выше
+ * пропуска запоминаются, чтобы не обрабатывать их повторно. Пропуск, не заполнившийся за gapTimeoutMillis,
+ * считается откатом транзакции и перешагивается.
+ * Не потокобезопасна: используется одним читателем.
+ */
+public final class IdWatermark {
+
+    private final long gapTimeoutMillis;
+
+    // Все строки с id <= watermark обработаны
+    private long watermark;
+    // Обработанные строки выше пропуска
+    private final TreeSet<Long> seenAboveGap = new TreeSet<>();
+    // Когда замечен текущий пропуск (0 — пропуска нет) и до какого id он перешагивается по истечении таймаута
+    private long gapOpenedAt;
+    private long gapHorizon;
+
+    public IdWatermark(long gapTimeoutMillis) {
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    /**
+     * @return id, после которого нужно читать журнал
+     */
+    public long position() {
+        return watermark;
+    }
+
+    /**
+     * Учёт прочитанной строки
+     * @return true, если строка прочитана впервые и её нужно обработать
+     */
+    public boolean accept(long id) {
+        return id > watermark && seenAboveGap.add(id);
+    }
+
+    /**
+     * Сдвиг границы по непрерывному ряду id; пропуск перешагивается, если не заполнился за таймаут
+     * @param now текущее время в миллисекундах
+     * @return id, до которого перешагнут пропуск, или 0, если пропуск не перешагивался
+     */
+    public long advance(long now) {
+        long skippedTo = 0;
+        while (true) {
+            while (!seenAboveGap.isEmpty() && seenAboveGap.first() == watermark + 1) {
+                watermark = seenAboveGap.pollFirst();
+            }
+            if (seenAboveGap.isEmpty()) {
+                gapOpenedAt = 0;
+                return skippedTo;
+            }
+            if (gapOpenedAt == 0) {
+                gapOpenedAt = now;
+                gapHorizon = seenAboveGap.last();
+                return skippedTo;
+            }
+            if (now - gapOpenedAt < gapTimeoutMillis) {
+                return skippedTo;
+            }
+            seenAboveGap.headSet(gapHorizon, true).clear();
+            watermark = Math.max(watermark, gapHorizon);
+            skippedTo = watermark;
+            gapOpenedAt = 0;
+        }
+    }
+
+    /**
+     * Перенос границы: всё до id включительно считается обработанным
+     */
+    public void reset(long id) {
+        watermark = id;
+        seenAboveGap.clear();
+        gapOpenedAt = 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.taskmanager2.novak.service2.cache;
+
+/*Запись журнала изменений задач (таблица task_changes):
+Каждая транзакция, изменившая задачи, добавляет в журнал одну строку: узел-автор и маску затронутых статусов.
+События TaskChangedEvent одной транзакции (например, пачки импорта или архивирования) сливаются в одну строку,
+ которая вставляется перед коммитом в той же транзакции — откаченное изменение в журнал не попадает.
+Конвейер групповой записи публикует события в транзакции своей пачки, поэтому пачка тоже даёт одну строку.
+Событие вне транзакции (сейчас таких публикаций нет) записывается сразу отдельной строкой.
+Журнал читают другие узлы (TaskChangePoller), чтобы сбросить свои кэши; поэтому он включается вместе с кэшем,
+ и на всех узлах свойство taskmanager.task-cache.enabled должно совпадать.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.TaskChangeEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskChangeRepository;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.task-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskChangeLog {
+
+    private final TaskChangeRepository taskChangeRepository;
+
+    // Идентификатор узла — тот же, что в таблице блокировок заданий
+    private final String nodeId;
+
+    public TaskChangeLog(TaskChangeRepository taskChangeRepository, JobLock jobLock) {
+        this.taskChangeRepository = taskChangeRepository;
+        this.nodeId = jobLock.owner();
+    }
+
+    /**
+     * @return идентификатор этого узла в журнале изменений
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Учёт изменения задачи: внутри транзакции копится до её коммита, вне транзакции пишется сразу
+     */
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        int mask = TaskQueryCache.statusMask(event.oldStatus(), event.newStatus());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            append(mask);
+            return;
+        }
+        PendingChange pending = (PendingChange) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChange();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.statuses |= mask;
+    }
+
+    private void append(int statuses) {
+        taskChangeRepository.save(new TaskChangeEntity(nodeId, statuses, Instant.now()));
+    }
+
+    /**
+     * Изменения текущей транзакции; записываются одной строкой перед коммитом
+     */
+    private final class PendingChange implements TransactionSynchronization {
+
+        int statuses;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            append(statuses);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TaskChangeLog.this);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.taskmanager2.novak.service2.cache;
+
+/*Чтение журнала изменений задач другими узлами:
+Каждые poll-interval-ms узел читает из task_changes строки после последней прочитанной (по id) и сбрасывает
+ в своём кэше слоты затронутых статусов. Свои строки пропускаются — их слоты уже сброшены после коммита.
+ О прочитанных чужих изменениях узнают и другие подписчики (граф зависимостей) — через RemoteTaskChangesEvent.
+Пропуски id (строка с меньшим id может стать видна позже строки с большим) учитывает граница чтения IdWatermark;
+ пропуск, не заполнившийся за gap-timeout, считается откатом транзакции и перешагивается.
+Если журнал не читался дольше срока хранения (узел терял связь с БД), нужные строки могли быть уже удалены —
+ тогда кэш сбрасывается целиком.
+Старые строки журнала удаляет один из узлов (под блокировкой JobLock) раз в prune-interval.
+Опрос идёт в общем планировщике @Scheduled, поэтому в нём больше одного потока: иначе долгий запуск архивирования
+ задерживал бы чтение журнала.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.TaskChangeEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskChangeRepository;
+import com.taskmanager2.novak.service2.event.RemoteTaskChangesEvent;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.task-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskChangePoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskChangePoller.class);
+
+    // Имя задания очистки журнала в таблице блокировок
+    static final String PRUNE_LOCK_NAME = "task-change-log-prune";
+
+    // Строк журнала за один запрос
+    private static final int BATCH_SIZE = 1000;
+
+    private final TaskChangeRepository taskChangeRepository;
+    private final TaskQueryCache cache;
+    private final JobLock jobLock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    // Срок хранения строк журнала
+    private final Duration retention;
+
+    // Период очистки журнала
+    private final long pruneIntervalMillis;
+
+    // Граница прочитанного журнала
+    private final IdWatermark watermark;
+
+    private long lastPollAt;
+    private long lastPruneAt;
+
+    public TaskChangePoller(TaskChangeRepository taskChangeRepository,
+                            TaskQueryCache cache,
+                            TaskChangeLog changeLog,
+                            JobLock jobLock,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${taskmanager.task-cache.gap-timeout:10s}") Duration gapTimeout,
+                            @Value("${taskmanager.task-cache.retention:1h}") Duration retention,
+                            @Value("${taskmanager.task-cache.prune-interval:5m}") Duration pruneInterval) {
+        this.taskChangeRepository = taskChangeRepository;
+        this.cache = cache;
+        this.jobLock = jobLock;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = changeLog.nodeId();
+        this.watermark = new IdWatermark(gapTimeout.toMillis());
+        this.retention = retention;
+        this.pruneIntervalMillis = pruneInterval.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        // Кэш при запуске пуст, поэтому более ранние изменения неинтересны
+        lastPollAt = System.currentTimeMillis();
+        watermark.reset(taskChangeRepository.findMaxId());
+        lastPruneAt = lastPollAt;
+        cache.confirmFresh(lastPollAt);
+    }
+
+    /**
+     * Периодическое чтение журнала изменений
+     */
+    @Scheduled(initialDelayString = "${taskmanager.task-cache.poll-interval-ms:1000}",
+            fixedDelayString = "${taskmanager.task-cache.poll-interval-ms:1000}")
+    public void poll() {
+        long started = System.currentTimeMillis();
+        try {
+            if (started - lastPollAt > retention.toMillis()) {
+                logger.warn("Task change log was not read for {} ms, clearing task cache", started - lastPollAt);
+                cache.invalidateAll();
+                eventPublisher.publishEvent(new RemoteTaskChangesEvent(0));
+                watermark.reset(taskChangeRepository.findMaxId());
+            } else {
+                readChanges(started);
+            }
+            lastPollAt = started;
+            cache.confirmFresh(started);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read task change log: {}", e.toString());
+        }
+
+        if (started - lastPruneAt >= pruneIntervalMillis) {
+            lastPruneAt = started;
+            prune();
+        }
+    }
+
+    private void readChanges(long now) {
+        long after = watermark.position();
+        List<TaskChangeEntity> rows;
+        do {
+            rows = taskChangeRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+            int statuses = 0;
+            boolean remoteChange = false;
+            for (TaskChangeEntity row : rows) {
+                after = row.getId();
+                if (watermark.accept(row.getId()) && !nodeId.equals(row.getNodeId())) {
+                    remoteChange = true;
+                    statuses |= row.getStatuses();
+                }
+            }
+            // Сбрасываем до следующего запроса: если он упадёт, прочитанные строки уже учтены
+            if (remoteChange) {
+                cache.invalidate(statuses);
+                eventPublisher.publishEvent(new RemoteTaskChangesEvent(statuses));
+            }
+        } while (rows.size() == BATCH_SIZE);
+        long skippedTo = watermark.advance(now);
+        if (skippedTo > 0) {
+            logger.debug("Skipped task change log ids up to {} that never appeared", skippedTo);
+        }
+    }
+
+    // Удаление строк старше срока хранения. Блокировка не снимается: она держится весь период очистки,
+    // поэтому за период журнал чистит только один узел
+    private void prune() {
+        try {
+            if (!jobLock.tryAcquire(PRUNE_LOCK_NAME, Duration.ofMillis(pruneIntervalMillis))) {
+                return;
+            }
+            Instant cutoff = Instant.now().minus(retention);
+            Integer deleted = transactionTemplate.execute(status -> taskChangeRepository.deleteOlderThan(cutoff));
+            if (deleted != null && deleted > 0) {
+                logger.info("Pruned {} task change log rows older than {}", deleted, cutoff);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to prune task change log: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.taskmanager2.novak.service2.cache;
+
+/*Кэш результатов запросов списков задач на этом узле:
+Кэшируются ответы getAllTasks и getTasksByStatus — по одному слоту на «все задачи» и на каждый статус.
+Размер ограничен суммарным числом задач во всех слотах (max-tasks): при превышении вытесняются слоты,
+ к которым дольше всего не обращались; результат больше лимита не кэшируется вовсе.
+Сброс:
+ - изменения задач на этом узле сбрасывают затронутые слоты сразу после коммита;
+ - изменения на других узлах приходят через журнал изменений (TaskChangePoller) с задержкой до периода опроса.
+Для каждого эндпоинта можно задать максимальную устарелость: запись выдаётся, только если с момента её загрузки
+ или последнего успешного чтения журнала прошло не больше этого времени; иначе запрос идёт в хранилище.
+Гонка «загрузка из БД и одновременный сброс» решается поколением: результат, загруженный до сброса, в кэш не попадает.
+Выданные списки неизменяемы и общие для всех вызывающих.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.task-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TaskQueryCache {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // Слот 0 — все задачи, слот 1 + ordinal — задачи со статусом
+    private static final int ALL_SLOT = 0;
+
+    // Закэшированный результат запроса
+    private static final class Entry {
+        final List<TaskEntity> tasks;
+        // Момент перед загрузкой: результат отражает все изменения, закоммиченные до него
+        final long loadedAt;
+        volatile long lastAccess;
+
+        Entry(List<TaskEntity> tasks, long loadedAt) {
+            this.tasks = tasks;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(STATUSES.length + 1);
+
+    // Увеличивается при каждом сбросе; загрузка, пережившая сброс, не кладётся в кэш
+    private final AtomicLong generation = new AtomicLong();
+
+    // Запись, вытеснение и сброс слотов — под этой блокировкой; чтение без блокировок
+    private final Object writeLock = new Object();
+    private long cachedTasks;
+
+    // Момент начала последнего успешного чтения журнала изменений
+    private volatile long confirmedAt = System.currentTimeMillis();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Лимит суммарного числа задач в кэше
+    private final long maxTasks;
+
+    // Максимальная устарелость для всех задач и для выборки по статусу (0 — без ограничения)
+    private final long maxStalenessAllMillis;
+    private final long maxStalenessByStatusMillis;
+
+    public TaskQueryCache(@Value("${taskmanager.task-cache.max-tasks:200000}") long maxTasks,
+                          @Value("${taskmanager.task-cache.max-staleness.all:0s}") Duration maxStalenessAll,
+                          @Value("${taskmanager.task-cache.max-staleness.by-status:0s}") Duration maxStalenessByStatus) {
+        this.maxTasks = maxTasks;
+        this.maxStalenessAllMillis = maxStalenessAll.toMillis();
+        this.maxStalenessByStatusMillis = maxStalenessByStatus.toMillis();
+    }
+
+    /**
+     * Результат запроса из кэша или из загрузчика
+     * @param status статус выборки или null — все задачи
+     * @param loader запрос к хранилищу
+     * @return неизменяемый список задач
+     */
+    public List<TaskEntity> get(TaskStatus status, Supplier<List<TaskEntity>> loader) {
+        int slot = status == null ? ALL_SLOT : 1 + status.ordinal();
+        long now = System.currentTimeMillis();
+        Entry entry = slots.get(slot);
+        if (entry != null && isFresh(entry, now, status == null ? maxStalenessAllMillis : maxStalenessByStatusMillis)) {
+            entry.lastAccess = now;
+            hits.increment();
+            return entry.tasks;
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        List<TaskEntity> tasks = List.copyOf(loader.get());
+        if (tasks.size() <= maxTasks) {
+            put(slot, new Entry(tasks, now), loadGeneration);
+        }
+        return tasks;
+    }
+
+    /**
+     * Сброс слотов, затронутых изменением задач с указанными статусами
+     * @param statusMask битовая маска статусов (см. statusMask); 0 — сбросить всё
+     */
+    public void invalidate(int statusMask) {
+        synchronized (writeLock) {
+            generation.incrementAndGet();
+            remove(ALL_SLOT);
+            for (TaskStatus status : STATUSES) {
+                if (statusMask == 0 || (statusMask & (1 << status.ordinal())) != 0) {
+                    remove(1 + status.ordinal());
+                }
+            }
+        }
+    }
+
+    /**
+     * Полный сброс кэша
+     */
+    public void invalidateAll() {
+        invalidate(0);
+    }
+
+    /**
+     * Отметка успешного чтения журнала: все изменения других узлов, закоммиченные до момента at, уже учтены
+     */
+    public void confirmFresh(long at) {
+        confirmedAt = at;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Сброс после коммита изменения задачи на этом узле
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        invalidate(statusMask(event.oldStatus(), event.newStatus()));
+    }
+
+    /**
+     * Битовая маска статусов: бит 1 << ordinal для каждого ненулевого статуса
+     */
+    public static int statusMask(TaskStatus oldStatus, TaskStatus newStatus) {
+        int mask = 0;
+        if (oldStatus != null) {
+            mask |= 1 << oldStatus.ordinal();
+        }
+        if (newStatus != null) {
+            mask |= 1 << newStatus.ordinal();
+        }
+        return mask;
+    }
+
+    private boolean isFresh(Entry entry, long now, long maxStalenessMillis) {
+        return maxStalenessMillis <= 0 || now - Math.max(entry.loadedAt, confirmedAt) <= maxStalenessMillis;
+    }
+
+    private void put(int slot, Entry entry, long loadGeneration) {
+        synchronized (writeLock) {
+            // Сброс после начала загрузки: результат мог не увидеть изменение
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            remove(slot);
+            slots.set(slot, entry);
+            cachedTasks += entry.tasks.size();
+            while (cachedTasks > maxTasks) {
+                remove(leastRecentlyUsed(slot));
+            }
+        }
+    }
+
+    // Слот с самым давним обращением, кроме только что записанного
+    private int leastRecentlyUsed(int keep) {
+        int victim = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (i != keep && entry != null && entry.lastAccess < oldest) {
+                victim = i;
+                oldest = entry.lastAccess;
+            }
+        }
+        return victim;
+    }
+
+    private void remove(int slot) {
+        Entry removed = slots.getAndSet(slot, null);
+        if (removed != null) {
+            cachedTasks -= removed.tasks.size();
+        }
+    }
+}
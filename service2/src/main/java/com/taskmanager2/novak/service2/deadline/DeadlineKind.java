@@ -0,0 +1,13 @@
+package com.taskmanager2.novak.service2.deadline;
+
+/**
+ * Вид уведомления о сроке задачи.
+ */
+public enum DeadlineKind {
+
+    // Срок скоро наступит (за reminder-lead до срока)
+    REMINDER,
+
+    // Срок прошёл, а задача не завершена
+    OVERDUE
+}
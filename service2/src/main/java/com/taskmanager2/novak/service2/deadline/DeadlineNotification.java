@@ -0,0 +1,19 @@
+package com.taskmanager2.novak.service2.deadline;
+
+import java.time.Instant;
+
+/**
+ * Уведомление о сроке задачи, передаваемое в DeadlineSink.
+ *
+ * @param kind     вид уведомления
+ * @param taskId   идентификатор задачи
+ * @param taskName название задачи
+ * @param dueAt    срок задачи
+ * @param firedAt  момент срабатывания таймера
+ */
+public record DeadlineNotification(DeadlineKind kind,
+                                   long taskId,
+                                   String taskName,
+                                   Instant dueAt,
+                                   Instant firedAt) {
+}
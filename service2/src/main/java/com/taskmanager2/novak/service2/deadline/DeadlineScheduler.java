@@ -0,0 +1,363 @@
+package com.taskmanager2.novak.service2.deadline;
+
+/*Сроки задач — напоминания и уведомления о просрочке:
+Таймеры незавершённых задач со сроком живут в памяти узла в иерархическом колесе (DeadlineWheel): постановка
+ и снятие — O(1), а тик раз в tick обходит только слоты, которые наступили, — таблица задач по расписанию не
+ просматривается. У задачи один таймер: напоминание за reminder-lead до срока, после него — просрочка в момент срока.
+Колесо заполняется при запуске одним проходом по задачам со сроком (страницами по id) и дальше поддерживается
+ изменениями через TaskService: после коммита таймер задачи ставится, переставляется или снимается.
+ Задачи, изменённые во время загрузки, загрузка не трогает — их таймеры уже поставило изменение.
+При срабатывании задача перечитывается: если её удалили, завершили или сменили срок, уведомление не нужно
+ (актуальный таймер поставило само изменение, возможно, на другом узле). Затем уведомление «захватывается» вставкой
+ строки deadline_notices с ключом задача/вид/срок и передаётся в DeadlineSink, только если вставка прошла, —
+ поэтому после перезапуска или при нескольких узлах об одном сроке не сообщается дважды. Уже отправленные
+ уведомления загрузка проверяет пачками и не ставит заново. Неудачная доставка повторяется через retry-delay.
+Просрочки старше retention не ставятся, а строки уведомлений о таких сроках удаляет периодическая очистка
+ (на одном узле, блокировка JobLock).
+Колесо обслуживает свой поток: загрузка и доставка не занимают общий пул @Scheduled.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.DeadlineNoticeEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.DeadlineNoticeRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.deadline.DeadlineWheel.Timer;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.deadlines", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineScheduler.class);
+
+    // Имя задания очистки уведомлений в таблице блокировок
+    static final String CLEANUP_LOCK_NAME = "deadline-notice-cleanup";
+
+    // Задач в одной странице загрузки
+    private static final int BATCH_SIZE = 1000;
+
+    private final TaskStore taskStore;
+    private final DeadlineNoticeRepository noticeRepository;
+    private final DeadlineSink sink;
+    private final JobLock jobLock;
+
+    // Захват уведомления — своя короткая транзакция, независимая от транзакции вызывающего
+    private final TransactionTemplate transactionTemplate;
+
+    private final long tickMillis;
+    private final long reminderLeadMillis;
+    private final long retentionMillis;
+    private final long retryDelayMillis;
+    private final long cleanupIntervalMillis;
+
+    // Колесо таймеров; доступ — под его монитором
+    private final DeadlineWheel wheel;
+
+    // id задач, изменённых через TaskService во время загрузки; null после загрузки
+    private Set<Long> touchedDuringLoad = new HashSet<>();
+
+    private volatile boolean loaded;
+    private ScheduledExecutorService ticker;
+
+    public DeadlineScheduler(TaskStore taskStore,
+                             DeadlineNoticeRepository noticeRepository,
+                             DeadlineSink sink,
+                             JobLock jobLock,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${taskmanager.deadlines.tick:1s}") Duration tick,
+                             @Value("${taskmanager.deadlines.reminder-lead:1h}") Duration reminderLead,
+                             @Value("${taskmanager.deadlines.retention:30d}") Duration retention,
+                             @Value("${taskmanager.deadlines.retry-delay:1m}") Duration retryDelay,
+                             @Value("${taskmanager.deadlines.cleanup-interval-ms:3600000}") long cleanupIntervalMillis,
+                             @Value("${taskmanager.deadlines.initial-capacity:65536}") int initialCapacity) {
+        this.taskStore = taskStore;
+        this.noticeRepository = noticeRepository;
+        this.sink = sink;
+        this.jobLock = jobLock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tickMillis = Math.max(tick.toMillis(), 1);
+        this.reminderLeadMillis = reminderLead.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.retryDelayMillis = retryDelay.toMillis();
+        this.cleanupIntervalMillis = cleanupIntervalMillis;
+        this.wheel = new DeadlineWheel(tickMillis, System.currentTimeMillis(), initialCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deadline-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Задача создана или изменена через TaskService: таймер ставится по её сроку и статусу после коммита
+     */
+    public void onTaskSaved(TaskEntity task) {
+        long taskId = task.getId();
+        TaskStatus status = task.getStatusTask();
+        Instant dueAt = task.getDueAt();
+        afterCommit(() -> apply(taskId, status, dueAt));
+    }
+
+    /**
+     * Удаление задачи: уведомления о её сроках удаляются в транзакции вызывающего, таймер снимается после коммита
+     */
+    public void onTaskDeleted(long taskId) {
+        noticeRepository.deleteByTaskId(taskId);
+        afterCommit(() -> apply(taskId, null, null));
+    }
+
+    /**
+     * Массовый переход статусов: завершённым задачам таймеры больше не нужны, а задачам, вернувшимся из DONE,
+     * таймеры ставятся заново по сроку из хранилища. Выполняется после коммита пачки
+     */
+    public void onTasksTransitioned(List<Long> taskIds, TaskStatus from, TaskStatus to) {
+        if (to == TaskStatus.DONE) {
+            afterCommit(() -> {
+                for (Long taskId : taskIds) {
+                    apply(taskId, TaskStatus.DONE, null);
+                }
+            });
+        } else if (from == TaskStatus.DONE) {
+            afterCommit(() -> {
+                for (Long taskId : taskIds) {
+                    taskStore.findById(taskId).ifPresentOrElse(
+                            task -> apply(taskId, task.getStatusTask(), task.getDueAt()),
+                            () -> apply(taskId, null, null));
+                }
+            });
+        }
+    }
+
+    /**
+     * @return число таймеров в колесе
+     */
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Удаление уведомлений о давно прошедших сроках; выполняет один узел за период
+     */
+    @Scheduled(initialDelayString = "${taskmanager.deadlines.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${taskmanager.deadlines.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        try {
+            if (!jobLock.tryAcquire(CLEANUP_LOCK_NAME, Duration.ofMillis(cleanupIntervalMillis))) {
+                return;
+            }
+            Instant cutoff = Instant.now().minusMillis(retentionMillis);
+            Integer deleted = transactionTemplate.execute(status -> noticeRepository.deleteByDueAtBefore(cutoff));
+            if (deleted != null && deleted > 0) {
+                logger.info("Deleted {} deadline notices for due dates before {}", deleted, cutoff);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Deadline notice cleanup failed: {}", e.toString());
+        }
+    }
+
+    // Тик потока колеса: при первом запуске — загрузка, затем срабатывание наступивших таймеров
+    private void tick() {
+        try {
+            if (!loaded) {
+                load();
+            }
+            List<Timer> fired = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), fired);
+            }
+            for (Timer timer : fired) {
+                fire(timer);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Deadline wheel tick failed: {}", e.toString());
+        }
+    }
+
+    // Загрузка сроков незавершённых задач; при ошибке повторяется на следующем тике
+    private void load() {
+        long started = System.nanoTime();
+        long after = 0;
+        long scheduled = 0;
+        List<TaskEntity> tasks;
+        do {
+            tasks = taskStore.findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(TaskStatus.DONE, after,
+                    Limit.of(BATCH_SIZE));
+            if (tasks.isEmpty()) {
+                break;
+            }
+            after = tasks.get(tasks.size() - 1).getId();
+            long now = System.currentTimeMillis();
+
+            // Уже наступившие таймеры могли сработать до перезапуска: отправленные уведомления проверяем пачкой
+            List<String> dueKeys = new ArrayList<>();
+            for (TaskEntity task : tasks) {
+                long dueAt = task.getDueAt().toEpochMilli();
+                DeadlineKind kind = kindOf(dueAt, now);
+                if (kind != null && fireAt(kind, dueAt) <= now) {
+                    dueKeys.add(noticeKey(task.getId(), kind, dueAt));
+                }
+            }
+            Set<String> sent = dueKeys.isEmpty() ? Set.of() : new HashSet<>(noticeRepository.findExistingIds(dueKeys));
+
+            synchronized (wheel) {
+                for (TaskEntity task : tasks) {
+                    long taskId = task.getId();
+                    long dueAt = task.getDueAt().toEpochMilli();
+                    DeadlineKind kind = kindOf(dueAt, now);
+                    if (kind == null || touchedDuringLoad.contains(taskId)) {
+                        continue;
+                    }
+                    if (sent.contains(noticeKey(taskId, kind, dueAt))) {
+                        if (kind == DeadlineKind.OVERDUE) {
+                            continue;
+                        }
+                        // Напоминание отправлено, срок ещё впереди — ждём просрочку
+                        kind = DeadlineKind.OVERDUE;
+                    }
+                    wheel.schedule(taskId, kind, dueAt, fireAt(kind, dueAt));
+                    scheduled++;
+                }
+            }
+        } while (tasks.size() == BATCH_SIZE);
+
+        synchronized (wheel) {
+            touchedDuringLoad = null;
+        }
+        loaded = true;
+        logger.info("Deadline wheel loaded in {} ms: {} timers scheduled", (System.nanoTime() - started) / 1_000_000,
+                scheduled);
+    }
+
+    // Постановка или снятие таймера задачи по её текущему состоянию (status == null — задача удалена)
+    private void apply(long taskId, TaskStatus status, Instant dueAt) {
+        long now = System.currentTimeMillis();
+        synchronized (wheel) {
+            if (touchedDuringLoad != null) {
+                touchedDuringLoad.add(taskId);
+            }
+            DeadlineKind kind = status == null || status == TaskStatus.DONE || dueAt == null
+                    ? null : kindOf(dueAt.toEpochMilli(), now);
+            if (kind == null) {
+                wheel.cancel(taskId);
+            } else {
+                wheel.schedule(taskId, kind, dueAt.toEpochMilli(), fireAt(kind, dueAt.toEpochMilli()));
+            }
+        }
+    }
+
+    // Срабатывание таймера: проверка задачи, захват уведомления, доставка
+    private void fire(Timer timer) {
+        long taskId = timer.taskId();
+        try {
+            TaskEntity task = taskStore.findById(taskId).orElse(null);
+            if (task == null || task.getStatusTask() == TaskStatus.DONE || task.getDueAt() == null
+                    || task.getDueAt().toEpochMilli() != timer.dueAt()) {
+                return;
+            }
+            Instant now = Instant.now();
+            String key = noticeKey(taskId, timer.kind(), timer.dueAt());
+            if (claim(key, taskId, timer.kind(), task.getDueAt(), now)) {
+                try {
+                    sink.deliver(new DeadlineNotification(timer.kind(), taskId, task.getNameTask(), task.getDueAt(),
+                            now));
+                } catch (RuntimeException e) {
+                    transactionTemplate.executeWithoutResult(status -> noticeRepository.deleteById(key));
+                    throw e;
+                }
+            }
+            if (timer.kind() == DeadlineKind.REMINDER) {
+                synchronized (wheel) {
+                    // Изменение задачи, пришедшее после перечитывания, уже поставило свой таймер — его не заменяем
+                    wheel.scheduleIfAbsent(taskId, DeadlineKind.OVERDUE, timer.dueAt(), timer.dueAt());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to deliver {} for task {}, retrying in {} ms: {}", timer.kind(), taskId,
+                    retryDelayMillis, e.toString());
+            synchronized (wheel) {
+                wheel.scheduleIfAbsent(taskId, timer.kind(), timer.dueAt(),
+                        System.currentTimeMillis() + retryDelayMillis);
+            }
+        }
+    }
+
+    // Вставка строки уведомления; false — уведомление уже отправлено (этим или другим узлом)
+    private boolean claim(String key, long taskId, DeadlineKind kind, Instant dueAt, Instant now) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> noticeRepository.saveAndFlush(
+                    new DeadlineNoticeEntity(key, taskId, kind.name(), dueAt, now)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // Ближайшее уведомление для срока: напоминание, пока срок впереди; просрочка, пока она не старше retention
+    private DeadlineKind kindOf(long dueAt, long now) {
+        if (now < dueAt) {
+            return reminderLeadMillis > 0 ? DeadlineKind.REMINDER : DeadlineKind.OVERDUE;
+        }
+        return now - dueAt <= retentionMillis ? DeadlineKind.OVERDUE : null;
+    }
+
+    private long fireAt(DeadlineKind kind, long dueAt) {
+        return kind == DeadlineKind.REMINDER ? dueAt - reminderLeadMillis : dueAt;
+    }
+
+    private static String noticeKey(long taskId, DeadlineKind kind, long dueAt) {
+        return taskId + "/" + kind.name() + "/" + dueAt;
+    }
+
+    // Выполнение после коммита текущей транзакции (при откате — не выполняется) или сразу, если транзакции нет
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
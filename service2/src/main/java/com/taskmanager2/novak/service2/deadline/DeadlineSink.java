@@ -0,0 +1,18 @@
+package com.taskmanager2.novak.service2.deadline;
+
+/**
+ * Получатель уведомлений о сроках задач (почта, мессенджер, очередь сообщений).
+ * Реализация выбирается свойством taskmanager.deadlines.sink: local (по умолчанию, LocalDeadlineSink — журнал
+ * приложения и последние уведомления в памяти) или своя реализация-бин с другим значением свойства.
+ * Вызывается из потока колеса таймеров по одному уведомлению; долгая доставка задерживает следующие уведомления,
+ * поэтому медленный канал лучше отдавать в свою очередь.
+ */
+public interface DeadlineSink {
+
+    /**
+     * Доставка уведомления. Исключение означает неудачу: уведомление будет отправлено повторно через retry-delay.
+     *
+     * @param notification уведомление
+     */
+    void deliver(DeadlineNotification notification);
+}
@@ -0,0 +1,239 @@
+package com.taskmanager2.novak.service2.deadline;
+
+import com.taskmanager2.novak.common2.collection.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров сроков задач: у каждой задачи не больше одного таймера.
+ * Время делится на тики (tickMillis). Уровень 0 — 64 слота по одному тику, уровень L — 64 слота по 64^L тиков;
+ * шесть уровней покрывают 64^6 тиков (при тике в секунду — больше двух тысяч лет). Таймер кладётся на самый нижний
+ * уровень, чей диапазон его вмещает; когда начинается период слота верхнего уровня, его таймеры переносятся ниже,
+ * и каждый таймер переносится не больше LEVELS - 1 раз. Постановка и снятие таймера — O(1): слот вычисляется
+ * сдвигами, таймер вставляется в двусвязный список слота, а ячейка таймера находится по id задачи в хеш-таблице.
+ * Таймеры — «структура массивов» (id задачи, срок, момент срабатывания, вид, ссылки списка) без объекта на таймер;
+ * освободившиеся ячейки переиспользуются.
+ * Таймер срабатывает на первом тике не раньше своего момента, то есть с опозданием меньше тика.
+ * Не потокобезопасно: доступ синхронизирует DeadlineScheduler.
+ */
+final class DeadlineWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    // Нет ячейки (конец списка, пустой слот)
+    private static final int NONE = -1;
+
+    private static final DeadlineKind[] KINDS = DeadlineKind.values();
+
+    private final long tickMillis;
+
+    // Первая ячейка списка каждого слота: уровень * SLOTS + слот
+    private final int[] heads = new int[LEVELS * SLOTS];
+
+    // id задачи → ячейка её таймера
+    private final LongIntHashMap cellByTask;
+
+    private long[] taskIds;
+    private long[] dueAts;
+    private long[] fireAts;
+    private byte[] kinds;
+    private int[] next;
+    private int[] prev;
+    private int[] buckets;
+
+    // Ячейки после последней занятой и список освобождённых (через next)
+    private int used;
+    private int freeHead = NONE;
+
+    // Следующий необработанный тик
+    private long currentTick;
+
+    DeadlineWheel(long tickMillis, long nowMillis, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        Arrays.fill(heads, NONE);
+        cellByTask = new LongIntHashMap(capacity);
+        taskIds = new long[capacity];
+        dueAts = new long[capacity];
+        fireAts = new long[capacity];
+        kinds = new byte[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        buckets = new int[capacity];
+    }
+
+    /**
+     * Постановка таймера задачи; прежний таймер задачи заменяется
+     * @param dueAt  срок задачи (мс epoch)
+     * @param fireAt момент срабатывания (мс epoch); прошедший момент сработает на ближайшем тике
+     */
+    void schedule(long taskId, DeadlineKind kind, long dueAt, long fireAt) {
+        int cell = cellByTask.get(taskId);
+        if (cell == LongIntHashMap.MISSING) {
+            cell = allocate();
+            taskIds[cell] = taskId;
+            cellByTask.put(taskId, cell);
+        } else {
+            unlink(cell);
+        }
+        dueAts[cell] = dueAt;
+        fireAts[cell] = fireAt;
+        kinds[cell] = (byte) kind.ordinal();
+        insert(cell);
+    }
+
+    /**
+     * Постановка таймера, только если у задачи таймера нет
+     * @return true, если таймер поставлен
+     */
+    boolean scheduleIfAbsent(long taskId, DeadlineKind kind, long dueAt, long fireAt) {
+        if (cellByTask.get(taskId) != LongIntHashMap.MISSING) {
+            return false;
+        }
+        schedule(taskId, kind, dueAt, fireAt);
+        return true;
+    }
+
+    /**
+     * Снятие таймера задачи
+     * @return true, если таймер был
+     */
+    boolean cancel(long taskId) {
+        int cell = cellByTask.get(taskId);
+        if (cell == LongIntHashMap.MISSING) {
+            return false;
+        }
+        unlink(cell);
+        cellByTask.remove(taskId);
+        release(cell);
+        return true;
+    }
+
+    int size() {
+        return cellByTask.size();
+    }
+
+    /**
+     * Обработка тиков до момента now включительно
+     * @param fired принимает сработавшие таймеры; они снимаются с колеса
+     */
+    void advance(long nowMillis, List<Timer> fired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick <= target) {
+            if (cellByTask.size() == 0) {
+                // Пустое колесо: тики проходить незачем
+                currentTick = target + 1;
+                return;
+            }
+            long tick = currentTick;
+            // Начавшиеся периоды верхних уровней переносятся вниз, начиная с самого верхнего:
+            // перенесённое с него может попасть в слот нижнего уровня, который переносится на этом же тике
+            for (int level = LEVELS - 1; level > 0; level--) {
+                int shift = SLOT_BITS * level;
+                if ((tick & ((1L << shift) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((tick >> shift) & SLOT_MASK));
+                }
+            }
+            int bucket = (int) (tick & SLOT_MASK);
+            int cell = heads[bucket];
+            heads[bucket] = NONE;
+            while (cell != NONE) {
+                int following = next[cell];
+                fired.add(new Timer(taskIds[cell], KINDS[kinds[cell]], dueAts[cell], fireAts[cell]));
+                cellByTask.remove(taskIds[cell]);
+                release(cell);
+                cell = following;
+            }
+            currentTick = tick + 1;
+        }
+    }
+
+    // Размещение таймера на нижнем уровне, вмещающем его тик срабатывания
+    private void insert(int cell) {
+        long expiry = Math.max(-Math.floorDiv(-fireAts[cell], tickMillis), currentTick);
+        int level = 0;
+        while (level < LEVELS - 1
+                && (expiry >> (SLOT_BITS * level)) - (currentTick >> (SLOT_BITS * level)) >= SLOTS) {
+            level++;
+        }
+        int shift = SLOT_BITS * level;
+        long position = expiry >> shift;
+        if (position - (currentTick >> shift) >= SLOTS) {
+            // Дальше, чем покрывает колесо: в последний слот верхнего уровня, при переносе место пересчитается
+            position = (currentTick >> shift) + SLOTS - 1;
+        }
+        link(cell, level * SLOTS + (int) (position & SLOT_MASK));
+    }
+
+    private void cascade(int bucket) {
+        int cell = heads[bucket];
+        heads[bucket] = NONE;
+        while (cell != NONE) {
+            int following = next[cell];
+            insert(cell);
+            cell = following;
+        }
+    }
+
+    private void link(int cell, int bucket) {
+        int head = heads[bucket];
+        buckets[cell] = bucket;
+        prev[cell] = NONE;
+        next[cell] = head;
+        if (head != NONE) {
+            prev[head] = cell;
+        }
+        heads[bucket] = cell;
+    }
+
+    private void unlink(int cell) {
+        if (prev[cell] != NONE) {
+            next[prev[cell]] = next[cell];
+        } else {
+            heads[buckets[cell]] = next[cell];
+        }
+        if (next[cell] != NONE) {
+            prev[next[cell]] = prev[cell];
+        }
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int cell = freeHead;
+            freeHead = next[cell];
+            return cell;
+        }
+        if (used == taskIds.length) {
+            int capacity = taskIds.length << 1;
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            dueAts = Arrays.copyOf(dueAts, capacity);
+            fireAts = Arrays.copyOf(fireAts, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            buckets = Arrays.copyOf(buckets, capacity);
+        }
+        return used++;
+    }
+
+    private void release(int cell) {
+        next[cell] = freeHead;
+        freeHead = cell;
+    }
+
+    /**
+     * Сработавший таймер
+     *
+     * @param taskId идентификатор задачи
+     * @param kind   вид уведомления
+     * @param dueAt  срок задачи, по которому поставлен таймер (мс epoch)
+     * @param fireAt момент срабатывания (мс epoch)
+     */
+    record Timer(long taskId, DeadlineKind kind, long dueAt, long fireAt) {
+    }
+}
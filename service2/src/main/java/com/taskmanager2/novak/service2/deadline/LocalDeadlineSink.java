@@ -0,0 +1,47 @@
+package com.taskmanager2.novak.service2.deadline;
+
+/*Локальный получатель уведомлений о сроках:
+Пишет уведомления в журнал приложения и хранит последние из них в памяти узла (recent) — для разработки и проверок,
+ когда внешнего канала доставки нет. Число хранимых уведомлений ограничено: старые вытесняются.
+ * */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.deadlines", name = "sink", havingValue = "local", matchIfMissing = true)
+public class LocalDeadlineSink implements DeadlineSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalDeadlineSink.class);
+
+    // Сколько последних уведомлений хранится
+    private static final int MAX_RECENT = 1000;
+
+    private final ArrayDeque<DeadlineNotification> recent = new ArrayDeque<>();
+
+    @Override
+    public void deliver(DeadlineNotification notification) {
+        logger.info("Deadline {}: task {} '{}' is due at {}", notification.kind(), notification.taskId(),
+                notification.taskName(), notification.dueAt());
+        synchronized (recent) {
+            if (recent.size() == MAX_RECENT) {
+                recent.removeFirst();
+            }
+            recent.addLast(notification);
+        }
+    }
+
+    /**
+     * @return последние доставленные уведомления, от старых к новым
+     */
+    public List<DeadlineNotification> recent() {
+        synchronized (recent) {
+            return List.copyOf(recent);
+        }
+    }
+}
@@ -0,0 +1,578 @@
+package com.taskmanager2.novak.service2.dependency;
+
+import com.taskmanager2.novak.common2.collection.LongIntHashMap;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.util.Arrays;
+
+/**
+ * Граф зависимостей задач в массивах примитивов: узел — задача, у которой есть хотя бы одно ребро,
+ * ребро blocker → blocked. Узлы и рёбра — «структура массивов» без объекта на элемент; освободившиеся ячейки
+ * переиспользуются. Списки входящих и исходящих рёбер узла — двусвязные списки через массивы рёбер, поэтому
+ * добавление и удаление ребра — O(1), а ребро по паре узлов находится в хеш-таблице.
+ * Для каждого узла поддерживаются:
+ * - число незавершённых блокирующих задач: задача заблокирована, если она не завершена и это число больше нуля;
+ * - глубина — длина самой длинной цепочки незавершённых задач, заканчивающейся на этой задаче (вес задачи 1,
+ *   завершённой — 0). Самая глубокая задача — конец критического пути;
+ * - уровень — длина самой длинной цепочки любых задач, заканчивающейся на этой задаче. Путь из узла x в узел y
+ *   возможен, только если уровень x меньше уровня y, поэтому поиск пути (reaches) не заходит в узлы с уровнем
+ *   не меньше искомого и не обходит всех потомков начального узла.
+ * Изменение ребра или статуса пересчитывает только затронутые узлы: счётчик — у прямых преемников, глубину
+ * и уровень — волной по исходящим рёбрам, которая останавливается на узлах, чьё значение не изменилось.
+ * Граф должен оставаться ациклическим: циклы отсекает вызывающий (reaches) до добавления ребра.
+ * Задачи, которых нет в графе, не заблокированы и имеют глубину своего веса.
+ * Не потокобезопасен: доступ синхронизирует DependencyGraph.
+ */
+final class DependencyDag {
+
+    // Нет узла или ребра (конец списка)
+    private static final int NONE = -1;
+
+    private static final byte TO_DO = (byte) TaskStatus.TO_DO.ordinal();
+    private static final byte DONE = (byte) TaskStatus.DONE.ordinal();
+
+    // id задачи → узел; пара узлов → ребро
+    private final LongIntHashMap nodeByTask;
+    private final LongIntHashMap edgeByPair;
+
+    // Узлы
+    private long[] taskIds;
+    private byte[] statuses;
+    private int[] outHeads;
+    private int[] inHeads;
+    private int[] pendingBlockers;
+    private int[] depths;
+    private int[] levels;
+    private int usedNodes;
+    private int freeNode = NONE;
+
+    // Рёбра
+    private int[] sources;
+    private int[] targets;
+    private int[] nextOut;
+    private int[] prevOut;
+    private int[] nextIn;
+    private int[] prevIn;
+    private int usedEdges;
+    private int freeEdge = NONE;
+
+    // Очередь волны пересчёта глубины (кольцо) и отметка «узел уже в очереди»
+    private int[] queue;
+    private boolean[] queued;
+    private int queueHead;
+    private int queueSize;
+
+    // Отметки посещения обхода reaches: узел посещён, если marks[node] == mark
+    private int[] marks;
+    private int mark;
+
+    private int blockedCount;
+    private int blockedToDoCount;
+
+    DependencyDag(int nodeCapacity, int edgeCapacity) {
+        int nodes = Math.max(nodeCapacity, 16);
+        int edges = Math.max(edgeCapacity, 16);
+        nodeByTask = new LongIntHashMap(nodes);
+        edgeByPair = new LongIntHashMap(edges);
+        taskIds = new long[nodes];
+        statuses = new byte[nodes];
+        outHeads = new int[nodes];
+        inHeads = new int[nodes];
+        pendingBlockers = new int[nodes];
+        depths = new int[nodes];
+        levels = new int[nodes];
+        queue = new int[nodes];
+        queued = new boolean[nodes];
+        marks = new int[nodes];
+        sources = new int[edges];
+        targets = new int[edges];
+        nextOut = new int[edges];
+        prevOut = new int[edges];
+        nextIn = new int[edges];
+        prevIn = new int[edges];
+    }
+
+    /**
+     * Добавление ребра с пересчётом затронутых узлов
+     * @param blockerStatus статус blocker, если его узла ещё нет (иначе статус узла не меняется)
+     * @param blockedStatus статус blocked, если его узла ещё нет
+     * @return false, если ребро уже было
+     */
+    boolean addEdge(long blockerId, TaskStatus blockerStatus, long blockedId, TaskStatus blockedStatus) {
+        int u = nodeOf(blockerId, blockerStatus);
+        int v = nodeOf(blockedId, blockedStatus);
+        if (!link(u, v)) {
+            return false;
+        }
+        if (statuses[u] != DONE) {
+            count(v, -1);
+            pendingBlockers[v]++;
+            count(v, 1);
+        }
+        if (depths[u] + weight(v) > depths[v]) {
+            propagate(v, depths, false);
+        }
+        if (levels[u] + 1 > levels[v]) {
+            propagate(v, levels, true);
+        }
+        return true;
+    }
+
+    /**
+     * Удаление ребра с пересчётом затронутых узлов; узлы без рёбер удаляются из графа
+     * @return false, если ребра не было
+     */
+    boolean removeEdge(long blockerId, long blockedId) {
+        int u = nodeByTask.get(blockerId);
+        int v = nodeByTask.get(blockedId);
+        if (u == LongIntHashMap.MISSING || v == LongIntHashMap.MISSING) {
+            return false;
+        }
+        int edge = edgeByPair.get(pairKey(u, v));
+        if (edge == LongIntHashMap.MISSING) {
+            return false;
+        }
+        unlink(edge);
+        if (statuses[u] != DONE) {
+            count(v, -1);
+            pendingBlockers[v]--;
+            count(v, 1);
+        }
+        if (depths[u] + weight(v) == depths[v]) {
+            propagate(v, depths, false);
+        }
+        if (levels[u] + 1 == levels[v]) {
+            propagate(v, levels, true);
+        }
+        releaseIfIsolated(u);
+        releaseIfIsolated(v);
+        return true;
+    }
+
+    /**
+     * Смена статуса задачи; задачи вне графа не отслеживаются
+     * @return false, если задачи нет в графе или статус не изменился
+     */
+    boolean setStatus(long taskId, TaskStatus status) {
+        int node = nodeByTask.get(taskId);
+        if (node == LongIntHashMap.MISSING) {
+            return false;
+        }
+        byte next = (byte) status.ordinal();
+        byte previous = statuses[node];
+        if (next == previous) {
+            return false;
+        }
+        count(node, -1);
+        statuses[node] = next;
+        count(node, 1);
+        if ((previous == DONE) != (next == DONE)) {
+            int delta = next == DONE ? -1 : 1;
+            for (int edge = outHeads[node]; edge != NONE; edge = nextOut[edge]) {
+                int target = targets[edge];
+                count(target, -1);
+                pendingBlockers[target] += delta;
+                count(target, 1);
+            }
+            propagate(node, depths, false);
+        }
+        return true;
+    }
+
+    /**
+     * Удаление задачи вместе со всеми её рёбрами
+     */
+    void removeTask(long taskId) {
+        int node = nodeByTask.get(taskId);
+        if (node == LongIntHashMap.MISSING) {
+            return;
+        }
+        // Задача перестаёт блокировать преемников и удлинять их цепочки: считаем её завершённой, затем отвязываем
+        setStatus(taskId, TaskStatus.DONE);
+        while (inHeads[node] != NONE) {
+            int edge = inHeads[node];
+            int source = sources[edge];
+            unlink(edge);
+            releaseIfIsolated(source);
+        }
+        // Без предшественников глубина завершённой задачи — ноль, уровень — один;
+        // волны от преемников должны видеть их верными
+        depths[node] = 0;
+        levels[node] = 1;
+        while (outHeads[node] != NONE) {
+            int edge = outHeads[node];
+            int target = targets[edge];
+            unlink(edge);
+            propagate(target, depths, false);
+            propagate(target, levels, true);
+            releaseIfIsolated(target);
+        }
+        releaseIfIsolated(node);
+    }
+
+    /**
+     * Есть ли путь по рёбрам от задачи from до задачи to (в том числе from == to)
+     */
+    boolean reaches(long fromId, long toId) {
+        if (fromId == toId) {
+            return true;
+        }
+        int from = nodeByTask.get(fromId);
+        int to = nodeByTask.get(toId);
+        if (from == LongIntHashMap.MISSING || to == LongIntHashMap.MISSING
+                || outHeads[from] == NONE || inHeads[to] == NONE || levels[from] >= levels[to]) {
+            return false;
+        }
+        int limit = levels[to];
+        if (++mark == 0) {
+            // Переполнение счётчика отметок: старые отметки сбрасываются
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+        // Обход в глубину; стек — массив очереди волны, которая между операциями пуста
+        int top = 0;
+        queue[top++] = from;
+        marks[from] = mark;
+        while (top > 0) {
+            int node = queue[--top];
+            for (int edge = outHeads[node]; edge != NONE; edge = nextOut[edge]) {
+                int target = targets[edge];
+                if (target == to) {
+                    return true;
+                }
+                // Из узла с уровнем не меньше искомого до искомого не дойти
+                if (levels[target] < limit && marks[target] != mark) {
+                    marks[target] = mark;
+                    queue[top++] = target;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true, если задача не завершена и ждёт хотя бы одну незавершённую задачу
+     */
+    boolean isBlocked(long taskId) {
+        int node = nodeByTask.get(taskId);
+        return node != LongIntHashMap.MISSING && isBlockedNode(node);
+    }
+
+    /**
+     * @return число незавершённых задач, которых ждёт задача
+     */
+    int pendingBlockers(long taskId) {
+        int node = nodeByTask.get(taskId);
+        return node == LongIntHashMap.MISSING ? 0 : pendingBlockers[node];
+    }
+
+    /**
+     * @return длина самой длинной цепочки незавершённых задач, заканчивающейся на задаче; -1, если задачи нет в графе
+     */
+    int depth(long taskId) {
+        int node = nodeByTask.get(taskId);
+        return node == LongIntHashMap.MISSING ? -1 : depths[node];
+    }
+
+    /**
+     * Критический путь — самая длинная цепочка незавершённых задач, связанных зависимостями
+     * @return id задач от первой к последней; пустой массив, если незавершённых задач в графе нет
+     */
+    long[] criticalPath() {
+        int end = NONE;
+        int longest = 0;
+        for (int node = 0; node < usedNodes; node++) {
+            if (taskIds[node] != 0 && depths[node] > longest) {
+                longest = depths[node];
+                end = node;
+            }
+        }
+        long[] path = new long[longest];
+        int position = longest;
+        int current = end;
+        while (current != NONE) {
+            int remaining = depths[current] - weight(current);
+            if (weight(current) == 1) {
+                path[--position] = taskIds[current];
+            }
+            if (remaining == 0) {
+                break;
+            }
+            // Предшественник, на котором держится глубина узла
+            int previous = NONE;
+            for (int edge = inHeads[current]; edge != NONE; edge = nextIn[edge]) {
+                if (depths[sources[edge]] == remaining) {
+                    previous = sources[edge];
+                    break;
+                }
+            }
+            current = previous;
+        }
+        return path;
+    }
+
+    int blockedCount() {
+        return blockedCount;
+    }
+
+    int blockedToDoCount() {
+        return blockedToDoCount;
+    }
+
+    int nodeCount() {
+        return nodeByTask.size();
+    }
+
+    int edgeCount() {
+        return edgeByPair.size();
+    }
+
+    /**
+     * @return id задач всех узлов (для загрузки их статусов)
+     */
+    long[] taskIds() {
+        long[] result = new long[nodeByTask.size()];
+        int count = 0;
+        for (int node = 0; node < usedNodes; node++) {
+            if (taskIds[node] != 0) {
+                result[count++] = taskIds[node];
+            }
+        }
+        return result;
+    }
+
+    // ---- Загрузка: рёбра и статусы без пересчёта, затем один пересчёт всего графа ----
+
+    /**
+     * Добавление ребра при загрузке; узлы создаются завершёнными, счётчики и глубины не пересчитываются
+     */
+    void loadEdge(long blockerId, long blockedId) {
+        link(nodeOf(blockerId, TaskStatus.DONE), nodeOf(blockedId, TaskStatus.DONE));
+    }
+
+    /**
+     * Статус задачи при загрузке (без пересчёта)
+     */
+    void loadStatus(long taskId, TaskStatus status) {
+        int node = nodeByTask.get(taskId);
+        if (node != LongIntHashMap.MISSING) {
+            statuses[node] = (byte) status.ordinal();
+        }
+    }
+
+    /**
+     * Пересчёт счётчиков, глубин и уровней всего графа за O(узлы + рёбра): узлы обходятся в топологическом порядке
+     * (алгоритм Кана), глубина узла берётся из уже посчитанных предшественников
+     */
+    void recomputeAll() {
+        blockedCount = 0;
+        blockedToDoCount = 0;
+        int[] remainingInputs = new int[usedNodes];
+        int tail = 0;
+        for (int node = 0; node < usedNodes; node++) {
+            if (taskIds[node] == 0) {
+                continue;
+            }
+            int inputs = 0;
+            int pending = 0;
+            for (int edge = inHeads[node]; edge != NONE; edge = nextIn[edge]) {
+                inputs++;
+                if (statuses[sources[edge]] != DONE) {
+                    pending++;
+                }
+            }
+            remainingInputs[node] = inputs;
+            pendingBlockers[node] = pending;
+            depths[node] = weight(node);
+            levels[node] = 1;
+            count(node, 1);
+            if (inputs == 0) {
+                queue[tail++] = node;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            for (int edge = outHeads[node]; edge != NONE; edge = nextOut[edge]) {
+                int target = targets[edge];
+                depths[target] = Math.max(depths[target], depths[node] + weight(target));
+                levels[target] = Math.max(levels[target], levels[node] + 1);
+                if (--remainingInputs[target] == 0) {
+                    queue[tail++] = target;
+                }
+            }
+        }
+    }
+
+    // ---- Внутреннее ----
+
+    // Волна пересчёта глубины (или уровня, unit == true — вес каждой задачи 1) от узла:
+    // узел с изменившимся значением ставит в очередь своих преемников
+    private void propagate(int start, int[] values, boolean unit) {
+        enqueue(start);
+        while (queueSize > 0) {
+            int node = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            queued[node] = false;
+            int value = 0;
+            for (int edge = inHeads[node]; edge != NONE; edge = nextIn[edge]) {
+                value = Math.max(value, values[sources[edge]]);
+            }
+            value += unit ? 1 : weight(node);
+            if (value != values[node]) {
+                values[node] = value;
+                for (int edge = outHeads[node]; edge != NONE; edge = nextOut[edge]) {
+                    enqueue(targets[edge]);
+                }
+            }
+        }
+        queueHead = 0;
+    }
+
+    private void enqueue(int node) {
+        if (!queued[node]) {
+            queued[node] = true;
+            queue[(queueHead + queueSize) % queue.length] = node;
+            queueSize++;
+        }
+    }
+
+    private int weight(int node) {
+        return statuses[node] == DONE ? 0 : 1;
+    }
+
+    private boolean isBlockedNode(int node) {
+        return statuses[node] != DONE && pendingBlockers[node] > 0;
+    }
+
+    // Учёт узла в счётчиках заблокированных задач: -1 перед изменением узла, +1 после
+    private void count(int node, int sign) {
+        if (isBlockedNode(node)) {
+            blockedCount += sign;
+            if (statuses[node] == TO_DO) {
+                blockedToDoCount += sign;
+            }
+        }
+    }
+
+    private int nodeOf(long taskId, TaskStatus status) {
+        int node = nodeByTask.get(taskId);
+        if (node != LongIntHashMap.MISSING) {
+            return node;
+        }
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = outHeads[node];
+        } else {
+            if (usedNodes == taskIds.length) {
+                growNodes(taskIds.length << 1);
+            }
+            node = usedNodes++;
+        }
+        taskIds[node] = taskId;
+        statuses[node] = (byte) status.ordinal();
+        outHeads[node] = NONE;
+        inHeads[node] = NONE;
+        pendingBlockers[node] = 0;
+        depths[node] = weight(node);
+        levels[node] = 1;
+        nodeByTask.put(taskId, node);
+        return node;
+    }
+
+    // Узел без рёбер больше не нужен: задача вне графа ведёт себя так же
+    private void releaseIfIsolated(int node) {
+        if (taskIds[node] == 0 || inHeads[node] != NONE || outHeads[node] != NONE) {
+            return;
+        }
+        nodeByTask.remove(taskIds[node]);
+        taskIds[node] = 0;
+        outHeads[node] = freeNode;
+        freeNode = node;
+    }
+
+    private boolean link(int u, int v) {
+        long key = pairKey(u, v);
+        if (edgeByPair.get(key) != LongIntHashMap.MISSING) {
+            return false;
+        }
+        int edge;
+        if (freeEdge != NONE) {
+            edge = freeEdge;
+            freeEdge = nextOut[edge];
+        } else {
+            if (usedEdges == sources.length) {
+                growEdges(sources.length << 1);
+            }
+            edge = usedEdges++;
+        }
+        sources[edge] = u;
+        targets[edge] = v;
+        prevOut[edge] = NONE;
+        nextOut[edge] = outHeads[u];
+        if (outHeads[u] != NONE) {
+            prevOut[outHeads[u]] = edge;
+        }
+        outHeads[u] = edge;
+        prevIn[edge] = NONE;
+        nextIn[edge] = inHeads[v];
+        if (inHeads[v] != NONE) {
+            prevIn[inHeads[v]] = edge;
+        }
+        inHeads[v] = edge;
+        edgeByPair.put(key, edge);
+        return true;
+    }
+
+    private void unlink(int edge) {
+        int u = sources[edge];
+        int v = targets[edge];
+        if (prevOut[edge] != NONE) {
+            nextOut[prevOut[edge]] = nextOut[edge];
+        } else {
+            outHeads[u] = nextOut[edge];
+        }
+        if (nextOut[edge] != NONE) {
+            prevOut[nextOut[edge]] = prevOut[edge];
+        }
+        if (prevIn[edge] != NONE) {
+            nextIn[prevIn[edge]] = nextIn[edge];
+        } else {
+            inHeads[v] = nextIn[edge];
+        }
+        if (nextIn[edge] != NONE) {
+            prevIn[nextIn[edge]] = prevIn[edge];
+        }
+        edgeByPair.remove(pairKey(u, v));
+        nextOut[edge] = freeEdge;
+        freeEdge = edge;
+    }
+
+    // Ключ ребра: оба номера узла в одном положительном long (ключ хеш-таблицы не может быть нулём)
+    private static long pairKey(int u, int v) {
+        return ((long) (u + 1) << 32) | v;
+    }
+
+    private void growNodes(int capacity) {
+        taskIds = Arrays.copyOf(taskIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        outHeads = Arrays.copyOf(outHeads, capacity);
+        inHeads = Arrays.copyOf(inHeads, capacity);
+        pendingBlockers = Arrays.copyOf(pendingBlockers, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        queued = Arrays.copyOf(queued, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        // Очередь между операциями пуста, её содержимое не копируется
+        queue = new int[capacity];
+    }
+
+    private void growEdges(int capacity) {
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        nextOut = Arrays.copyOf(nextOut, capacity);
+        prevOut = Arrays.copyOf(prevOut, capacity);
+        nextIn = Arrays.copyOf(nextIn, capacity);
+        prevIn = Arrays.copyOf(prevIn, capacity);
+    }
+}
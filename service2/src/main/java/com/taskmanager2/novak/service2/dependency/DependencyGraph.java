@@ -0,0 +1,443 @@
+package com.taskmanager2.novak.service2.dependency;
+
+/*Граф зависимостей задач в памяти узла:
+Рёбра (task_dependencies) и статусы задач-узлов хранятся в DependencyDag в массивах примитивов; по ним без обращения
+ к базе отвечают запросы «заблокирована ли задача», «сколько задач TO_DO заблокировано» и «критический путь»,
+ а проверка цикла при добавлении ребра обходит граф в памяти, а не таблицу.
+Граф загружается при запуске одним проходом по task_dependencies (страницами по id) и статусам задач-узлов
+ и дальше поддерживается изменениями этого узла: рёбра — после коммита DependencyService, статусы — по событиям
+ TaskChangedEvent после коммита TaskService. Изменения, пришедшие во время загрузки, применяются и к загруженному
+ графу. До окончания первой загрузки запросы отклоняются (503).
+Каждое изменение рёбер увеличивает версию графа в базе (task_dependency_graph) под блокировкой её строки.
+ Граф помнит версию, которой соответствует; если опрос видит, что версия в базе ушла вперёд и граф её так и не
+ догнал к следующему опросу (рёбра менял другой узел), граф загружается заново. Проверке цикла граф в памяти
+ доверяют, только если его версия равна версии в базе, прочитанной под блокировкой, иначе путь ищется в таблице.
+Статусы, изменённые на других узлах, приходят через журнал task_changes: TaskChangePoller сообщает маску затронутых
+ статусов (RemoteTaskChangesEvent), и если она касается TO_DO или DONE (только от них зависят заблокированность,
+ число заблокированных TO_DO и критический путь), ближайший опрос перечитывает статусы всех задач графа и применяет
+ изменившиеся. Свои изменения, пришедшие во время чтения, применяются поверх прочитанного. Без журнала
+ (taskmanager.task-cache.enabled=false) статусы перечитываются на каждом опросе.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyGraphEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyGraphRepository;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.event.RemoteTaskChangesEvent;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@Component
+public class DependencyGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraph.class);
+
+    // Рёбер в одной странице загрузки
+    private static final int EDGE_BATCH_SIZE = 10_000;
+
+    // Задач в одном запросе статусов при загрузке
+    private static final int STATUS_BATCH_SIZE = 1000;
+
+    // Версия изменения, не связанного с рёбрами (смена статуса задачи)
+    private static final long NO_VERSION = 0;
+
+    // Статусы, от которых зависят заблокированность, число заблокированных TO_DO и критический путь
+    private static final int GRAPH_STATUSES = (1 << TaskStatus.TO_DO.ordinal()) | (1 << TaskStatus.DONE.ordinal());
+
+    private final TaskDependencyRepository dependencyRepository;
+    private final TaskDependencyGraphRepository graphRepository;
+    private final TaskStore taskStore;
+
+    private final int initialNodes;
+    private final int initialEdges;
+
+    // Есть ли журнал изменений (task_changes), через который приходят чужие смены статусов
+    private final boolean changeLogEnabled;
+
+    // Запросы читают граф под общей блокировкой, изменения — под блокировкой записи
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Граф; null до окончания первой загрузки
+    private DependencyDag dag;
+
+    // Версия графа в базе, которой соответствует dag, и применённые версии после неё (пришедшие не по порядку)
+    private long syncedVersion;
+    private final TreeSet<Long> appliedAhead = new TreeSet<>();
+
+    // Изменения, пришедшие во время загрузки графа или чтения статусов; null вне них
+    private List<Change> changesDuringRead;
+
+    // Версия в базе, замеченная прошлым опросом
+    private long observedVersion;
+
+    private volatile boolean ready;
+
+    // Другие узлы меняли статусы задач после последнего чтения статусов
+    private volatile boolean statusesStale;
+
+    public DependencyGraph(TaskDependencyRepository dependencyRepository,
+                           TaskDependencyGraphRepository graphRepository,
+                           TaskStore taskStore,
+                           @Value("${taskmanager.dependencies.initial-nodes:65536}") int initialNodes,
+                           @Value("${taskmanager.dependencies.initial-edges:131072}") int initialEdges,
+                           @Value("${taskmanager.task-cache.enabled:true}") boolean changeLogEnabled) {
+        this.dependencyRepository = dependencyRepository;
+        this.graphRepository = graphRepository;
+        this.taskStore = taskStore;
+        this.initialNodes = initialNodes;
+        this.initialEdges = initialEdges;
+        this.changeLogEnabled = changeLogEnabled;
+    }
+
+    /**
+     * Опрос версии графа в базе и чужих смен статусов; первый запуск загружает граф
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${taskmanager.dependencies.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            if (!ready) {
+                load();
+                return;
+            }
+            long version = readVersion();
+            boolean behind;
+            lock.readLock().lock();
+            try {
+                // Свои изменения догоняют граф сразу после коммита; версия, не догнанная за период опроса, — чужая
+                behind = syncedVersion < observedVersion;
+            } finally {
+                lock.readLock().unlock();
+            }
+            observedVersion = version;
+            if (behind) {
+                logger.info("Task dependencies were changed on another node, reloading the dependency graph");
+                load();
+            } else if (statusesStale || !changeLogEnabled) {
+                refreshStatuses();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load task dependency graph: {}", e.toString());
+        }
+    }
+
+    /**
+     * Ребро добавлено в транзакции вызывающего; в граф попадёт после коммита
+     * @param version версия графа, которую получило изменение
+     */
+    public void onDependencyAdded(long blockerId, TaskStatus blockerStatus, long blockedId, TaskStatus blockedStatus,
+                                  long version) {
+        afterCommit(version, graph -> graph.addEdge(blockerId, blockerStatus, blockedId, blockedStatus));
+    }
+
+    /**
+     * Ребро удалено в транзакции вызывающего; из графа уйдёт после коммита
+     * @param version версия графа, которую получило изменение
+     */
+    public void onDependencyRemoved(long blockerId, long blockedId, long version) {
+        afterCommit(version, graph -> graph.removeEdge(blockerId, blockedId));
+    }
+
+    /**
+     * Рёбра удаляемой задачи удалены в транзакции вызывающего; задача уйдёт из графа после коммита
+     * @param version версия графа, которую получило изменение
+     */
+    public void onTaskDeleted(long taskId, long version) {
+        afterCommit(version, graph -> graph.removeTask(taskId));
+    }
+
+    /**
+     * Смена статуса задачи (после коммита TaskService). Архивируются только завершённые задачи: их рёбра остаются
+     * и больше никого не блокируют
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        long taskId = event.taskId();
+        switch (event.action()) {
+            case DELETE -> apply(NO_VERSION, graph -> graph.removeTask(taskId));
+            case ARCHIVE -> apply(NO_VERSION, graph -> graph.setStatus(taskId, TaskStatus.DONE));
+            default -> {
+                TaskStatus status = event.newStatus();
+                if (status != null && status != event.oldStatus()) {
+                    apply(NO_VERSION, graph -> graph.setStatus(taskId, status));
+                }
+            }
+        }
+    }
+
+    /**
+     * Смены статусов задач на других узлах (из журнала task_changes); статусы перечитает ближайший опрос
+     */
+    @EventListener
+    public void onRemoteTaskChanges(RemoteTaskChangesEvent event) {
+        if (event.statuses() == 0 || (event.statuses() & GRAPH_STATUSES) != 0) {
+            statusesStale = true;
+        }
+    }
+
+    /**
+     * Есть ли путь по зависимостям от задачи from до задачи to — по графу в памяти, если он соответствует версии
+     * @param version версия графа в базе, прочитанная под блокировкой её строки
+     * @return результат или null, если граф в памяти не соответствует версии (путь нужно искать в базе)
+     */
+    public Boolean reaches(long fromId, long toId, long version) {
+        // Обход пишет отметки посещения в граф, поэтому — под блокировкой записи
+        lock.writeLock().lock();
+        try {
+            if (dag == null || syncedVersion != version || !appliedAhead.isEmpty()) {
+                return null;
+            }
+            return dag.reaches(fromId, toId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Какие из задач заблокированы (не завершены и ждут незавершённую задачу)
+     * @return номера заблокированных задач в списке
+     */
+    public BitSet blocked(List<TaskEntity> tasks) {
+        lock.readLock().lock();
+        try {
+            checkReady();
+            BitSet result = new BitSet(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                if (dag.isBlocked(tasks.get(i).getId())) {
+                    result.set(i);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return число заблокированных задач в статусе TO_DO
+     */
+    public int blockedToDoCount() {
+        lock.readLock().lock();
+        try {
+            checkReady();
+            return dag.blockedToDoCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Критический путь — самая длинная цепочка незавершённых задач, связанных зависимостями
+     * @return id задач от первой к последней
+     */
+    public long[] criticalPath() {
+        lock.readLock().lock();
+        try {
+            checkReady();
+            return dag.criticalPath();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Загрузка графа целиком; изменения, пришедшие за время загрузки, применяются к загруженному графу
+    private void load() {
+        long started = System.nanoTime();
+        startRead();
+        try {
+            // Версия читается раньше рёбер: изменения после неё либо уже в прочитанных рёбрах, либо придут следом
+            long version = readVersion();
+            DependencyDag loaded = new DependencyDag(initialNodes, initialEdges);
+            long after = 0;
+            List<TaskDependencyEntity> edges;
+            do {
+                edges = dependencyRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(EDGE_BATCH_SIZE));
+                for (TaskDependencyEntity edge : edges) {
+                    loaded.loadEdge(edge.getBlockerId(), edge.getBlockedId());
+                }
+                if (!edges.isEmpty()) {
+                    after = edges.get(edges.size() - 1).getId();
+                }
+            } while (edges.size() == EDGE_BATCH_SIZE);
+
+            // Задачи, которых нет (архивированы), остаются завершёнными
+            readStatuses(loaded.taskIds(), loaded::loadStatus);
+            loaded.recomputeAll();
+
+            lock.writeLock().lock();
+            try {
+                syncedVersion = version;
+                appliedAhead.clear();
+                for (Change change : changesDuringRead) {
+                    applyTo(loaded, change.version(), change.action());
+                }
+                changesDuringRead = null;
+                dag = loaded;
+                observedVersion = syncedVersion;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            logger.info("Task dependency graph loaded in {} ms: {} dependencies between {} tasks, {} tasks blocked",
+                    (System.nanoTime() - started) / 1_000_000, loaded.edgeCount(), loaded.nodeCount(),
+                    loaded.blockedCount());
+        } catch (RuntimeException e) {
+            abortRead();
+            throw e;
+        }
+    }
+
+    // Чтение статусов всех задач графа; изменения этого узла, пришедшие за время чтения, применяются поверх
+    // прочитанного: свои смены статусов повторяются (они не старше прочитанного), свои изменения рёбер уже учтены
+    private void refreshStatuses() {
+        long[] taskIds;
+        startRead();
+        lock.readLock().lock();
+        try {
+            taskIds = dag.taskIds();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Map<Long, TaskStatus> statuses = new HashMap<>(taskIds.length * 2);
+            readStatuses(taskIds, statuses::put);
+            int changed = 0;
+            lock.writeLock().lock();
+            try {
+                for (long taskId : taskIds) {
+                    // Задачи, которых нет (архивированы), завершены
+                    TaskStatus status = statuses.getOrDefault(taskId, TaskStatus.DONE);
+                    if (dag.setStatus(taskId, status)) {
+                        changed++;
+                    }
+                }
+                for (Change change : changesDuringRead) {
+                    applyTo(dag, change.version(), change.action());
+                }
+                changesDuringRead = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (changed > 0) {
+                logger.debug("Applied {} task status changes made on other nodes to the dependency graph", changed);
+            }
+        } catch (RuntimeException e) {
+            abortRead();
+            throw e;
+        }
+    }
+
+    // Начало чтения из базы: с этого момента изменения этого узла копятся, чужие смены статусов — ещё не прочитаны
+    private void startRead() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRead = new ArrayList<>();
+            statusesStale = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Чтение не удалось: статусы перечитает следующий опрос
+    private void abortRead() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRead = null;
+            statusesStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Статусы задач из хранилища пачками
+    private void readStatuses(long[] taskIds, BiConsumer<Long, TaskStatus> consumer) {
+        for (int from = 0; from < taskIds.length; from += STATUS_BATCH_SIZE) {
+            List<Long> ids = Arrays.stream(taskIds, from, Math.min(from + STATUS_BATCH_SIZE, taskIds.length))
+                    .boxed()
+                    .toList();
+            for (TaskEntity task : taskStore.findAllById(ids)) {
+                consumer.accept(task.getId(), task.getStatusTask());
+            }
+        }
+    }
+
+    private long readVersion() {
+        return graphRepository.findVersion(TaskDependencyGraphEntity.SINGLETON_ID).orElse(0L);
+    }
+
+    private void afterCommit(long version, Consumer<DependencyDag> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(version, action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(version, action);
+            }
+        });
+    }
+
+    private void apply(long version, Consumer<DependencyDag> action) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRead != null) {
+                changesDuringRead.add(new Change(version, action));
+            }
+            if (dag != null) {
+                applyTo(dag, version, action);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Изменение рёбер применяется один раз: версии не новее syncedVersion уже учтены в графе
+    private void applyTo(DependencyDag graph, long version, Consumer<DependencyDag> action) {
+        if (version == NO_VERSION) {
+            action.accept(graph);
+            return;
+        }
+        if (version <= syncedVersion || appliedAhead.contains(version)) {
+            return;
+        }
+        action.accept(graph);
+        appliedAhead.add(version);
+        while (!appliedAhead.isEmpty() && appliedAhead.first() == syncedVersion + 1) {
+            syncedVersion = appliedAhead.pollFirst();
+        }
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new RejectedExecutionException("Task dependency graph is still loading, retry later");
+        }
+    }
+
+    // Изменение графа с версией, которую оно получило в базе (NO_VERSION — смена статуса)
+    private record Change(long version, Consumer<DependencyDag> action) {
+    }
+}
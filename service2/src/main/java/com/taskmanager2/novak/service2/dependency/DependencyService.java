@@ -0,0 +1,256 @@
+package com.taskmanager2.novak.service2.dependency;
+
+/*Зависимости между задачами:
+Зависимость «задача B ждёт задачу A» — строка task_dependencies (ребро A → B). Граф зависимостей не может
+ содержать циклов: каждое изменение рёбер сначала блокирует строку версии графа (task_dependency_graph), поэтому
+ изменения идут по одному, и новое ребро A → B отклоняется (409), если A уже ждёт B — напрямую или через другие
+ задачи (A достижима из B). Путь ищется по графу в памяти (DependencyGraph), когда тот соответствует версии в базе,
+ иначе — обходом таблицы.
+Удаление задачи в той же транзакции удаляет её зависимости (TaskService.deleteTask) — тоже под блокировкой графа,
+ поэтому ребро к удаляемой задаче не может быть добавлено одновременно с удалением.
+Готовые к работе задачи — задачи TO_DO, все блокирующие задачи которых завершены. Они отдаются страницами по курсору:
+ задачи TO_DO читаются по id, заблокированные отсеиваются по графу в памяти. Чтобы страница при длинной полосе
+ заблокированных задач не читала всю таблицу, просмотр ограничен ready-max-scan строками; тогда страница может
+ оказаться короче запрошенной, но курсор следующей страницы продвигается.
+ * */
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.ConflictException;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyGraphEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyGraphRepository;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.dto.CriticalPath;
+import com.taskmanager2.novak.service2.dto.DependencyDto;
+import com.taskmanager2.novak.service2.dto.TaskDependencies;
+import com.taskmanager2.novak.service2.dto.TaskPage;
+import com.taskmanager2.novak.service2.event.Principals;
+import com.taskmanager2.novak.service2.service.TaskDataVersion;
+import com.taskmanager2.novak.service2.service.TaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class DependencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyService.class);
+
+    // Задач TO_DO в одном запросе при подборе страницы готовых задач
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final TaskDependencyRepository dependencyRepository;
+    private final TaskDependencyGraphRepository graphRepository;
+    private final TaskStore taskStore;
+    private final DependencyGraph graph;
+    private final TaskDataVersion dataVersion;
+    private final TransactionTemplate transactionTemplate;
+
+    // Создание строки версии графа — своя транзакция: вставку при одновременном запуске выиграет один узел
+    private final TransactionTemplate initTemplate;
+
+    // Сколько задач TO_DO просматривается за одну страницу готовых задач
+    private final int readyMaxScan;
+
+    public DependencyService(TaskDependencyRepository dependencyRepository,
+                             TaskDependencyGraphRepository graphRepository,
+                             TaskStore taskStore,
+                             DependencyGraph graph,
+                             TaskDataVersion dataVersion,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${taskmanager.dependencies.ready-max-scan:10000}") int readyMaxScan) {
+        this.dependencyRepository = dependencyRepository;
+        this.graphRepository = graphRepository;
+        this.taskStore = taskStore;
+        this.graph = graph;
+        this.dataVersion = dataVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.initTemplate = new TransactionTemplate(transactionManager);
+        this.initTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readyMaxScan = Math.max(readyMaxScan, 1);
+    }
+
+    /**
+     * Добавление зависимости: задача blockedId будет ждать задачу blockerId
+     * @return добавленная зависимость
+     */
+    public DependencyDto addDependency(long blockerId, long blockedId) {
+        if (blockerId == blockedId) {
+            throw new InvalidRequestException("A task cannot depend on itself");
+        }
+        String principal = Principals.current();
+        DependencyDto created = transactionTemplate.execute(status -> {
+            TaskDependencyGraphEntity version = lockGraph();
+            TaskEntity blocker = taskStore.findById(blockerId).orElseThrow(() -> new NotFoundException("Task", blockerId));
+            TaskEntity blocked = taskStore.findById(blockedId).orElseThrow(() -> new NotFoundException("Task", blockedId));
+            if (dependencyRepository.findByBlockerIdAndBlockedId(blockerId, blockedId).isPresent()) {
+                throw new ConflictException("Task " + blockedId + " already depends on task " + blockerId);
+            }
+            Boolean cycle = graph.reaches(blockedId, blockerId, version.getVersion());
+            if (cycle == null) {
+                cycle = dependencyRepository.pathExists(blockedId, blockerId);
+            }
+            if (cycle) {
+                throw new ConflictException("Task " + blockerId + " already depends on task " + blockedId
+                        + " directly or through other tasks; the dependency would create a cycle");
+            }
+            TaskDependencyEntity saved = dependencyRepository.save(
+                    new TaskDependencyEntity(blockerId, blockedId, Instant.now(), principal));
+            graph.onDependencyAdded(blockerId, blocker.getStatusTask(), blockedId, blocked.getStatusTask(),
+                    version.nextVersion());
+            return toDto(saved);
+        });
+        logger.info("Task {} now depends on task {}", blockedId, blockerId);
+        return created;
+    }
+
+    /**
+     * Удаление зависимости задачи blockedId от задачи blockerId
+     */
+    public void removeDependency(long blockerId, long blockedId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TaskDependencyGraphEntity version = lockGraph();
+            TaskDependencyEntity dependency = dependencyRepository.findByBlockerIdAndBlockedId(blockerId, blockedId)
+                    .orElseThrow(() -> new NotFoundException("Dependency", blockerId + "->" + blockedId));
+            dependencyRepository.delete(dependency);
+            graph.onDependencyRemoved(blockerId, blockedId, version.nextVersion());
+        });
+        logger.info("Task {} no longer depends on task {}", blockedId, blockerId);
+    }
+
+    /**
+     * Удаление зависимостей удаляемой задачи в транзакции вызывающего (TaskService.deleteTask)
+     */
+    public void deleteForTask(long taskId) {
+        TaskDependencyGraphEntity version = lockGraph();
+        if (dependencyRepository.deleteByTaskId(taskId) > 0) {
+            graph.onTaskDeleted(taskId, version.nextVersion());
+        }
+    }
+
+    /**
+     * Зависимости задачи в обе стороны; заблокированность считается по текущим статусам блокирующих задач
+     */
+    public TaskDependencies getDependencies(long taskId) {
+        TaskEntity task = taskStore.findById(taskId).orElseThrow(() -> new NotFoundException("Task", taskId));
+        List<DependencyDto> blockers = dependencyRepository.findByBlockedIdOrderByIdAsc(taskId).stream()
+                .map(DependencyService::toDto)
+                .toList();
+        List<DependencyDto> dependents = dependencyRepository.findByBlockerIdOrderByIdAsc(taskId).stream()
+                .map(DependencyService::toDto)
+                .toList();
+        int pending = 0;
+        if (!blockers.isEmpty()) {
+            List<Long> blockerIds = blockers.stream().map(DependencyDto::blockerId).toList();
+            for (TaskEntity blocker : taskStore.findAllById(blockerIds)) {
+                if (blocker.getStatusTask() != TaskStatus.DONE) {
+                    pending++;
+                }
+            }
+        }
+        return new TaskDependencies(taskId, blockers, dependents, pending,
+                task.getStatusTask() != TaskStatus.DONE && pending > 0);
+    }
+
+    /**
+     * Страница готовых к работе задач (TO_DO, все блокирующие задачи завершены) по курсору
+     * @param afterId курсор — id последней просмотренной задачи (null для первой страницы)
+     * @param size    размер страницы
+     * @return страница; общее число готовых задач — только для первой страницы
+     */
+    public TaskPage getReadyTasks(Long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), TaskService.MAX_PAGE_SIZE);
+        long version = dataVersion.current();
+        long cursor = afterId != null ? afterId : 0L;
+        List<TaskEntity> items = new ArrayList<>(pageSize);
+        int scanned = 0;
+        boolean exhausted = false;
+        while (items.size() < pageSize && scanned < readyMaxScan) {
+            int fetch = Math.min(SCAN_BATCH_SIZE, readyMaxScan - scanned);
+            List<TaskEntity> batch = taskStore.findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus.TO_DO, cursor,
+                    Limit.of(fetch));
+            scanned += batch.size();
+            BitSet blocked = graph.blocked(batch);
+            int consumed = 0;
+            for (int i = 0; i < batch.size() && items.size() < pageSize; i++) {
+                TaskEntity task = batch.get(i);
+                cursor = task.getId();
+                consumed++;
+                if (!blocked.get(i)) {
+                    items.add(task);
+                }
+            }
+            if (batch.size() < fetch) {
+                // Задачи TO_DO закончились; если страница заполнилась раньше конца пачки, следующая ещё возможна
+                exhausted = consumed == batch.size();
+                break;
+            }
+        }
+        Long nextCursor = exhausted ? null : cursor;
+        Long total = null;
+        if (afterId == null) {
+            total = taskStore.countByStatusTask(TaskStatus.TO_DO) - graph.blockedToDoCount();
+        }
+        return new TaskPage(items, nextCursor, version, total);
+    }
+
+    /**
+     * Критический путь по графу в памяти
+     * @param limit сколько задач пути вернуть (с начала пути)
+     */
+    public CriticalPath getCriticalPath(int limit) {
+        if (limit < 1) {
+            throw new InvalidRequestException("Limit must be positive");
+        }
+        long[] path = graph.criticalPath();
+        long[] head = Arrays.copyOf(path, Math.min(limit, path.length));
+        Map<Long, TaskEntity> tasks = new HashMap<>();
+        for (TaskEntity task : taskStore.findAllById(Arrays.stream(head).boxed().toList())) {
+            tasks.put(task.getId(), task);
+        }
+        List<CriticalPath.Step> steps = new ArrayList<>(head.length);
+        for (long taskId : head) {
+            TaskEntity task = tasks.get(taskId);
+            if (task != null) { // задачу могли удалить после чтения пути
+                steps.add(new CriticalPath.Step(taskId, task.getNameTask(), task.getStatusTask(), task.getDueAt()));
+            }
+        }
+        return new CriticalPath(path.length, steps);
+    }
+
+    // Строка версии графа под блокировкой до конца транзакции; при первом изменении зависимостей строка создаётся
+    private TaskDependencyGraphEntity lockGraph() {
+        return graphRepository.findForUpdate(TaskDependencyGraphEntity.SINGLETON_ID).orElseGet(() -> {
+            try {
+                initTemplate.executeWithoutResult(status ->
+                        graphRepository.saveAndFlush(new TaskDependencyGraphEntity(0)));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Dependency graph version row was created concurrently");
+            }
+            return graphRepository.findForUpdate(TaskDependencyGraphEntity.SINGLETON_ID).orElseThrow();
+        });
+    }
+
+    private static DependencyDto toDto(TaskDependencyEntity entity) {
+        return new DependencyDto(entity.getId(), entity.getBlockerId(), entity.getBlockedId(), entity.getCreatedAt(),
+                entity.getCreatedBy());
+    }
+}
@@ -0,0 +1,15 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.persistence2.entity.ArchivedTaskEntity;
+
+import java.util.List;
+
+/**
+ * Страница архивных задач.
+ *
+ * @param items      задачи страницы в порядке возрастания id
+ * @param nextCursor курсор следующей страницы (id последней задачи) или null, если страница последняя
+ * @param total      общее число задач в архиве; заполняется только для первой страницы без фильтра
+ */
+public record ArchivePage(List<ArchivedTaskEntity> items, Long nextCursor, Long total) {
+}
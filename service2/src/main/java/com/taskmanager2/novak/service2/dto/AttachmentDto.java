@@ -0,0 +1,19 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.time.Instant;
+
+/**
+ * Вложение задачи.
+ *
+ * @param id          идентификатор вложения
+ * @param taskId      идентификатор задачи
+ * @param fileName    имя файла
+ * @param contentType тип содержимого
+ * @param size        размер в байтах
+ * @param sha256      хэш SHA-256 содержимого (hex)
+ * @param createdAt   время загрузки
+ * @param createdBy   кто загрузил
+ */
+public record AttachmentDto(long id, long taskId, String fileName, String contentType, long size, String sha256,
+                            Instant createdAt, String createdBy) {
+}
@@ -0,0 +1,26 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Критический путь — самая длинная цепочка незавершённых задач, каждая из которых ждёт предыдущую.
+ *
+ * @param length длина пути (число задач)
+ * @param tasks  задачи пути от первой к последней (не больше запрошенного числа)
+ */
+public record CriticalPath(int length, List<Step> tasks) {
+
+    /**
+     * Задача критического пути.
+     *
+     * @param id         идентификатор задачи
+     * @param nameTask   название
+     * @param statusTask статус
+     * @param dueAt      срок выполнения или null
+     */
+    public record Step(long id, String nameTask, TaskStatus statusTask, Instant dueAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Время цикла задач за период.
+ *
+ * @param from         начало периода (включительно)
+ * @param to           конец периода (не включается)
+ * @param cycleTime    от первого перехода в IN_PROGRESS до DONE — по задачам, завершённым за период
+ *                     (задачи, попавшие в DONE, минуя IN_PROGRESS, не учитываются)
+ * @param leadTime     от создания до DONE — по задачам, завершённым за период и созданным после начала журнала
+ * @param timeInStatus время пребывания в статусе — по периодам пребывания, закончившимся за период
+ */
+public record CycleTimeReport(Instant from, Instant to, DurationStats cycleTime, DurationStats leadTime,
+                              Map<TaskStatus, DurationStats> timeInStatus) {
+}
@@ -0,0 +1,15 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.time.Instant;
+
+/**
+ * Зависимость между задачами: задача blockedId ждёт завершения задачи blockerId.
+ *
+ * @param id        идентификатор зависимости
+ * @param blockerId задача, которую нужно завершить раньше
+ * @param blockedId задача, которая её ждёт
+ * @param createdAt время добавления
+ * @param createdBy кто добавил
+ */
+public record DependencyDto(long id, long blockerId, long blockedId, Instant createdAt, String createdBy) {
+}
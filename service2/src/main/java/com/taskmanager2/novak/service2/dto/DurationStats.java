@@ -0,0 +1,9 @@
+package com.taskmanager2.novak.service2.dto;
+
+/**
+ * Распределение длительностей (в миллисекундах): число значений, среднее и процентили по ближайшему рангу.
+ * При отсутствии значений все поля, кроме count, равны 0.
+ */
+public record DurationStats(long count, long meanMillis, long p50Millis, long p75Millis, long p85Millis,
+                            long p95Millis, long maxMillis) {
+}
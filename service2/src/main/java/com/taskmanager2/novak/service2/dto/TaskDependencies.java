@@ -0,0 +1,16 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.util.List;
+
+/**
+ * Зависимости одной задачи.
+ *
+ * @param taskId          идентификатор задачи
+ * @param blockers        задачи, которых она ждёт
+ * @param dependents      задачи, которые ждут её
+ * @param pendingBlockers сколько из задач blockers ещё не завершены
+ * @param blocked         true, если задача не завершена и ждёт хотя бы одну незавершённую задачу
+ */
+public record TaskDependencies(long taskId, List<DependencyDto> blockers, List<DependencyDto> dependents,
+                               int pendingBlockers, boolean blocked) {
+}
@@ -0,0 +1,16 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+
+import java.util.List;
+
+/**
+ * Страница задач для постраничной загрузки списка.
+ *
+ * @param items      задачи страницы в порядке возрастания id
+ * @param nextCursor курсор следующей страницы (id последней задачи) или null, если страница последняя
+ * @param version    версия данных задач на момент чтения; меняется при каждом изменении задач
+ * @param total      общее число задач (с учётом фильтра); заполняется только для первой страницы
+ */
+public record TaskPage(List<TaskEntity> items, Long nextCursor, long version, Long total) {
+}
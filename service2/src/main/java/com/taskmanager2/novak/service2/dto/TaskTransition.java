@@ -0,0 +1,16 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.time.Instant;
+
+/**
+ * Переход задачи между статусами из журнала task_transitions.
+ *
+ * @param from      статус до перехода (null при создании)
+ * @param to        статус после перехода (null при удалении)
+ * @param at        время перехода
+ * @param principal кто выполнил переход
+ */
+public record TaskTransition(TaskStatus from, TaskStatus to, Instant at, String principal) {
+}
@@ -0,0 +1,24 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Пропускная способность: число переходов задач в DONE по дням.
+ *
+ * @param from  начало периода (включительно)
+ * @param to    конец периода (не включается)
+ * @param zone  часовой пояс, в котором считаются дни
+ * @param total всего завершено за период
+ * @param days  завершено по дням (первый и последний день могут быть неполными)
+ */
+public record ThroughputReport(Instant from, Instant to, String zone, long total, List<Day> days) {
+
+    /**
+     * @param date      дата
+     * @param completed завершено задач
+     */
+    public record Day(LocalDate date, long completed) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+/**
+ * Итог массового перехода задач между статусами.
+ *
+ * @param from    исходный статус
+ * @param to      целевой статус
+ * @param updated число переведённых задач
+ * @param batches число пачек (отдельных транзакций), в которых выполнялся переход
+ */
+public record TransitionResult(TaskStatus from, TaskStatus to, long updated, int batches) {
+}
@@ -0,0 +1,13 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.util.List;
+
+/**
+ * Страница каталога пользователей.
+ *
+ * @param items      пользователи страницы в алфавитном порядке имён (без учёта регистра)
+ * @param nextCursor курсор следующей страницы (имя последнего пользователя) или null, если страница последняя
+ * @param total      число пользователей с учётом префикса и роли; заполняется только для первой страницы
+ */
+public record UserPage(List<UserSummary> items, String nextCursor, Long total) {
+}
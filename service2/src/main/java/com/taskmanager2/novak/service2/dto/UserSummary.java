@@ -0,0 +1,13 @@
+package com.taskmanager2.novak.service2.dto;
+
+import com.taskmanager2.novak.common2.enums.RoleType;
+
+/**
+ * Краткие данные пользователя для списков: без хеша пароля.
+ *
+ * @param id       идентификатор пользователя
+ * @param username имя пользователя
+ * @param role     роль без префикса ROLE_
+ */
+public record UserSummary(long id, String username, RoleType role) {
+}
@@ -0,0 +1,24 @@
+package com.taskmanager2.novak.service2.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Незавершённая работа: число задач в TO_DO и IN_PROGRESS в моменты from, from + step, ... (не позже to).
+ *
+ * @param from    первый момент
+ * @param to      граница последнего момента
+ * @param step    шаг между моментами
+ * @param samples значения по моментам
+ */
+public record WipReport(Instant from, Instant to, Duration step, List<Sample> samples) {
+
+    /**
+     * @param at         момент
+     * @param toDo       задач в TO_DO
+     * @param inProgress задач в IN_PROGRESS
+     */
+    public record Sample(Instant at, long toDo, long inProgress) {
+    }
+}
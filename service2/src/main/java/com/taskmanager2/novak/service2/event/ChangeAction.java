@@ -0,0 +1,27 @@
+package com.taskmanager2.novak.service2.event;
+
+/**
+ * Тип изменения сущности, о котором сообщают события сервисного слоя.
+ */
+public enum ChangeAction {
+
+    /**
+     * Сущность создана.
+     */
+    CREATE,
+
+    /**
+     * Сущность изменена.
+     */
+    UPDATE,
+
+    /**
+     * Сущность удалена.
+     */
+    DELETE,
+
+    /**
+     * Сущность перенесена в архив (удалена из основной таблицы, но доступна для чтения из архива).
+     */
+    ARCHIVE
+}
@@ -0,0 +1,55 @@
+package com.taskmanager2.novak.service2.event;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Определение имени текущего пользователя для событий изменения.
+ */
+public final class Principals {
+
+    // Имя, под которым записываются изменения без аутентификации (регистрация, фоновые задания)
+    public static final String SYSTEM = "system";
+
+    // Роль неаутентифицированного посетителя
+    public static final String ANONYMOUS = "anonymous";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private Principals() {
+    }
+
+    /**
+     * @return имя аутентифицированного пользователя текущего потока или SYSTEM
+     */
+    public static String current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getName() == null) {
+            return SYSTEM;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * @return роль (без префикса ROLE_) пользователя текущего потока, ANONYMOUS для анонимного посетителя
+     * или SYSTEM вне запроса
+     */
+    public static String currentRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return SYSTEM;
+        }
+        if (authentication instanceof AnonymousAuthenticationToken) {
+            return ANONYMOUS;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                return name.substring(ROLE_PREFIX.length());
+            }
+        }
+        return ANONYMOUS;
+    }
+}
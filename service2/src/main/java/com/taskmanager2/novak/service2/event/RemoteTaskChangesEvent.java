@@ -0,0 +1,10 @@
+package com.taskmanager2.novak.service2.event;
+
+/**
+ * Событие об изменениях задач, сделанных другими узлами и прочитанных из журнала task_changes (TaskChangePoller).
+ * Какие задачи изменены, журнал не хранит — только затронутые статусы.
+ *
+ * @param statuses маска затронутых статусов (бит 1 << ordinal TaskStatus); 0 — неизвестно, могли измениться любые
+ */
+public record RemoteTaskChangesEvent(int statuses) {
+}
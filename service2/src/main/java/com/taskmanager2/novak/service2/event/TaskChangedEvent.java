@@ -0,0 +1,22 @@
+package com.taskmanager2.novak.service2.event;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+/**
+ * Событие об изменении задачи, публикуемое TaskService.
+ * Слушатели получают его после коммита транзакции (через @TransactionalEventListener).
+ *
+ * @param action    тип изменения
+ * @param taskId    идентификатор задачи
+ * @param oldStatus статус до изменения (null при создании)
+ * @param newStatus статус после изменения (null при удалении)
+ * @param principal имя пользователя, выполнившего изменение
+ * @param timestamp время изменения в миллисекундах epoch
+ */
+public record TaskChangedEvent(ChangeAction action,
+                               long taskId,
+                               TaskStatus oldStatus,
+                               TaskStatus newStatus,
+                               String principal,
+                               long timestamp) {
+}
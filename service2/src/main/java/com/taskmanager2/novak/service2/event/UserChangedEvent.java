@@ -0,0 +1,23 @@
+package com.taskmanager2.novak.service2.event;
+
+import com.taskmanager2.novak.common2.enums.RoleType;
+
+/**
+ * Событие об изменении пользователя, публикуемое UserService.
+ *
+ * @param action    тип изменения
+ * @param userId    идентификатор пользователя
+ * @param username  имя изменённого пользователя
+ * @param oldRole   роль до изменения (null при создании)
+ * @param newRole   роль после изменения (null при удалении)
+ * @param principal имя пользователя, выполнившего изменение
+ * @param timestamp время изменения в миллисекундах epoch
+ */
+public record UserChangedEvent(ChangeAction action,
+                               long userId,
+                               String username,
+                               RoleType oldRole,
+                               RoleType newRole,
+                               String principal,
+                               long timestamp) {
+}
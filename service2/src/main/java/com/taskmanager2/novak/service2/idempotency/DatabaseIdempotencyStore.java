@@ -0,0 +1,170 @@
+package com.taskmanager2.novak.service2.idempotency;
+
+/*Ключи идемпотентности в базе данных (таблица idempotency_keys), общие для всех узлов:
+Захват ключа — вставка строки: из одновременных запросов с одним ключом на разных узлах INSERT пройдёт только
+ у одного, остальные упадут на первичном ключе и будут опрашивать строку (с нарастающей паузой), пока в ней
+ не появится ответ или пока строку не удалят (первый запрос не удался — тогда ключ захватывается заново).
+Выполняющий узел удерживает ключ lease; если он упал, не сохранив ответ, по истечении lease ключ перехватывает
+ следующий повтор. Поэтому lease должен быть заметно больше времени выполнения самого долгого запроса.
+Каждая операция — своя короткая транзакция, независимая от транзакции самого запроса.
+Строки с истёкшим сроком хранения удаляет один из узлов (под блокировкой JobLock) раз в cleanup-interval.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.IdempotencyKeyEntity;
+import com.taskmanager2.novak.persistence2.repository.IdempotencyKeyRepository;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.idempotency", name = "store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotencyStore.class);
+
+    // Имя задания очистки в таблице блокировок
+    static final String CLEANUP_LOCK_NAME = "idempotency-key-cleanup";
+
+    // Пауза между опросами строки выполняющегося запроса: от первой до последней, удваиваясь
+    private static final long FIRST_POLL_MILLIS = 10;
+    private static final long MAX_POLL_MILLIS = 200;
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final JobLock jobLock;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitTimeoutMillis;
+    private final long cleanupIntervalMillis;
+    private final int maxResponseBytes;
+
+    public DatabaseIdempotencyStore(IdempotencyKeyRepository keyRepository,
+                                    JobLock jobLock,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${taskmanager.idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${taskmanager.idempotency.lease:5m}") Duration lease,
+                                    @Value("${taskmanager.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                                    @Value("${taskmanager.idempotency.cleanup-interval-ms:300000}") long cleanupIntervalMillis,
+                                    @Value("${taskmanager.idempotency.max-response-size:64KB}") DataSize maxResponseSize) {
+        this.keyRepository = keyRepository;
+        this.jobLock = jobLock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.cleanupIntervalMillis = cleanupIntervalMillis;
+        // Больше тела не вмещает столбец body
+        this.maxResponseBytes = (int) Math.min(IdempotencyKeyEntity.MAX_BODY_BYTES, maxResponseSize.toBytes());
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        long pause = FIRST_POLL_MILLIS;
+        while (true) {
+            Instant now = Instant.now();
+            IdempotencyKeyEntity row = transactionTemplate.execute(status -> keyRepository.findById(key).orElse(null));
+            if (row == null) {
+                if (tryInsert(key, fingerprint, now)) {
+                    return IdempotencyClaim.acquired(key, null);
+                }
+                // Ключ только что вставил другой запрос — читаем его строку
+                continue;
+            }
+            if (!row.getExpiresAt().isAfter(now)) {
+                transactionTemplate.execute(status -> keyRepository.deleteIfExpired(key, now));
+                continue;
+            }
+            if (!row.getFingerprint().equals(fingerprint)) {
+                return IdempotencyClaim.mismatch(key);
+            }
+            if (row.getStatus() != null) {
+                return IdempotencyClaim.replay(key,
+                        new StoredResponse(row.getStatus(), row.getContentType(), row.getBody()));
+            }
+            if (!row.getLockedUntil().isAfter(now)) {
+                Integer updated = transactionTemplate.execute(status ->
+                        keyRepository.takeOver(key, now, now.plus(lease)));
+                if (updated != null && updated > 0) {
+                    logger.warn("Idempotency key lease expired without a response, executing the request again");
+                    return IdempotencyClaim.acquired(key, null);
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return IdempotencyClaim.inProgress(key);
+            }
+            try {
+                Thread.sleep(Math.min(pause, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return IdempotencyClaim.inProgress(key);
+            }
+            pause = Math.min(pause * 2, MAX_POLL_MILLIS);
+        }
+    }
+
+    @Override
+    public void complete(IdempotencyClaim claim, StoredResponse response) {
+        transactionTemplate.execute(status -> keyRepository.complete(claim.key(), response.status(),
+                response.contentType(), response.body()));
+    }
+
+    @Override
+    public void release(IdempotencyClaim claim) {
+        transactionTemplate.execute(status -> keyRepository.release(claim.key()));
+    }
+
+    @Override
+    public int maxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    /**
+     * Периодическое удаление ключей с истёкшим сроком хранения. Блокировка не снимается: она держится весь период,
+     * поэтому за период таблицу чистит только один узел
+     */
+    @Scheduled(initialDelayString = "${taskmanager.idempotency.cleanup-interval-ms:300000}",
+            fixedDelayString = "${taskmanager.idempotency.cleanup-interval-ms:300000}")
+    public void cleanup() {
+        try {
+            if (!jobLock.tryAcquire(CLEANUP_LOCK_NAME, Duration.ofMillis(cleanupIntervalMillis))) {
+                return;
+            }
+            Instant now = Instant.now();
+            Integer deleted = transactionTemplate.execute(status -> keyRepository.deleteExpired(now));
+            if (deleted != null && deleted > 0) {
+                logger.info("Deleted {} expired idempotency keys", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete expired idempotency keys: {}", e.toString());
+        }
+    }
+
+    // Вставка новой строки ключа; false, если строку с этим ключом успел вставить другой запрос
+    private boolean tryInsert(String key, String fingerprint, Instant now) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> keyRepository.saveAndFlush(
+                    new IdempotencyKeyEntity(key, fingerprint, now.plus(lease), now.plus(ttl))));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Idempotency key was claimed concurrently");
+            return false;
+        }
+    }
+}
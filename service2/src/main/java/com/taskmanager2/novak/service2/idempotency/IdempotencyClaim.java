@@ -0,0 +1,68 @@
+package com.taskmanager2.novak.service2.idempotency;
+
+/**
+ * Итог обращения к хранилищу ключей идемпотентности перед выполнением запроса.
+ * Захвативший ключ (ACQUIRED) выполняет запрос и обязан передать claim обратно в complete или release.
+ */
+public final class IdempotencyClaim {
+
+    public enum Outcome {
+        // Ключ новый: запрос нужно выполнить
+        ACQUIRED,
+        // Запрос с этим ключом уже выполнен: нужно выдать сохранённый ответ
+        REPLAY,
+        // Ключ уже использован с другим запросом
+        MISMATCH,
+        // Запрос с этим ключом всё ещё выполняется, дождаться его не удалось
+        IN_PROGRESS
+    }
+
+    private final Outcome outcome;
+    private final String key;
+    private final StoredResponse response;
+
+    // Запись хранилища, захваченная этим обращением (только для ACQUIRED)
+    private final Object entry;
+
+    private IdempotencyClaim(Outcome outcome, String key, StoredResponse response, Object entry) {
+        this.outcome = outcome;
+        this.key = key;
+        this.response = response;
+        this.entry = entry;
+    }
+
+    static IdempotencyClaim acquired(String key, Object entry) {
+        return new IdempotencyClaim(Outcome.ACQUIRED, key, null, entry);
+    }
+
+    static IdempotencyClaim replay(String key, StoredResponse response) {
+        return new IdempotencyClaim(Outcome.REPLAY, key, response, null);
+    }
+
+    static IdempotencyClaim mismatch(String key) {
+        return new IdempotencyClaim(Outcome.MISMATCH, key, null, null);
+    }
+
+    static IdempotencyClaim inProgress(String key) {
+        return new IdempotencyClaim(Outcome.IN_PROGRESS, key, null, null);
+    }
+
+    public Outcome outcome() {
+        return outcome;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return сохранённый ответ (только для REPLAY)
+     */
+    public StoredResponse response() {
+        return response;
+    }
+
+    Object entry() {
+        return entry;
+    }
+}
@@ -0,0 +1,39 @@
+package com.taskmanager2.novak.service2.idempotency;
+
+/**
+ * Хранилище ключей идемпотентности: ключ, отпечаток запроса и сохранённый ответ.
+ * Реализация выбирается свойством taskmanager.idempotency.store: memory (по умолчанию, в памяти узла)
+ * или database (таблица idempotency_keys, общая для всех узлов).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Захват ключа перед выполнением запроса. Если запрос с этим ключом уже выполняется, вызов ждёт его ответа
+     * (не дольше wait-timeout); если тот запрос не удался и освободил ключ, ключ захватывается заново.
+     *
+     * @param key         ключ (с учётом пользователя)
+     * @param fingerprint отпечаток запроса
+     * @return итог захвата
+     */
+    IdempotencyClaim claim(String key, String fingerprint);
+
+    /**
+     * Сохранение ответа на выполненный запрос; ждущие повторы получают его.
+     *
+     * @param claim    захваченный ключ (ACQUIRED)
+     * @param response ответ
+     */
+    void complete(IdempotencyClaim claim, StoredResponse response);
+
+    /**
+     * Освобождение ключа без ответа: запрос не удался, повтор выполнится заново.
+     *
+     * @param claim захваченный ключ (ACQUIRED)
+     */
+    void release(IdempotencyClaim claim);
+
+    /**
+     * @return наибольший размер сохраняемого тела ответа; ответ больше освобождает ключ
+     */
+    int maxResponseBytes();
+}
@@ -0,0 +1,133 @@
+package com.taskmanager2.novak.service2.idempotency;
+
+/*Ключи идемпотентности в памяти узла:
+Запись ключа создаётся при захвате и хранит отпечаток запроса и будущий ответ (CompletableFuture).
+Повтор, пришедший во время выполнения первого запроса, ждёт этот ответ, а не выполняет запрос ещё раз;
+ если первый запрос освободил ключ (ошибка сервера), повтор захватывает ключ и выполняет запрос сам.
+Записи хранятся в порядке создания; срок хранения у всех одинаковый, поэтому просроченные всегда в начале
+ и снимаются оттуда при каждом захвате. Число записей ограничено: при переполнении вытесняется самая старая.
+Гарантия действует в пределах узла; для нескольких узлов — DatabaseIdempotencyStore (store=database).
+ * */
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    /**
+     * Запись ключа; ответ null означает, что ключ освобождён без ответа
+     */
+    private static final class Entry {
+
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long waitTimeoutMillis;
+    private final int maxResponseBytes;
+
+    // Вставка, поиск и вытеснение под блокировкой карты; ожидание ответа — вне её
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public InMemoryIdempotencyStore(@Value("${taskmanager.idempotency.max-entries:100000}") int maxEntries,
+                                    @Value("${taskmanager.idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${taskmanager.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                                    @Value("${taskmanager.idempotency.max-response-size:64KB}") DataSize maxResponseSize) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.maxResponseBytes = (int) Math.min(Integer.MAX_VALUE, maxResponseSize.toBytes());
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        while (true) {
+            Entry entry;
+            synchronized (entries) {
+                long now = System.currentTimeMillis();
+                evictExpired(now);
+                entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(fingerprint, now + ttlMillis);
+                    entries.put(key, entry);
+                    return IdempotencyClaim.acquired(key, entry);
+                }
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return IdempotencyClaim.mismatch(key);
+            }
+
+            StoredResponse response;
+            try {
+                response = entry.result.isDone() ? entry.result.get()
+                        : entry.result.get(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return IdempotencyClaim.inProgress(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return IdempotencyClaim.inProgress(key);
+            } catch (ExecutionException e) {
+                // Будущий ответ завершается только значением
+                throw new IllegalStateException(e.getCause());
+            }
+            if (response != null) {
+                return IdempotencyClaim.replay(key, response);
+            }
+            // Первый запрос освободил ключ — пробуем захватить его сами
+        }
+    }
+
+    @Override
+    public void complete(IdempotencyClaim claim, StoredResponse response) {
+        // Запись остаётся в карте (если её не вытеснили) и отдаёт ответ следующим повторам
+        ((Entry) claim.entry()).result.complete(response);
+    }
+
+    @Override
+    public void release(IdempotencyClaim claim) {
+        Entry entry = (Entry) claim.entry();
+        synchronized (entries) {
+            entries.remove(claim.key(), entry);
+        }
+        entry.result.complete(null);
+    }
+
+    @Override
+    public int maxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+}
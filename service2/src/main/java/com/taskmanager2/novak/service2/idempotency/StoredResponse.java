@@ -0,0 +1,11 @@
+package com.taskmanager2.novak.service2.idempotency;
+
+/**
+ * Ответ на запрос с ключом идемпотентности, выдаваемый повторам этого запроса.
+ *
+ * @param status      HTTP-статус
+ * @param contentType тип содержимого (может быть null)
+ * @param body        тело ответа
+ */
+public record StoredResponse(int status, String contentType, byte[] body) {
+}
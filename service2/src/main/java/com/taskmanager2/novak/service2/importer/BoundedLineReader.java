@@ -0,0 +1,82 @@
+package com.taskmanager2.novak.service2.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Чтение строк с ограничением длины.
+ * В отличие от BufferedReader.readLine, слишком длинная строка не накапливается в памяти целиком:
+ * лишние символы пропускаются до конца строки, а вызывающий узнаёт о превышении через {@link #lastLineTruncated()}.
+ * Разделители строк — \n, \r\n и \r.
+ */
+final class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean truncated;
+    private boolean skipLineFeed;
+
+    BoundedLineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * @return следующая строка без разделителя или null в конце потока
+     */
+    String readLine() throws IOException {
+        StringBuilder line = null;
+        truncated = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return line != null ? line.toString() : null;
+                }
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            if (line == null) {
+                line = new StringBuilder(Math.min(256, maxLineLength));
+            }
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            append(line, start, position);
+            if (position < limit) {
+                skipLineFeed = buffer[position] == '\r';
+                position++;
+                return line.toString();
+            }
+        }
+    }
+
+    /**
+     * @return true, если последняя прочитанная строка длиннее допустимого и была обрезана
+     */
+    boolean lastLineTruncated() {
+        return truncated;
+    }
+
+    private void append(StringBuilder line, int start, int end) {
+        int room = maxLineLength - line.length();
+        int count = end - start;
+        if (count > room) {
+            truncated = true;
+            count = Math.max(room, 0);
+        }
+        line.append(buffer, start, count);
+    }
+}
@@ -0,0 +1,19 @@
+package com.taskmanager2.novak.service2.importer;
+
+import java.util.List;
+
+/**
+ * Пачка строк файла импорта для разбора.
+ *
+ * @param firstLine номер первой строки пачки в файле (с 1)
+ * @param lines     строки пачки; null на месте строки, превысившей допустимую длину
+ */
+record ImportChunk(long firstLine, List<String> lines) {
+
+    /**
+     * @return номер последней строки пачки
+     */
+    long lastLine() {
+        return firstLine + lines.size() - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.taskmanager2.novak.service2.importer;
+
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+
+import java.util.List;
+
+/**
+ * Результат разбора пачки строк: задачи, готовые к записи, и отклонённые строки.
+ *
+ * @param chunk  исходная пачка
+ * @param tasks  корректные задачи в порядке строк файла
+ * @param errors отклонённые строки
+ */
+record ParsedChunk(ImportChunk chunk, List<TaskEntity> tasks, List<RowError> errors) {
+
+    /**
+     * Отклонённая строка.
+     *
+     * @param lineNumber номер строки в файле
+     * @param message    причина
+     */
+    record RowError(long lineNumber, String message) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.taskmanager2.novak.service2.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.taskmanager2.novak.common2.dto.TaskDto;
+import com.taskmanager2.novak.common2.enums.ImportFormat;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.service2.mapper.TaskMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Разбор и проверка строк файла импорта.
+ * Не хранит изменяемого состояния, поэтому пачки разбираются параллельно в разных потоках.
+ * Каждая строка превращается в TaskDto, проверяется теми же ограничениями, что и при создании задачи через API,
+ * и преобразуется в TaskEntity через TaskMapper.
+ */
+final class TaskImportParser {
+
+    /**
+     * Расположение столбцов CSV.
+     *
+     * @param name   индекс столбца nameTask
+     * @param status индекс столбца statusTask
+     */
+    record CsvColumns(int name, int status) {
+
+        static final CsvColumns DEFAULT = new CsvColumns(0, 1);
+
+        /**
+         * Столбцы по строке заголовка.
+         * @return расположение столбцов или null, если строка не похожа на заголовок
+         */
+        static CsvColumns fromHeader(String line) {
+            List<String> fields;
+            try {
+                fields = splitCsv(line);
+            } catch (InvalidRequestException e) {
+                return null;
+            }
+            int name = -1;
+            int status = -1;
+            for (int i = 0; i < fields.size(); i++) {
+                String field = fields.get(i).trim().toLowerCase(Locale.ROOT);
+                if (field.equals("nametask") || field.equals("name")) {
+                    name = i;
+                } else if (field.equals("statustask") || field.equals("status")) {
+                    status = i;
+                }
+            }
+            return name >= 0 && status >= 0 ? new CsvColumns(name, status) : null;
+        }
+    }
+
+    private final ImportFormat format;
+    private final CsvColumns columns;
+    private final ObjectReader jsonReader;
+    private final Validator validator;
+    private final TaskMapper taskMapper;
+
+    TaskImportParser(ImportFormat format, CsvColumns columns, ObjectMapper objectMapper, Validator validator,
+                     TaskMapper taskMapper) {
+        this.format = format;
+        this.columns = columns;
+        this.jsonReader = objectMapper.readerFor(TaskDto.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validator = validator;
+        this.taskMapper = taskMapper;
+    }
+
+    /**
+     * Разбор пачки строк
+     */
+    ParsedChunk parse(ImportChunk chunk) {
+        List<TaskEntity> tasks = new ArrayList<>(chunk.lines().size());
+        List<ParsedChunk.RowError> errors = new ArrayList<>();
+        long lineNumber = chunk.firstLine();
+        for (String line : chunk.lines()) {
+            try {
+                TaskEntity task = parseLine(line);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            } catch (InvalidRequestException e) {
+                errors.add(new ParsedChunk.RowError(lineNumber, e.getMessage()));
+            }
+            lineNumber++;
+        }
+        return new ParsedChunk(chunk, tasks, errors);
+    }
+
+    // Разбор одной строки; null — пустая строка, она пропускается без ошибки
+    private TaskEntity parseLine(String line) {
+        if (line == null) {
+            throw new InvalidRequestException("Line is too long");
+        }
+        if (line.isBlank()) {
+            return null;
+        }
+        TaskDto dto = format == ImportFormat.CSV ? fromCsv(line) : fromJson(line);
+
+        Set<ConstraintViolation<TaskDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new InvalidRequestException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (TaskStatus.fromName(dto.getStatusTask()) == null) {
+            throw new InvalidRequestException("Unknown task status: " + dto.getStatusTask());
+        }
+        return taskMapper.toEntity(dto);
+    }
+
+    private TaskDto fromCsv(String line) {
+        List<String> fields = splitCsv(line);
+        TaskDto dto = new TaskDto();
+        dto.setNameTask(field(fields, columns.name()));
+        String status = field(fields, columns.status());
+        dto.setStatusTask(status != null ? status.trim() : null);
+        return dto;
+    }
+
+    private TaskDto fromJson(String line) {
+        try {
+            return jsonReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Разбиение строки CSV на поля (RFC 4180: поля в кавычках, "" внутри кавычек — одна кавычка).
+     * Переводы строк внутри полей не поддерживаются: файл делится на пачки по строкам.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidRequestException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
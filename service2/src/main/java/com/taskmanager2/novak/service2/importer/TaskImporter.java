@@ -0,0 +1,334 @@
+package com.taskmanager2.novak.service2.importer;
+
+/*Потоковый импорт задач из файлов CSV и NDJSON:
+Тело запроса читается построчно прямо из входного потока, без буферизации файла целиком.
+Строки собираются в пачки по chunkSize и отправляются на разбор и проверку в отдельный ForkJoinPool,
+ то есть разбор идёт параллельно на всех ядрах.
+Запись выполняется в потоке запроса строго в порядке файла: пачка за пачкой, каждая — отдельная транзакция
+ (задачи, отклонённые строки и прогресс задания коммитятся вместе).
+Одновременно в работе не больше maxInFlight пачек: если разбор опережает запись, чтение файла ждёт,
+ поэтому память ограничена maxInFlight * chunkSize строками при любом размере файла.
+Прогресс хранится в таблице import_jobs; после обрыва загрузки тот же файл отправляется повторно с тем же id задания,
+ и уже обработанные строки пропускаются.
+ * */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager2.novak.common2.enums.ImportFormat;
+import com.taskmanager2.novak.common2.enums.ImportStatus;
+import com.taskmanager2.novak.common2.exception.ConflictException;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.persistence2.entity.ImportErrorEntity;
+import com.taskmanager2.novak.persistence2.entity.ImportJobEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.ImportErrorRepository;
+import com.taskmanager2.novak.persistence2.repository.ImportJobRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.Principals;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import com.taskmanager2.novak.service2.mapper.TaskMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+@Service
+public class TaskImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskImporter.class);
+
+    // Допустимый id задания, выбранный клиентом
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    // Максимальный размер страницы отчёта об ошибках
+    public static final int MAX_ERRORS_PAGE = 1000;
+
+    private final TaskStore taskStore;
+    private final ImportJobRepository importJobRepository;
+    private final ImportErrorRepository importErrorRepository;
+    private final TaskMapper taskMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    // Пул потоков разбора (по числу ядер)
+    private final ForkJoinPool parsePool;
+
+    // Строк в одной пачке (и в одной транзакции записи)
+    private final int chunkSize;
+
+    // Максимум пачек, прочитанных, но ещё не записанных
+    private final int maxInFlight;
+
+    // Максимальная длина строки файла (символов)
+    private final int maxLineLength;
+
+    // Сколько отклонённых строк сохранять в отчёт для одного задания (дальше только счётчик)
+    private final long maxErrorsPerJob;
+
+    // Через сколько без прогресса выполняемое задание считается брошенным и его можно продолжить
+    private final Duration staleAfter;
+
+    public TaskImporter(TaskStore taskStore,
+                        ImportJobRepository importJobRepository,
+                        ImportErrorRepository importErrorRepository,
+                        TaskMapper taskMapper,
+                        ObjectMapper objectMapper,
+                        Validator validator,
+                        ApplicationEventPublisher eventPublisher,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${taskmanager.import.parallelism:0}") int parallelism,
+                        @Value("${taskmanager.import.chunk-size:1000}") int chunkSize,
+                        @Value("${taskmanager.import.max-in-flight:0}") int maxInFlight,
+                        @Value("${taskmanager.import.max-line-length:4096}") int maxLineLength,
+                        @Value("${taskmanager.import.max-errors-per-job:10000}") long maxErrorsPerJob,
+                        @Value("${taskmanager.import.stale-after:5m}") Duration staleAfter) {
+        this.taskStore = taskStore;
+        this.importJobRepository = importJobRepository;
+        this.importErrorRepository = importErrorRepository;
+        this.taskMapper = taskMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.parsePool = new ForkJoinPool(threads);
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * threads;
+        this.maxLineLength = maxLineLength;
+        this.maxErrorsPerJob = maxErrorsPerJob;
+        this.staleAfter = staleAfter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        parsePool.shutdown();
+    }
+
+    /**
+     * Импорт задач из потока
+     * @param jobId  id задания: новый (или null — id выберет сервер) либо id прерванного задания для продолжения
+     * @param format формат файла
+     * @param input  тело файла в UTF-8; читается до конца, но не закрывается
+     * @return задание с итоговым прогрессом
+     * @throws InvalidRequestException если id задания некорректен или формат не совпадает с форматом задания
+     * @throws ConflictException если задание с этим id уже выполняется
+     */
+    public ImportJobEntity importTasks(String jobId, ImportFormat format, InputStream input) {
+        String principal = Principals.current();
+        ImportJobEntity job = startJob(jobId, format, principal);
+        if (job.getStatus() == ImportStatus.COMPLETED) {
+            logger.info("Import job {} is already completed", job.getId());
+            return job;
+        }
+        logger.info("Import job {} started ({}), resuming after line {}", job.getId(), format, job.getLinesProcessed());
+
+        try {
+            run(job, input, principal);
+            finish(job.getId(), ImportStatus.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Import job {} failed: {}", job.getId(), e.getMessage());
+            finish(job.getId(), ImportStatus.FAILED, String.valueOf(e.getMessage()));
+        }
+        return getJob(job.getId());
+    }
+
+    /**
+     * Формат файла из параметра запроса
+     * @throws InvalidRequestException если такого формата нет
+     */
+    public static ImportFormat parseFormat(String value) {
+        ImportFormat format = ImportFormat.fromName(value);
+        if (format == null) {
+            throw new InvalidRequestException("Unknown import format: " + value);
+        }
+        return format;
+    }
+
+    /**
+     * Состояние задания импорта
+     * @param jobId id задания
+     * @return задание
+     * @throws NotFoundException если задание не найдено
+     */
+    public ImportJobEntity getJob(String jobId) {
+        return importJobRepository.findById(jobId)
+                .orElseThrow(() -> new NotFoundException("Import job", jobId));
+    }
+
+    /**
+     * Страница отчёта об отклонённых строках задания
+     * @param jobId     id задания
+     * @param afterLine курсор — номер строки последней ошибки предыдущей страницы
+     * @param limit     размер страницы
+     * @return ошибки в порядке номеров строк
+     * @throws NotFoundException если задание не найдено
+     */
+    public List<ImportErrorEntity> getErrors(String jobId, Long afterLine, int limit) {
+        if (!importJobRepository.existsById(jobId)) {
+            throw new NotFoundException("Import job", jobId);
+        }
+        return importErrorRepository.findByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(jobId,
+                afterLine != null ? afterLine : 0L, Limit.of(Math.min(Math.max(limit, 1), MAX_ERRORS_PAGE)));
+    }
+
+    // Создание нового задания или захват прерванного
+    private ImportJobEntity startJob(String jobId, ImportFormat format, String principal) {
+        String id = jobId != null ? jobId : UUID.randomUUID().toString();
+        if (!JOB_ID.matcher(id).matches()) {
+            throw new InvalidRequestException("Invalid import job id: " + id);
+        }
+
+        ImportJobEntity existing = importJobRepository.findById(id).orElse(null);
+        if (existing == null) {
+            try {
+                return transactionTemplate.execute(status ->
+                        importJobRepository.saveAndFlush(new ImportJobEntity(id, format, principal, Instant.now())));
+            } catch (DataIntegrityViolationException e) {
+                throw new ConflictException("Import job " + id + " was started concurrently");
+            }
+        }
+        if (existing.getFormat() != format) {
+            throw new InvalidRequestException("Import job " + id + " was started with format " + existing.getFormat());
+        }
+        if (existing.getStatus() == ImportStatus.COMPLETED) {
+            return existing;
+        }
+        Instant now = Instant.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                importJobRepository.claim(id, now, now.minus(staleAfter)));
+        if (claimed == null || claimed == 0) {
+            throw new ConflictException("Import job " + id + " is already running");
+        }
+        return getJob(id);
+    }
+
+    // Чтение, параллельный разбор и упорядоченная запись
+    private void run(ImportJobEntity job, InputStream input, String principal) throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+        long resumeAfter = job.getLinesProcessed();
+        long errorsStored = job.getRowsFailed();
+
+        TaskImportParser parser = null;
+        Deque<CompletableFuture<ParsedChunk>> inFlight = new ArrayDeque<>();
+        List<String> lines = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        long chunkStart = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (reader.lastLineTruncated()) {
+                line = null;
+            }
+            if (parser == null) {
+                // Первая строка CSV может быть заголовком; заголовок читается и при продолжении задания
+                TaskImportParser.CsvColumns columns = TaskImportParser.CsvColumns.DEFAULT;
+                if (job.getFormat() == ImportFormat.CSV && line != null) {
+                    TaskImportParser.CsvColumns header = TaskImportParser.CsvColumns.fromHeader(line);
+                    if (header != null) {
+                        columns = header;
+                        line = "";
+                    }
+                }
+                parser = new TaskImportParser(job.getFormat(), columns, objectMapper, validator, taskMapper);
+            }
+            if (lineNumber <= resumeAfter) {
+                continue; // уже обработано в прошлый раз
+            }
+
+            if (lines.isEmpty()) {
+                chunkStart = lineNumber;
+            }
+            lines.add(line);
+            if (lines.size() == chunkSize) {
+                inFlight.add(submit(parser, new ImportChunk(chunkStart, lines)));
+                lines = new ArrayList<>(chunkSize);
+                if (inFlight.size() >= maxInFlight) {
+                    errorsStored = write(job.getId(), await(inFlight.poll()), errorsStored, principal);
+                }
+            }
+        }
+        if (!lines.isEmpty()) {
+            inFlight.add(submit(parser, new ImportChunk(chunkStart, lines)));
+        }
+        while (!inFlight.isEmpty()) {
+            errorsStored = write(job.getId(), await(inFlight.poll()), errorsStored, principal);
+        }
+    }
+
+    private CompletableFuture<ParsedChunk> submit(TaskImportParser parser, ImportChunk chunk) {
+        return CompletableFuture.supplyAsync(() -> parser.parse(chunk), parsePool);
+    }
+
+    private static ParsedChunk await(CompletableFuture<ParsedChunk> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Запись пачки: задачи, отчёт об ошибках и прогресс — одной транзакцией
+    private long write(String jobId, ParsedChunk parsed, long errorsStored, String principal) {
+        List<TaskEntity> tasks = parsed.tasks();
+        List<ImportErrorEntity> errors = new ArrayList<>();
+        for (ParsedChunk.RowError error : parsed.errors()) {
+            if (errorsStored + errors.size() >= maxErrorsPerJob) {
+                break;
+            }
+            errors.add(new ImportErrorEntity(jobId, error.lineNumber(), error.message()));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            taskStore.saveAll(tasks);
+            importErrorRepository.saveAll(errors);
+            importJobRepository.advance(jobId, parsed.chunk().lastLine(), tasks.size(), parsed.errors().size(),
+                    Instant.now());
+            long timestamp = System.currentTimeMillis();
+            for (TaskEntity task : tasks) {
+                eventPublisher.publishEvent(new TaskChangedEvent(ChangeAction.CREATE, task.getId(), null,
+                        task.getStatusTask(), principal, timestamp));
+            }
+        });
+
+        // Сохранённые сущности больше не нужны; без очистки контекст рос бы на весь файл
+        entityManager.clear();
+        return errorsStored + errors.size();
+    }
+
+    private void finish(String jobId, ImportStatus status, String message) {
+        String text = message != null && message.length() > 500 ? message.substring(0, 500) : message;
+        transactionTemplate.executeWithoutResult(tx -> importJobRepository.finish(jobId, status, text, Instant.now()));
+    }
+}
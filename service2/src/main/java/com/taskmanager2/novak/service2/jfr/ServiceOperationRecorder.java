@@ -0,0 +1,102 @@
+package com.taskmanager2.novak.service2.jfr;
+
+/*Запись вызовов сервисов в JFR и в замер времени запроса:
+Перехватчик оборачивает публичные методы TaskService и UserService и фиксирует событие ServiceOperationEvent:
+ операция, исход (OK или имя исключения), число возвращённых строк и роль пользователя.
+Время вызова также добавляется к фазе SERVICE замера запроса (RequestTimings, заголовок Server-Timing).
+Перехватчик стоит снаружи транзакционного, поэтому длительность включает открытие транзакции и коммит.
+Если запись JFR не идёт, событие не включено и перехватчик только отмечает фазу и вызывает метод.
+ * */
+
+import com.taskmanager2.novak.common2.jfr.ServiceOperationEvent;
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import com.taskmanager2.novak.service2.dto.TaskPage;
+import com.taskmanager2.novak.service2.dto.TransitionResult;
+import com.taskmanager2.novak.service2.dto.UserPage;
+import com.taskmanager2.novak.service2.event.Principals;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ServiceOperationRecorder implements MethodInterceptor {
+
+    private static final String OK = "OK";
+
+    // Имена операций по методу, чтобы не собирать строку на каждый вызов
+    private final Map<Method, String> operations = new ConcurrentHashMap<>();
+
+    // Записывать ли события JFR (замер времени запроса ведётся всегда)
+    private final boolean jfrEvents;
+
+    public ServiceOperationRecorder(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RequestTimings.begin(TimingPhase.SERVICE);
+        try {
+            return jfrEvents ? record(invocation) : invocation.proceed();
+        } finally {
+            RequestTimings.end(TimingPhase.SERVICE);
+        }
+    }
+
+    private Object record(MethodInvocation invocation) throws Throwable {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        String status = OK;
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            status = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operations.computeIfAbsent(invocation.getMethod(), method ->
+                        ClassUtils.getUserClass(invocation.getThis()).getSimpleName() + "." + method.getName());
+                event.status = status;
+                event.rows = rows(result);
+                event.principalRole = Principals.currentRole();
+                event.commit();
+            }
+        }
+    }
+
+    // Число строк результата: размер списка или страницы, 1 для одной сущности
+    private static int rows(Object result) {
+        if (result == null || result instanceof Boolean || result instanceof CompletableFuture<?>) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof TaskPage page) {
+            return page.items().size();
+        }
+        if (result instanceof UserPage page) {
+            return page.items().size();
+        }
+        if (result instanceof TransitionResult transition) {
+            return (int) Math.min(transition.updated(), Integer.MAX_VALUE);
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager2.novak.service2.jfr;
+
+/*Подключение записи вызовов сервисов в JFR и в замер времени запроса (Server-Timing):
+Советник (advisor) с ролью инфраструктурного бина подхватывается тем же механизмом автопроксирования,
+ что и @Transactional, поэтому отдельная зависимость AspectJ не нужна.
+Наивысший приоритет ставит перехватчик снаружи транзакции — в событие и замер попадает и время коммита.
+События JFR отключаются свойством taskmanager.jfr.service-events=false, замер времени остаётся.
+ * */
+
+import com.taskmanager2.novak.service2.service.TaskService;
+import com.taskmanager2.novak.service2.service.UserService;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+@Configuration(proxyBeanMethods = false)
+public class ServiceRecordingConfig {
+
+    // Сервисы, вызовы которых записываются
+    private static final Set<Class<?>> RECORDED_SERVICES = Set.of(TaskService.class, UserService.class);
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceOperationAdvisor(
+            @Value("${taskmanager.jfr.service-events:true}") boolean jfrEvents) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(type -> RECORDED_SERVICES.contains(ClassUtils.getUserClass(type)));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ServiceOperationRecorder(jfrEvents));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,85 @@
+package com.taskmanager2.novak.service2.lock;
+
+/*Блокировка фоновых заданий через базу данных:
+Когда приложение запущено на нескольких узлах, каждое периодическое задание должно выполняться только на одном из них.
+Блокировка — строка таблицы job_locks с полями «до какого момента» и «кем» удерживается.
+Захват — условный UPDATE: он проходит, только если блокировка свободна, просрочена или уже наша.
+Срок аренды (lease) ограничивает время удержания: если узел упал посреди задания, через lease блокировку захватит другой.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.JobLockEntity;
+import com.taskmanager2.novak.persistence2.repository.JobLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+@Component
+public class JobLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLock.class);
+
+    private final JobLockRepository jobLockRepository;
+
+    // Каждая операция с блокировкой — своя короткая транзакция, независимая от транзакций задания
+    private final TransactionTemplate transactionTemplate;
+
+    // Идентификатор этого узла: имя процесса JVM (pid@host) плюс случайный суффикс на случай совпадения
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    public JobLock(JobLockRepository jobLockRepository, PlatformTransactionManager transactionManager) {
+        this.jobLockRepository = jobLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Попытка захватить блокировку задания
+     * @param name  имя задания
+     * @param lease срок, на который захватывается блокировка
+     * @return true, если блокировка захвачена этим узлом
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        Instant now = Instant.now();
+        Instant until = now.plus(lease);
+        Integer updated = transactionTemplate.execute(status -> jobLockRepository.tryAcquire(name, owner, now, until));
+        if (updated != null && updated > 0) {
+            return true;
+        }
+
+        // Строки ещё нет — первое выполнение задания; вставку выиграет только один узел,
+        // у остальных INSERT упадёт на первичном ключе
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jobLockRepository.saveAndFlush(new JobLockEntity(name, until, owner)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lock {} is held by another node", name);
+            return false;
+        }
+    }
+
+    /**
+     * Освобождение блокировки задания, если она принадлежит этому узлу
+     * @param name имя задания
+     */
+    public void release(String name) {
+        transactionTemplate.executeWithoutResult(status -> jobLockRepository.release(name, owner, Instant.now()));
+    }
+
+    /**
+     * @return идентификатор этого узла в таблице блокировок
+     */
+    public String owner() {
+        return owner;
+    }
+}
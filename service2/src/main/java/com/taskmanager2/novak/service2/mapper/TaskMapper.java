@@ -7,11 +7,23 @@ package com.taskmanager2.novak.service2.mapper;
 import com.taskmanager2.novak.common2.dto.TaskDto;
 import com.taskmanager2.novak.persistence2.entity.TaskEntity;
 import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.InvalidStatusException;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
 @Component // Указывает, что класс является компонентом Spring, то есть он будет автоматически зарегистрирован в контейнере Spring.
 public class TaskMapper {
 
+    // Допустимый диапазон срока выполнения (встроенное хранилище держит время в наносекундах epoch типа long)
+    private static final Instant MIN_DUE_AT = Instant.EPOCH;
+    private static final Instant MAX_DUE_AT = OffsetDateTime.of(2200, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant();
+
     // Метод для преобразования TaskEntity в TaskDto
     public TaskDto toDto(TaskEntity entity) {
         // Если переданный объект entity равен null, возвращаем null
@@ -25,6 +37,7 @@ public class TaskMapper {
         // Устанавливаем значения из сущности в DTO
         dto.setNameTask(entity.getNameTask());
         dto.setStatusTask(entity.getStatusTask().name()); // Преобразуем статус сущности в строку (name()) и устанавливаем в DTO
+        dto.setDueAt(entity.getDueAt() != null ? entity.getDueAt().toString() : null);
         
         return dto; // Возвращаем DTO
     }
@@ -44,9 +57,44 @@ public class TaskMapper {
         
         // Если статус задачи в DTO не равен null, преобразуем его в TaskStatus и устанавливаем в сущность
         if (dto.getStatusTask() != null) {
-            entity.setStatusTask(TaskStatus.valueOf(dto.getStatusTask())); // Преобразуем строку из DTO в перечисление TaskStatus
+            entity.setStatusTask(parseStatus(dto.getStatusTask())); // Преобразуем строку из DTO в перечисление TaskStatus
         }
+        entity.setDueAt(parseDueAt(dto.getDueAt()));
         
         return entity; // Возвращаем сущность
     }
+
+    /**
+     * Статус задачи из строки, пришедшей от клиента
+     * @throws InvalidStatusException если такого статуса нет
+     */
+    public static TaskStatus parseStatus(String value) {
+        TaskStatus status = TaskStatus.fromName(value);
+        if (status == null) {
+            throw new InvalidStatusException(value);
+        }
+        return status;
+    }
+
+    /**
+     * Срок выполнения из строки ISO-8601 со смещением (2025-03-01T18:00:00Z, 2025-03-01T18:00:00+03:00)
+     * @return момент срока с точностью до миллисекунды; null для null и пустой строки
+     * @throws InvalidRequestException если строка не разбирается или срок вне допустимого диапазона
+     */
+    public static Instant parseDueAt(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Instant dueAt;
+        try {
+            dueAt = OffsetDateTime.parse(value.strip()).toInstant().truncatedTo(ChronoUnit.MILLIS);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid due date '" + value
+                    + "': expected ISO-8601 date-time with offset, e.g. 2025-03-01T18:00:00Z");
+        }
+        if (dueAt.isBefore(MIN_DUE_AT) || !dueAt.isBefore(MAX_DUE_AT)) {
+            throw new InvalidRequestException("Due date must be between " + MIN_DUE_AT + " and " + MAX_DUE_AT);
+        }
+        return dueAt;
+    }
 }
@@ -0,0 +1,194 @@
+package com.taskmanager2.novak.service2.pipeline;
+
+/*Конвейер групповой записи задач (group commit):
+Параллельные запросы на создание задач не открывают каждый свою транзакцию, а кладут задачу в ограниченную очередь.
+Отдельный поток-коммиттер забирает из очереди пачку (до maxBatchSize задач или до истечения maxDelayMs) и сохраняет
+ её одной транзакцией, то есть одним коммитом и одним fsync журнала БД на всю пачку.
+Каждый вызывающий получает CompletableFuture, который завершается сохранённой задачей (с сгенерированным id)
+ только после коммита. Переданный с задачей обработчик выполняется в транзакции пачки сразу после сохранения —
+ события об изменении задач публикуются внутри неё, и журналы изменений пишут одну строку (или один пачечный INSERT)
+ на пачку в том же коммите, а не по коммиту на задачу.
+Если транзакция пачки падает (например, из-за одной некорректной строки), задачи пачки сохраняются по одной,
+ чтобы ошибка одной задачи не ломала остальные.
+Конвейер включается свойством taskmanager.write-pipeline.enabled=true, по умолчанию выключен.
+ * */
+
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(prefix = "taskmanager.write-pipeline", name = "enabled", havingValue = "true")
+public class TaskWritePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskWritePipeline.class);
+
+    // Задача, ожидающая коммита, обработчик сохранения и future вызывающего
+    private record PendingTask(TaskEntity task, Consumer<TaskEntity> onSaved, CompletableFuture<TaskEntity> result) {
+    }
+
+    private final TaskStore taskStore;
+    private final TransactionTemplate transactionTemplate;
+
+    // Ограниченная очередь: при переполнении вызывающий получает отказ, а не бесконечное ожидание
+    private final BlockingQueue<PendingTask> queue;
+
+    // Максимальный размер пачки в одной транзакции
+    private final int maxBatchSize;
+
+    // Максимальное время ожидания добора пачки после первой задачи
+    private final long maxDelayNanos;
+
+    // Сколько ждать места в очереди, прежде чем отказать
+    private final long offerTimeoutMillis;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public TaskWritePipeline(TaskStore taskStore,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${taskmanager.write-pipeline.queue-capacity:10000}") int queueCapacity,
+                             @Value("${taskmanager.write-pipeline.max-batch-size:256}") int maxBatchSize,
+                             @Value("${taskmanager.write-pipeline.max-delay-ms:5}") long maxDelayMs,
+                             @Value("${taskmanager.write-pipeline.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.taskStore = taskStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        committer = new Thread(this::runCommitter, "task-write-pipeline");
+        committer.setDaemon(true);
+        committer.start();
+        logger.info("Task write pipeline started: batch={}, delay={}ms", maxBatchSize,
+                TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Останавливаем приём и даём коммиттеру дописать то, что уже в очереди
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Ставит задачу в очередь на групповую запись
+     * @param task новая (ещё не сохранённая) задача
+     * @param onSaved обработчик сохранённой задачи; выполняется в транзакции пачки, до коммита
+     * @return future, завершающийся сохранённой задачей после коммита пачки
+     * @throws RejectedExecutionException если очередь переполнена или конвейер остановлен
+     */
+    public CompletableFuture<TaskEntity> submit(TaskEntity task, Consumer<TaskEntity> onSaved) {
+        if (!running) {
+            throw new RejectedExecutionException("Task write pipeline is stopped");
+        }
+        CompletableFuture<TaskEntity> result = new CompletableFuture<>();
+        try {
+            if (!queue.offer(new PendingTask(task, onSaved, result), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Task write pipeline queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while enqueuing task", e);
+        }
+        return result;
+    }
+
+    // Основной цикл потока-коммиттера
+    private void runCommitter() {
+        List<PendingTask> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTask first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Добираем пачку, пока не наберётся maxBatchSize или не выйдет время
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingTask next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                // Поток-коммиттер не должен умирать: ошибки уже переданы в future
+                logger.error("Unexpected error in task write pipeline", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Сохранение пачки одной транзакцией, при ошибке — по одной задаче
+    private void commit(List<PendingTask> batch) {
+        List<TaskEntity> tasks = new ArrayList<>(batch.size());
+        for (PendingTask pending : batch) {
+            tasks.add(pending.task());
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                taskStore.saveAll(tasks);
+                for (PendingTask pending : batch) {
+                    pending.onSaved().accept(pending.task());
+                }
+            });
+            for (PendingTask pending : batch) {
+                pending.result().complete(pending.task());
+            }
+            logger.debug("Committed batch of {} tasks", batch.size());
+        } catch (RuntimeException batchError) {
+            logger.warn("Batch of {} tasks failed, retrying one by one: {}", batch.size(), batchError.getMessage());
+            for (PendingTask pending : batch) {
+                try {
+                    // Сбрасываем id, который мог быть выставлен в откаченной транзакции
+                    pending.task().setId(null);
+                    TaskEntity saved = transactionTemplate.execute(status -> {
+                        TaskEntity task = taskStore.save(pending.task());
+                        pending.onSaved().accept(task);
+                        return task;
+                    });
+                    pending.result().complete(saved);
+                } catch (RuntimeException e) {
+                    pending.result().completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.taskmanager2.novak.service2.service;
+/*Аналитика по журналу переходов задач:
+Отчёты (время цикла, пропускная способность по дням, незавершённая работа) считает TaskAnalytics в памяти узла;
+ здесь — разбор и проверка параметров периода. Период по умолчанию — последние 30 дней.
+История переходов одной задачи читается прямо из таблицы task_transitions.
+ * */
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.persistence2.repository.TaskTransitionRepository;
+import com.taskmanager2.novak.service2.analytics.TaskAnalytics;
+import com.taskmanager2.novak.service2.dto.CycleTimeReport;
+import com.taskmanager2.novak.service2.dto.TaskTransition;
+import com.taskmanager2.novak.service2.dto.ThroughputReport;
+import com.taskmanager2.novak.service2.dto.WipReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class AnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+
+    // Период отчёта по умолчанию
+    private static final Duration DEFAULT_WINDOW = Duration.ofDays(30);
+
+    // Ограничения размера ответа
+    private static final int MAX_DAYS = 3660;
+    private static final int MAX_SAMPLES = 10_000;
+
+    private final TaskTransitionRepository transitionRepository;
+
+    // Движок аналитики (null, если выключен свойством taskmanager.analytics.enabled)
+    private final TaskAnalytics analytics;
+
+    public AnalyticsService(TaskTransitionRepository transitionRepository, ObjectProvider<TaskAnalytics> analytics) {
+        this.transitionRepository = transitionRepository;
+        this.analytics = analytics.getIfAvailable();
+    }
+
+    // Время цикла, время от создания и время в статусах за период
+    public CycleTimeReport getCycleTime(Instant from, Instant to) {
+        Instant end = endOf(to);
+        Instant start = startOf(from, end);
+        logger.info("Computing cycle time from {} to {}", start, end);
+        return engine().cycleTime(start, end);
+    }
+
+    // Число завершённых задач по дням за период
+    public ThroughputReport getThroughput(Instant from, Instant to, String zone) {
+        Instant end = endOf(to);
+        Instant start = startOf(from, end);
+        ZoneId zoneId = parseZone(zone);
+        if (Duration.between(start, end).toDays() > MAX_DAYS) {
+            throw new InvalidRequestException("Throughput period is limited to " + MAX_DAYS + " days");
+        }
+        logger.info("Computing throughput from {} to {} in {}", start, end, zoneId);
+        return engine().throughput(start, end, zoneId);
+    }
+
+    // Число задач в работе в моменты с заданным шагом за период
+    public WipReport getWorkInProgress(Instant from, Instant to, String step) {
+        Instant end = endOf(to);
+        Instant start = startOf(from, end);
+        Duration stepDuration = parseStep(step);
+        if (Duration.between(start, end).toMillis() / stepDuration.toMillis() >= MAX_SAMPLES) {
+            throw new InvalidRequestException("Too many samples, use a larger step (at most " + MAX_SAMPLES + ")");
+        }
+        logger.info("Computing work in progress from {} to {} every {}", start, end, stepDuration);
+        return engine().wip(start, end, stepDuration);
+    }
+
+    // История переходов задачи (пустая, если задача не менялась с появления журнала)
+    public List<TaskTransition> getTaskTransitions(Long taskId) {
+        logger.info("Fetching transitions of task with id: {}", taskId);
+        return transitionRepository.findByTaskIdOrderByIdAsc(taskId).stream()
+                .map(row -> new TaskTransition(row.getFromStatus(), row.getToStatus(), row.getChangedAt(),
+                        row.getPrincipal()))
+                .toList();
+    }
+
+    private TaskAnalytics engine() {
+        if (analytics == null) {
+            throw new RejectedExecutionException("Task analytics are disabled on this node");
+        }
+        return analytics;
+    }
+
+    private static Instant endOf(Instant to) {
+        return to != null ? to : Instant.now();
+    }
+
+    private static Instant startOf(Instant from, Instant end) {
+        Instant start = from != null ? from : end.minus(DEFAULT_WINDOW);
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("Period start must be before its end");
+        }
+        return start;
+    }
+
+    private static ZoneId parseZone(String zone) {
+        if (zone == null || zone.isEmpty()) {
+            return ZoneOffset.UTC;
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new InvalidRequestException("Unknown time zone: " + zone);
+        }
+    }
+
+    private static Duration parseStep(String step) {
+        if (step == null || step.isEmpty()) {
+            return Duration.ofDays(1);
+        }
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(step);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid step: " + step + " (examples: 1h, 30m, PT6H)");
+        }
+        if (duration.toMillis() <= 0) {
+            throw new InvalidRequestException("Step must be positive");
+        }
+        return duration;
+    }
+}
@@ -0,0 +1,55 @@
+package com.taskmanager2.novak.service2.service;
+/*Чтение архива задач:
+Архив (таблица archived_tasks) заполняется только фоновым переносом TaskArchiver, здесь — запросы на чтение.
+Выдача постраничная по ключу (id), как и для основного списка задач, чтобы стоимость запроса не росла с номером страницы.
+ * */
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.persistence2.entity.ArchivedTaskEntity;
+import com.taskmanager2.novak.persistence2.repository.ArchivedTaskRepository;
+import com.taskmanager2.novak.service2.dto.ArchivePage;
+import com.taskmanager2.novak.service2.mapper.TaskMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    private final ArchivedTaskRepository archivedTaskRepository;
+
+    public ArchiveService(ArchivedTaskRepository archivedTaskRepository) {
+        this.archivedTaskRepository = archivedTaskRepository;
+    }
+
+    // Получение страницы архивных задач по курсору, при необходимости с фильтром по статусу
+    public ArchivePage getArchivedTasksPage(Long afterId, int size, String status) {
+        logger.info("Fetching archived tasks page after id: {}, size: {}, status: {}", afterId, size, status);
+
+        Limit limit = Limit.of(Math.min(Math.max(size, 1), TaskService.MAX_PAGE_SIZE));
+        long cursor = afterId != null ? afterId : 0L;
+        TaskStatus statusFilter = status != null ? TaskMapper.parseStatus(status) : null;
+
+        List<ArchivedTaskEntity> items = statusFilter == null
+                ? archivedTaskRepository.findByIdGreaterThanOrderByIdAsc(cursor, limit)
+                : archivedTaskRepository.findByStatusTaskAndIdGreaterThanOrderByIdAsc(statusFilter, cursor, limit);
+        Long nextCursor = items.size() == limit.max() ? items.get(items.size() - 1).getId() : null;
+        Long total = afterId == null && statusFilter == null ? archivedTaskRepository.count() : null;
+        return new ArchivePage(items, nextCursor, total);
+    }
+
+    // Получение архивной задачи по ID
+    public ArchivedTaskEntity getArchivedTask(Long id) {
+        logger.info("Fetching archived task by id: {}", id);
+        return archivedTaskRepository.findById(id)
+                .orElseThrow(() -> {
+                    logger.error("Archived task not found with id: {}", id);
+                    return new NotFoundException("Archived task", id);
+                });
+    }
+}
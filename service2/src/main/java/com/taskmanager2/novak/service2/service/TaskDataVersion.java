@@ -0,0 +1,30 @@
+package com.taskmanager2.novak.service2.service;
+
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия данных задач: счётчик, увеличиваемый после каждого закоммиченного изменения задачи.
+ * Страница задач отдаётся вместе с версией, и клиент по ней понимает, что его данные устарели.
+ * Начальное значение — время запуска, чтобы после перезапуска версии не повторялись.
+ */
+@Component
+public class TaskDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * @return текущая версия данных задач
+     */
+    public long current() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
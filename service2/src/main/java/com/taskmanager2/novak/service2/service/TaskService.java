@@ -5,21 +5,59 @@ package com.taskmanager2.novak.service2.service;
 Преобразование данных:
 Используется TaskMapper для преобразования между объектами DTO и сущностями базы данных, что позволяет отделить логику
  бизнес-слоя от слоев представления и хранения данных.
+Кэширование:
+Списки всех задач и задач по статусу отдаются из кэша узла (TaskQueryCache), если он включён.
+ Изменения на этом узле сбрасывают кэш сразу после коммита, изменения на других узлах — через журнал task_changes.
+Массовые переходы статусов:
+Перевод всех задач, подходящих под условие (статус, диапазон id, начало названия), выполняется пачками: в каждой
+ короткой транзакции строки пачки блокируются и меняются одним UPDATE, а подписчики получают по событию на задачу.
+Переход целиком не атомарен — при сбое уже переведённые пачки остаются; повтор того же запроса доделывает остальное.
+Какие переходы разрешены каждой роли, задаёт таблица TaskTransitions.
+Удаление задачи в той же транзакции удаляет описания её вложений (AttachmentService); файлы содержимого,
+ на которые больше никто не ссылается, после коммита удаляет фоновый сборщик.
+Зависимости задач:
+Удаление задачи в той же транзакции удаляет её зависимости (DependencyService); статусы задач граф зависимостей
+ в памяти узнаёт из событий TaskChangedEvent.
+Сроки задач:
+Изменения задач после коммита передаются подсистеме сроков (DeadlineScheduler), которая держит таймеры напоминаний
+ и просрочек в памяти; по расписанию таблица задач для этого не просматривается.
 Это сервисный слой, который координирует работу с репозиториями и выполняет бизнес-логику приложения.
  * */
 import com.taskmanager2.novak.common2.dto.TaskDto;
+import com.taskmanager2.novak.common2.enums.RoleType;
 import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.ForbiddenTransitionException;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
 import com.taskmanager2.novak.persistence2.entity.TaskEntity;
-import com.taskmanager2.novak.persistence2.repository.TaskRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.attachment.AttachmentService;
+import com.taskmanager2.novak.service2.cache.TaskQueryCache;
+import com.taskmanager2.novak.service2.deadline.DeadlineScheduler;
+import com.taskmanager2.novak.service2.dependency.DependencyService;
+import com.taskmanager2.novak.service2.dto.TaskPage;
+import com.taskmanager2.novak.service2.dto.TransitionResult;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.Principals;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
 import com.taskmanager2.novak.service2.mapper.TaskMapper;
+import com.taskmanager2.novak.service2.pipeline.TaskWritePipeline;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service // Аннотация указывает, что это сервисный компонент, который может быть инъецирован в другие классы
 @Validated // Обеспечивает валидацию входных данных в методах, которые используют аннотации для валидации (например, @Valid)
@@ -28,16 +66,69 @@ public class TaskService {
     // Логирование для отслеживания действий в сервисе
     private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
     
-    // Репозиторий для работы с сущностями Task
-    private final TaskRepository taskRepository;
+    // Хранилище задач (база данных через JPA или встроенное хранилище в профиле embedded)
+    private final TaskStore taskStore;
     
     // Маппер для преобразования между TaskDto и TaskEntity
     private final TaskMapper taskMapper;
 
+    // Конвейер групповой записи (null, если выключен свойством taskmanager.write-pipeline.enabled)
+    private final TaskWritePipeline writePipeline;
+
+    // Публикация событий об изменениях (аудит и другие подписчики)
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Версия данных задач для постраничной загрузки
+    private final TaskDataVersion dataVersion;
+
+    // Кэш списков задач (null, если выключен свойством taskmanager.task-cache.enabled)
+    private final TaskQueryCache queryCache;
+
+    // Разрешённые ролям массовые переходы статусов
+    private final TaskTransitions transitions;
+
+    // Вложения задач (удаляются вместе с задачей)
+    private final AttachmentService attachmentService;
+
+    // Зависимости между задачами (удаляются вместе с задачей)
+    private final DependencyService dependencyService;
+
+    // Таймеры сроков задач (null, если выключены свойством taskmanager.deadlines.enabled)
+    private final DeadlineScheduler deadlines;
+
+    // Транзакции пачек массового перехода и создания задачи без конвейера
+    private final TransactionTemplate transactionTemplate;
+
+    // Размер пачки массового перехода (строк в одной транзакции)
+    private final int transitionBatchSize;
+
+    // Максимальный размер страницы задач
+    public static final int MAX_PAGE_SIZE = 500;
+
     // Конструктор с внедрением зависимостей
-    public TaskService(TaskRepository taskRepository, TaskMapper taskMapper) {
-        this.taskRepository = taskRepository;
+    public TaskService(TaskStore taskStore, TaskMapper taskMapper,
+                       ObjectProvider<TaskWritePipeline> writePipeline,
+                       ApplicationEventPublisher eventPublisher,
+                       TaskDataVersion dataVersion,
+                       ObjectProvider<TaskQueryCache> queryCache,
+                       TaskTransitions transitions,
+                       AttachmentService attachmentService,
+                       DependencyService dependencyService,
+                       ObjectProvider<DeadlineScheduler> deadlines,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${taskmanager.transitions.batch-size:1000}") int transitionBatchSize) {
+        this.taskStore = taskStore;
         this.taskMapper = taskMapper;
+        this.writePipeline = writePipeline.getIfAvailable();
+        this.eventPublisher = eventPublisher;
+        this.dataVersion = dataVersion;
+        this.queryCache = queryCache.getIfAvailable();
+        this.transitions = transitions;
+        this.attachmentService = attachmentService;
+        this.dependencyService = dependencyService;
+        this.deadlines = deadlines.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transitionBatchSize = transitionBatchSize;
     }
 
     // Создание новой задачи с валидацией DTO
@@ -49,7 +140,33 @@ public class TaskService {
         TaskEntity task = taskMapper.toEntity(taskDto);
         
         // Сохраняем сущность в базе данных и возвращаем сохраненную задачу
-        return taskRepository.save(task);
+        TaskEntity saved = taskStore.save(task);
+        publish(ChangeAction.CREATE, saved.getId(), null, saved.getStatusTask(), Principals.current());
+        if (deadlines != null) {
+            deadlines.onTaskSaved(saved);
+        }
+        return saved;
+    }
+
+    // Создание задачи через конвейер групповой записи, если он включён; иначе — обычная транзакция
+    public CompletableFuture<TaskEntity> createTaskAsync(@Valid TaskDto taskDto) {
+        if (writePipeline == null) {
+            // Вызов createTask на this не проходит через прокси, поэтому транзакцию открываем явно
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status -> createTask(taskDto)));
+        }
+        logger.info("Enqueuing new task: {}", taskDto.getNameTask());
+
+        // Преобразование и проверка статуса выполняются в потоке вызывающего, до постановки в очередь.
+        // Имя пользователя фиксируем здесь же: поток-коммиттер не видит контекст безопасности запроса
+        String principal = Principals.current();
+        // События публикуются в транзакции пачки: журналы изменений пишутся в её же коммите, подписчики
+        // после коммита срабатывают до завершения future
+        return writePipeline.submit(taskMapper.toEntity(taskDto), saved -> {
+            publish(ChangeAction.CREATE, saved.getId(), null, saved.getStatusTask(), principal);
+            if (deadlines != null) {
+                deadlines.onTaskSaved(saved);
+            }
+        });
     }
 
     // Обновление существующей задачи по ID
@@ -58,18 +175,27 @@ public class TaskService {
         logger.info("Updating task with id: {}", id);
         
         // Ищем задачу в базе данных по ID, если не находим, выбрасываем исключение
-        TaskEntity task = taskRepository.findById(id)
+        TaskEntity task = taskStore.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Task not found with id: {}", id);
-                    return new RuntimeException("Task not found with id: " + id);
+                    return new NotFoundException("Task", id);
                 });
         
         // Обновляем поля задачи из DTO
+        TaskStatus oldStatus = task.getStatusTask();
         task.setNameTask(taskDto.getNameTask());
-        task.setStatusTask(TaskStatus.valueOf(taskDto.getStatusTask())); // Статус задачи преобразуется из строки в перечисление
+        task.setStatusTask(TaskMapper.parseStatus(taskDto.getStatusTask())); // Статус задачи преобразуется из строки в перечисление
+        if (taskDto.getDueAt() != null) { // Срок меняется, только если передан; пустая строка снимает срок
+            task.setDueAt(TaskMapper.parseDueAt(taskDto.getDueAt()));
+        }
         
         // Сохраняем обновленную задачу в базе данных
-        return taskRepository.save(task);
+        TaskEntity saved = taskStore.save(task);
+        publish(ChangeAction.UPDATE, id, oldStatus, saved.getStatusTask(), Principals.current());
+        if (deadlines != null) {
+            deadlines.onTaskSaved(saved);
+        }
+        return saved;
     }
 
     // Удаление задачи по ID
@@ -77,20 +203,81 @@ public class TaskService {
     public void deleteTask(Long id) {
         logger.info("Deleting task with id: {}", id);
         
-        // Проверяем наличие задачи в базе данных
-        if (!taskRepository.existsById(id)) {
-            logger.error("Task not found for deletion with id: {}", id);
-            throw new RuntimeException("Task not found with id: " + id);
-        }
+        // Загружаем задачу (нужен её статус для аудита); deleteById всё равно выполнял бы этот же поиск
+        TaskEntity task = taskStore.findById(id)
+                .orElseThrow(() -> {
+                    logger.error("Task not found for deletion with id: {}", id);
+                    return new NotFoundException("Task", id);
+                });
         
-        // Удаляем задачу из базы данных по ID
-        taskRepository.deleteById(id);
+        // Удаляем задачу вместе с описаниями вложений и зависимостями; файлы вложений после коммита удалит сборщик
+        taskStore.delete(task);
+        attachmentService.deleteForTask(id);
+        dependencyService.deleteForTask(id);
+        if (deadlines != null) {
+            deadlines.onTaskDeleted(id);
+        }
+        publish(ChangeAction.DELETE, id, task.getStatusTask(), null, Principals.current());
+    }
+
+    // Массовый перевод задач из статуса from в статус to по условию (диапазон id и начало названия необязательны)
+    public TransitionResult transitionTasks(String from, String to, Long minId, Long maxId, String namePrefix) {
+        TaskStatus fromStatus = TaskMapper.parseStatus(from);
+        TaskStatus toStatus = TaskMapper.parseStatus(to);
+        if (fromStatus == toStatus) {
+            throw new InvalidRequestException("Source and target status are the same: " + fromStatus);
+        }
+        String role = Principals.currentRole();
+        if (!transitions.isAllowed(RoleType.fromName(role), fromStatus, toStatus)) {
+            throw new ForbiddenTransitionException(role, fromStatus, toStatus);
+        }
+        String prefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+        long lowerBound = minId != null && minId > 0 ? minId - 1 : 0L; // id задач положительны
+        long upperBound = maxId != null ? maxId : Long.MAX_VALUE;
+        logger.info("Transitioning tasks {} -> {}, ids ({}, {}], name prefix: {}",
+                fromStatus, toStatus, lowerBound, upperBound, prefix);
+
+        String principal = Principals.current();
+        long started = System.nanoTime();
+        long total = 0;
+        int batches = 0;
+        long cursor = lowerBound;
+        while (true) {
+            long afterId = cursor;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> moved = taskStore.transitionStatus(fromStatus, toStatus, afterId, upperBound, prefix,
+                        transitionBatchSize, Instant.now());
+                // События уходят подписчикам (аудит, кэши, журнал изменений) после коммита пачки
+                for (Long id : moved) {
+                    publish(ChangeAction.UPDATE, id, fromStatus, toStatus, principal);
+                }
+                if (deadlines != null && !moved.isEmpty()) {
+                    deadlines.onTasksTransitioned(moved, fromStatus, toStatus);
+                }
+                return moved;
+            });
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            total += ids.size();
+            batches++;
+            if (ids.size() < transitionBatchSize) {
+                break; // подходящие задачи закончились
+            }
+            cursor = ids.get(ids.size() - 1);
+        }
+        logger.info("Transitioned {} tasks {} -> {} in {} batches, {} ms", total, fromStatus, toStatus, batches,
+                (System.nanoTime() - started) / 1_000_000);
+        return new TransitionResult(fromStatus, toStatus, total, batches);
     }
 
     // Получение всех задач из базы данных
     public List<TaskEntity> getAllTasks() {
         logger.info("Fetching all tasks");
-        return taskRepository.findAll(); // Возвращаем список всех задач
+        if (queryCache == null) {
+            return taskStore.findAll(); // Возвращаем список всех задач
+        }
+        return queryCache.get(null, taskStore::findAll);
     }
 
     // Получение задач по статусу
@@ -98,7 +285,34 @@ public class TaskService {
         logger.info("Fetching tasks by status: {}", status);
         
         // Ищем задачи в базе данных с определенным статусом
-        return taskRepository.findByStatusTask(TaskStatus.valueOf(status)); // Преобразуем строку в перечисление
+        TaskStatus statusTask = TaskMapper.parseStatus(status); // Преобразуем строку в перечисление
+        if (queryCache == null) {
+            return taskStore.findByStatusTask(statusTask);
+        }
+        return queryCache.get(statusTask, () -> taskStore.findByStatusTask(statusTask));
+    }
+
+    // Получение страницы задач по курсору (keyset pagination), при необходимости с фильтром по статусу
+    public TaskPage getTasksPage(Long afterId, int size, String status) {
+        logger.info("Fetching tasks page after id: {}, size: {}, status: {}", afterId, size, status);
+
+        // Версию читаем до запроса: если задачи изменятся во время чтения, клиент увидит устаревшую версию
+        long version = dataVersion.current();
+        Limit limit = Limit.of(Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        long cursor = afterId != null ? afterId : 0L;
+        TaskStatus statusFilter = status != null ? TaskMapper.parseStatus(status) : null;
+
+        List<TaskEntity> items = statusFilter == null
+                ? taskStore.findByIdGreaterThanOrderByIdAsc(cursor, limit)
+                : taskStore.findByStatusTaskAndIdGreaterThanOrderByIdAsc(statusFilter, cursor, limit);
+        Long nextCursor = items.size() == limit.max() ? items.get(items.size() - 1).getId() : null;
+
+        // Общее число задач считаем только для первой страницы
+        Long total = null;
+        if (afterId == null) {
+            total = statusFilter == null ? taskStore.count() : taskStore.countByStatusTask(statusFilter);
+        }
+        return new TaskPage(items, nextCursor, version, total);
     }
 
     // Получение задачи по ID
@@ -106,10 +320,16 @@ public class TaskService {
         logger.info("Fetching task by id: {}", id);
         
         // Ищем задачу в базе данных по ID, если не находим, выбрасываем исключение
-        return taskRepository.findById(id)
+        return taskStore.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Task not found with id: {}", id);
-                    return new RuntimeException("Task not found with id: " + id);
+                    return new NotFoundException("Task", id);
                 });
     }
+
+    // Публикация события об изменении задачи; слушатели срабатывают после коммита
+    private void publish(ChangeAction action, Long id, TaskStatus oldStatus, TaskStatus newStatus, String principal) {
+        eventPublisher.publishEvent(new TaskChangedEvent(action, id, oldStatus, newStatus, principal,
+                System.currentTimeMillis()));
+    }
 }
@@ -0,0 +1,77 @@
+package com.taskmanager2.novak.service2.service;
+
+import com.taskmanager2.novak.common2.enums.Operation;
+import com.taskmanager2.novak.common2.enums.RoleType;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Таблица разрешённых массовых переходов задач между статусами по ролям.
+ * Для каждой роли задаётся список пар ИЗ>В через запятую (например, "IN_PROGRESS>DONE,DONE>IN_PROGRESS"),
+ * "*" — любые переходы, пустое значение — никаких. Таблица только сужает право на изменение задач: переходы
+ * можно разрешить лишь ролям с TASK_UPDATE, непустой список для другой роли, как и любая ошибка в таблице,
+ * останавливает запуск приложения.
+ */
+@Component
+public class TaskTransitions {
+
+    private static final int STATUSES = TaskStatus.values().length;
+
+    // Для каждой роли — матрица [из][в]
+    private final Map<RoleType, boolean[][]> allowed = new EnumMap<>(RoleType.class);
+
+    public TaskTransitions(@Value("${taskmanager.transitions.admin:*}") String admin,
+                           @Value("${taskmanager.transitions.director:*}") String director,
+                           @Value("${taskmanager.transitions.economist:}") String economist,
+                           @Value("${taskmanager.transitions.accountant:}") String accountant,
+                           @Value("${taskmanager.transitions.visitor:}") String visitor) {
+        allowed.put(RoleType.ADMIN, parse(RoleType.ADMIN, admin));
+        allowed.put(RoleType.DIRECTOR, parse(RoleType.DIRECTOR, director));
+        allowed.put(RoleType.ECONOMIST, parse(RoleType.ECONOMIST, economist));
+        allowed.put(RoleType.ACCOUNTANT, parse(RoleType.ACCOUNTANT, accountant));
+        allowed.put(RoleType.VISITOR, parse(RoleType.VISITOR, visitor));
+    }
+
+    /**
+     * @param role роль пользователя (null — неизвестная роль, ей ничего не разрешено)
+     * @return true, если роли разрешён переход from -> to
+     */
+    public boolean isAllowed(RoleType role, TaskStatus from, TaskStatus to) {
+        boolean[][] matrix = role == null ? null : allowed.get(role);
+        return matrix != null && matrix[from.ordinal()][to.ordinal()];
+    }
+
+    private static boolean[][] parse(RoleType role, String spec) {
+        boolean[][] matrix = new boolean[STATUSES][STATUSES];
+        String trimmed = spec == null ? "" : spec.trim();
+        if (!trimmed.isEmpty() && !Operation.TASK_UPDATE.allows(role)) {
+            throw new IllegalArgumentException("Role " + role + " cannot update tasks, its transitions must be empty");
+        }
+        if (trimmed.equals("*")) {
+            for (int from = 0; from < STATUSES; from++) {
+                for (int to = 0; to < STATUSES; to++) {
+                    matrix[from][to] = from != to;
+                }
+            }
+            return matrix;
+        }
+        for (String pair : trimmed.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(">", -1);
+            TaskStatus from = parts.length == 2 ? TaskStatus.fromName(parts[0].trim()) : null;
+            TaskStatus to = parts.length == 2 ? TaskStatus.fromName(parts[1].trim()) : null;
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("Invalid transition '" + pair.trim() + "' for role " + role
+                        + ", expected FROM>TO with task statuses");
+            }
+            matrix[from.ordinal()][to.ordinal()] = from != to;
+        }
+        return matrix;
+    }
+}
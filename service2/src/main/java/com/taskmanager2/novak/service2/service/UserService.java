@@ -3,7 +3,10 @@ package com.taskmanager2.novak.service2.service;
 /*Ключевые особенности сервиса:
 Логирование - все важные операции логируются
 Валидация:
-Проверка уникальности имени пользователя
+Проверка уникальности имени пользователя: фильтр имён в памяти (UsernameFilter) отсекает заведомо свободные имена
+ без запроса к БД, а саму уникальность гарантирует вставка — нарушение уникального индекса превращается
+ в DuplicateUsernameException, поэтому одновременная регистрация одного имени не даёт непонятной ошибки.
+ Фильтр меняется только после коммита транзакции, откаченные вставки и удаления его не трогают
 Валидация ролей (запрет на регистрацию ADMIN через публичный endpoint)
 Валидация входных данных через @Valid
 Безопасность:
@@ -11,19 +14,35 @@ package com.taskmanager2.novak.service2.service;
 Отдельный защищенный метод для регистрации администраторов
 Транзакционность - ключевые методы помечены @Transactional
 Разделение прав - обычные пользователи и администраторы регистрируются разными методами
+Список пользователей для админки отдаётся постранично из каталога в памяти (UserDirectory) — без хешей паролей
+ и без чтения всей таблицы users на каждый запрос; как и фильтр имён, каталог меняется после коммита
 Сервис обеспечивает полный цикл работы с пользователями: создание, получение, удаление,
 с соблюдением всех необходимых проверок безопасности.
  * */
 
 import com.taskmanager2.novak.common2.dto.UserDto;
 import com.taskmanager2.novak.common2.enums.RoleType;
+import com.taskmanager2.novak.common2.exception.DuplicateUsernameException;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
 import com.taskmanager2.novak.persistence2.entity.UserEntity;
 import com.taskmanager2.novak.persistence2.repository.UserRepository;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.Principals;
+import com.taskmanager2.novak.service2.dto.UserPage;
+import com.taskmanager2.novak.service2.dto.UserSummary;
+import com.taskmanager2.novak.service2.event.UserChangedEvent;
+import com.taskmanager2.novak.service2.user.UserDirectory;
+import com.taskmanager2.novak.service2.user.UsernameFilter;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.Valid;
@@ -40,90 +59,134 @@ public class UserService {
     private final UserRepository userRepository;
     // Кодировщик паролей
     private final PasswordEncoder passwordEncoder;
+    // Публикация событий об изменениях пользователей (журнал аудита)
+    private final ApplicationEventPublisher eventPublisher;
+    // Фильтр занятых имён в памяти
+    private final UsernameFilter usernameFilter;
+    // Каталог пользователей для админки
+    private final UserDirectory userDirectory;
 
     // Конструктор с внедрением зависимостей
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, UsernameFilter usernameFilter,
+                       UserDirectory userDirectory) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.usernameFilter = usernameFilter;
+        this.userDirectory = userDirectory;
     }
 
     /**
-     * Получение списка всех пользователей
+     * Получение списка всех пользователей (id, имя, роль) в алфавитном порядке
      * @return список пользователей
      */
-    public List<UserEntity> getAllUsers() {
+    public List<UserSummary> getAllUsers() {
         logger.info("Fetching all users");
-        return userRepository.findAll();
+        return userDirectory.all();
+    }
+
+    /**
+     * Страница пользователей для админки
+     * @param prefix начало имени (без учёта регистра) или null
+     * @param role   имя роли или null — все роли
+     * @param after  курсор nextCursor предыдущей страницы или null для первой страницы
+     * @param size   размер страницы
+     * @return страница пользователей; total заполняется только для первой страницы
+     * @throws InvalidRequestException если роль неизвестна или размер страницы не положителен
+     */
+    public UserPage getUsersPage(String prefix, String role, String after, int size) {
+        if (size <= 0) {
+            throw new InvalidRequestException("Page size must be positive");
+        }
+        RoleType roleType = null;
+        if (role != null && !role.isEmpty()) {
+            roleType = RoleType.fromName(role);
+            if (roleType == null) {
+                throw new InvalidRequestException("Unknown role: " + role);
+            }
+        }
+        return userDirectory.page(prefix, roleType, after, size);
     }
 
     /**
      * Удаление пользователя по ID
      * @param id идентификатор пользователя
-     * @throws RuntimeException если пользователь не найден
+     * @throws NotFoundException если пользователь не найден
      */
     @Transactional // Аннотация для управления транзакциями
     public void deleteUser(Long id) {
         logger.info("Deleting user with id: {}", id);
         
-        // Проверка существования пользователя
-        if (!userRepository.existsById(id)) {
-            logger.error("User not found for deletion with id: {}", id);
-            throw new RuntimeException("User not found with id: " + id);
-        }
+        // Поиск пользователя (роль нужна для аудита)
+        UserEntity user = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    logger.error("User not found for deletion with id: {}", id);
+                    return new NotFoundException("User", id);
+                });
         
-        userRepository.deleteById(id);
+        userRepository.delete(user);
+        // Фильтр и каталог меняются только после коммита: откаченное удаление (например, проигравшее
+        // одновременному удалению того же пользователя) не должно давать ложных «имя свободно»
+        String username = user.getUsername();
+        afterCommit(() -> {
+            usernameFilter.removed(username);
+            userDirectory.removed(username);
+        });
+        publish(ChangeAction.DELETE, user, roleOf(user), null);
     }
 
     /**
      * Регистрация нового пользователя
      * @param userDto DTO с данными пользователя
      * @return сохраненный пользователь
-     * @throws RuntimeException если имя пользователя уже существует или роль недопустима
+     * @throws DuplicateUsernameException если имя пользователя уже существует
+     * @throws InvalidRequestException если роль недопустима
      */
     @Transactional
     public UserEntity registerUser(@Valid UserDto userDto) {
         logger.info("Registering new user: {}", userDto.getUsername());
         
-        // Проверка уникальности имени пользователя
-        if (userRepository.findByUsername(userDto.getUsername()).isPresent()) {
-            logger.error("Username already exists: {}", userDto.getUsername());
-            throw new RuntimeException("Username already exists");
-        }
-
         // Валидация роли пользователя
         validateUserRole(userDto.getRole());
 
+        // Быстрый отказ для занятого имени — до дорогого хеширования пароля
+        rejectIfTaken(userDto.getUsername());
+
         // Создание и сохранение нового пользователя
         UserEntity user = new UserEntity();
         user.setUsername(userDto.getUsername());
         user.setPassword(passwordEncoder.encode(userDto.getPassword())); // Хеширование пароля
         user.setRole("ROLE_" + userDto.getRole().name()); // Добавление префикса ROLE_ для Spring Security
         
-        return userRepository.save(user);
+        UserEntity saved = insert(user);
+        publish(ChangeAction.CREATE, saved, null, userDto.getRole());
+        return saved;
     }
 
     /**
-     * Проверка существования пользователя по имени
+     * Проверка существования пользователя по имени.
+     * Сначала спрашивается фильтр имён: для свободного имени запрос к БД не выполняется
      * @param username имя пользователя
      * @return true если пользователь существует
      */
     public boolean usernameExists(String username) {
-        return userRepository.existsByUsername(username);
+        return usernameFilter.mightExist(username) && userRepository.existsByUsername(username);
     }
 
     /**
      * Валидация роли пользователя
      * @param role роль для проверки
-     * @throws RuntimeException если роль null или попытка регистрации ADMIN
+     * @throws InvalidRequestException если роль null или попытка регистрации ADMIN
      */
     private void validateUserRole(RoleType role) {
         if (role == null) {
-            throw new RuntimeException("Role cannot be null");
+            throw new InvalidRequestException("Role cannot be null");
         }
         
         // Запрет на регистрацию администраторов через обычный endpoint
         if (role == RoleType.ADMIN) {
-            throw new RuntimeException("Admin registration is not allowed through this endpoint");
+            throw new InvalidRequestException("Admin registration is not allowed through this endpoint");
         }
     }
 
@@ -132,14 +195,12 @@ public class UserService {
      * @param username имя администратора
      * @param password пароль администратора
      * @return сохраненный администратор
-     * @throws RuntimeException если имя администратора уже существует
+     * @throws DuplicateUsernameException если имя администратора уже существует
      */
     @Transactional
     protected UserEntity registerAdminUser(String username, String password) {
         // Проверка уникальности имени администратора
-        if (userRepository.findByUsername(username).isPresent()) {
-            throw new RuntimeException("Admin username already exists");
-        }
+        rejectIfTaken(username);
 
         // Создание и сохранение администратора
         UserEntity admin = new UserEntity();
@@ -147,6 +208,65 @@ public class UserService {
         admin.setPassword(passwordEncoder.encode(password)); // Хеширование пароля
         admin.setRole("ROLE_ADMIN"); // Установка роли администратора
         
-        return userRepository.save(admin);
+        UserEntity saved = insert(admin);
+        publish(ChangeAction.CREATE, saved, null, RoleType.ADMIN);
+        return saved;
+    }
+
+    // Отказ, если имя уже занято; для заведомо свободного имени (по фильтру) БД не запрашивается
+    private void rejectIfTaken(String username) {
+        if (usernameExists(username)) {
+            logger.error("Username already exists: {}", username);
+            throw new DuplicateUsernameException(username);
+        }
+    }
+
+    /**
+     * Вставка пользователя одним INSERT (ключ IDENTITY, запрос выполняется сразу).
+     * Проверка rejectIfTaken не защищает от гонки двух одновременных регистраций одного имени —
+     * её разрешает уникальный индекс по username: проигравший получает DuplicateUsernameException.
+     * Остальные столбцы всегда заполнены, поэтому нарушение целостности здесь может быть только по имени.
+     */
+    private UserEntity insert(UserEntity user) {
+        UserEntity saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Username already exists: {}", user.getUsername());
+            throw new DuplicateUsernameException(user.getUsername());
+        }
+        // Откаченная вставка не должна оставлять в каталоге пользователя, которого нет в БД
+        String username = saved.getUsername();
+        UserSummary summary = new UserSummary(saved.getId(), username, UserDirectory.roleOf(saved.getRole()));
+        afterCommit(() -> {
+            usernameFilter.added(username);
+            userDirectory.added(summary);
+        });
+        return saved;
+    }
+
+    // Выполнение после коммита текущей транзакции (при откате — не выполняется) или сразу, если транзакции нет
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Роль пользователя из строкового поля с префиксом ROLE_
+    private static RoleType roleOf(UserEntity user) {
+        return RoleType.valueOf(user.getRole().replace("ROLE_", ""));
+    }
+
+    // Публикация события об изменении пользователя; слушатели срабатывают после коммита
+    private void publish(ChangeAction action, UserEntity user, RoleType oldRole, RoleType newRole) {
+        eventPublisher.publishEvent(new UserChangedEvent(action, user.getId(), user.getUsername(), oldRole, newRole,
+                Principals.current(), System.currentTimeMillis()));
     }
 }
\ No newline at end of file
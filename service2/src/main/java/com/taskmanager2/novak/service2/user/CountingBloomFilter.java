@@ -0,0 +1,128 @@
+package com.taskmanager2.novak.service2.user;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Считающий фильтр Блума над строками.
+ * Вместо битов — 4-битные счётчики (по 16 в одном long), поэтому элементы можно не только добавлять, но и удалять.
+ * Ответ «нет» точен; ответ «возможно есть» ошибается с вероятностью, заданной при создании.
+ * Счётчик, дошедший до 15, больше не меняется: после удаления он мог бы дать ложный ответ «нет».
+ * Счётчики меняются через CAS, блокировок нет; чтение — volatile-чтение слов массива.
+ */
+final class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xF;
+    private static final long COUNTER_MAX = 0xF;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    /**
+     * @param expectedItems     ожидаемое число элементов
+     * @param falsePositiveRate допустимая доля ложных ответов «возможно есть» при таком числе элементов
+     */
+    CountingBloomFilter(long expectedItems, double falsePositiveRate) {
+        long items = Math.max(expectedItems, 1);
+        // Оптимальные размеры: m = -n·ln(p) / ln²2, k = m/n·ln2
+        long optimal = (long) Math.ceil(-items * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max((optimal + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD, 1);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter is too large for " + expectedItems + " items");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.counters = wordCount * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / items * Math.log(2)));
+    }
+
+    void add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            increment(index(h1, h2, i));
+        }
+    }
+
+    void remove(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(h1, h2, i));
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            if (counter(index(h1, h2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long counters() {
+        return counters;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    // i-я позиция по двум хешам (схема Кирша–Митценмахера)
+    private long index(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, counters);
+    }
+
+    private long counter(long index) {
+        return (words.get((int) (index / COUNTERS_PER_WORD)) >>> shift(index)) & COUNTER_MASK;
+    }
+
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        long current;
+        do {
+            current = words.get(word);
+            if (((current >>> shift) & COUNTER_MASK) == COUNTER_MAX) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current + (1L << shift)));
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        long current;
+        do {
+            current = words.get(word);
+            long value = (current >>> shift) & COUNTER_MASK;
+            if (value == 0 || value == COUNTER_MAX) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current - (1L << shift)));
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * 4;
+    }
+
+    // 64-битный FNV-1a по символам строки
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Финальное перемешивание из SplitMix64; нечётность второго хеша не нужна — индекс берётся по модулю
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
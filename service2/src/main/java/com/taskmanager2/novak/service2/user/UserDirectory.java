@@ -0,0 +1,316 @@
+package com.taskmanager2.novak.service2.user;
+
+/*Каталог пользователей в памяти для страниц администратора:
+Хранит только id, имя и роль (без хеша пароля) в отсортированных по имени списках с пропусками
+ (ConcurrentSkipListMap): общий и по одному на каждую роль. Загружается при запуске одной проекцией из БД
+ и обновляется при регистрации и удалении пользователей.
+Порядок — по имени без учёта регистра, поэтому поиск по префиксу — это переход к первому ключу не меньше префикса
+ и чтение подряд, пока имена начинаются с префикса; постраничный курсор — имя последнего пользователя страницы.
+Страница и поиск не обращаются к БД и не зависят от числа пользователей (кроме подсчёта total для первой страницы
+ с префиксом, который проходит по совпадениям).
+Изменения, сделанные через этот узел, попадают в каталог сразу после коммита, а сделанные на других узлах — после
+ опроса: раз в taskmanager.users.directory.poll-interval-ms версия таблицы users (число пользователей, наибольший id
+ и сумма id — одним агрегатным запросом) сравнивается с той же версией каталога. При расхождении проекция
+ перечитывается и в каталог вносится разница; изменения этого узла, пришедшие за время чтения, применяются поверх
+ прочитанного.
+ * */
+
+import com.taskmanager2.novak.common2.enums.RoleType;
+import com.taskmanager2.novak.persistence2.repository.UserRepository;
+import com.taskmanager2.novak.persistence2.repository.UserSummaryView;
+import com.taskmanager2.novak.persistence2.repository.UserTableVersion;
+import com.taskmanager2.novak.service2.dto.UserPage;
+import com.taskmanager2.novak.service2.dto.UserSummary;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    // Максимальный размер страницы каталога
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Ключ сортировки: имя без учёта регистра, при совпадении — точное имя
+    private record Key(String folded, String username) implements Comparable<Key> {
+
+        static Key of(String username) {
+            return new Key(fold(username), username);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = folded.compareTo(other.folded);
+            return result != 0 ? result : username.compareTo(other.username);
+        }
+    }
+
+    // Изменение, сделанное через этот узел: добавленный пользователь или имя удалённого
+    private record LocalChange(UserSummary added, String removed) {
+    }
+
+    private final UserRepository userRepository;
+
+    private final ConcurrentSkipListMap<Key, UserSummary> all = new ConcurrentSkipListMap<>();
+    private final Map<RoleType, ConcurrentSkipListMap<Key, UserSummary>> byRole = new EnumMap<>(RoleType.class);
+
+    // size() у ConcurrentSkipListMap проходит весь список, поэтому числа пользователей ведём отдельно
+    private final AtomicLong total = new AtomicLong();
+    private final Map<RoleType, AtomicLong> totalByRole = new EnumMap<>(RoleType.class);
+
+    // Изменения каталога идут под этой блокировкой; страницы читаются без неё
+    private final Object lock = new Object();
+
+    // Версия каталога в величинах UserTableVersion (число пользователей — total)
+    private long maxId;
+    private long idSum;
+
+    // Изменения этого узла за время перечитывания проекции; null — перечитывания нет
+    private List<LocalChange> changesDuringRead;
+
+    public UserDirectory(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        for (RoleType role : RoleType.values()) {
+            byRole.put(role, new ConcurrentSkipListMap<>());
+            totalByRole.put(role, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        long started = System.nanoTime();
+        reload();
+        logger.info("User directory loaded: {} users in {} ms", total.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Сверка версии каталога с таблицей users; при расхождении (пользователей добавили или удалили на другом узле)
+     * каталог перечитывается
+     */
+    @Scheduled(initialDelayString = "${taskmanager.users.directory.poll-interval-ms:5000}",
+            fixedDelayString = "${taskmanager.users.directory.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            UserTableVersion version = userRepository.findTableVersion();
+            synchronized (lock) {
+                if (version.getCount() == total.get() && version.getMaxId() == maxId && version.getIdSum() == idSum) {
+                    return;
+                }
+            }
+            reload();
+        } catch (RuntimeException e) {
+            logger.warn("User directory refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Чтение проекции и внесение разницы в каталог; изменения этого узла за время чтения применяются поверх
+    private void reload() {
+        synchronized (lock) {
+            changesDuringRead = new ArrayList<>();
+        }
+        try {
+            List<UserSummaryView> users = userRepository.findAllProjectedBy();
+            synchronized (lock) {
+                Map<Key, UserSummary> read = new HashMap<>(users.size() * 2);
+                for (UserSummaryView user : users) {
+                    read.put(Key.of(user.getUsername()),
+                            new UserSummary(user.getId(), user.getUsername(), roleOf(user.getRole())));
+                }
+                int changed = 0;
+                for (Key key : all.keySet()) {
+                    if (!read.containsKey(key)) {
+                        remove(key.username());
+                        changed++;
+                    }
+                }
+                for (Map.Entry<Key, UserSummary> user : read.entrySet()) {
+                    if (!user.getValue().equals(all.get(user.getKey()))) {
+                        put(user.getValue());
+                        changed++;
+                    }
+                }
+                for (LocalChange change : changesDuringRead) {
+                    if (change.added() != null) {
+                        put(change.added());
+                    } else {
+                        remove(change.removed());
+                    }
+                }
+                changesDuringRead = null;
+                if (changed > 0) {
+                    logger.debug("User directory refreshed: {} users added or removed", changed);
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                changesDuringRead = null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Страница каталога
+     * @param prefix начало имени (без учёта регистра) или null
+     * @param role   роль или null — все роли
+     * @param after  курсор: имя последнего пользователя предыдущей страницы или null для первой страницы
+     * @param size   размер страницы
+     */
+    public UserPage page(String prefix, RoleType role, String after, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String foldedPrefix = prefix == null || prefix.isEmpty() ? null : fold(prefix);
+        NavigableMap<Key, UserSummary> source = role == null ? all : byRole.get(role);
+
+        List<UserSummary> items = new ArrayList<>(limit);
+        Iterator<Map.Entry<Key, UserSummary>> entries = from(source, foldedPrefix, after).entrySet().iterator();
+        boolean more = false;
+        while (entries.hasNext()) {
+            Map.Entry<Key, UserSummary> entry = entries.next();
+            if (foldedPrefix != null && !entry.getKey().folded().startsWith(foldedPrefix)) {
+                break;
+            }
+            if (items.size() == limit) {
+                more = true;
+                break;
+            }
+            items.add(entry.getValue());
+        }
+        String nextCursor = more ? items.get(items.size() - 1).username() : null;
+
+        Long count = null;
+        if (after == null) {
+            count = foldedPrefix == null ? (role == null ? total : totalByRole.get(role)).get()
+                    : countPrefix(source, foldedPrefix);
+        }
+        return new UserPage(items, nextCursor, count);
+    }
+
+    /**
+     * Все пользователи каталога в алфавитном порядке
+     */
+    public List<UserSummary> all() {
+        return new ArrayList<>(all.values());
+    }
+
+    /**
+     * Учёт нового пользователя
+     */
+    public void added(UserSummary user) {
+        synchronized (lock) {
+            put(user);
+            if (changesDuringRead != null) {
+                changesDuringRead.add(new LocalChange(user, null));
+            }
+        }
+    }
+
+    /**
+     * Учёт удалённого пользователя
+     */
+    public void removed(String username) {
+        synchronized (lock) {
+            remove(username);
+            if (changesDuringRead != null) {
+                changesDuringRead.add(new LocalChange(null, username));
+            }
+        }
+    }
+
+    // Добавление или замена пользователя; вызывается под блокировкой
+    private void put(UserSummary user) {
+        Key key = Key.of(user.username());
+        UserSummary previous = all.put(key, user);
+        if (previous == null) {
+            total.incrementAndGet();
+        } else {
+            idSum -= previous.id();
+            if (previous.role() != null && byRole.get(previous.role()).remove(key) != null) {
+                totalByRole.get(previous.role()).decrementAndGet();
+            }
+        }
+        if (user.role() != null && byRole.get(user.role()).put(key, user) == null) {
+            totalByRole.get(user.role()).incrementAndGet();
+        }
+        idSum += user.id();
+        if (previous != null && previous.id() == maxId) {
+            maxId = maxIdOf(all);
+        } else {
+            maxId = Math.max(maxId, user.id());
+        }
+    }
+
+    // Удаление пользователя; вызывается под блокировкой
+    private void remove(String username) {
+        UserSummary removed = all.remove(Key.of(username));
+        if (removed == null) {
+            return;
+        }
+        total.decrementAndGet();
+        if (removed.role() != null && byRole.get(removed.role()).remove(Key.of(username)) != null) {
+            totalByRole.get(removed.role()).decrementAndGet();
+        }
+        idSum -= removed.id();
+        // Наибольший id пересчитывается, только если удалён самый новый пользователь
+        if (removed.id() == maxId) {
+            maxId = maxIdOf(all);
+        }
+    }
+
+    private static long maxIdOf(NavigableMap<Key, UserSummary> users) {
+        long max = 0;
+        for (UserSummary user : users.values()) {
+            max = Math.max(max, user.id());
+        }
+        return max;
+    }
+
+    // Хвост списка, с которого начинается страница: после курсора и не раньше начала префикса
+    private static NavigableMap<Key, UserSummary> from(NavigableMap<Key, UserSummary> source,
+                                                       String foldedPrefix, String after) {
+        Key start = foldedPrefix != null ? new Key(foldedPrefix, "") : null;
+        if (after != null) {
+            Key cursor = Key.of(after);
+            if (start == null || cursor.compareTo(start) >= 0) {
+                return source.tailMap(cursor, false);
+            }
+        }
+        return start != null ? source.tailMap(start, true) : source;
+    }
+
+    private static long countPrefix(NavigableMap<Key, UserSummary> source, String foldedPrefix) {
+        long count = 0;
+        for (Key key : source.tailMap(new Key(foldedPrefix, ""), true).keySet()) {
+            if (!key.folded().startsWith(foldedPrefix)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    static String fold(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Роль из строкового поля users.role (с префиксом ROLE_); null для неизвестной роли
+     */
+    public static RoleType roleOf(String storedRole) {
+        return storedRole == null ? null : RoleType.fromName(storedRole.startsWith("ROLE_") ? storedRole.substring(5) : storedRole);
+    }
+}
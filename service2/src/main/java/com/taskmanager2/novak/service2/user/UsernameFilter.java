@@ -0,0 +1,93 @@
+package com.taskmanager2.novak.service2.user;
+
+/*Фильтр имён пользователей в памяти:
+Считающий фильтр Блума по всем именам пользователей. Загружается при запуске и обновляется
+ при регистрации и удалении пользователей.
+Ответ «имени точно нет» позволяет не ходить в БД: при регистрации нового имени не нужен предварительный запрос
+ и, главное, не тратится время на хеширование пароля ради заведомо занятого имени.
+Фильтр — только ускорение: единственность имени гарантирует уникальный индекс БД, и ошибка фильтра
+ (например, после отката транзакции удаления) стоит лишь лишнего запроса или неудачной вставки.
+Имена сравниваются без учёта регистра и хвостовых пробелов — так же, как их сравнивают
+ стандартные правила сортировки MySQL; иначе фильтр мог бы сказать «нет» там, где индекс скажет «занято».
+ * */
+
+import com.taskmanager2.novak.persistence2.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UsernameFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    private volatile CountingBloomFilter filter;
+    private final AtomicLong size = new AtomicLong();
+    private volatile long capacity;
+
+    public UsernameFilter(UserRepository userRepository,
+                          @Value("${taskmanager.users.filter.expected-users:100000}") long expectedUsers,
+                          @Value("${taskmanager.users.filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    void load() {
+        long started = System.nanoTime();
+        List<String> usernames = userRepository.findAllUsernames();
+        // Запас вдвое от текущего числа пользователей, чтобы доля ложных срабатываний не росла сразу после запуска
+        long newCapacity = Math.max(expectedUsers, 2L * usernames.size());
+        CountingBloomFilter loaded = new CountingBloomFilter(newCapacity, falsePositiveRate);
+        for (String username : usernames) {
+            loaded.add(normalize(username));
+        }
+        filter = loaded;
+        capacity = newCapacity;
+        size.set(usernames.size());
+        logger.info("Username filter loaded: {} users, {} counters, {} hashes in {} ms",
+                usernames.size(), loaded.counters(), loaded.hashes(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Может ли имя уже быть занято
+     * @return false — имени точно нет; true — имя, возможно, есть (нужна проверка в БД)
+     */
+    public boolean mightExist(String username) {
+        return filter.mightContain(normalize(username));
+    }
+
+    /**
+     * Учёт нового имени после успешной вставки
+     */
+    public void added(String username) {
+        filter.add(normalize(username));
+        if (size.incrementAndGet() == capacity + 1) {
+            logger.warn("Username filter holds more users than its capacity {}; false positives will grow "
+                    + "until restart (see taskmanager.users.filter.expected-users)", capacity);
+        }
+    }
+
+    /**
+     * Учёт удалённого имени
+     */
+    public void removed(String username) {
+        filter.remove(normalize(username));
+        size.decrementAndGet();
+    }
+
+    private static String normalize(String username) {
+        return username.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,89 @@
+package com.taskmanager2.novak.service2.deadline;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.DeadlineNoticeEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.DeadlineNoticeRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.lock.JobLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Просрочка через планировщик: задача со сроком в прошлом, сохранённая без транзакции, получает таймер
+ * с прошедшим моментом срабатывания, который срабатывает на ближайшем тике, — уведомление OVERDUE захватывается
+ * строкой deadline_notices и доставляется в LocalDeadlineSink. Хранилище, репозиторий и менеджер транзакций —
+ * заглушки Mockito.
+ */
+class DeadlineSchedulerTest {
+
+    private final TaskStore taskStore = mock(TaskStore.class);
+    private final DeadlineNoticeRepository noticeRepository = mock(DeadlineNoticeRepository.class);
+    private final LocalDeadlineSink sink = new LocalDeadlineSink();
+
+    private final DeadlineScheduler scheduler = new DeadlineScheduler(taskStore, noticeRepository, sink,
+            mock(JobLock.class), mock(PlatformTransactionManager.class), Duration.ofMillis(10), Duration.ofHours(1),
+            Duration.ofDays(30), Duration.ofMinutes(1), 3_600_000, 16);
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.stop();
+    }
+
+    @Test
+    void overdueTaskIsDeliveredToLocalSink() throws InterruptedException {
+        Instant dueAt = Instant.now().minus(Duration.ofMinutes(5)).truncatedTo(ChronoUnit.MILLIS);
+        TaskEntity task = task(7L, "report", TaskStatus.IN_PROGRESS, dueAt);
+        when(taskStore.findById(7L)).thenReturn(Optional.of(task));
+
+        scheduler.onTaskSaved(task);
+        assertEquals(1, scheduler.pending());
+        scheduler.start();
+
+        ArgumentCaptor<DeadlineNoticeEntity> notice = ArgumentCaptor.forClass(DeadlineNoticeEntity.class);
+        verify(noticeRepository, timeout(5000)).saveAndFlush(notice.capture());
+        assertEquals("7/OVERDUE/" + dueAt.toEpochMilli(), notice.getValue().getId());
+        List<DeadlineNotification> delivered = awaitDelivered(1);
+        DeadlineNotification notification = delivered.get(0);
+        assertEquals(DeadlineKind.OVERDUE, notification.kind());
+        assertEquals(7L, notification.taskId());
+        assertEquals("report", notification.taskName());
+        assertEquals(dueAt, notification.dueAt());
+        assertFalse(notification.firedAt().isBefore(dueAt));
+        assertEquals(0, scheduler.pending());
+    }
+
+    private List<DeadlineNotification> awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (sink.recent().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        List<DeadlineNotification> delivered = sink.recent();
+        assertEquals(count, delivered.size(), () -> "delivered " + delivered);
+        return delivered;
+    }
+
+    private static TaskEntity task(long id, String name, TaskStatus status, Instant dueAt) {
+        TaskEntity task = new TaskEntity();
+        task.setId(id);
+        task.setNameTask(name);
+        task.setStatusTask(status);
+        task.setDueAt(dueAt);
+        return task;
+    }
+}
@@ -0,0 +1,162 @@
+package com.taskmanager2.novak.service2.deadline;
+
+import com.taskmanager2.novak.service2.deadline.DeadlineWheel.Timer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Колесо таймеров: таймер срабатывает ровно на первом тике не раньше своего момента — и в пределах первого уровня
+ * (64 тика), и после переноса с верхних уровней; снятый таймер не срабатывает, повторная постановка заменяет
+ * прежний, прошедший момент срабатывает на ближайшем тике. Колесо прокручивается по одному тику, начиная с тика,
+ * не кратного 64, чтобы переносы шли с середины периодов верхних уровней.
+ */
+class DeadlineWheelTest {
+
+    private static final long TICK = 1000;
+
+    // Тик создания колеса; момент создания — внутри тика
+    private static final long START = 1_000_037;
+
+    private final DeadlineWheel wheel = new DeadlineWheel(TICK, START * TICK + 250, 16);
+
+    @Test
+    void timerWithinFirstLevelFiresOnItsTick() {
+        wheel.schedule(1, DeadlineKind.REMINDER, at(START + 50), at(START + 40) - 1);
+
+        Map<Long, Long> fired = runTo(START + 100);
+
+        assertEquals(Map.of(1L, START + 40), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersOnUpperLevelsCascadeAndFireOnTheirTicks() {
+        // Второй уровень (64..4095 тиков), третий (до 64^3) и четвёртый; моменты внутри тика и на его границе
+        wheel.schedule(1, DeadlineKind.OVERDUE, at(START + 100) + 1, at(START + 100) + 1);
+        wheel.schedule(2, DeadlineKind.OVERDUE, at(START + 64), at(START + 64));
+        wheel.schedule(3, DeadlineKind.OVERDUE, at(START + 4100), at(START + 4100));
+        wheel.schedule(4, DeadlineKind.OVERDUE, at(START + 300_000) - 999, at(START + 300_000) - 999);
+        assertEquals(4, wheel.size());
+
+        Map<Long, Long> fired = runTo(START + 300_100);
+
+        assertEquals(Map.of(1L, START + 101, 2L, START + 64, 3L, START + 4100, 4L, START + 300_000), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimerDoesNotFire() {
+        wheel.schedule(1, DeadlineKind.OVERDUE, at(START + 10), at(START + 10));
+        wheel.schedule(2, DeadlineKind.OVERDUE, at(START + 5000), at(START + 5000));
+        wheel.schedule(3, DeadlineKind.OVERDUE, at(START + 5000), at(START + 5000));
+
+        assertTrue(wheel.cancel(1));
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(2));
+        assertFalse(wheel.cancel(42));
+        assertEquals(1, wheel.size());
+
+        assertEquals(Map.of(3L, START + 5000), runTo(START + 6000));
+    }
+
+    @Test
+    void rescheduleReplacesTimer() {
+        wheel.schedule(1, DeadlineKind.REMINDER, at(START + 200), at(START + 100));
+        // Перенос вперёд: со второго уровня на третий
+        wheel.schedule(1, DeadlineKind.OVERDUE, at(START + 5000), at(START + 5000));
+        // И назад: с третьего уровня на первый
+        wheel.schedule(2, DeadlineKind.OVERDUE, at(START + 9000), at(START + 9000));
+        wheel.schedule(2, DeadlineKind.OVERDUE, at(START + 3), at(START + 3));
+        assertEquals(2, wheel.size());
+
+        List<Timer> fired = new ArrayList<>();
+        Map<Long, Long> ticks = runTo(START + 10_000, fired);
+
+        assertEquals(Map.of(1L, START + 5000, 2L, START + 3), ticks);
+        assertEquals(List.of(new Timer(2, DeadlineKind.OVERDUE, at(START + 3), at(START + 3)),
+                new Timer(1, DeadlineKind.OVERDUE, at(START + 5000), at(START + 5000))), fired);
+    }
+
+    @Test
+    void scheduleIfAbsentKeepsExistingTimer() {
+        wheel.schedule(1, DeadlineKind.REMINDER, at(START + 200), at(START + 100));
+
+        assertFalse(wheel.scheduleIfAbsent(1, DeadlineKind.OVERDUE, at(START + 200), at(START + 200)));
+        assertTrue(wheel.scheduleIfAbsent(2, DeadlineKind.OVERDUE, at(START + 200), at(START + 200)));
+
+        assertEquals(Map.of(1L, START + 100, 2L, START + 200), runTo(START + 300));
+    }
+
+    @Test
+    void pastFireAtFiresOnNearestTick() {
+        runTo(START + 10);
+        // Момент срабатывания давно прошёл (просрочка) — таймер срабатывает на текущем тике, а не через оборот колеса
+        wheel.schedule(1, DeadlineKind.OVERDUE, at(START - 86_400), at(START - 86_400));
+        wheel.schedule(2, DeadlineKind.OVERDUE, at(START + 10), at(START + 10));
+
+        List<Timer> fired = new ArrayList<>();
+        wheel.advance(at(START + 11), fired);
+
+        assertEquals(List.of(1L, 2L), fired.stream().map(Timer::taskId).sorted().toList());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void randomTimersFireOnTheirTicks() {
+        Random random = new Random(20261019);
+        Map<Long, Long> expected = new HashMap<>();
+        for (long taskId = 1; taskId <= 5000; taskId++) {
+            long fireAt = at(START) + (long) (random.nextDouble() * random.nextDouble() * 300_000 * TICK);
+            wheel.schedule(taskId, DeadlineKind.OVERDUE, fireAt, fireAt);
+            expected.put(taskId, Math.max(Math.floorDiv(fireAt + TICK - 1, TICK), START));
+        }
+        // Часть таймеров снимается, часть переставляется
+        for (long taskId = 1; taskId <= 5000; taskId += 7) {
+            wheel.cancel(taskId);
+            expected.remove(taskId);
+        }
+        for (long taskId = 2; taskId <= 5000; taskId += 11) {
+            long fireAt = at(START) + random.nextInt(70_000) * TICK + random.nextInt((int) TICK);
+            wheel.schedule(taskId, DeadlineKind.OVERDUE, fireAt, fireAt);
+            expected.put(taskId, Math.max(Math.floorDiv(fireAt + TICK - 1, TICK), START));
+        }
+        assertEquals(expected.size(), wheel.size());
+
+        assertEquals(expected, runTo(START + 300_001));
+        assertEquals(0, wheel.size());
+    }
+
+    // Прокрутка колеса по одному тику до tick включительно; результат — тик срабатывания каждой задачи
+    private Map<Long, Long> runTo(long lastTick) {
+        return runTo(lastTick, new ArrayList<>());
+    }
+
+    private Map<Long, Long> runTo(long lastTick, List<Timer> fired) {
+        Map<Long, Long> ticks = new HashMap<>();
+        List<Timer> firedOnTick = new ArrayList<>();
+        for (long tick = START; tick <= lastTick; tick++) {
+            wheel.advance(at(tick), firedOnTick);
+            for (Timer timer : firedOnTick) {
+                assertTrue(timer.fireAt() <= at(tick), () -> "task " + timer.taskId() + " fired early");
+                assertNull(ticks.put(timer.taskId(), tick), () -> "task " + timer.taskId() + " fired twice");
+            }
+            fired.addAll(firedOnTick);
+            firedOnTick.clear();
+        }
+        return ticks;
+    }
+
+    private static long at(long tick) {
+        return tick * TICK;
+    }
+}
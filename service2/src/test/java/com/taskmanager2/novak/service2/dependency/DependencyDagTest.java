@@ -0,0 +1,244 @@
+package com.taskmanager2.novak.service2.dependency;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Граф зависимостей в массивах: проверка цикла через reaches (ребро blocker → blocked отклоняется, если blocked уже
+ * достигает blocker), заблокированность и счётчики при смене статусов, критический путь на небольшом графе
+ * и совпадение графа, построенного изменениями, с загруженным (loadEdge, recomputeAll).
+ */
+class DependencyDagTest {
+
+    private final DependencyDag dag = new DependencyDag(16, 16);
+
+    @Test
+    void reachesRejectsEdgesThatCloseCycle() {
+        // 1 → 2 → 3, 4 → 3
+        assertTrue(addIfAcyclic(1, 2));
+        assertTrue(addIfAcyclic(2, 3));
+        assertTrue(addIfAcyclic(4, 3));
+
+        assertTrue(dag.reaches(1, 3));
+        assertFalse(dag.reaches(3, 1));
+        assertFalse(dag.reaches(4, 1));
+        assertTrue(dag.reaches(5, 5));
+        assertFalse(dag.reaches(5, 6));
+
+        assertFalse(addIfAcyclic(3, 1));
+        assertFalse(addIfAcyclic(2, 1));
+        assertFalse(addIfAcyclic(7, 7));
+        // 4 → 1 не замыкает цикла, но после него 3 → 4 замыкает
+        assertTrue(addIfAcyclic(4, 1));
+        assertFalse(addIfAcyclic(3, 4));
+        assertEquals(4, dag.edgeCount());
+
+        // Без рёбер 2 → 3 и 4 → 3 путь от 1 и 4 к 3 пропадает
+        assertTrue(dag.removeEdge(2, 3));
+        assertTrue(dag.removeEdge(4, 3));
+        assertFalse(dag.reaches(4, 3));
+        assertTrue(addIfAcyclic(3, 4));
+        assertTrue(dag.reaches(3, 2));
+        assertFalse(addIfAcyclic(2, 3));
+    }
+
+    @Test
+    void statusChangesBlockAndUnblockSuccessors() {
+        // 1 → 3, 2 → 3, 3 → 4
+        dag.addEdge(1, TaskStatus.TO_DO, 3, TaskStatus.TO_DO);
+        dag.addEdge(2, TaskStatus.TO_DO, 3, TaskStatus.TO_DO);
+        dag.addEdge(3, TaskStatus.TO_DO, 4, TaskStatus.TO_DO);
+        assertBlocked(List.of(3L, 4L), 2);
+        assertEquals(2, dag.pendingBlockers(3));
+
+        assertTrue(dag.setStatus(1, TaskStatus.DONE));
+        assertEquals(1, dag.pendingBlockers(3));
+        assertBlocked(List.of(3L, 4L), 2);
+
+        // IN_PROGRESS не завершает блокирующую задачу
+        assertTrue(dag.setStatus(2, TaskStatus.IN_PROGRESS));
+        assertBlocked(List.of(3L, 4L), 2);
+        assertFalse(dag.setStatus(2, TaskStatus.IN_PROGRESS));
+
+        assertTrue(dag.setStatus(2, TaskStatus.DONE));
+        assertEquals(0, dag.pendingBlockers(3));
+        assertBlocked(List.of(4L), 1);
+
+        // Заблокированная задача в работе считается заблокированной, но не среди TO_DO
+        assertTrue(dag.setStatus(3, TaskStatus.DONE));
+        assertTrue(dag.setStatus(1, TaskStatus.TO_DO));
+        assertTrue(dag.setStatus(3, TaskStatus.IN_PROGRESS));
+        assertBlocked(List.of(3L, 4L), 1);
+
+        assertTrue(dag.setStatus(1, TaskStatus.DONE));
+        assertTrue(dag.setStatus(3, TaskStatus.DONE));
+        assertBlocked(List.of(), 0);
+
+        // Задачи вне графа не отслеживаются и не заблокированы
+        assertFalse(dag.setStatus(42, TaskStatus.TO_DO));
+        assertFalse(dag.isBlocked(42));
+        assertEquals(-1, dag.depth(42));
+    }
+
+    @Test
+    void removingTaskUnblocksSuccessors() {
+        dag.addEdge(1, TaskStatus.TO_DO, 2, TaskStatus.TO_DO);
+        dag.addEdge(2, TaskStatus.TO_DO, 3, TaskStatus.TO_DO);
+
+        dag.removeTask(2);
+
+        assertBlocked(List.of(), 0);
+        assertEquals(0, dag.nodeCount());
+        assertEquals(0, dag.edgeCount());
+        assertArrayEquals(new long[0], dag.criticalPath());
+    }
+
+    @Test
+    void criticalPathFollowsLongestChainOfUnfinishedTasks() {
+        // 1 → 2 → 3 → 4 → 5, 1 → 3, 6 → 4
+        long[][] edges = {{1, 2}, {2, 3}, {3, 4}, {4, 5}, {1, 3}, {6, 4}};
+        for (long[] edge : edges) {
+            dag.addEdge(edge[0], TaskStatus.TO_DO, edge[1], TaskStatus.TO_DO);
+        }
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5}, dag.criticalPath());
+        assertEquals(5, dag.depth(5));
+        assertEquals(1, dag.depth(6));
+
+        // Завершённые задачи не входят в путь и не удлиняют его
+        dag.setStatus(2, TaskStatus.DONE);
+        assertArrayEquals(new long[]{1, 3, 4, 5}, dag.criticalPath());
+        dag.setStatus(4, TaskStatus.DONE);
+        assertArrayEquals(new long[]{1, 3, 5}, dag.criticalPath());
+
+        // Цепочка 9 → 8 → 7 → 6 становится длиннее: путь идёт через неё
+        dag.addEdge(7, TaskStatus.IN_PROGRESS, 6, TaskStatus.TO_DO);
+        dag.addEdge(8, TaskStatus.TO_DO, 7, TaskStatus.IN_PROGRESS);
+        dag.addEdge(9, TaskStatus.TO_DO, 8, TaskStatus.TO_DO);
+        assertArrayEquals(new long[]{9, 8, 7, 6, 5}, dag.criticalPath());
+
+        // Вернувшаяся в работу задача снова на пути
+        dag.setStatus(4, TaskStatus.IN_PROGRESS);
+        assertArrayEquals(new long[]{9, 8, 7, 6, 4, 5}, dag.criticalPath());
+
+        for (long taskId = 1; taskId <= 9; taskId++) {
+            dag.setStatus(taskId, TaskStatus.DONE);
+        }
+        assertArrayEquals(new long[0], dag.criticalPath());
+    }
+
+    @Test
+    void randomChangesMatchReferenceAndLoadedGraph() {
+        Random random = new Random(20261019);
+        int tasks = 300;
+        List<Set<Integer>> successors = new ArrayList<>();
+        for (int i = 0; i <= tasks; i++) {
+            successors.add(new HashSet<>());
+        }
+        TaskStatus[] statuses = new TaskStatus[tasks + 1];
+        TaskStatus[] values = TaskStatus.values();
+        for (int i = 1; i <= tasks; i++) {
+            statuses[i] = values[random.nextInt(values.length)];
+        }
+
+        for (int step = 0; step < 5000; step++) {
+            int blocker = 1 + random.nextInt(tasks);
+            int blocked = 1 + random.nextInt(tasks);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                boolean cycle = dag.reaches(blocked, blocker);
+                assertEquals(reference(successors, blocked, blocker), cycle);
+                if (!cycle) {
+                    boolean added = dag.addEdge(blocker, statuses[blocker], blocked, statuses[blocked]);
+                    assertEquals(successors.get(blocker).add(blocked), added);
+                }
+            } else if (action < 8) {
+                assertEquals(successors.get(blocker).remove(blocked), dag.removeEdge(blocker, blocked));
+            } else {
+                statuses[blocker] = values[random.nextInt(values.length)];
+                dag.setStatus(blocker, statuses[blocker]);
+            }
+        }
+
+        // Граф, загруженный из тех же рёбер и статусов, совпадает с построенным изменениями
+        DependencyDag loaded = new DependencyDag(16, 16);
+        int blockedCount = 0;
+        for (int task = 1; task <= tasks; task++) {
+            for (int successor : successors.get(task)) {
+                loaded.loadEdge(task, successor);
+            }
+        }
+        for (long taskId : loaded.taskIds()) {
+            loaded.loadStatus(taskId, statuses[(int) taskId]);
+        }
+        loaded.recomputeAll();
+        for (int task = 1; task <= tasks; task++) {
+            assertEquals(loaded.depth(task), dag.depth(task), "depth of task " + task);
+            assertEquals(loaded.isBlocked(task), dag.isBlocked(task), "blocked task " + task);
+            assertEquals(loaded.pendingBlockers(task), dag.pendingBlockers(task), "blockers of task " + task);
+            if (dag.isBlocked(task)) {
+                blockedCount++;
+            }
+        }
+        assertEquals(blockedCount, dag.blockedCount());
+        assertEquals(loaded.blockedToDoCount(), dag.blockedToDoCount());
+        assertEquals(loaded.nodeCount(), dag.nodeCount());
+        assertEquals(loaded.edgeCount(), dag.edgeCount());
+        assertEquals(loaded.criticalPath().length, dag.criticalPath().length);
+        for (int i = 0; i < 1000; i++) {
+            int from = 1 + random.nextInt(tasks);
+            int to = 1 + random.nextInt(tasks);
+            assertEquals(reference(successors, from, to), dag.reaches(from, to), from + " → " + to);
+            assertEquals(reference(successors, from, to), loaded.reaches(from, to), from + " → " + to);
+        }
+    }
+
+    // Добавление ребра так, как это делает DependencyService: только если blocked ещё не достигает blocker
+    private boolean addIfAcyclic(long blockerId, long blockedId) {
+        if (dag.reaches(blockedId, blockerId)) {
+            return false;
+        }
+        return dag.addEdge(blockerId, TaskStatus.TO_DO, blockedId, TaskStatus.TO_DO);
+    }
+
+    private void assertBlocked(List<Long> expected, int blockedToDo) {
+        List<Long> blocked = new ArrayList<>();
+        for (long taskId = 1; taskId <= 10; taskId++) {
+            if (dag.isBlocked(taskId)) {
+                blocked.add(taskId);
+            }
+        }
+        assertEquals(expected, blocked);
+        assertEquals(expected.size(), dag.blockedCount());
+        assertEquals(blockedToDo, dag.blockedToDoCount());
+    }
+
+    // Путь обходом в ширину по списку смежности
+    private static boolean reference(List<Set<Integer>> successors, int from, int to) {
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(from));
+        Set<Integer> seen = new HashSet<>(queue);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == to) {
+                return true;
+            }
+            for (int next : successors.get(node)) {
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+}
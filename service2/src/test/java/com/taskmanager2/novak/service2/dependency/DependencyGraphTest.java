@@ -0,0 +1,109 @@
+package com.taskmanager2.novak.service2.dependency;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskDependencyEntity;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyGraphRepository;
+import com.taskmanager2.novak.persistence2.repository.TaskDependencyRepository;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import com.taskmanager2.novak.service2.event.ChangeAction;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Статусы в графе зависимостей через DependencyGraph: архивированная задача (событие ARCHIVE или задача, которой
+ * нет в хранилище при загрузке) считается завершённой — её рёбра остаются, но никого не блокируют. Рёбра и статусы
+ * загружаются из заглушек Mockito.
+ */
+class DependencyGraphTest {
+
+    private final TaskDependencyRepository dependencyRepository = mock(TaskDependencyRepository.class);
+    private final TaskDependencyGraphRepository graphRepository = mock(TaskDependencyGraphRepository.class);
+    private final TaskStore taskStore = mock(TaskStore.class);
+
+    private final DependencyGraph graph = new DependencyGraph(dependencyRepository, graphRepository, taskStore,
+            16, 16, true);
+
+    @BeforeEach
+    void loadGraph() {
+        // 1 → 2 → 3; 4 → 3, где 4 уже в архиве (её нет в хранилище); 5 → 6
+        when(graphRepository.findVersion(anyInt())).thenReturn(Optional.of(1L));
+        when(dependencyRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(
+                edge(1, 1, 2), edge(2, 2, 3), edge(3, 4, 3), edge(4, 5, 6)));
+        when(taskStore.findAllById(any())).thenReturn(List.of(
+                task(1, TaskStatus.TO_DO), task(2, TaskStatus.TO_DO), task(3, TaskStatus.TO_DO),
+                task(5, TaskStatus.DONE), task(6, TaskStatus.TO_DO)));
+        graph.poll();
+    }
+
+    @Test
+    void archivedTaskMissingAtLoadDoesNotBlock() {
+        assertEquals(List.of(2, 3), blocked());
+        assertEquals(2, graph.blockedToDoCount());
+        assertArrayEquals(new long[]{1, 2, 3}, graph.criticalPath());
+    }
+
+    @Test
+    void archiveEventCountsAsDone() {
+        graph.onTaskChanged(event(ChangeAction.UPDATE, 1, TaskStatus.TO_DO, TaskStatus.DONE));
+        assertEquals(List.of(3), blocked());
+
+        // Задачу 2 завершили на другом узле, и граф ещё не перечитал статусы: архивирование всё равно её завершает
+        graph.onTaskChanged(event(ChangeAction.ARCHIVE, 2, TaskStatus.DONE, null));
+
+        assertEquals(List.of(), blocked());
+        assertEquals(0, graph.blockedToDoCount());
+        assertArrayEquals(new long[]{3}, graph.criticalPath());
+    }
+
+    @Test
+    void reopenedTaskBlocksAgain() {
+        graph.onTaskChanged(event(ChangeAction.UPDATE, 5, TaskStatus.DONE, TaskStatus.IN_PROGRESS));
+
+        assertEquals(List.of(2, 3, 6), blocked());
+        assertEquals(3, graph.blockedToDoCount());
+    }
+
+    private List<Integer> blocked() {
+        List<TaskEntity> tasks = new ArrayList<>();
+        for (long taskId = 1; taskId <= 6; taskId++) {
+            tasks.add(task(taskId, TaskStatus.TO_DO));
+        }
+        BitSet blocked = graph.blocked(tasks);
+        return blocked.stream().map(index -> index + 1).boxed().toList();
+    }
+
+    private static TaskChangedEvent event(ChangeAction action, long taskId, TaskStatus oldStatus,
+                                          TaskStatus newStatus) {
+        return new TaskChangedEvent(action, taskId, oldStatus, newStatus, "director", System.currentTimeMillis());
+    }
+
+    private static TaskDependencyEntity edge(long id, long blockerId, long blockedId) {
+        TaskDependencyEntity edge = new TaskDependencyEntity(blockerId, blockedId, Instant.EPOCH, "director");
+        ReflectionTestUtils.setField(edge, "id", id);
+        return edge;
+    }
+
+    private static TaskEntity task(long id, TaskStatus status) {
+        TaskEntity task = new TaskEntity();
+        task.setId(id);
+        task.setStatusTask(status);
+        return task;
+    }
+}
@@ -0,0 +1,670 @@
+package com.taskmanager2.novak.storage2;
+
+/*Встроенное хранилище задач (профиль embedded):
+Позволяет запускать app2 без MySQL — задачи живут в памяти процесса (TaskTable, структура массивов с индексами
+ по id и по статусу), а долговечность обеспечивают журнал упреждающей записи и периодические снимки.
+Изменение: под блокировкой записи запись добавляется в журнал и применяется к таблице, затем вызывающий ждёт,
+ пока журнал сбросит её на диск (групповой fsync — один fsync на все записи, накопившиеся за время предыдущего).
+ Пока запись не на диске, прежнее состояние задачи хранится в журнале отката (undo). Если сброс журнала не удался,
+ все изменения после последней сброшенной записи откатываются в обратном порядке, и хранилище, ставшее только
+ для чтения, отдаёт лишь то, что действительно на диске.
+Пачка (saveAll, пачка массового перехода) пишется в журнал одной записью, поэтому после сбоя она воспроизводится
+ целиком или не воспроизводится вовсе.
+Транзакции Spring: хранилище не участвует в транзакции БД, поэтому изменения, сделанные внутри неё, запоминаются
+ (прежнее и записанное состояние задачи). Если транзакция откатилась, они отменяются в обратном порядке одной
+ компенсирующей пачкой в журнале — кроме задач, которые после этого успел изменить кто-то другой. Так откат
+ транзакции (ошибка обработчика, журнала изменений) не оставляет в хранилище задач без строк в task_changes,
+ а конвейер групповой записи, повторяя пачку по одной задаче, не создаёт дубликатов.
+Снимок: под блокировкой журнал переключается на новый файл и таблица копируется в плотные массивы;
+ сам файл снимка пишется уже без блокировки. После снимка журнал до него больше не нужен и удаляется
+ (хранится предыдущий снимок и журнал после него — на случай, если последний снимок окажется нечитаемым).
+Восстановление при запуске: последний целый снимок, затем воспроизведение журнала после него;
+ недописанный хвост журнала (сбой посреди записи) отбрасывается.
+Чтение идёт под общей блокировкой чтения и не ждёт диска.
+ * */
+
+import com.taskmanager2.novak.common2.collection.LongIntHashMap;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.persistence2.store.TaskStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Profile("embedded")
+public class EmbeddedTaskStore implements TaskStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedTaskStore.class);
+
+    // Изменение, ещё не сброшенное на диск: прежнее состояние задачи (null — задачи не было)
+    private record Undo(long lsn, long id, TaskEntity previous) {
+    }
+
+    // Изменение внутри транзакции Spring: прежнее состояние задачи (null — задачи не было)
+    // и записанная в журнал запись (null — задача удалена)
+    private record Change(long id, TaskEntity previous, byte[] written) {
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long snapshotWalBytes;
+    private final long snapshotIntervalNanos;
+    private final int initialCapacity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TaskTable table;
+    private WriteAheadLog wal;
+    private long nextId = 1;
+
+    // Журнал отката изменений, ещё не подтверждённых журналом упреждающей записи, в порядке LSN;
+    // меняется под блокировкой записи
+    private final ArrayDeque<Undo> undo = new ArrayDeque<>();
+
+    // Снимки пишутся по одному
+    private final Object snapshotLock = new Object();
+    private volatile long lastSnapshotNanos;
+    private volatile boolean dirtySinceSnapshot;
+    private ScheduledExecutorService snapshotter;
+
+    public EmbeddedTaskStore(@Value("${taskmanager.storage.dir:data/tasks}") String directory,
+                             @Value("${taskmanager.storage.fsync:true}") boolean fsync,
+                             @Value("${taskmanager.storage.snapshot-wal-size-mb:64}") long snapshotWalSizeMb,
+                             @Value("${taskmanager.storage.snapshot-interval:5m}") Duration snapshotInterval,
+                             @Value("${taskmanager.storage.initial-capacity:65536}") int initialCapacity) {
+        this.directory = Paths.get(directory);
+        this.fsync = fsync;
+        this.snapshotWalBytes = snapshotWalSizeMb * 1024 * 1024;
+        this.snapshotIntervalNanos = snapshotInterval.toNanos();
+        this.initialCapacity = initialCapacity;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        table = new TaskTable(initialCapacity);
+
+        // Последний читаемый снимок; повреждённый снимок пропускаем и берём предыдущий
+        long walSequence = 0;
+        List<Path> snapshots = SnapshotFile.list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                SnapshotFile.Contents header = SnapshotFile.read(snapshots.get(i), table);
+                walSequence = header.walSequence();
+                nextId = header.nextId();
+                break;
+            } catch (IOException e) {
+                logger.error("Skipping unreadable snapshot {}: {}", snapshots.get(i), e.getMessage());
+                table.clear();
+            }
+        }
+        int fromSnapshot = table.size();
+
+        // Журнал после снимка
+        long replayed = 0;
+        long lastSequence = walSequence;
+        for (Path file : WriteAheadLog.list(directory)) {
+            long sequence = WriteAheadLog.sequenceOf(file);
+            if (sequence < walSequence) {
+                continue;
+            }
+            replayed += WriteAheadLog.replay(file, record -> nextId = Math.max(nextId, TaskRecords.apply(record, table) + 1));
+            lastSequence = sequence;
+        }
+
+        // Новые записи — в новый файл, чтобы не дописывать после возможного оборванного хвоста
+        wal = new WriteAheadLog(directory, lastSequence + 1, fsync);
+        lastSnapshotNanos = System.nanoTime();
+        dirtySinceSnapshot = replayed > 0;
+        logger.info("Embedded task store opened in {}: {} tasks from snapshot, {} journal records replayed in {} ms",
+                directory.toAbsolutePath(), fromSnapshot, replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-store-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfNeeded, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Снимок при остановке — следующий запуск не будет воспроизводить журнал
+        if (dirtySinceSnapshot) {
+            snapshot();
+        }
+        wal.close();
+    }
+
+    /**
+     * Остановка без снимка, как при сбое процесса после сброса журнала: следующий запуск воспроизведёт журнал
+     */
+    void halt() throws IOException {
+        snapshotter.shutdownNow();
+        wal.close();
+    }
+
+    @Override
+    public TaskEntity save(TaskEntity task) {
+        validate(task);
+        long lsn;
+        lock.writeLock().lock();
+        try {
+            lsn = put(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(lsn);
+        return task;
+    }
+
+    @Override
+    public List<TaskEntity> saveAll(List<TaskEntity> tasks) {
+        // Проверяем всё заранее: пачка — одна запись журнала и применяется целиком или не применяется вовсе
+        tasks.forEach(EmbeddedTaskStore::validate);
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        long lsn;
+        lock.writeLock().lock();
+        try {
+            lsn = putAll(tasks);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(lsn);
+        return tasks;
+    }
+
+    @Override
+    public Optional<TaskEntity> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            int slot = table.slotOf(id);
+            return slot == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(materialize(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TaskEntity> findAllById(Iterable<Long> ids) {
+        List<TaskEntity> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                int slot = table.slotOf(id);
+                if (slot != LongIntHashMap.MISSING) {
+                    result.add(materialize(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return table.slotOf(id) != LongIntHashMap.MISSING;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TaskEntity> findAll() {
+        return page(null, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TaskEntity> findByStatusTask(TaskStatus statusTask) {
+        return page(statusTask, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TaskEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+        return page(null, id, limit.isLimited() ? limit.max() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TaskEntity> findByStatusTaskAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id, Limit limit) {
+        return page(statusTask, id, limit.isLimited() ? limit.max() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TaskEntity> findByDueAtNotNullAndStatusTaskNotAndIdGreaterThanOrderByIdAsc(TaskStatus statusTask, Long id,
+                                                                                         Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            SortedLongSet ids = table.ids(null);
+            List<TaskEntity> result = new ArrayList<>();
+            for (int i = ids.indexAfter(id); i < ids.size() && result.size() < max; i++) {
+                int slot = table.slotOf(ids.get(i));
+                if (table.dueAt(slot) != TaskTable.NO_TIME && table.status(slot) != statusTask) {
+                    result.add(materialize(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countByStatusTask(TaskStatus statusTask) {
+        lock.readLock().lock();
+        try {
+            return table.ids(statusTask).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> transitionStatus(TaskStatus from, TaskStatus to, long afterId, long maxId, String namePrefix,
+                                       int limit, Instant changedAt) {
+        List<Long> moved = new ArrayList<>();
+        long lsn = 0;
+        // Выборка и изменение под одной блокировкой записи: между ними задачи никто не изменит
+        lock.writeLock().lock();
+        try {
+            SortedLongSet ids = table.ids(from);
+            for (int i = ids.indexAfter(afterId); i < ids.size() && moved.size() < limit; i++) {
+                long id = ids.get(i);
+                if (id > maxId) {
+                    break;
+                }
+                if (namePrefix == null || table.name(table.slotOf(id)).startsWith(namePrefix)) {
+                    moved.add(id);
+                }
+            }
+            // Индекс по статусу меняется при put, поэтому применяем после выборки
+            List<TaskEntity> tasks = new ArrayList<>(moved.size());
+            for (Long id : moved) {
+                TaskEntity task = materialize(table.slotOf(id));
+                task.setStatusTask(to);
+                task.setStatusChangedAt(changedAt);
+                tasks.add(task);
+            }
+            if (!tasks.isEmpty()) {
+                lsn = putAll(tasks);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (lsn > 0) {
+            awaitDurable(lsn);
+        }
+        return moved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        long lsn = 0;
+        lock.writeLock().lock();
+        try {
+            if (table.slotOf(id) != LongIntHashMap.MISSING) {
+                lsn = wal.append(TaskRecords.delete(id));
+                remember(lsn, id, null);
+                table.remove(id);
+                dirtySinceSnapshot = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (lsn > 0) {
+            awaitDurable(lsn);
+        }
+    }
+
+    @Override
+    public void delete(TaskEntity task) {
+        if (task.getId() != null) {
+            deleteById(task.getId());
+        }
+    }
+
+    // Запись в журнал и применение к таблице; вызывается под блокировкой записи
+    private long put(TaskEntity task) {
+        assignId(task);
+        byte[] record = record(task);
+        long lsn = wal.append(record);
+        apply(lsn, task, record);
+        return lsn;
+    }
+
+    // Пачка задач одной записью журнала; вызывается под блокировкой записи
+    private long putAll(List<TaskEntity> tasks) {
+        List<byte[]> records = new ArrayList<>(tasks.size());
+        for (TaskEntity task : tasks) {
+            assignId(task);
+            records.add(record(task));
+        }
+        long lsn = wal.append(TaskRecords.batch(records));
+        for (int i = 0; i < tasks.size(); i++) {
+            apply(lsn, tasks.get(i), records.get(i));
+        }
+        return lsn;
+    }
+
+    private void assignId(TaskEntity task) {
+        if (task.getId() == null) {
+            task.setId(nextId++);
+        } else if (task.getId() >= nextId) {
+            nextId = task.getId() + 1;
+        }
+    }
+
+    private static byte[] record(TaskEntity task) {
+        return TaskRecords.put(task.getId(), task.getStatusTask(), task.getNameTask(),
+                toNanos(task.getStatusChangedAt()), toNanos(task.getDueAt()));
+    }
+
+    // Применение к таблице изменения, добавленного в журнал под номером lsn
+    private void apply(long lsn, TaskEntity task, byte[] record) {
+        remember(lsn, task.getId(), record);
+        table.put(task.getId(), task.getStatusTask(), task.getNameTask(), toNanos(task.getStatusChangedAt()),
+                toNanos(task.getDueAt()));
+        dirtySinceSnapshot = true;
+    }
+
+    // Запоминание прежнего состояния задачи до изменения; подтверждённые журналом записи отката отбрасываются.
+    // Внутри транзакции Spring изменение запоминается и для её отката
+    private void remember(long lsn, long id, byte[] written) {
+        TaskEntity previous = rememberUndo(lsn, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionChanges().changes.add(new Change(id, previous, written));
+        }
+    }
+
+    private TaskEntity rememberUndo(long lsn, long id) {
+        long durable = wal.durableLsn();
+        while (!undo.isEmpty() && undo.peekFirst().lsn() <= durable) {
+            undo.pollFirst();
+        }
+        int slot = table.slotOf(id);
+        TaskEntity previous = slot == LongIntHashMap.MISSING ? null : materialize(slot);
+        undo.addLast(new Undo(lsn, id, previous));
+        return previous;
+    }
+
+    // Изменения текущей транзакции. Ищутся среди её синхронизаций, а не привязываются ресурсом: синхронизации
+    // сбрасываются с завершением транзакции, и запись из обработчика после коммита не оставит в потоке чужой список
+    private TransactionChanges transactionChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionChanges changes && changes.store() == this) {
+                return changes;
+            }
+        }
+        TransactionChanges changes = new TransactionChanges();
+        TransactionSynchronizationManager.registerSynchronization(changes);
+        return changes;
+    }
+
+    // Отмена изменений откатившейся транзакции одной компенсирующей пачкой в журнале
+    private void revert(List<Change> changes) {
+        long lsn = 0;
+        int skipped = 0;
+        lock.writeLock().lock();
+        try {
+            // Состояние задач с учётом уже отменённых изменений: запись PUT или null, если задачи нет
+            Map<Long, byte[]> state = new HashMap<>();
+            List<Change> reverted = new ArrayList<>();
+            for (int i = changes.size() - 1; i >= 0; i--) {
+                Change change = changes.get(i);
+                byte[] current;
+                if (state.containsKey(change.id())) {
+                    current = state.get(change.id());
+                } else {
+                    int slot = table.slotOf(change.id());
+                    current = slot == LongIntHashMap.MISSING ? null : record(materialize(slot));
+                }
+                // Задачу после транзакции изменил кто-то другой — его изменение не трогаем
+                if (!Arrays.equals(current, change.written())) {
+                    skipped++;
+                    continue;
+                }
+                state.put(change.id(), change.previous() == null ? null : record(change.previous()));
+                reverted.add(change);
+            }
+            if (!reverted.isEmpty()) {
+                List<byte[]> records = new ArrayList<>(reverted.size());
+                for (Change change : reverted) {
+                    records.add(change.previous() == null ? TaskRecords.delete(change.id()) : record(change.previous()));
+                }
+                lsn = wal.append(TaskRecords.batch(records));
+                for (Change change : reverted) {
+                    rememberUndo(lsn, change.id());
+                    TaskEntity previous = change.previous();
+                    if (previous == null) {
+                        table.remove(change.id());
+                    } else {
+                        table.put(previous.getId(), previous.getStatusTask(), previous.getNameTask(),
+                                toNanos(previous.getStatusChangedAt()), toNanos(previous.getDueAt()));
+                    }
+                }
+                dirtySinceSnapshot = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (skipped > 0) {
+            logger.warn("Rolled back transaction: {} task changes were overwritten since and kept", skipped);
+        }
+        if (lsn > 0) {
+            awaitDurable(lsn);
+        }
+    }
+
+    // Ожидание сброса журнала; если журнал отказал, таблица откатывается к тому, что на диске
+    private void awaitDurable(long lsn) {
+        try {
+            wal.awaitDurable(lsn);
+        } catch (UncheckedIOException e) {
+            rollbackUndurable();
+            throw e;
+        }
+    }
+
+    // Откат в обратном порядке всех изменений после последней сброшенной на диск записи
+    private void rollbackUndurable() {
+        lock.writeLock().lock();
+        try {
+            long durable = wal.durableLsn();
+            int rolledBack = 0;
+            while (!undo.isEmpty() && undo.peekLast().lsn() > durable) {
+                Undo change = undo.pollLast();
+                TaskEntity previous = change.previous();
+                if (previous == null) {
+                    table.remove(change.id());
+                } else {
+                    table.put(previous.getId(), previous.getStatusTask(), previous.getNameTask(),
+                            toNanos(previous.getStatusChangedAt()), toNanos(previous.getDueAt()));
+                }
+                rolledBack++;
+            }
+            if (rolledBack > 0) {
+                logger.error("Rolled back {} task changes that did not reach the write-ahead log", rolledBack);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Изменения хранилища в текущей транзакции Spring; отменяются, если транзакция откатилась
+     */
+    private final class TransactionChanges implements TransactionSynchronization {
+
+        final List<Change> changes = new ArrayList<>();
+
+        EmbeddedTaskStore store() {
+            return EmbeddedTaskStore.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK) {
+                return;
+            }
+            try {
+                revert(changes);
+            } catch (RuntimeException e) {
+                logger.error("Failed to revert {} task changes of a rolled back transaction", changes.size(), e);
+            }
+        }
+    }
+
+    // Задачи после курсора в порядке id: все или с заданным статусом
+    private List<TaskEntity> page(TaskStatus status, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet ids = table.ids(status);
+            int from = ids.indexAfter(afterId);
+            int to = (int) Math.min(ids.size(), (long) from + limit);
+            List<TaskEntity> result = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                result.add(materialize(table.slotOf(ids.get(i))));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TaskEntity materialize(int slot) {
+        TaskEntity task = new TaskEntity();
+        task.setId(table.id(slot));
+        task.setNameTask(table.name(slot));
+        task.setStatusTask(table.status(slot));
+        task.setStatusChangedAt(fromNanos(table.statusChangedAt(slot)));
+        task.setDueAt(fromNanos(table.dueAt(slot)));
+        return task;
+    }
+
+    private static void validate(TaskEntity task) {
+        if (task.getNameTask() == null || task.getStatusTask() == null) {
+            throw new InvalidRequestException("Task name and status are required");
+        }
+    }
+
+    // Снимок по расписанию: журнал вырос или прошёл интервал с последнего снимка
+    private void snapshotIfNeeded() {
+        try {
+            boolean walTooLarge = wal.bytesSinceRotation() >= snapshotWalBytes;
+            boolean intervalPassed = System.nanoTime() - lastSnapshotNanos >= snapshotIntervalNanos;
+            if (dirtySinceSnapshot && (walTooLarge || intervalPassed)) {
+                snapshot();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Embedded task store snapshot failed", e);
+        }
+    }
+
+    /**
+     * Снимок хранилища и удаление журнала, который им покрыт
+     */
+    void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long started = System.nanoTime();
+            SnapshotFile.Contents contents;
+            lock.writeLock().lock();
+            try {
+                long walSequence = wal.rotate();
+                undo.clear(); // rotate дождался сброса всех записей
+                contents = table.capture(walSequence, nextId);
+                dirtySinceSnapshot = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long captured = System.nanoTime();
+
+            SnapshotFile.write(directory, contents);
+            lastSnapshotNanos = System.nanoTime();
+            deleteObsolete();
+            logger.info("Embedded task store snapshot: {} tasks, captured in {} ms, written in {} ms",
+                    contents.ids().length, TimeUnit.NANOSECONDS.toMillis(captured - started),
+                    TimeUnit.NANOSECONDS.toMillis(lastSnapshotNanos - captured));
+        }
+    }
+
+    // Оставляем два последних снимка и журнал начиная с предпоследнего
+    private void deleteObsolete() throws IOException {
+        List<Path> snapshots = SnapshotFile.list(directory);
+        if (snapshots.size() < 2) {
+            return;
+        }
+        Path previous = snapshots.get(snapshots.size() - 2);
+        String name = previous.getFileName().toString();
+        long keepFrom = Long.parseLong(name.substring(SnapshotFile.PREFIX.length(),
+                name.length() - SnapshotFile.SUFFIX.length()));
+        for (int i = 0; i < snapshots.size() - 2; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        for (Path file : WriteAheadLog.list(directory)) {
+            if (WriteAheadLog.sequenceOf(file) < keepFrom) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static long toNanos(Instant instant) {
+        if (instant == null) {
+            return TaskTable.NO_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    private static Instant fromNanos(long nanos) {
+        return nanos == TaskTable.NO_TIME ? null : Instant.ofEpochSecond(0, nanos);
+    }
+}
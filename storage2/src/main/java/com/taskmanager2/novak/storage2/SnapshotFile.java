@@ -0,0 +1,171 @@
+package com.taskmanager2.novak.storage2;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Снимок встроенного хранилища задач — файл, записываемый и читаемый через отображение в память.
+ *
+ * Формат (little-endian): заголовок HEADER_SIZE байт — magic (int), версия (int),
+ * номер файла журнала, с которого продолжать восстановление (long), число задач (int),
+ * CRC32C области задач (int), следующий id (long);
+ * далее задачи в порядке id: id (long), статус (byte), время смены статуса (long), срок (long),
+ * длина имени (int), имя в UTF-8. В снимках версии 1 (до появления сроков) поля срока нет; они по-прежнему читаются.
+ *
+ * Снимок пишется во временный файл, сбрасывается на диск и атомарно переименовывается,
+ * поэтому на диске всегда лежат только целые снимки.
+ */
+final class SnapshotFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotFile.class);
+
+    static final String PREFIX = "snapshot-";
+    static final String SUFFIX = ".snap";
+
+    private static final int MAGIC = 0x544D5353; // "TMSS"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_DUE = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    /**
+     * Содержимое снимка.
+     *
+     * @param walSequence номер файла журнала, с которого продолжается восстановление после этого снимка
+     * @param nextId      следующий id задачи
+     */
+    record Contents(long walSequence, long nextId, long[] ids, byte[] statuses, long[] changedAt, long[] dueAt,
+                    String[] names) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Запись снимка
+     * @return путь к записанному файлу
+     */
+    static Path write(Path directory, Contents contents) throws IOException {
+        int count = contents.ids().length;
+        byte[][] names = new byte[count][];
+        long size = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            names[i] = contents.names()[i].getBytes(StandardCharsets.UTF_8);
+            size += 8 + 1 + 8 + 8 + 4 + names[i].length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is too large: " + size + " bytes");
+        }
+
+        Path target = directory.resolve(fileName(contents.walSequence()));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                buffer.putLong(contents.ids()[i])
+                        .put(contents.statuses()[i])
+                        .putLong(contents.changedAt()[i])
+                        .putLong(contents.dueAt()[i])
+                        .putInt(names[i].length)
+                        .put(names[i]);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE));
+            buffer.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putLong(8, contents.walSequence())
+                    .putInt(16, count)
+                    .putInt(20, (int) crc.getValue())
+                    .putLong(24, contents.nextId());
+            buffer.force();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+        return target;
+    }
+
+    /**
+     * Загрузка снимка в пустую таблицу
+     * @return заголовок снимка (массивы задач не заполняются)
+     * @throws IOException если файл повреждён
+     */
+    static Contents read(Path file, TaskTable table) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int version = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || (version != VERSION && version != VERSION_WITHOUT_DUE)) {
+                throw new IOException("Not a task store snapshot: " + file);
+            }
+            boolean hasDue = version != VERSION_WITHOUT_DUE;
+            long walSequence = buffer.getLong(8);
+            int count = buffer.getInt(16);
+            int checksum = buffer.getInt(20);
+            long nextId = buffer.getLong(24);
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE));
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+
+            buffer.position(HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                long id = buffer.getLong();
+                TaskStatus status = STATUSES[buffer.get()];
+                long changedAt = buffer.getLong();
+                long dueAt = hasDue ? buffer.getLong() : TaskTable.NO_TIME;
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                table.put(id, status, new String(name, StandardCharsets.UTF_8), changedAt, dueAt);
+            }
+            return new Contents(walSequence, nextId, null, null, null, null, null);
+        }
+    }
+
+    static String fileName(long walSequence) {
+        return String.format("%s%019d%s", PREFIX, walSequence, SUFFIX);
+    }
+
+    /**
+     * Снимки каталога в порядке номеров
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    // Сброс записи каталога, чтобы переименование пережило сбой питания
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory fsync is not supported for {}", directory);
+        }
+    }
+}
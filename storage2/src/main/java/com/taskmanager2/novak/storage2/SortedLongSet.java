@@ -0,0 +1,72 @@
+package com.taskmanager2.novak.storage2;
+
+import java.util.Arrays;
+
+/**
+ * Упорядоченное множество long на отсортированном массиве.
+ * Новые id задач монотонно растут, поэтому вставка почти всегда — дописывание в конец за O(1);
+ * удаление из середины — сдвиг хвоста массива (System.arraycopy).
+ * Позволяет за O(log n) найти позицию после курсора для постраничной выдачи по ключу.
+ * Не потокобезопасно: доступ синхронизирует вызывающий.
+ */
+final class SortedLongSet {
+
+    private long[] values;
+    private int size;
+
+    SortedLongSet(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 16)];
+    }
+
+    void add(long value) {
+        if (size == 0 || value > values[size - 1]) {
+            ensureCapacity();
+            values[size++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity();
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+    }
+
+    void remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * @return позиция первого элемента, большего value
+     */
+    int indexAfter(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length << 1);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.taskmanager2.novak.storage2;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Двоичное представление изменений задач в журнале упреждающей записи (little-endian).
+ * PUT_DUE: тип (byte), id (long), статус (byte, ordinal), время смены статуса (long, наносекунды epoch),
+ *          срок (long, наносекунды epoch), длина имени (int), имя в UTF-8.
+ * DELETE:  тип (byte), id (long).
+ * BATCH:   тип (byte), число записей (int), затем каждая запись: длина (int), запись PUT_DUE или DELETE.
+ *          Пачка — одна запись журнала с одной контрольной суммой, поэтому после сбоя она воспроизводится
+ *          целиком или не воспроизводится вовсе.
+ * PUT — та же запись без срока; так писали журнал до появления сроков, и такие записи по-прежнему читаются.
+ */
+final class TaskRecords {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte PUT_DUE = 3;
+    static final byte BATCH = 4;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private TaskRecords() {
+    }
+
+    static byte[] put(long id, TaskStatus status, String name, long statusChangedAt, long dueAt) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 1 + 8 + 8 + 4 + nameBytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(PUT_DUE).putLong(id).put((byte) status.ordinal()).putLong(statusChangedAt).putLong(dueAt)
+                .putInt(nameBytes.length).put(nameBytes);
+        return buffer.array();
+    }
+
+    static byte[] delete(long id) {
+        return ByteBuffer.allocate(1 + 8).order(ByteOrder.LITTLE_ENDIAN).put(DELETE).putLong(id).array();
+    }
+
+    static byte[] batch(List<byte[]> records) {
+        int size = 1 + 4;
+        for (byte[] record : records) {
+            size += 4 + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(BATCH).putInt(records.size());
+        for (byte[] record : records) {
+            buffer.putInt(record.length).put(record);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Применение записи журнала к таблице
+     * @return id задачи из записи (для пачки — наибольший)
+     */
+    static long apply(ByteBuffer record, TaskTable table) {
+        byte type = record.get();
+        if (type == BATCH) {
+            long maxId = 0;
+            int count = record.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = record.getInt();
+                ByteBuffer nested = record.slice(record.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+                maxId = Math.max(maxId, apply(nested, table));
+                record.position(record.position() + length);
+            }
+            return maxId;
+        }
+        long id = record.getLong();
+        if (type == PUT || type == PUT_DUE) {
+            TaskStatus status = STATUSES[record.get()];
+            long statusChangedAt = record.getLong();
+            long dueAt = type == PUT_DUE ? record.getLong() : TaskTable.NO_TIME;
+            byte[] name = new byte[record.getInt()];
+            record.get(name);
+            table.put(id, status, new String(name, StandardCharsets.UTF_8), statusChangedAt, dueAt);
+        } else if (type == DELETE) {
+            table.remove(id);
+        } else {
+            throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,184 @@
+package com.taskmanager2.novak.storage2;
+
+import com.taskmanager2.novak.common2.collection.LongIntHashMap;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+
+import java.util.Arrays;
+
+/**
+ * Задачи в памяти в виде «структуры массивов»: каждое поле — отдельный массив, задача — номер ячейки (slot).
+ * Примитивные поля лежат в памяти сплошняком, без объекта-обёртки на каждую задачу,
+ * поэтому сканирование по статусу или времени проходит по плотным массивам.
+ * Индексы:
+ *  - id → ячейка: LongIntHashMap (без упаковки ключей);
+ *  - все id по возрастанию и id по каждому статусу: SortedLongSet (для постраничной выдачи и фильтра по статусу).
+ * Освободившиеся ячейки переиспользуются.
+ * Не потокобезопасна: доступ синхронизирует EmbeddedTaskStore.
+ */
+final class TaskTable {
+
+    // Значение statusChangedAt и dueAt, означающее null
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final byte FREE = -1;
+
+    private long[] ids;
+    private byte[] statuses;
+    private long[] changedAt;
+    private long[] dueAt;
+    private String[] names;
+
+    // Ячейки после последней занятой и освобождённые ячейки
+    private int used;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntHashMap slotById;
+    private final SortedLongSet allIds;
+    private final SortedLongSet[] idsByStatus = new SortedLongSet[STATUSES.length];
+
+    TaskTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        ids = new long[capacity];
+        statuses = new byte[capacity];
+        changedAt = new long[capacity];
+        dueAt = new long[capacity];
+        names = new String[capacity];
+        slotById = new LongIntHashMap(capacity);
+        allIds = new SortedLongSet(capacity);
+        for (int i = 0; i < idsByStatus.length; i++) {
+            idsByStatus[i] = new SortedLongSet(capacity / STATUSES.length);
+        }
+    }
+
+    /**
+     * Вставка или замена задачи
+     */
+    void put(long id, TaskStatus status, String name, long statusChangedAt, long due) {
+        byte code = (byte) status.ordinal();
+        int slot = slotById.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = allocate();
+            ids[slot] = id;
+            slotById.put(id, slot);
+            allIds.add(id);
+            idsByStatus[code].add(id);
+        } else if (statuses[slot] != code) {
+            idsByStatus[statuses[slot]].remove(id);
+            idsByStatus[code].add(id);
+        }
+        statuses[slot] = code;
+        names[slot] = name;
+        changedAt[slot] = statusChangedAt;
+        dueAt[slot] = due;
+    }
+
+    /**
+     * @return true, если задача была и удалена
+     */
+    boolean remove(long id) {
+        int slot = slotById.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            return false;
+        }
+        slotById.remove(id);
+        allIds.remove(id);
+        idsByStatus[statuses[slot]].remove(id);
+        statuses[slot] = FREE;
+        names[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * @return ячейка задачи или LongIntHashMap.MISSING
+     */
+    int slotOf(long id) {
+        return slotById.get(id);
+    }
+
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    TaskStatus status(int slot) {
+        return STATUSES[statuses[slot]];
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    long statusChangedAt(int slot) {
+        return changedAt[slot];
+    }
+
+    long dueAt(int slot) {
+        return dueAt[slot];
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Упорядоченные id: все задачи (status == null) или задачи с заданным статусом
+     */
+    SortedLongSet ids(TaskStatus status) {
+        return status == null ? allIds : idsByStatus[status.ordinal()];
+    }
+
+    /**
+     * Копия всех задач в порядке id для записи снимка; делается под блокировкой хранилища и потому должна быть быстрой:
+     * только копирование примитивов и ссылок на (неизменяемые) строки
+     */
+    SnapshotFile.Contents capture(long walSequence, long nextId) {
+        int count = allIds.size();
+        long[] snapshotIds = new long[count];
+        byte[] snapshotStatuses = new byte[count];
+        long[] snapshotChangedAt = new long[count];
+        long[] snapshotDueAt = new long[count];
+        String[] snapshotNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            long id = allIds.get(i);
+            int slot = slotById.get(id);
+            snapshotIds[i] = id;
+            snapshotStatuses[i] = statuses[slot];
+            snapshotChangedAt[i] = changedAt[slot];
+            snapshotDueAt[i] = dueAt[slot];
+            snapshotNames[i] = names[slot];
+        }
+        return new SnapshotFile.Contents(walSequence, nextId, snapshotIds, snapshotStatuses, snapshotChangedAt,
+                snapshotDueAt, snapshotNames);
+    }
+
+    void clear() {
+        Arrays.fill(names, 0, used, null);
+        used = 0;
+        freeCount = 0;
+        slotById.clear();
+        allIds.clear();
+        for (SortedLongSet set : idsByStatus) {
+            set.clear();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (used == ids.length) {
+            int capacity = ids.length << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            changedAt = Arrays.copyOf(changedAt, capacity);
+            dueAt = Arrays.copyOf(dueAt, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        return used++;
+    }
+}
@@ -0,0 +1,300 @@
+package com.taskmanager2.novak.storage2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал упреждающей записи (WAL) встроенного хранилища задач с групповым fsync.
+ *
+ * Запись в файле: длина данных (int), CRC32C данных (int), данные (см. TaskRecords).
+ * Файлы журнала нумеруются (wal-%019d.log); при снимке начинается новый файл, и старые файлы удаляются,
+ * когда их содержимое попало в снимок.
+ *
+ * Групповой fsync: append только копирует запись в буфер в памяти и возвращает её номер (LSN).
+ * Отдельный поток забирает накопленный буфер, пишет его в файл и делает один force на всю группу,
+ * после чего будит ожидающих в awaitDurable. Пока идёт один fsync, следующие записи копятся в другом буфере,
+ * поэтому под нагрузкой один fsync подтверждает сразу много записей.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final String PREFIX = "wal-";
+    static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER = 8;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final Object lock = new Object();
+
+    // Накопление записей до сброса; буферы меняются местами при каждом сбросе
+    private ByteBuffer pending = newBuffer(64 * 1024);
+    private ByteBuffer writing = newBuffer(64 * 1024);
+
+    private FileChannel channel;
+    private long sequence;
+    private long appendedLsn;
+    private long durableLsn;
+    private long bytesSinceRotation;
+    private IOException failure;
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    WriteAheadLog(Path directory, long sequence, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.sequence = sequence;
+        this.channel = open(sequence);
+        this.flusher = new Thread(this::runFlusher, "embedded-store-wal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Добавление записи в буфер журнала
+     * @return номер записи для awaitDurable
+     */
+    long append(byte[] record) {
+        synchronized (lock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+            }
+            int required = RECORD_HEADER + record.length;
+            if (pending.remaining() < required) {
+                pending = grow(pending, required);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(record);
+            pending.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            bytesSinceRotation += required;
+            lock.notifyAll();
+            return ++appendedLsn;
+        }
+    }
+
+    /**
+     * Ожидание, пока запись с номером lsn не окажется на диске
+     */
+    void awaitDurable(long lsn) {
+        synchronized (lock) {
+            while (durableLsn < lsn && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for write-ahead log", e);
+                }
+            }
+            if (durableLsn < lsn) {
+                throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+            }
+        }
+    }
+
+    /**
+     * @return номер последней записи, сброшенной на диск
+     */
+    long durableLsn() {
+        synchronized (lock) {
+            return durableLsn;
+        }
+    }
+
+    /**
+     * Переход на новый файл журнала. Вызывается, когда новые записи не добавляются (под блокировкой хранилища).
+     * @return номер нового файла: снимок, сделанный сейчас, покрывает все файлы с меньшими номерами
+     */
+    long rotate() throws IOException {
+        synchronized (lock) {
+            awaitDurable(appendedLsn);
+            channel.close();
+            sequence++;
+            channel = open(sequence);
+            bytesSinceRotation = 0;
+            return sequence;
+        }
+    }
+
+    /**
+     * @return сколько байт записано в текущий файл журнала
+     */
+    long bytesSinceRotation() {
+        synchronized (lock) {
+            return bytesSinceRotation;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (failure == null) {
+                awaitDurable(appendedLsn);
+            }
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // Поток группового сброса
+    private void runFlusher() {
+        while (true) {
+            FileChannel target;
+            long lsn;
+            synchronized (lock) {
+                while (pending.position() == 0 && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                pending.clear();
+                target = channel;
+                lsn = appendedLsn;
+            }
+
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    target.write(writing);
+                }
+                writing.clear();
+                if (fsync) {
+                    target.force(false);
+                }
+                synchronized (lock) {
+                    durableLsn = lsn;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                logger.error("Write-ahead log write failed, embedded store becomes read-only", e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private FileChannel open(long fileSequence) throws IOException {
+        return FileChannel.open(directory.resolve(fileName(fileSequence)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static String fileName(long fileSequence) {
+        return String.format("%s%019d%s", PREFIX, fileSequence, SUFFIX);
+    }
+
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Файлы журнала каталога в порядке номеров
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Воспроизведение записей файла журнала.
+     * Чтение останавливается на первой неполной или повреждённой записи: это хвост, запись которого оборвал сбой,
+     * и он ни разу не был подтверждён вызывающему.
+     * @return число воспроизведённых записей
+     */
+    static long replay(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = newBuffer(RECORD_HEADER);
+            while (true) {
+                long position = channel.position();
+                header.clear();
+                if (!readFully(channel, header)) {
+                    if (header.position() > 0) {
+                        logTornTail(file, position);
+                    }
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length <= 0 || length > channel.size() - channel.position()) {
+                    logTornTail(file, position);
+                    break;
+                }
+                ByteBuffer record = newBuffer(length);
+                if (!readFully(channel, record)) {
+                    logTornTail(file, position);
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(record.array(), 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    logTornTail(file, position);
+                    break;
+                }
+                record.flip();
+                consumer.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Чтение до заполнения буфера; false — файл кончился раньше
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void logTornTail(Path file, long position) {
+        logger.warn("Write-ahead log {} ends with an incomplete record at {}, ignoring the tail", file, position);
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int required) {
+        ByteBuffer grown = newBuffer(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
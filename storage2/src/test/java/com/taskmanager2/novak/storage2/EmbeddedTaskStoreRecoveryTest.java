@@ -0,0 +1,112 @@
+package com.taskmanager2.novak.storage2;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Восстановление встроенного хранилища после сбоя: запись, остановка без снимка, обрезка хвоста журнала
+ * (последняя запись дописана не полностью) и повторное открытие. Проверяются восстановленные задачи и nextId —
+ * id новой задачи после восстановления.
+ */
+class EmbeddedTaskStoreRecoveryTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedTaskStore store;
+
+    @AfterEach
+    void closeStore() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void tornJournalTailIsDroppedOnRecovery() throws IOException {
+        store = open();
+        Instant due = Instant.parse("2026-11-01T09:00:00.123456789Z");
+        for (int i = 1; i <= 5; i++) {
+            TaskEntity task = task("task " + i, i % 2 == 0 ? TaskStatus.DONE : TaskStatus.TO_DO);
+            task.setDueAt(i == 3 ? due : null);
+            store.save(task);
+        }
+        store.halt();
+
+        // Последняя запись (задача 5) оборвана посередине
+        truncateLastJournal(3);
+        store = open();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(store.findAll()));
+        assertEquals(List.of(1L, 3L), ids(store.findByStatusTask(TaskStatus.TO_DO)));
+        TaskEntity third = store.findById(3L).orElseThrow();
+        assertEquals("task 3", third.getNameTask());
+        assertEquals(due, third.getDueAt());
+        assertFalse(store.existsById(5L));
+        assertEquals(5L, store.save(task("after recovery", TaskStatus.TO_DO)).getId());
+
+        // Новые записи идут в новый файл журнала, а не за оборванным хвостом, и тоже переживают сбой
+        store.halt();
+        store = open();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(store.findAll()));
+        assertEquals("after recovery", store.findById(5L).orElseThrow().getNameTask());
+        assertEquals(6L, store.save(task("next", TaskStatus.TO_DO)).getId());
+    }
+
+    @Test
+    void journalAfterSnapshotIsReplayedUpToTornTail() throws IOException {
+        store = open();
+        store.saveAll(List.of(task("a", TaskStatus.TO_DO), task("b", TaskStatus.TO_DO), task("c", TaskStatus.TO_DO)));
+        store.snapshot();
+        store.deleteById(1L);
+        store.transitionStatus(TaskStatus.TO_DO, TaskStatus.IN_PROGRESS, 0, Long.MAX_VALUE, null, 10, Instant.EPOCH);
+        store.saveAll(List.of(task("d", TaskStatus.TO_DO), task("e", TaskStatus.TO_DO)));
+        store.halt();
+
+        // Пачка d, e оборвана: не воспроизводится ни одна её задача
+        truncateLastJournal(1);
+        store = open();
+
+        assertEquals(List.of(2L, 3L), ids(store.findAll()));
+        assertEquals(List.of(2L, 3L), ids(store.findByStatusTask(TaskStatus.IN_PROGRESS)));
+        assertEquals(Instant.EPOCH, store.findById(2L).orElseThrow().getStatusChangedAt());
+        // nextId — из снимка и воспроизведённого журнала: id оборванной пачки свободны
+        assertEquals(4L, store.save(task("f", TaskStatus.TO_DO)).getId());
+    }
+
+    private void truncateLastJournal(int bytes) throws IOException {
+        List<Path> journals = WriteAheadLog.list(directory);
+        try (FileChannel channel = FileChannel.open(journals.get(journals.size() - 1), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    private EmbeddedTaskStore open() throws IOException {
+        EmbeddedTaskStore opened = new EmbeddedTaskStore(directory.toString(), true, 64, Duration.ofHours(1), 16);
+        opened.open();
+        return opened;
+    }
+
+    private static List<Long> ids(List<TaskEntity> tasks) {
+        return tasks.stream().map(TaskEntity::getId).toList();
+    }
+
+    private static TaskEntity task(String name, TaskStatus status) {
+        TaskEntity task = new TaskEntity();
+        task.setNameTask(name);
+        task.setStatusTask(status);
+        return task;
+    }
+}
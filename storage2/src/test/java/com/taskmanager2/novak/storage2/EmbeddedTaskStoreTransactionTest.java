@@ -0,0 +1,193 @@
+package com.taskmanager2.novak.storage2;
+
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.service2.pipeline.TaskWritePipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Встроенное хранилище в транзакциях Spring: изменения откатившейся транзакции отменяются (и после перезапуска),
+ * чужие изменения, сделанные поверх, сохраняются, а конвейер групповой записи, повторяя упавшую пачку по одной
+ * задаче, не создаёт дубликатов.
+ */
+class EmbeddedTaskStoreTransactionTest {
+
+    @TempDir
+    Path directory;
+
+    private final SynchronizationOnlyTransactionManager transactionManager = new SynchronizationOnlyTransactionManager();
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    private EmbeddedTaskStore store;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void closeStore() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void rollbackRevertsSavesUpdatesAndDeletes() throws IOException {
+        TaskEntity kept = store.save(task("kept", TaskStatus.TO_DO));
+        TaskEntity deleted = store.save(task("deleted", TaskStatus.TO_DO));
+        List<Long> createdIds = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            createdIds.add(store.save(task("created", TaskStatus.TO_DO)).getId());
+            createdIds.addAll(store.saveAll(List.of(task("batch 1", TaskStatus.TO_DO), task("batch 2", TaskStatus.DONE)))
+                    .stream().map(TaskEntity::getId).toList());
+            TaskEntity update = store.findById(kept.getId()).orElseThrow();
+            update.setNameTask("renamed");
+            store.save(update);
+            store.transitionStatus(TaskStatus.TO_DO, TaskStatus.IN_PROGRESS, 0, Long.MAX_VALUE, null, 100, null);
+            store.deleteById(deleted.getId());
+            throw new IllegalStateException("onSaved failed");
+        }));
+
+        assertRestored(kept, deleted, createdIds);
+
+        // Отмена записана в журнал: после перезапуска без снимка состояние то же
+        store.halt();
+        store = open();
+        assertRestored(kept, deleted, createdIds);
+    }
+
+    @Test
+    void commitKeepsChanges() {
+        TaskEntity saved = transactionTemplate.execute(status -> store.save(task("committed", TaskStatus.TO_DO)));
+
+        assertTrue(store.existsById(saved.getId()));
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void rollbackKeepsChangesMadeByOthersSince() throws Exception {
+        TaskEntity[] saved = new TaskEntity[1];
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            saved[0] = store.save(task("created", TaskStatus.TO_DO));
+            // Другой поток без транзакции меняет ту же задачу до отката
+            CompletableFuture.runAsync(() -> {
+                TaskEntity other = store.findById(saved[0].getId()).orElseThrow();
+                other.setStatusTask(TaskStatus.DONE);
+                store.save(other);
+            }).join();
+            throw new IllegalStateException("rollback");
+        }));
+
+        TaskEntity current = store.findById(saved[0].getId()).orElseThrow();
+        assertEquals(TaskStatus.DONE, current.getStatusTask());
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void pipelineRetryAfterFailedBatchDoesNotDuplicateTasks() throws Exception {
+        // Обработчик падает на одной задаче: пачка откатывается и повторяется по одной задаче
+        Consumer<TaskEntity> onSaved = task -> {
+            if (task.getNameTask().equals("bad")) {
+                throw new IllegalStateException("onSaved failed");
+            }
+        };
+        List<String> names = List.of("a", "b", "bad", "c", "d");
+        List<CompletableFuture<TaskEntity>> results = new ArrayList<>();
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            // Контекст вызывает start/stop конвейера; задержка пачки с запасом, чтобы все задачи попали в одну
+            TestPropertyValues.of("taskmanager.write-pipeline.enabled=true").applyTo(context);
+            context.registerBean(TaskWritePipeline.class,
+                    () -> new TaskWritePipeline(store, transactionManager, 100, 16, 500, 1000));
+            context.refresh();
+            TaskWritePipeline pipeline = context.getBean(TaskWritePipeline.class);
+            for (String name : names) {
+                results.add(pipeline.submit(task(name, TaskStatus.TO_DO), onSaved));
+            }
+            for (int i = 0; i < names.size(); i++) {
+                CompletableFuture<TaskEntity> result = results.get(i);
+                if (names.get(i).equals("bad")) {
+                    assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+                } else {
+                    result.get(10, TimeUnit.SECONDS);
+                }
+            }
+        }
+
+        List<String> stored = store.findAll().stream().map(TaskEntity::getNameTask).sorted().toList();
+        assertEquals(List.of("a", "b", "c", "d"), stored);
+    }
+
+    private void assertRestored(TaskEntity kept, TaskEntity deleted, List<Long> createdIds) {
+        assertEquals(3, createdIds.size());
+        for (Long id : createdIds) {
+            assertFalse(store.existsById(id), "task " + id + " created in a rolled back transaction");
+        }
+        TaskEntity current = store.findById(kept.getId()).orElseThrow();
+        assertEquals("kept", current.getNameTask());
+        assertEquals(TaskStatus.TO_DO, current.getStatusTask());
+        assertTrue(store.existsById(deleted.getId()));
+        assertEquals(2, store.count());
+        assertEquals(2, store.countByStatusTask(TaskStatus.TO_DO));
+    }
+
+    private EmbeddedTaskStore open() throws IOException {
+        EmbeddedTaskStore opened = new EmbeddedTaskStore(directory.toString(), false, 64, Duration.ofHours(1), 16);
+        opened.open();
+        return opened;
+    }
+
+    private static TaskEntity task(String name, TaskStatus status) {
+        TaskEntity task = new TaskEntity();
+        task.setNameTask(name);
+        task.setStatusTask(status);
+        return task;
+    }
+
+    /**
+     * Менеджер транзакций без собственного ресурса: только синхронизации, которые и использует хранилище
+     */
+    private static final class SynchronizationOnlyTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*Предварительное сжатие статических ресурсов при сборке (запускается из web2/pom.xml, maven-antrun-plugin):
+Для каждого css/js/html/svg в каталоге рядом кладутся копии styles.css.gz (gzip, максимальное сжатие)
+ и styles.css.br (brotli, качество 11). Сжатие выполняется в JVM сборки: gzip — java.util.zip,
+ brotli — библиотекой brotli4j, поэтому утилиты gzip и brotli в PATH не нужны.
+Любая ошибка завершает процесс с ненулевым кодом и останавливает сборку.
+ * */
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+public class Precompress {
+
+    private static final List<String> EXTENSIONS = List.of(".css", ".js", ".html", ".svg");
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args[0]);
+        if (!Files.isDirectory(root)) {
+            return; // статических ресурсов нет
+        }
+        Brotli4jLoader.ensureAvailability();
+        Encoder.Parameters brotli = new Encoder.Parameters().setQuality(11);
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(path -> EXTENSIONS.stream().anyMatch(path.getFileName().toString()::endsWith))
+                    .toList();
+        }
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(sibling(file, ".gz"))) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                out.write(content);
+            }
+            Files.write(sibling(file, ".br"), Encoder.compress(content, brotli));
+        }
+        System.out.println("Precompressed " + files.size() + " static resources in " + root);
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+}
@@ -0,0 +1,101 @@
+package com.taskmanager2.novak.web2.advice;
+
+/*Единая обработка ошибок REST API:
+Ошибки сервисов приходят прикладными исключениями из common2 (не найдено, неверный ввод, конфликт,
+ запрещённый роли переход статуса, слишком большое тело),
+ и здесь по типу исключения выбирается HTTP-статус. Ответ — RFC 7807 (application/problem+json):
+ status, title, detail (текст ошибки) и instance (путь запроса).
+Прикладные исключения не собирают стек, поэтому поток неверных запросов не тратит время на заполнение стека,
+ а контроллерам не нужны собственные try/catch.
+Стандартные ошибки Spring MVC (нет параметра, неверный тип параметра и т.п.) обрабатывает
+ базовый ResponseEntityExceptionHandler в том же формате.
+Непредвиденные исключения сюда не попадают и обрабатываются Spring Boot как ошибка 500 — в том числе
+ IllegalArgumentException: это ошибка программы или конфигурации, а неверный ввод сервисы сообщают
+ через InvalidRequestException.
+ * */
+
+import com.taskmanager2.novak.common2.exception.ConflictException;
+import com.taskmanager2.novak.common2.exception.ForbiddenTransitionException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.common2.exception.PayloadTooLargeException;
+import com.taskmanager2.novak.common2.exception.TaskManagerException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import java.net.URI;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+@RestControllerAdvice
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    @ExceptionHandler(TaskManagerException.class)
+    public ResponseEntity<ProblemDetail> handleTaskManagerException(TaskManagerException e, HttpServletRequest request) {
+        return problem(statusOf(e), e.getMessage(), request);
+    }
+
+    // Нарушения @Valid в параметрах методов сервисов
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ProblemDetail> handleConstraintViolation(ConstraintViolationException e,
+                                                                   HttpServletRequest request) {
+        String detail = e.getConstraintViolations().stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+        return problem(HttpStatus.BAD_REQUEST, detail, request);
+    }
+
+    // Перегрузка конвейера записи: клиенту стоит повторить запрос позже
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ProblemDetail> handleRejected(RejectedExecutionException e, HttpServletRequest request) {
+        return problem(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), request);
+    }
+
+    // Ошибки асинхронных операций (конвейер записи) приходят обёрнутыми; разбираем по причине
+    @ExceptionHandler(CompletionException.class)
+    public ResponseEntity<ProblemDetail> handleCompletion(CompletionException e, HttpServletRequest request)
+            throws Throwable {
+        Throwable cause = e.getCause();
+        if (cause instanceof TaskManagerException taskManagerException) {
+            return handleTaskManagerException(taskManagerException, request);
+        }
+        if (cause instanceof ConstraintViolationException violation) {
+            return handleConstraintViolation(violation, request);
+        }
+        if (cause instanceof RejectedExecutionException rejected) {
+            return handleRejected(rejected, request);
+        }
+        throw cause != null ? cause : e;
+    }
+
+    private static HttpStatus statusOf(TaskManagerException e) {
+        if (e instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof ConflictException) {
+            return HttpStatus.CONFLICT;
+        }
+        if (e instanceof ForbiddenTransitionException) {
+            return HttpStatus.FORBIDDEN;
+        }
+        if (e instanceof PayloadTooLargeException) {
+            return HttpStatus.PAYLOAD_TOO_LARGE;
+        }
+        // InvalidRequestException и прочие ошибки ввода
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, String detail, HttpServletRequest request) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setInstance(URI.create(request.getRequestURI()));
+        return ResponseEntity.status(status).body(problem);
+    }
+}
@@ -0,0 +1,56 @@
+package com.taskmanager2.novak.web2.config;
+
+/*Двоичные форматы ответов REST API:
+Помимо JSON, эндпоинты, возвращающие объекты (списки задач, пользователей), умеют отвечать в CBOR (application/cbor)
+ и Smile (application/x-jackson-smile). Формат выбирается клиентом через заголовок Accept,
+ без заголовка ответ остаётся в JSON.
+Конвертеры объявлены бинами: Spring Boot подставляет их вместо стандартных конвертеров того же типа.
+Перечисления (TaskStatus, RoleType) в двоичных форматах пишутся порядковыми номерами, а не строками.
+Ответ пишется потоковым генератором Jackson прямо в выходной поток, без промежуточного буфера.
+Все три конвертера (включая JSON) отмечают время сериализации для заголовка Server-Timing (см. TimedConverters).
+ * */
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.taskmanager2.novak.web2.timing.TimedConverters;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class BinaryCodecConfig {
+
+    // Конвертер CBOR (RFC 8949) на основе настроек Jackson приложения
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            ObjectProvider<Jackson2ObjectMapperBuilder> builder) {
+        return TimedConverters.cbor(binary(builder.getObject()).factory(new CBORFactory()).build());
+    }
+
+    // Конвертер Smile (двоичный JSON Jackson)
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+            ObjectProvider<Jackson2ObjectMapperBuilder> builder) {
+        return TimedConverters.smile(binary(builder.getObject()).factory(new SmileFactory()).build());
+    }
+
+    // Конвертер JSON с общим ObjectMapper приложения; заменяет стандартный конвертер Spring Boot
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return TimedConverters.json(objectMapper);
+    }
+
+    // Общие настройки двоичных форматов: перечисления как порядковые номера
+    private static Jackson2ObjectMapperBuilder binary(Jackson2ObjectMapperBuilder builder) {
+        return builder
+                .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .featuresToDisable(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS);
+    }
+}
@@ -0,0 +1,111 @@
+package com.taskmanager2.novak.web2.config;
+
+/*Регистрация сервлетных фильтров веб-слоя:
+Здесь собраны фильтры, которые оборачивают запросы к REST API, и их порядок относительно цепочки Spring Security.
+ * */
+
+import com.taskmanager2.novak.service2.idempotency.IdempotencyStore;
+import com.taskmanager2.novak.web2.filter.CompressionFilter;
+import com.taskmanager2.novak.web2.filter.DeflaterPool;
+import com.taskmanager2.novak.web2.idempotency.IdempotencyFilter;
+import com.taskmanager2.novak.web2.limit.Bulkhead;
+import com.taskmanager2.novak.web2.limit.Bulkheads;
+import com.taskmanager2.novak.web2.limit.ConcurrencyLimitFilter;
+import com.taskmanager2.novak.web2.limit.StaleSnapshots;
+import com.taskmanager2.novak.web2.timing.SecurityTimingFilter;
+import com.taskmanager2.novak.web2.timing.ServerTimingFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumSet;
+
+@Configuration
+public class FilterConfig {
+
+    // Сжатие ответов /api/* больше порога; выполняется после Spring Security (порядок 0 > -100)
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(
+            @Value("${taskmanager.compression.min-response-size:2048}") int minResponseSize,
+            @Value("${taskmanager.compression.pool-size:64}") int poolSize,
+            @Value("${taskmanager.compression.level:6}") int level) {
+        FilterRegistrationBean<CompressionFilter> registration = new FilterRegistrationBean<>(
+                new CompressionFilter(new DeflaterPool(poolSize, level), minResponseSize));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(0);
+        return registration;
+    }
+
+    // Ключи идемпотентности изменяющих запросов к задачам; после Spring Security и сжатия, но до лимита параллельности
+    // (порядок 5): повторы с готовым ответом и ждущие повторы не занимают места в отсеке
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore store,
+            @Value("${taskmanager.idempotency.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(store));
+        registration.addUrlPatterns("/api/tasks", "/api/tasks/*");
+        registration.setOrder(5);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    // Лимит параллельности входа и регистрации; POST /login обрабатывает сама цепочка Spring Security,
+    // поэтому фильтр стоит до неё (порядок -101 < -100)
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> loginLimitFilter(
+            Bulkheads bulkheads, StaleSnapshots snapshots,
+            @Value("${taskmanager.limits.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(bulkheads, snapshots, EnumSet.of(Bulkhead.LOGIN)));
+        registration.addUrlPatterns("/login", "/register");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    // Лимиты параллельности задач и админки; после Spring Security (устаревшие ответы — только авторизованным)
+    // и после сжатия (снимается несжатое тело)
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            Bulkheads bulkheads, StaleSnapshots snapshots,
+            @Value("${taskmanager.limits.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(bulkheads, snapshots,
+                        EnumSet.of(Bulkhead.TASK_READ, Bulkhead.TASK_WRITE, Bulkhead.ADMIN)));
+        registration.addUrlPatterns("/tasks", "/api/*", "/admin/*");
+        registration.setOrder(10);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    // Замер фаз ответа REST API и заголовок Server-Timing; стоит первым, чтобы учесть всю цепочку безопасности
+    // и лимит параллельности входа (порядок -102)
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${taskmanager.timing.enabled:true}") boolean enabled,
+            @Value("${taskmanager.timing.log-sample-rate:0.01}") double sampleRate,
+            @Value("${taskmanager.timing.slow-threshold:1s}") Duration slowThreshold) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+                new ServerTimingFilter(sampleRate, slowThreshold.toNanos()));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    // Конец фазы security: сразу после цепочки Spring Security (порядок -99)
+    @Bean
+    public FilterRegistrationBean<SecurityTimingFilter> securityTimingFilter(
+            @Value("${taskmanager.timing.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<SecurityTimingFilter> registration =
+                new FilterRegistrationBean<>(new SecurityTimingFilter());
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
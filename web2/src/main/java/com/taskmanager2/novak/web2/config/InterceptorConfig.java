@@ -0,0 +1,29 @@
+package com.taskmanager2.novak.web2.config;
+
+/*Регистрация перехватчиков Spring MVC:
+RequestRecordingInterceptor записывает обработку запросов контроллерами в JFR (RequestHandlingEvent).
+ Отключается свойством taskmanager.jfr.request-events=false.
+ * */
+
+import com.taskmanager2.novak.web2.jfr.RequestRecordingInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class InterceptorConfig implements WebMvcConfigurer {
+
+    private final boolean requestEvents;
+
+    public InterceptorConfig(@Value("${taskmanager.jfr.request-events:true}") boolean requestEvents) {
+        this.requestEvents = requestEvents;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (requestEvents) {
+            registry.addInterceptor(new RequestRecordingInterceptor());
+        }
+    }
+}
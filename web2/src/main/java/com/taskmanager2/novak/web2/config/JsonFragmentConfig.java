@@ -0,0 +1,36 @@
+package com.taskmanager2.novak.web2.config;
+
+/*Ответы со списками задач в JSON из кэша готовых фрагментов:
+Конвертер TaskJsonHttpMessageConverter ставится первым в список конвертеров Spring MVC, поэтому для JSON
+ тела TaskJsonBody пишет он, а не Jackson. Отключается свойством taskmanager.json-fragments.enabled=false —
+ тогда TaskJsonBody сериализует конвертер Jackson, и ответ остаётся тем же.
+ * */
+
+import com.taskmanager2.novak.web2.json.TaskJsonFragments;
+import com.taskmanager2.novak.web2.json.TaskJsonHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class JsonFragmentConfig implements WebMvcConfigurer {
+
+    private final TaskJsonFragments fragments;
+    private final boolean enabled;
+
+    public JsonFragmentConfig(TaskJsonFragments fragments,
+                              @Value("${taskmanager.json-fragments.enabled:true}") boolean enabled) {
+        this.fragments = fragments;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (enabled) {
+            converters.add(0, new TaskJsonHttpMessageConverter(fragments));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.taskmanager2.novak.web2.config;
+
+/*Раздача статических ресурсов (css, js):
+Имена файлов в ссылках дополняются хешем содержимого (styles-<md5>.css). Хеш считается один раз при первом
+ обращении и кешируется, поэтому любая правка файла меняет URL, а старые URL можно кешировать навсегда.
+Только такие ответы получают заголовок Cache-Control: max-age=365d, public, immutable — если хеш в имени совпадает
+ с хешем текущего файла (ResourceUrlProvider); URL с устаревшим или неверным хешем (404) навсегда не кешируется. Ответы на URL без хеша (старые ссылки, закешированные
+ клиентами, и страницы, ссылающиеся на ресурсы напрямую) получают no-cache: клиент каждый раз сверяет
+ Last-Modified и после выкладки получает новую версию.
+Шаблоны Thymeleaf пишут ссылки через @{...}, а ResourceUrlEncodingFilter подменяет их на имена с хешем.
+Если клиент принимает br или gzip и рядом с файлом лежит сжатая при сборке копия (.br/.gz),
+ отдаётся она (см. maven-antrun-plugin в web2/pom.xml и web2/src/build/Precompress.java).
+ * */
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    // Каталоги внутри classpath:/static/, раздаваемые с хешем в имени
+    private static final String[] ASSET_DIRECTORIES = {"css", "js"};
+
+    // Имя файла с хешем содержимого, который добавляет VersionResourceResolver (md5 в hex): styles-<md5>.css
+    private static final Pattern FINGERPRINTED = Pattern.compile("-[0-9a-f]{32}(\\.[^/]+)$");
+
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+            .getHeaderValue();
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    // Версионные URL ресурсов (mvcResourceUrlProvider создаётся позже этой конфигурации, поэтому берётся лениво)
+    private final ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+
+    public StaticResourceConfig(ObjectProvider<ResourceUrlProvider> resourceUrlProvider) {
+        this.resourceUrlProvider = resourceUrlProvider;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : ASSET_DIRECTORIES) {
+            registerAssets(registry, directory);
+        }
+    }
+
+    // Cache-Control ставит перехватчик: у обработчика ресурсов одна политика на весь каталог
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        String[] patterns = new String[ASSET_DIRECTORIES.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = "/" + ASSET_DIRECTORIES[i] + "/**";
+        }
+        registry.addInterceptor(new AssetCacheControlInterceptor(resourceUrlProvider)).addPathPatterns(patterns);
+    }
+
+    private static void registerAssets(ResourceHandlerRegistry registry, String directory) {
+        registry.addResourceHandler("/" + directory + "/**")
+                .addResourceLocations("classpath:/static/" + directory + "/")
+                .resourceChain(true)
+                // Сжатые копии ищутся первыми, чтобы хеш считался по исходному файлу
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // Подмена ссылок на ресурсы в шаблонах на версии с хешем
+    @Bean
+    public FilterRegistrationBean<ResourceUrlEncodingFilter> resourceUrlEncodingFilter() {
+        FilterRegistrationBean<ResourceUrlEncodingFilter> registration =
+                new FilterRegistrationBean<>(new ResourceUrlEncodingFilter());
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    /**
+     * Навсегда кешируются только URL с хешем текущего содержимого; остальные клиент перепроверяет при каждом обращении.
+     * Обработчик ресурсов без своей политики заголовок Cache-Control не перезаписывает.
+     */
+    private static final class AssetCacheControlInterceptor implements HandlerInterceptor {
+
+        private final ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+
+        AssetCacheControlInterceptor(ObjectProvider<ResourceUrlProvider> resourceUrlProvider) {
+            this.resourceUrlProvider = resourceUrlProvider;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, isCurrentVersion(request) ? IMMUTABLE : REVALIDATE);
+            return true;
+        }
+
+        // URL с хешем, совпадающим с хешем текущего файла (хеши кешируются цепочкой резолверов)
+        private boolean isCurrentVersion(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            Matcher matcher = FINGERPRINTED.matcher(path);
+            if (!matcher.find()) {
+                return false;
+            }
+            String unversioned = path.substring(0, matcher.start()) + matcher.group(1);
+            return path.equals(resourceUrlProvider.getObject().getForLookupPath(unversioned));
+        }
+    }
+}
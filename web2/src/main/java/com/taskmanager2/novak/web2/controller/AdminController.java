@@ -5,37 +5,51 @@ package com.taskmanager2.novak.web2.controller;
 Работает как традиционный MVC-контроллер (возвращает имена шаблонов)
 И как REST-контроллер (через аннотации @ResponseBody)
 Безопасность:
-Критические методы защищены @PreAuthorize
+Доступ проверяет таблица маршрутов security2 (RoutePermissions) до вызова контроллера
 Доступ к API только для роли ADMIN
 Обработка ошибок:
-Все методы имеют try-catch блоки
-Возвращают понятные сообщения об ошибках
+Исключения сервисов преобразует в ответы RFC 7807 (problem+json) единый обработчик ApiExceptionHandler
 Организация endpoints:
 /admin/* - для страниц админ-панели
 /api/users/* - для REST API работы с пользователями
+/api/users/page - постраничный список пользователей с поиском по префиксу имени и фильтром по роли
+/api/admin/audit - чтение журнала аудита за период
 Работа с данными:
 Использует UserService для бизнес-логики
 Передает данные в представления через Model
 Контроллер обеспечивает как отображение административных страниц, так и REST API для управления пользователями,
  с соблюдением требований безопасности.*/
 
+import com.taskmanager2.novak.service2.audit.AuditJournal;
+import com.taskmanager2.novak.service2.dto.UserPage;
 import com.taskmanager2.novak.service2.service.UserService;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
+
 @Controller // Помечает класс как Spring MVC Controller
 public class AdminController {
 
     // Сервис для работы с пользователями
     private final UserService userService;
 
-    // Конструктор с внедрением зависимости UserService
-    public AdminController(UserService userService) {
+    // Журнал аудита изменений
+    private final AuditJournal auditJournal;
+
+    // Максимальное число записей аудита в одном ответе
+    private static final int MAX_AUDIT_RECORDS = 10_000;
+
+    // Размер страницы пользователей по умолчанию
+    private static final int DEFAULT_USER_PAGE_SIZE = 50;
+
+    // Конструктор с внедрением зависимостей
+    public AdminController(UserService userService, AuditJournal auditJournal) {
         this.userService = userService;
+        this.auditJournal = auditJournal;
     }
 
     /**
@@ -48,12 +62,13 @@ public class AdminController {
     }
 
     /**
-     * Обработчик GET запроса для отображения страницы задач в админке
-     * @return имя шаблона страницы taskView.html
+     * Обработчик GET запроса для отображения страницы задач в админке.
+     * Перенаправляет запрос внутри сервера на /tasks, где рендерится первая страница задач.
+     * @return forward на страницу задач
      */
     @GetMapping("/admin/tasks")
     public String showAdminTasksView() {
-        return "taskView";
+        return "forward:/tasks";
     }
 
     /**
@@ -63,28 +78,41 @@ public class AdminController {
      */
     @GetMapping("/admin/users")
     public String showAdminUsersView(Model model) {
-        // Добавляем список всех пользователей в модель
-        model.addAttribute("users", userService.getAllUsers());
+        // Добавляем первую страницу пользователей в модель; следующие подгружаются через /api/users/page
+        UserPage page = userService.getUsersPage(null, null, null, DEFAULT_USER_PAGE_SIZE);
+        model.addAttribute("users", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("userTotal", page.total());
         return "userView";
     }
 
     /**
      * REST endpoint для получения списка всех пользователей (только для ADMIN)
-     * @return ResponseEntity со списком пользователей или сообщением об ошибке
+     * @return ResponseEntity со списком пользователей
      */
     @GetMapping("/api/users")
     @ResponseBody // Указывает, что возвращаемый объект должен быть преобразован в тело ответа
-    @PreAuthorize("hasRole('ADMIN')") // Разрешает доступ только пользователям с ролью ADMIN
     public ResponseEntity<?> getAllUsers() {
-        try {
-            // Возвращаем список пользователей с HTTP статусом 200 OK
-            return ResponseEntity.ok(userService.getAllUsers());
-        } catch (Exception e) {
-            // В случае ошибки возвращаем HTTP статус 500 с сообщением об ошибке
-            return ResponseEntity
-                .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("Error fetching users: " + e.getMessage());
-        }
+        // Возвращаем список пользователей с HTTP статусом 200 OK
+        return ResponseEntity.ok(userService.getAllUsers());
+    }
+
+    /**
+     * REST endpoint для постраничного получения пользователей (только для ADMIN)
+     * @param prefix начало имени пользователя (без учёта регистра)
+     * @param role роль пользователя без префикса ROLE_
+     * @param after курсор nextCursor предыдущей страницы
+     * @param size размер страницы
+     * @return ResponseEntity со страницей пользователей
+     */
+    @GetMapping("/api/users/page")
+    @ResponseBody
+    public ResponseEntity<?> getUsersPage(
+        @RequestParam(required = false) String prefix,
+        @RequestParam(required = false) String role,
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "" + DEFAULT_USER_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(userService.getUsersPage(prefix, role, after, size));
     }
 
     /**
@@ -94,16 +122,28 @@ public class AdminController {
      */
     @DeleteMapping("/api/users/{id}")
     @ResponseBody
-    @PreAuthorize("hasRole('ADMIN')") // Разрешает доступ только пользователям с ролью ADMIN
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        try {
-            // Удаляем пользователя
-            userService.deleteUser(id);
-            // Возвращаем сообщение об успешном удалении
-            return ResponseEntity.ok("User deleted successfully");
-        } catch (Exception e) {
-            // В случае ошибки возвращаем HTTP статус 400 с сообщением об ошибке
-            return ResponseEntity.badRequest().body("Error deleting user: " + e.getMessage());
-        }
+        // Удаляем пользователя; если его нет, обработчик ошибок вернёт 404
+        userService.deleteUser(id);
+        // Возвращаем сообщение об успешном удалении
+        return ResponseEntity.ok("User deleted successfully");
+    }
+
+    /**
+     * REST endpoint для чтения журнала аудита за период (только для ADMIN)
+     * @param from начало периода в формате ISO-8601 (по умолчанию — сутки назад)
+     * @param to конец периода в формате ISO-8601 (по умолчанию — сейчас)
+     * @param limit максимальное число записей
+     * @return ResponseEntity со списком записей аудита
+     */
+    @GetMapping("/api/admin/audit")
+    @ResponseBody
+    public ResponseEntity<?> getAuditRecords(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(defaultValue = "1000") int limit) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        return ResponseEntity.ok(auditJournal.scan(start, end, Math.min(limit, MAX_AUDIT_RECORDS)));
     }
 }
\ No newline at end of file
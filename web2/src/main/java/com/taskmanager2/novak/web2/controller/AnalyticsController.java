@@ -0,0 +1,85 @@
+package com.taskmanager2.novak.web2.controller;
+
+/*
+ Контроллер аналитики задач:
+Время цикла и время в статусах, пропускная способность по дням и незавершённая работа за произвольный период
+ (границы — ISO-8601, например 2024-05-01T00:00:00Z; по умолчанию последние 30 дней), а также история переходов
+ одной задачи.
+Отчёты считаются в памяти узла по журналу переходов task_transitions.
+Доступен директору и экономисту.
+Ошибки параметров преобразует в ответы problem+json ApiExceptionHandler.*/
+
+import com.taskmanager2.novak.service2.service.AnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@Controller // Аннотация, объявляющая класс как Spring MVC Controller
+public class AnalyticsController {
+
+    // Сервис аналитики задач
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Время цикла (IN_PROGRESS → DONE), время от создания до DONE и время в каждом статусе: процентили в миллисекундах
+     * @param from Начало периода (включительно)
+     * @param to Конец периода (не включается), по умолчанию текущий момент
+     * @return ResponseEntity с отчётом
+     */
+    @GetMapping("/api/analytics/cycle-time")
+    @ResponseBody
+    public ResponseEntity<?> getCycleTime(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to) {
+        return ResponseEntity.ok(analyticsService.getCycleTime(from, to));
+    }
+
+    /**
+     * Число задач, переведённых в DONE, по дням
+     * @param from Начало периода (включительно)
+     * @param to Конец периода (не включается)
+     * @param zone Часовой пояс для границ дней (по умолчанию UTC)
+     * @return ResponseEntity с отчётом
+     */
+    @GetMapping("/api/analytics/throughput")
+    @ResponseBody
+    public ResponseEntity<?> getThroughput(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) String zone) {
+        return ResponseEntity.ok(analyticsService.getThroughput(from, to, zone));
+    }
+
+    /**
+     * Число задач в TO_DO и IN_PROGRESS в моменты с заданным шагом
+     * @param from Первый момент
+     * @param to Граница последнего момента
+     * @param step Шаг (1d, 6h, PT30M; по умолчанию 1d)
+     * @return ResponseEntity с отчётом
+     */
+    @GetMapping("/api/analytics/wip")
+    @ResponseBody
+    public ResponseEntity<?> getWorkInProgress(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) String step) {
+        return ResponseEntity.ok(analyticsService.getWorkInProgress(from, to, step));
+    }
+
+    /**
+     * История переходов задачи между статусами
+     * @param id ID задачи
+     * @return ResponseEntity со списком переходов
+     */
+    @GetMapping("/api/analytics/tasks/{id}/transitions")
+    @ResponseBody
+    public ResponseEntity<?> getTaskTransitions(@PathVariable Long id) {
+        return ResponseEntity.ok(analyticsService.getTaskTransitions(id));
+    }
+}
@@ -0,0 +1,54 @@
+package com.taskmanager2.novak.web2.controller;
+
+/*
+ Контроллер архива задач:
+Только чтение: архив пополняется фоновым переносом завершённых задач, изменять его через API нельзя.
+Постраничная выдача по курсору (id), как у основного списка задач.
+Доступен всем ролям, которым доступен список задач.
+Ошибки преобразует в ответы problem+json ApiExceptionHandler.*/
+
+import com.taskmanager2.novak.service2.service.ArchiveService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+@Controller // Аннотация, объявляющая класс как Spring MVC Controller
+public class ArchiveController {
+
+    // Сервис чтения архива задач
+    private final ArchiveService archiveService;
+
+    // Размер страницы по умолчанию
+    private static final int PAGE_SIZE = 50;
+
+    public ArchiveController(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * REST endpoint для постраничного получения архивных задач по курсору
+     * @param after Курсор — id последней задачи предыдущей страницы (не задан для первой страницы)
+     * @param size Размер страницы
+     * @param status Необязательный фильтр по статусу
+     * @return ResponseEntity со страницей архивных задач
+     */
+    @GetMapping("/api/archive/tasks")
+    @ResponseBody
+    public ResponseEntity<?> getArchivedTasks(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "" + PAGE_SIZE) int size,
+        @RequestParam(required = false) String status) {
+        return ResponseEntity.ok(archiveService.getArchivedTasksPage(after, size, status));
+    }
+
+    /**
+     * REST endpoint для получения архивной задачи по id
+     * @param id ID задачи
+     * @return ResponseEntity с архивной задачей
+     */
+    @GetMapping("/api/archive/tasks/{id}")
+    @ResponseBody
+    public ResponseEntity<?> getArchivedTask(@PathVariable Long id) {
+        return ResponseEntity.ok(archiveService.getArchivedTask(id));
+    }
+}
@@ -0,0 +1,258 @@
+package com.taskmanager2.novak.web2.controller;
+
+/*
+ Контроллер вложений задач:
+Файл загружается сырым телом запроса (не multipart): имя — из заголовка Content-Disposition (filename)
+ или параметра name, тип — из Content-Type. Тело читается потоком прямо в хранилище, без накопления в памяти.
+Отдача поддерживает условные запросы (ETag — хэш содержимого, Last-Modified — время загрузки) и один диапазон
+ Range (с If-Range); несколько диапазонов в одном запросе отдаются как весь файл.
+Файл отдаётся без копирования через память приложения: под Tomcat — sendfile (файл в сокет передаёт сам контейнер),
+ иначе и для маленьких файлов — FileChannel.transferTo в поток ответа.
+Чтение — всем, кому доступен список задач; загрузка и удаление — тем, кто может изменять задачи.
+Ошибки преобразует в ответы problem+json ApiExceptionHandler.*/
+
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.common2.exception.NotFoundException;
+import com.taskmanager2.novak.common2.exception.PayloadTooLargeException;
+import com.taskmanager2.novak.service2.attachment.AttachmentFile;
+import com.taskmanager2.novak.service2.attachment.AttachmentService;
+import com.taskmanager2.novak.service2.dto.AttachmentDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+@Controller // Аннотация, объявляющая класс как Spring MVC Controller
+public class AttachmentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentController.class);
+
+    // Атрибуты запроса, которыми Tomcat принимает файл для отправки через sendfile (конец диапазона не включается)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Наибольшая длина сохраняемого типа содержимого
+    private static final int MAX_CONTENT_TYPE_LENGTH = 255;
+
+    // Сервис вложений задач
+    private final AttachmentService attachmentService;
+
+    // С какого размера отдаваемого куска файл передаётся через sendfile
+    private final long sendfileMinBytes;
+
+    public AttachmentController(AttachmentService attachmentService,
+                                @Value("${taskmanager.attachments.sendfile-min-size:48KB}") DataSize sendfileMinSize) {
+        this.attachmentService = attachmentService;
+        this.sendfileMinBytes = sendfileMinSize.toBytes();
+    }
+
+    /**
+     * REST endpoint для загрузки вложения задачи
+     * @param taskId ID задачи
+     * @param request Запрос, тело которого — содержимое файла
+     * @return ResponseEntity с созданным вложением (201)
+     */
+    @PostMapping("/api/attachments/tasks/{taskId}")
+    @ResponseBody
+    public ResponseEntity<?> upload(@PathVariable long taskId, HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        String lowerType = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        // Тело формы контейнер разобрал бы в параметры; файл передаётся только сырым телом
+        if (lowerType.startsWith("multipart/") || lowerType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+            throw new InvalidRequestException("Send the file as the raw request body, not as a form");
+        }
+        if (request.getContentLengthLong() > attachmentService.maxSizeBytes()) {
+            throw new PayloadTooLargeException("Attachment", attachmentService.maxSizeBytes());
+        }
+        String fileName = request.getParameter("name");
+        if (fileName == null) {
+            fileName = fileNameOf(request.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        }
+        AttachmentDto created = attachmentService.upload(taskId, fileName, normalizeContentType(contentType),
+                request.getInputStream());
+        return ResponseEntity.created(URI.create("/api/attachments/" + created.id())).body(created);
+    }
+
+    /**
+     * REST endpoint для получения списка вложений задачи
+     * @param taskId ID задачи
+     * @return ResponseEntity со списком вложений
+     */
+    @GetMapping("/api/attachments/tasks/{taskId}")
+    @ResponseBody
+    public ResponseEntity<?> list(@PathVariable long taskId) {
+        return ResponseEntity.ok(attachmentService.list(taskId));
+    }
+
+    /**
+     * REST endpoint для получения содержимого вложения (целиком или одним диапазоном)
+     * @param id ID вложения
+     * @param request Запрос (условные заголовки, Range)
+     * @param response Ответ, в который передаётся файл
+     */
+    @RequestMapping(value = "/api/attachments/{id}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        AttachmentFile file = attachmentService.open(id);
+        AttachmentDto attachment = file.attachment();
+        if (!Files.isRegularFile(file.path())) {
+            logger.error("Content of attachment {} is missing: {}", id, file.path());
+            throw new NotFoundException("Attachment content", id);
+        }
+
+        // Содержимое по хэшу неизменно, поэтому ETag — сам хэш, а время загрузки — Last-Modified
+        String etag = "\"" + attachment.sha256() + "\"";
+        long lastModified = attachment.createdAt().toEpochMilli();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(attachment.fileName()));
+        response.setContentType(attachment.contentType());
+
+        long length = attachment.size();
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(request, etag, lastModified, length);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Файл в сокет передаст Tomcat после выхода из обработчика, минуя память приложения
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * REST endpoint для удаления вложения
+     * @param id ID вложения
+     * @return ResponseEntity без тела (204)
+     */
+    @DeleteMapping("/api/attachments/{id}")
+    @ResponseBody
+    public ResponseEntity<?> delete(@PathVariable long id) {
+        attachmentService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Единственный диапазон из Range, если он применим; null — отдавать файл целиком
+    private static HttpRange singleRange(HttpServletRequest request, String etag, long lastModified, long length) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || length == 0 || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            // Неразборчивый Range игнорируется (RFC 9110, 14.2)
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    // If-Range: диапазон отдаётся, только если файл не изменился (сильное сравнение ETag или точная дата)
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Имя в кодировке RFC 5987 (filename*) добавляется, только если в нём есть не-ASCII символы
+    private static String contentDisposition(String fileName) {
+        ContentDisposition.Builder builder = ContentDisposition.attachment();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)) {
+            builder.filename(fileName);
+        } else {
+            builder.filename(fileName, StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+
+    private static String fileNameOf(String contentDisposition) {
+        if (contentDisposition == null) {
+            return null;
+        }
+        try {
+            return ContentDisposition.parse(contentDisposition).getFilename();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Malformed Content-Disposition header");
+        }
+    }
+
+    private static String normalizeContentType(String contentType) {
+        if (contentType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        try {
+            String normalized = MediaType.parseMediaType(contentType).toString();
+            return normalized.length() <= MAX_CONTENT_TYPE_LENGTH ? normalized : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+}
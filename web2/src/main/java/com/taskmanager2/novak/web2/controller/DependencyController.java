@@ -0,0 +1,95 @@
+package com.taskmanager2.novak.web2.controller;
+
+/*
+ Контроллер зависимостей между задачами:
+Зависимость задаётся парой blocker (задача, которую нужно завершить раньше) и blocked (задача, которая её ждёт).
+ Зависимость, которая замкнула бы цикл, отклоняется (409).
+Готовые к работе задачи (TO_DO без незавершённых блокирующих задач) отдаются страницами по курсору в том же формате,
+ что и /api/tasks/page; критический путь — самая длинная цепочка незавершённых задач, связанных зависимостями.
+Чтение — всем, кому доступен список задач; добавление и удаление зависимостей — тем, кто может изменять задачи.
+Ошибки преобразует в ответы problem+json ApiExceptionHandler.*/
+
+import com.taskmanager2.novak.service2.dependency.DependencyService;
+import com.taskmanager2.novak.service2.dto.DependencyDto;
+import com.taskmanager2.novak.web2.json.TaskJsonBody;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@Controller // Аннотация, объявляющая класс как Spring MVC Controller
+public class DependencyController {
+
+    // Размер страницы готовых задач по умолчанию
+    private static final int PAGE_SIZE = 50;
+
+    // Сервис зависимостей между задачами
+    private final DependencyService dependencyService;
+
+    public DependencyController(DependencyService dependencyService) {
+        this.dependencyService = dependencyService;
+    }
+
+    /**
+     * REST endpoint для добавления зависимости
+     * @param blocker ID задачи, которую нужно завершить раньше
+     * @param blocked ID задачи, которая её ждёт
+     * @return ResponseEntity с добавленной зависимостью (201)
+     */
+    @PostMapping("/api/dependencies")
+    @ResponseBody
+    public ResponseEntity<?> addDependency(@RequestParam long blocker, @RequestParam long blocked) {
+        DependencyDto created = dependencyService.addDependency(blocker, blocked);
+        return ResponseEntity.created(URI.create("/api/dependencies/tasks/" + blocked)).body(created);
+    }
+
+    /**
+     * REST endpoint для удаления зависимости
+     * @param blocker ID задачи, которую нужно было завершить раньше
+     * @param blocked ID задачи, которая её ждала
+     * @return ResponseEntity без тела (204)
+     */
+    @DeleteMapping("/api/dependencies")
+    @ResponseBody
+    public ResponseEntity<?> removeDependency(@RequestParam long blocker, @RequestParam long blocked) {
+        dependencyService.removeDependency(blocker, blocked);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * REST endpoint для получения зависимостей задачи
+     * @param id ID задачи
+     * @return ResponseEntity с задачами, которых она ждёт, и задачами, которые ждут её
+     */
+    @GetMapping("/api/dependencies/tasks/{id}")
+    @ResponseBody
+    public ResponseEntity<?> getDependencies(@PathVariable long id) {
+        return ResponseEntity.ok(dependencyService.getDependencies(id));
+    }
+
+    /**
+     * REST endpoint для постраничного получения готовых к работе задач
+     * @param after Курсор — nextCursor предыдущей страницы (не задан для первой страницы)
+     * @param size Размер страницы
+     * @return ResponseEntity со страницей задач
+     */
+    @GetMapping("/api/dependencies/ready")
+    @ResponseBody
+    public ResponseEntity<?> getReadyTasks(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "" + PAGE_SIZE) int size) {
+        return ResponseEntity.ok(TaskJsonBody.of(dependencyService.getReadyTasks(after, size)));
+    }
+
+    /**
+     * REST endpoint для получения критического пути
+     * @param limit Сколько задач пути вернуть (с начала пути); длина пути возвращается полной
+     * @return ResponseEntity с длиной пути и его задачами
+     */
+    @GetMapping("/api/dependencies/critical-path")
+    @ResponseBody
+    public ResponseEntity<?> getCriticalPath(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(dependencyService.getCriticalPath(limit));
+    }
+}
@@ -0,0 +1,102 @@
+package com.taskmanager2.novak.web2.controller;
+
+/*
+ Контроллер импорта задач из файлов:
+Файл передаётся телом запроса (CSV или NDJSON, при Content-Encoding: gzip — сжатый) и читается потоком,
+ без сохранения на диск и без загрузки в память целиком.
+Импорт синхронный: ответ приходит, когда файл обработан. Прогресс во время загрузки виден
+ по GET /api/tasks/import/{jobId}, если id задания выбран клиентом заранее.
+Если загрузка оборвалась, тот же файл отправляется повторно с тем же jobId — обработанные строки пропускаются.
+Доступ — как к созданию задач: директор и админ.
+Ошибки преобразует в ответы problem+json ApiExceptionHandler.*/
+
+import com.taskmanager2.novak.common2.enums.ImportFormat;
+import com.taskmanager2.novak.common2.enums.ImportStatus;
+import com.taskmanager2.novak.common2.exception.InvalidRequestException;
+import com.taskmanager2.novak.persistence2.entity.ImportJobEntity;
+import com.taskmanager2.novak.service2.importer.TaskImporter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+@Controller // Аннотация, объявляющая класс как Spring MVC Controller
+public class ImportController {
+
+    // Сервис импорта задач
+    private final TaskImporter taskImporter;
+
+    public ImportController(TaskImporter taskImporter) {
+        this.taskImporter = taskImporter;
+    }
+
+    /**
+     * REST endpoint для импорта задач из файла
+     * @param format Формат файла: csv или ndjson
+     * @param jobId Id задания: новый (необязательно) или id прерванного задания для продолжения
+     * @param request Запрос, тело которого читается потоком
+     * @return ResponseEntity с состоянием задания (500, если задание завершилось ошибкой)
+     */
+    @PostMapping("/api/tasks/import")
+    @ResponseBody
+    public ResponseEntity<?> importTasks(
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) String jobId,
+        HttpServletRequest request) throws IOException {
+        ImportFormat importFormat = TaskImporter.parseFormat(format);
+        try (InputStream body = requestBody(request)) {
+            ImportJobEntity job = taskImporter.importTasks(jobId, importFormat, body);
+            HttpStatus status = job.getStatus() == ImportStatus.COMPLETED ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).body(job);
+        }
+    }
+
+    /**
+     * REST endpoint для получения прогресса задания импорта
+     * @param jobId Id задания
+     * @return ResponseEntity с состоянием задания
+     */
+    @GetMapping("/api/tasks/import/{jobId}")
+    @ResponseBody
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(taskImporter.getJob(jobId));
+    }
+
+    /**
+     * REST endpoint для получения отчёта об отклонённых строках
+     * @param jobId Id задания
+     * @param after Курсор — номер строки последней ошибки предыдущей страницы
+     * @param limit Размер страницы
+     * @return ResponseEntity со списком ошибок
+     */
+    @GetMapping("/api/tasks/import/{jobId}/errors")
+    @ResponseBody
+    public ResponseEntity<?> getImportErrors(
+        @PathVariable String jobId,
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(taskImporter.getErrors(jobId, after, limit));
+    }
+
+    // Тело запроса с учётом сжатия при передаче
+    private static InputStream requestBody(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || !encoding.equalsIgnoreCase("gzip")) {
+            return body;
+        }
+        try {
+            return new GZIPInputStream(body, 64 * 1024);
+        } catch (ZipException | EOFException e) { // не gzip или обрезанный заголовок
+            throw new InvalidRequestException("Request body is not valid gzip");
+        }
+    }
+}
@@ -2,11 +2,18 @@ package com.taskmanager2.novak.web2.controller;
 
 import com.taskmanager2.novak.common2.dto.UserDto; // Импорт DTO для пользователя
 import com.taskmanager2.novak.common2.enums.RoleType; // Импорт Enum для ролей пользователей
+import com.taskmanager2.novak.common2.exception.ConflictException; // Имя пользователя уже занято
+import com.taskmanager2.novak.common2.exception.TaskManagerException; // Прикладные ошибки (имя занято, неверная роль)
 import com.taskmanager2.novak.service2.service.UserService; // Импорт сервиса для работы с пользователями
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.ModelAndView;
 
 @Controller // Обозначает класс как контроллер Spring MVC
 public class RegistrationController {
@@ -37,13 +44,20 @@ public class RegistrationController {
         userDto.setPassword(password); // Устанавливаем пароль пользователя
         userDto.setRole(RoleType.VISITOR); // Устанавливаем роль пользователя как "VISITOR"
         
-        try {
-            // Попытка зарегистрировать пользователя через сервис
-            userService.registerUser(userDto);
-            return "redirect:/login?registered"; // Перенаправляем на страницу логина с параметром "registered"
-        } catch (Exception e) {
-            // В случае ошибки при регистрации перенаправляем на страницу регистрации с сообщением об ошибке
-            return "redirect:/register?error=" + e.getMessage(); 
-        }
+        // Регистрация пользователя через сервис; ошибки обрабатывает handleRegistrationError
+        userService.registerUser(userDto);
+        return "redirect:/login?registered"; // Перенаправляем на страницу логина с параметром "registered"
+    }
+
+    // Ошибка регистрации (имя занято, неверные данные): форма показывается снова с сообщением и введённым логином
+    // сразу в ответе на POST, без лишнего редиректа; статус ответа — 409 для занятого имени, 400 для остального.
+    // Обработчик контроллера имеет приоритет над общим ApiExceptionHandler, поэтому форма получает страницу, а не JSON
+    @ExceptionHandler({TaskManagerException.class, ConstraintViolationException.class})
+    public ModelAndView handleRegistrationError(RuntimeException e, HttpServletRequest request) {
+        HttpStatus status = e instanceof ConflictException ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+        ModelAndView view = new ModelAndView("register", status);
+        view.addObject("error", e.getMessage());
+        view.addObject("username", request.getParameter("username"));
+        return view;
     }
 }
@@ -6,32 +6,33 @@ package com.taskmanager2.novak.web2.controller;
 Совмещает MVC и REST подходы
 Имеет методы как для отображения страниц, так и для API
 Безопасность:
-Все методы защищены аннотациями @PreAuthorize
+Доступ к методам проверяет таблица маршрутов security2 (RoutePermissions) до вызова контроллера
 Разные уровни доступа для разных ролей
 Отдельный метод для проверки роли текущего пользователя
 Обработка ошибок:
-Единообразная обработка исключений
-Четкие сообщения об ошибках
-Использование ResponseStatusException для MVC методов
+Исключения сервисов не перехватываются в контроллере: их преобразует в ответы RFC 7807 (problem+json)
+ единый обработчик ApiExceptionHandler
 Полный CRUD:
 Создание, чтение, обновление и удаление задач
 Дополнительный метод для фильтрации по статусу
+Массовый перевод задач между статусами по условию (переходы, разрешённые роли, проверяет сервис)
 Работа с параметрами:
 Прием параметров через @RequestParam
 Работа с path переменными через @PathVariable
 Использование DTO для передачи данных
+Списки и страницы задач возвращаются как TaskJsonBody: в JSON их тело собирается из кэша готовых фрагментов
+ (TaskJsonFragments), в CBOR и Smile сериализуется как обычно
 Контроллер обеспечивает полный функционал для работы с задачами с учетом требований безопасности и удобства использования*/
 
 import com.taskmanager2.novak.common2.dto.TaskDto;
+import com.taskmanager2.novak.service2.dto.TaskPage;
 import com.taskmanager2.novak.service2.service.TaskService;
-import org.springframework.http.HttpStatus;
+import com.taskmanager2.novak.web2.json.TaskJsonBody;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
 @Controller // Аннотация, объявляющая класс как Spring MVC Controller
 public class TaskController {
@@ -39,74 +40,81 @@ public class TaskController {
     // Сервис для работы с задачами
     private final TaskService taskService;
 
+    // Размер страницы задач по умолчанию (первая страница рендерится на сервере)
+    private static final int PAGE_SIZE = 50;
+
     // Конструктор с внедрением зависимости TaskService
     public TaskController(TaskService taskService) {
         this.taskService = taskService;
     }
 
     /**
-     * Отображение страницы со списком задач
+     * Отображение страницы со списком задач.
+     * На сервере рендерится только первая страница; курсор следующей страницы, версия данных и роль
+     * встраиваются в разметку, и скрипт продолжает с них без повторной загрузки.
      * @param model Объект для передачи данных в представление
-     * @return Имя шаблона страницы TaskView
-     * @throws ResponseStatusException В случае ошибки при получении задач
+     * @param authentication Объект аутентификации Spring Security
+     * @return Имя шаблона страницы taskView
      */
     @GetMapping("/tasks")
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ECONOMIST', 'ACCOUNTANT', 'VISITOR', 'ADMIN')")
-    public String showTasks(Model model) {
-        try {
-            // Добавление списка задач в модель для отображения
-            model.addAttribute("tasks", taskService.getAllTasks());
-            return "TaskView";
-        } catch (Exception e) {
-            // Генерация исключения с HTTP статусом 500 при ошибке
-            throw new ResponseStatusException(
-                HttpStatus.INTERNAL_SERVER_ERROR,
-                "Error fetching tasks",
-                e
-            );
-        }
+    public String showTasks(Model model, Authentication authentication) {
+        // Добавление первой страницы задач в модель для отображения
+        TaskPage firstPage = taskService.getTasksPage(null, PAGE_SIZE, null);
+        model.addAttribute("tasks", firstPage.items());
+        model.addAttribute("nextCursor", firstPage.nextCursor());
+        model.addAttribute("dataVersion", firstPage.version());
+        model.addAttribute("taskTotal", firstPage.total());
+        model.addAttribute("pageSize", PAGE_SIZE);
+        model.addAttribute("currentRole", roleOf(authentication));
+        return "taskView";
     }
 
     /**
      * REST endpoint для получения всех задач
-     * @return ResponseEntity со списком задач или сообщением об ошибке
+     * @return ResponseEntity со списком задач
      */
     @GetMapping("/api/tasks")
     @ResponseBody // Указывает, что возвращаемый объект должен быть записан в тело HTTP-ответа
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ECONOMIST', 'ACCOUNTANT', 'VISITOR', 'ADMIN')")
     public ResponseEntity<?> getAllTasks() {
-        try {
-            return ResponseEntity.ok(taskService.getAllTasks());
-        } catch (Exception e) {
-            return ResponseEntity
-                .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("Error fetching tasks: " + e.getMessage());
-        }
+        return ResponseEntity.ok(TaskJsonBody.of(taskService.getAllTasks()));
+    }
+
+    /**
+     * REST endpoint для постраничного получения задач по курсору
+     * @param after Курсор — id последней задачи предыдущей страницы (не задан для первой страницы)
+     * @param size Размер страницы
+     * @param status Необязательный фильтр по статусу
+     * @return ResponseEntity со страницей задач
+     */
+    @GetMapping("/api/tasks/page")
+    @ResponseBody
+    public ResponseEntity<?> getTasksPage(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "" + PAGE_SIZE) int size,
+        @RequestParam(required = false) String status) {
+        return ResponseEntity.ok(TaskJsonBody.of(taskService.getTasksPage(after, size, status)));
     }
 
     /**
      * Создание новой задачи
      * @param nameTask Название задачи
      * @param statusTask Статус задачи
-     * @return ResponseEntity с созданной задачей или сообщением об ошибке
+     * @param dueAt Срок выполнения в ISO-8601 (необязательно)
+     * @return ResponseEntity с созданной задачей
      */
     @PostMapping("/api/tasks")
     @ResponseBody
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ADMIN')") // Только для директора и администратора
     public ResponseEntity<?> addTask(
         @RequestParam String nameTask,
-        @RequestParam String statusTask) {
+        @RequestParam String statusTask,
+        @RequestParam(required = false) String dueAt) {
         
-        try {
-            TaskDto taskDto = new TaskDto();
-            taskDto.setNameTask(nameTask);
-            taskDto.setStatusTask(statusTask);
-            return ResponseEntity.ok(taskService.createTask(taskDto));
-        } catch (Exception e) {
-            return ResponseEntity
-                .badRequest()
-                .body("Error creating task: " + e.getMessage());
-        }
+        TaskDto taskDto = new TaskDto();
+        taskDto.setNameTask(nameTask);
+        taskDto.setStatusTask(statusTask);
+        taskDto.setDueAt(dueAt);
+        // Ожидаем коммита: при включённом конвейере задача сохраняется пачкой вместе с соседними запросами
+        return ResponseEntity.ok(taskService.createTaskAsync(taskDto).join());
     }
 
     /**
@@ -114,26 +122,22 @@ public class TaskController {
      * @param id ID задачи для обновления
      * @param nameTask Новое название задачи
      * @param statusTask Новый статус задачи
-     * @return ResponseEntity с обновленной задачей или сообщением об ошибке
+     * @param dueAt Новый срок в ISO-8601; без параметра срок не меняется, пустое значение снимает срок
+     * @return ResponseEntity с обновленной задачей
      */
     @PutMapping("/api/tasks/{id}")
     @ResponseBody
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ADMIN')") // Только для директора и администратора
     public ResponseEntity<?> updateTask(
         @PathVariable Long id,
         @RequestParam String nameTask,
-        @RequestParam String statusTask) {
+        @RequestParam String statusTask,
+        @RequestParam(required = false) String dueAt) {
         
-        try {
-            TaskDto taskDto = new TaskDto();
-            taskDto.setNameTask(nameTask);
-            taskDto.setStatusTask(statusTask);
-            return ResponseEntity.ok(taskService.updateTask(id, taskDto));
-        } catch (Exception e) {
-            return ResponseEntity
-                .badRequest()
-                .body("Error updating task: " + e.getMessage());
-        }
+        TaskDto taskDto = new TaskDto();
+        taskDto.setNameTask(nameTask);
+        taskDto.setStatusTask(statusTask);
+        taskDto.setDueAt(dueAt);
+        return ResponseEntity.ok(taskService.updateTask(id, taskDto));
     }
 
     /**
@@ -143,53 +147,58 @@ public class TaskController {
      */
     @DeleteMapping("/api/tasks/{id}")
     @ResponseBody
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ECONOMIST', 'ADMIN')") // Для директора, экономиста и администратора
     public ResponseEntity<?> deleteTask(@PathVariable Long id) {
-        try {
-            taskService.deleteTask(id);
-            return ResponseEntity.ok("Task deleted successfully");
-        } catch (Exception e) {
-            return ResponseEntity
-                .badRequest()
-                .body("Error deleting task: " + e.getMessage());
-        }
+        taskService.deleteTask(id);
+        return ResponseEntity.ok("Task deleted successfully");
+    }
+
+    /**
+     * Массовый перевод задач между статусами по условию.
+     * Какие переходы разрешены роли, определяет таблица переходов сервиса (запрещённый переход — 403).
+     * @param from Текущий статус задач
+     * @param to Новый статус
+     * @param minId Необязательная нижняя граница id (включительно)
+     * @param maxId Необязательная верхняя граница id (включительно)
+     * @param namePrefix Необязательное начало названия задачи
+     * @return ResponseEntity с числом переведённых задач
+     */
+    @PostMapping("/api/tasks/transitions")
+    @ResponseBody
+    public ResponseEntity<?> transitionTasks(
+        @RequestParam String from,
+        @RequestParam String to,
+        @RequestParam(required = false) Long minId,
+        @RequestParam(required = false) Long maxId,
+        @RequestParam(required = false) String namePrefix) {
+        return ResponseEntity.ok(taskService.transitionTasks(from, to, minId, maxId, namePrefix));
     }
 
     /**
      * Фильтрация задач по статусу
      * @param status Статус для фильтрации
-     * @return ResponseEntity с отфильтрованным списком задач или сообщением об ошибке
+     * @return ResponseEntity с отфильтрованным списком задач
      */
     @GetMapping("/api/tasks/filter")
     @ResponseBody
-    @PreAuthorize("hasAnyRole('DIRECTOR', 'ECONOMIST', 'ACCOUNTANT', 'ADMIN')")
     public ResponseEntity<?> filterTasks(@RequestParam String status) {
-        try {
-            return ResponseEntity.ok(taskService.getTasksByStatus(status));
-        } catch (Exception e) {
-            return ResponseEntity
-                .badRequest()
-                .body("Error filtering tasks: " + e.getMessage());
-        }
+        return ResponseEntity.ok(TaskJsonBody.of(taskService.getTasksByStatus(status)));
     }
 
     /**
      * Получение роли текущего пользователя
      * @param authentication Объект аутентификации Spring Security
-     * @return ResponseEntity с ролью пользователя или сообщением об ошибке
+     * @return ResponseEntity с ролью пользователя
      */
     @GetMapping("/api/check-role")
     @ResponseBody
     public ResponseEntity<String> getCurrentUserRole(Authentication authentication) {
-        try {
-            // Получение роли пользователя из контекста безопасности
-            String role = authentication.getAuthorities().iterator().next()
-                    .getAuthority().replace("ROLE_", "");
-            return ResponseEntity.ok(role);
-        } catch (Exception e) {
-            return ResponseEntity
-                .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("Error getting user role");
-        }
+        // Получение роли пользователя из контекста безопасности
+        return ResponseEntity.ok(roleOf(authentication));
+    }
+
+    // Роль пользователя без префикса ROLE_
+    private static String roleOf(Authentication authentication) {
+        return authentication.getAuthorities().iterator().next()
+                .getAuthority().replace("ROLE_", "");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,345 @@
+package com.taskmanager2.novak.web2.filter;
+
+/*Сжатие ответов REST API на лету:
+Ответ сначала копится в небольшом буфере. Если он уложился в порог minResponseSize, то уходит как есть
+ (сжатие маленьких ответов стоит дороже выигрыша). Если порог превышен и клиент принимает gzip,
+ дальнейший вывод сжимается потоково, без накопления всего тела в памяти.
+Компрессоры берутся из DeflaterPool, а не создаются на каждый запрос.
+Уже закодированные ответы (Content-Encoding задан), ответы с поддержкой диапазонов (Accept-Ranges — файлы вложений)
+ и несжимаемые типы содержимого не трогаются.
+ * */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.Deflater;
+
+public class CompressionFilter extends OncePerRequestFilter {
+
+    // Заголовок gzip (RFC 1952): magic, метод deflate, без флагов и времени, ОС неизвестна
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    // Типы содержимого, которые имеет смысл сжимать
+    private static final String[] COMPRESSIBLE_TYPES = {
+            "application/json", "application/problem+json", "application/x-ndjson",
+            "application/cbor", "application/x-jackson-smile", "text/"
+    };
+
+    private final DeflaterPool deflaterPool;
+    private final int minResponseSize;
+
+    public CompressionFilter(DeflaterPool deflaterPool, int minResponseSize) {
+        this.deflaterPool = deflaterPool;
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponse wrapper = new CompressingResponse(response);
+        try {
+            chain.doFilter(request, wrapper);
+            wrapper.finish();
+        } finally {
+            wrapper.releaseDeflater();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip") && !acceptEncoding.contains("gzip;q=0");
+    }
+
+    /**
+     * Обёртка ответа, решающая по объёму вывода, сжимать ли его.
+     */
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        // Начало тела до принятия решения о сжатии
+        private byte[] pending;
+        private int pendingCount;
+
+        // Не null — ответ сжимается
+        private DeflaterPool.Entry entry;
+        private long uncompressedSize;
+
+        // true — решено отдавать без сжатия
+        private boolean passThrough;
+
+        // Длина, заявленная обработчиком; передаётся дальше, только если тело не сжимается
+        private long declaredContentLength = -1;
+
+        private ServletOutputStream rawStream;
+        private CompressingStream stream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (passThrough) {
+                super.setContentLengthLong(length);
+            } else {
+                declaredContentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (entry == null && !passThrough) {
+                pendingCount = 0;
+            }
+            super.resetBuffer();
+        }
+
+        private CompressingStream stream() {
+            if (stream == null) {
+                stream = new CompressingStream();
+            }
+            return stream;
+        }
+
+        private ServletOutputStream rawStream() throws IOException {
+            if (rawStream == null) {
+                rawStream = super.getOutputStream();
+            }
+            return rawStream;
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (entry != null) {
+                deflate(bytes, offset, length);
+                return;
+            }
+            if (passThrough) {
+                rawStream().write(bytes, offset, length);
+                return;
+            }
+            if (pendingCount + length <= minResponseSize) {
+                if (pending == null) {
+                    pending = new byte[minResponseSize];
+                }
+                System.arraycopy(bytes, offset, pending, pendingCount, length);
+                pendingCount += length;
+                return;
+            }
+
+            // Порог превышен: решаем один раз и выталкиваем накопленное
+            if (isCompressible()) {
+                entry = deflaterPool.acquire();
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                rawStream().write(GZIP_HEADER);
+                if (pendingCount > 0) {
+                    deflate(pending, 0, pendingCount);
+                }
+                deflate(bytes, offset, length);
+            } else {
+                passThrough = true;
+                if (declaredContentLength >= 0) {
+                    super.setContentLengthLong(declaredContentLength);
+                }
+                if (pendingCount > 0) {
+                    rawStream().write(pending, 0, pendingCount);
+                }
+                rawStream().write(bytes, offset, length);
+            }
+            pendingCount = 0;
+        }
+
+        private boolean isCompressible() {
+            int status = getStatus();
+            if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT) {
+                return false;
+            }
+            if (getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+                return false;
+            }
+            // Диапазоны отсчитываются по несжатому телу, а сжатие на лету мешает отдаче файла без копирования
+            if (getHeader(HttpHeaders.ACCEPT_RANGES) != null) {
+                return false;
+            }
+            String contentType = getContentType();
+            if (contentType == null) {
+                return false;
+            }
+            for (String type : COMPRESSIBLE_TYPES) {
+                if (contentType.startsWith(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void deflate(byte[] bytes, int offset, int length) throws IOException {
+            entry.crc.update(bytes, offset, length);
+            uncompressedSize += length;
+            Deflater deflater = entry.deflater;
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput()) {
+                int count = deflater.deflate(entry.buffer, 0, entry.buffer.length, Deflater.NO_FLUSH);
+                if (count > 0) {
+                    rawStream().write(entry.buffer, 0, count);
+                }
+            }
+        }
+
+        private void syncFlush() throws IOException {
+            int count;
+            do {
+                count = entry.deflater.deflate(entry.buffer, 0, entry.buffer.length, Deflater.SYNC_FLUSH);
+                rawStream().write(entry.buffer, 0, count);
+            } while (count == entry.buffer.length);
+        }
+
+        // Завершение ответа: дописываем хвост сжатия или отдаём маленький ответ как есть
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (entry != null) {
+                Deflater deflater = entry.deflater;
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(entry.buffer);
+                    rawStream().write(entry.buffer, 0, count);
+                }
+                writeIntLE((int) entry.crc.getValue());
+                writeIntLE((int) uncompressedSize);
+            } else if (!passThrough) {
+                passThrough = true;
+                if (pendingCount > 0) {
+                    super.setContentLengthLong(pendingCount);
+                    rawStream().write(pending, 0, pendingCount);
+                } else if (declaredContentLength >= 0) {
+                    // Тело не шло через обёртку: ответ на HEAD или файл, который отправит сам контейнер (sendfile)
+                    super.setContentLengthLong(declaredContentLength);
+                }
+            }
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            ServletOutputStream out = rawStream();
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+
+        void releaseDeflater() {
+            if (entry != null) {
+                deflaterPool.release(entry);
+                entry = null;
+            }
+        }
+
+        /**
+         * Поток вывода, направляющий запись в буфер, компрессор или напрямую клиенту.
+         */
+        private final class CompressingStream extends ServletOutputStream {
+
+            private final byte[] single = new byte[1];
+
+            @Override
+            public void write(int b) throws IOException {
+                single[0] = (byte) b;
+                CompressingResponse.this.write(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                CompressingResponse.this.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // До принятия решения о сжатии сбрасывать нечего: буфер держим до порога или конца ответа
+                if (entry != null) {
+                    syncFlush();
+                    rawStream().flush();
+                } else if (passThrough) {
+                    rawStream().flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("Asynchronous output is not supported for compressed responses");
+            }
+        }
+    }
+}
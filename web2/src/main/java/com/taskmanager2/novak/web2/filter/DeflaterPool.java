@@ -0,0 +1,60 @@
+package com.taskmanager2.novak.web2.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Пул компрессоров для сжатия ответов.
+ * Deflater держит нативную память (около 256 КБ на экземпляр), поэтому создавать его на каждый запрос дорого.
+ * Вместе с компрессором переиспользуются выходной буфер и CRC32 для трейлера gzip.
+ */
+public class DeflaterPool {
+
+    /**
+     * Переиспользуемый комплект для одного сжатия.
+     */
+    public static final class Entry {
+
+        // Deflater в режиме "nowrap": заголовок и трейлер gzip пишет сам фильтр
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[8192];
+
+        private Entry(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        private void reset() {
+            deflater.reset();
+            crc.reset();
+        }
+    }
+
+    private final BlockingQueue<Entry> pool;
+    private final int level;
+
+    public DeflaterPool(int capacity, int level) {
+        this.pool = new ArrayBlockingQueue<>(capacity);
+        this.level = level;
+    }
+
+    /**
+     * Выдача компрессора из пула; если пул пуст — создаётся новый.
+     */
+    public Entry acquire() {
+        Entry entry = pool.poll();
+        return entry != null ? entry : new Entry(level);
+    }
+
+    /**
+     * Возврат компрессора в пул; лишние экземпляры сверх ёмкости освобождаются сразу.
+     */
+    public void release(Entry entry) {
+        entry.reset();
+        if (!pool.offer(entry)) {
+            entry.deflater.end();
+        }
+    }
+}
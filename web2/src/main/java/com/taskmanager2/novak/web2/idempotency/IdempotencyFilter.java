@@ -0,0 +1,204 @@
+package com.taskmanager2.novak.web2.idempotency;
+
+/*Ключи идемпотентности для изменяющих запросов к задачам (заголовок Idempotency-Key):
+Клиент, повторяющий запрос после таймаута или отказа 503, передаёт тот же ключ — и получает ответ первого
+ выполнения (с заголовком Idempotent-Replayed: true), а задача не создаётся и не меняется второй раз.
+Ключ действует в пределах пользователя. Отпечаток запроса — метод, путь и параметры (контроллер задач читает
+ только их); тот же ключ с другим запросом — 422. Повтор, пришедший во время выполнения первого запроса,
+ ждёт его ответа; не дождавшись за wait-timeout, получает 409 с Retry-After.
+Сохраняются ответы 2xx и 4xx: они не изменятся при повторе. Ответ 5xx (в том числе отказ лимита параллельности),
+ 408, 429, исключение или слишком большое тело освобождают ключ — повтор выполнится заново.
+Запросы без заголовка и загрузка задач из файла (у неё свои задания импорта) проходят без изменений.
+Фильтр стоит после Spring Security (ключ привязан к пользователю, чужие запросы ключей не занимают), после сжатия
+ (сохраняется несжатое тело) и до лимита параллельности (повторы не занимают места в отсеке).
+ * */
+
+import com.taskmanager2.novak.service2.event.Principals;
+import com.taskmanager2.novak.service2.idempotency.IdempotencyClaim;
+import com.taskmanager2.novak.service2.idempotency.IdempotencyStore;
+import com.taskmanager2.novak.service2.idempotency.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Через сколько секунд клиенту стоит повторить запрос, который ещё выполняется
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotencyStore store;
+
+    public IdempotencyFilter(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key == null || !METHODS.contains(request.getMethod())
+                || request.getRequestURI().startsWith(request.getContextPath() + "/api/tasks/import")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!isValidKey(key)) {
+            problem(request, response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be 1-" + MAX_KEY_LENGTH + " visible ASCII characters");
+            return;
+        }
+
+        IdempotencyClaim claim = store.claim(sha256(Principals.current(), key), fingerprint(request));
+        switch (claim.outcome()) {
+            case REPLAY -> replay(claim.response(), response);
+            case MISMATCH -> problem(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " has already been used for a different request");
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+                problem(request, response, HttpStatus.CONFLICT,
+                        "A request with this " + HEADER + " is still being processed");
+            }
+            case ACQUIRED -> execute(claim, request, response, chain);
+        }
+    }
+
+    // Выполнение запроса с захваченным ключом: ответ сохраняется до отправки клиенту, чтобы повтор,
+    // пришедший сразу после ответа, уже нашёл его
+    private void execute(IdempotencyClaim claim, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            release(claim);
+            throw e;
+        }
+
+        int status = wrapper.getStatus();
+        byte[] body = wrapper.getContentAsByteArray();
+        if (isStorable(status) && body.length <= store.maxResponseBytes()) {
+            try {
+                store.complete(claim, new StoredResponse(status, wrapper.getContentType(), body));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to store response for idempotency key: {}", e.toString());
+                release(claim);
+            }
+        } else {
+            release(claim);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void release(IdempotencyClaim claim) {
+        try {
+            store.release(claim);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release idempotency key: {}", e.toString());
+        }
+    }
+
+    private static boolean isStorable(int status) {
+        return status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                && status != HttpServletResponse.SC_REQUEST_TIMEOUT
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void problem(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                                String detail) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        byte[] body = ("{\"type\":\"about:blank\",\"title\":\"" + status.getReasonPhrase() + "\",\"status\":"
+                + status.value() + ",\"detail\":\"" + detail + "\",\"instance\":\""
+                + request.getRequestURI().replace("\\", "\\\\").replace("\"", "\\\"") + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean isValidKey(String key) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7E) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Отпечаток запроса: метод, путь и параметры (строки запроса и тела формы) в порядке имён
+    private static String fingerprint(HttpServletRequest request) {
+        MessageDigest digest = newDigest();
+        update(digest, request.getMethod());
+        update(digest, request.getRequestURI());
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            update(digest, parameter.getKey());
+            for (String value : parameter.getValue()) {
+                update(digest, value);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String principal, String key) {
+        MessageDigest digest = newDigest();
+        update(digest, principal);
+        update(digest, key);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Каждое значение предваряется длиной, чтобы разные разбиения на части не давали один отпечаток
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.taskmanager2.novak.web2.jfr;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Эндпоинт actuator /actuator/flightrecording (только для ADMIN, см. SecurityConfig):
+ * GET — состояние записи и список снимков;
+ * POST /start, /stop, /snapshot — управление непрерывной записью JFR;
+ * GET /{имя снимка} — скачивание файла .jfr для открытия в JDK Mission Control или jfr print.
+ */
+@Component
+@Endpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private final FlightRecordings recordings;
+
+    public FlightRecordingEndpoint(FlightRecordings recordings) {
+        this.recordings = recordings;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return recordings.describe();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> control(@Selector String action) {
+        try {
+            switch (action) {
+                case "start" -> recordings.start();
+                case "stop" -> recordings.stop();
+                case "snapshot" -> {
+                    String name = recordings.snapshot();
+                    return new WebEndpointResponse<>(Map.of("snapshot", name,
+                            "download", "/actuator/flightrecording/" + name));
+                }
+                default -> {
+                    return new WebEndpointResponse<>(Map.of("error", "Unknown action: " + action),
+                            WebEndpointResponse.STATUS_BAD_REQUEST);
+                }
+            }
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), 409);
+        }
+        return new WebEndpointResponse<>(recordings.describe());
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector String name) {
+        Path path = recordings.snapshotPath(name);
+        if (path == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(path));
+    }
+}
@@ -0,0 +1,222 @@
+package com.taskmanager2.novak.web2.jfr;
+
+/*Управление непрерывной записью JDK Flight Recorder на работающем узле:
+Запись запускается по запросу (или при старте, если taskmanager.jfr.start-on-startup=true) с настройками JDK "default" —
+ они рассчитаны на постоянную работу в продакшене с накладными расходами около 1%.
+ Дополнительно включаются события приложения: ServiceOperationEvent, AuthenticationEvent, RequestHandlingEvent.
+Запись хранится на диске в кольцевом режиме: не дольше max-age и не больше max-size.
+Снимок (snapshot) выгружает накопленные данные в отдельный файл .jfr в каталоге taskmanager.jfr.dir,
+ не останавливая запись; хранятся только последние max-snapshots снимков.
+ * */
+
+import com.taskmanager2.novak.common2.jfr.AuthenticationEvent;
+import com.taskmanager2.novak.common2.jfr.RequestHandlingEvent;
+import com.taskmanager2.novak.common2.jfr.ServiceOperationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Component
+public class FlightRecordings {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordings.class);
+
+    private static final String RECORDING_NAME = "taskmanager";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".jfr";
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-\\d{8}-\\d{9}\\.jfr");
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+
+    private final Path directory;
+    private final String settings;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private final Duration eventThreshold;
+    private final int maxSnapshots;
+    private final boolean startOnStartup;
+
+    // Текущая запись или null, если запись не идёт
+    private Recording recording;
+
+    public FlightRecordings(@Value("${taskmanager.jfr.dir:jfr}") String directory,
+                            @Value("${taskmanager.jfr.settings:default}") String settings,
+                            @Value("${taskmanager.jfr.max-age:30m}") Duration maxAge,
+                            @Value("${taskmanager.jfr.max-size:250MB}") DataSize maxSize,
+                            @Value("${taskmanager.jfr.event-threshold:0ms}") Duration eventThreshold,
+                            @Value("${taskmanager.jfr.max-snapshots:5}") int maxSnapshots,
+                            @Value("${taskmanager.jfr.start-on-startup:false}") boolean startOnStartup) {
+        this.directory = Paths.get(directory);
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+        this.eventThreshold = eventThreshold;
+        this.maxSnapshots = Math.max(1, maxSnapshots);
+        this.startOnStartup = startOnStartup;
+    }
+
+    @PostConstruct
+    void init() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Запуск непрерывной записи; если запись уже идёт, ничего не меняет
+     * @throws IllegalStateException если JFR недоступен в этой JVM
+     */
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight Recorder is not available in this JVM");
+        }
+        Recording created;
+        try {
+            created = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot load JFR settings '" + settings + "'", e);
+        }
+        created.setName(RECORDING_NAME);
+        created.setToDisk(true);
+        created.setMaxAge(maxAge);
+        created.setMaxSize(maxSize.toBytes());
+        created.enable(ServiceOperationEvent.class).withThreshold(eventThreshold);
+        created.enable(AuthenticationEvent.class).withThreshold(eventThreshold);
+        created.enable(RequestHandlingEvent.class).withThreshold(eventThreshold);
+        created.start();
+        recording = created;
+        logger.info("Flight recording started with '{}' settings, max age {}, max size {}", settings, maxAge, maxSize);
+    }
+
+    /**
+     * Остановка записи; накопленные данные, не выгруженные снимком, теряются
+     */
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            logger.info("Flight recording stopped");
+        }
+    }
+
+    /**
+     * Выгрузка накопленных данных записи в новый файл снимка
+     * @return имя файла снимка
+     * @throws IllegalStateException если запись не идёт
+     */
+    public synchronized String snapshot() {
+        if (!isRunning()) {
+            throw new IllegalStateException("Flight recording is not running");
+        }
+        String name = SNAPSHOT_PREFIX + LocalDateTime.now().format(SNAPSHOT_TIME) + SNAPSHOT_SUFFIX;
+        try {
+            Files.createDirectories(directory);
+            recording.dump(directory.resolve(name));
+            deleteOldSnapshots();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write flight recording snapshot", e);
+        }
+        logger.info("Flight recording snapshot written to {}", directory.resolve(name).toAbsolutePath());
+        return name;
+    }
+
+    /**
+     * Путь к файлу снимка по имени
+     * @return путь или null, если имя не является именем снимка или файла нет
+     */
+    public Path snapshotPath(String name) {
+        if (name == null || !SNAPSHOT_NAME.matcher(name).matches()) {
+            return null;
+        }
+        Path path = directory.resolve(name);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Состояние записи и список снимков
+     */
+    public synchronized Map<String, Object> describe() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", isRunning());
+        if (recording != null) {
+            result.put("state", recording.getState().name());
+            result.put("startTime", recording.getStartTime());
+            result.put("settings", settings);
+            result.put("maxAge", recording.getMaxAge().toString());
+            result.put("maxSize", recording.getMaxSize());
+        }
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        for (Path path : listSnapshots()) {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("name", path.getFileName().toString());
+            try {
+                snapshot.put("size", Files.size(path));
+            } catch (IOException e) {
+                continue; // удалён между листингом и чтением размера
+            }
+            snapshots.add(snapshot);
+        }
+        result.put("snapshots", snapshots);
+        return result;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private void deleteOldSnapshots() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - maxSnapshots; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    // Файлы снимков по возрастанию времени (время в имени, поэтому сортировка по имени верна)
+    private List<Path> listSnapshots() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> SNAPSHOT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list flight recording snapshots", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.taskmanager2.novak.web2.jfr;
+
+import com.taskmanager2.novak.common2.jfr.RequestHandlingEvent;
+import com.taskmanager2.novak.service2.event.Principals;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Запись обработки запросов контроллерами в JFR (RequestHandlingEvent).
+ * Событие начинается перед вызовом обработчика и фиксируется после завершения ответа,
+ * поэтому включает сериализацию тела и отрисовку шаблона. Для асинхронных обработчиков
+ * событие охватывает оба диспетчерских прохода: начатое событие хранится в атрибуте запроса.
+ */
+public class RequestRecordingInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = RequestRecordingInterceptor.class.getName() + ".event";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(EVENT_ATTRIBUTE) == null) {
+            RequestHandlingEvent event = new RequestHandlingEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                request.setAttribute(EVENT_ATTRIBUTE, event);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(EVENT_ATTRIBUTE) instanceof RequestHandlingEvent event)) {
+            return;
+        }
+        request.removeAttribute(EVENT_ATTRIBUTE);
+        event.end();
+        if (event.shouldCommit()) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.operation = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+            event.handler = handlerName(handler);
+            event.status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+            event.principalRole = Principals.currentRole();
+            event.commit();
+        }
+    }
+
+    private static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package com.taskmanager2.novak.web2.json;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.service2.dto.TaskPage;
+
+import java.util.List;
+
+/**
+ * Тело ответа со списком или страницей задач.
+ * В JSON его пишет TaskJsonHttpMessageConverter из кэша готовых фрагментов (TaskJsonFragments);
+ * остальные конвертеры (CBOR, Smile, а также JSON при выключенном кэше) сериализуют вложенное значение как обычно.
+ *
+ * @param value список задач (List&lt;TaskEntity&gt;) или страница задач (TaskPage)
+ */
+public record TaskJsonBody(@JsonValue Object value) {
+
+    public static TaskJsonBody of(List<TaskEntity> tasks) {
+        return new TaskJsonBody(tasks);
+    }
+
+    public static TaskJsonBody of(TaskPage page) {
+        return new TaskJsonBody(page);
+    }
+}
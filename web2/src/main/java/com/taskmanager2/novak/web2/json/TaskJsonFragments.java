@@ -0,0 +1,287 @@
+package com.taskmanager2.novak.web2.json;
+
+/*Кэш готового JSON задач:
+Списки задач отдаются часто и почти не меняются, а Jackson на каждый запрос заново обходит каждую TaskEntity
+ через рефлексию. Здесь хранятся уже закодированные в UTF-8 байты JSON каждой задачи (фрагменты), и ответ
+ собирается копированием фрагментов в выходной поток; кодируются только задачи, которых нет в кэше.
+Фрагмент кодируется тем же ObjectMapper, что и конвертер JSON, поэтому ответ побайтно совпадает с ответом Jackson.
+Актуальность: у TaskEntity нет столбца версии, поэтому вместе с байтами хранятся значения полей, из которых
+ они получены (название, статус, время смены статуса, срок), и фрагмент используется, только если они совпадают
+ с загруженной строкой. Так кэш не отдаёт устаревший JSON и для изменений в обход TaskService
+ (импорт, архивирование, другие узлы). Изменения через TaskService дополнительно сразу удаляют фрагмент.
+ При добавлении в TaskEntity полей, попадающих в JSON, их нужно добавить в Fragment.matches.
+Размер ограничен суммарным объёмом фрагментов (max-size); при превышении вытесняются фрагменты,
+ к которым давно не обращались (алгоритм «часы»: бит обращения сбрасывается при проходе стрелки).
+ * */
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.taskmanager2.novak.common2.enums.TaskStatus;
+import com.taskmanager2.novak.persistence2.entity.TaskEntity;
+import com.taskmanager2.novak.service2.dto.TaskPage;
+import com.taskmanager2.novak.service2.event.TaskChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+@Component
+public class TaskJsonFragments {
+
+    // Оценка накладных расходов на один фрагмент сверх его байтов (объект, массив, узел карты)
+    private static final int ENTRY_OVERHEAD = 96;
+
+    // Размер буфера, которым фрагменты передаются в выходной поток
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    // Начало JSON страницы задач с пустым списком: фрагменты вставляются между скобками
+    private static final byte[] PAGE_PREFIX = "{\"items\":[]".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter taskWriter;
+    private final long maxBytes;
+
+    private final Map<Long, Fragment> fragments = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private Iterator<Fragment> clockHand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Буфер потока для передачи фрагментов кусками, а не по одному
+    private final ThreadLocal<byte[]> chunks = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    public TaskJsonFragments(ObjectMapper objectMapper,
+                             @Value("${taskmanager.json-fragments.max-size:64MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.taskWriter = objectMapper.writerFor(TaskEntity.class);
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /**
+     * Запись списка или страницы задач в JSON
+     * @param body   тело ответа
+     * @param out    выходной поток
+     * @param length принимает длину тела до начала записи (для Content-Length)
+     */
+    public void write(TaskJsonBody body, OutputStream out, LongConsumer length) throws IOException {
+        if (body.value() instanceof TaskPage page) {
+            writePage(page, out, length);
+        } else if (body.value() instanceof List<?> list) {
+            byte[][] encoded = encode(list);
+            length.accept(arrayLength(encoded));
+            byte[] chunk = chunks.get();
+            int position = writeArray(encoded, out, chunk, 0);
+            out.write(chunk, 0, position);
+        } else {
+            byte[] json = objectMapper.writeValueAsBytes(body.value());
+            length.accept(json.length);
+            out.write(json);
+        }
+    }
+
+    // Страница: поля кроме items пишет Jackson (с настройками приложения), список вставляется из фрагментов
+    private void writePage(TaskPage page, OutputStream out, LongConsumer length)
+            throws IOException {
+        byte[] envelope = objectMapper.writeValueAsBytes(
+                new TaskPage(List.of(), page.nextCursor(), page.version(), page.total()));
+        if (!startsWith(envelope, PAGE_PREFIX)) {
+            // Настройки Jackson изменили вид страницы — пишем её целиком обычным способом
+            byte[] json = objectMapper.writeValueAsBytes(page);
+            length.accept(json.length);
+            out.write(json);
+            return;
+        }
+        byte[][] encoded = encode(page.items());
+        int prefixLength = PAGE_PREFIX.length - 2; // без "[]"
+        length.accept(envelope.length - 2 + arrayLength(encoded));
+
+        byte[] chunk = chunks.get();
+        System.arraycopy(envelope, 0, chunk, 0, prefixLength);
+        int position = writeArray(encoded, out, chunk, prefixLength);
+        int suffixLength = envelope.length - PAGE_PREFIX.length;
+        if (position + suffixLength > chunk.length) {
+            out.write(chunk, 0, position);
+            position = 0;
+        }
+        System.arraycopy(envelope, PAGE_PREFIX.length, chunk, position, suffixLength);
+        out.write(chunk, 0, position + suffixLength);
+    }
+
+    // Фрагменты всех задач списка: из кэша или закодированные заново
+    private byte[][] encode(List<?> tasks) throws JsonProcessingException {
+        byte[][] encoded = new byte[tasks.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = fragment((TaskEntity) tasks.get(i));
+        }
+        return encoded;
+    }
+
+    private byte[] fragment(TaskEntity task) throws JsonProcessingException {
+        Long id = task.getId();
+        Fragment cached = id == null ? null : fragments.get(id);
+        if (cached != null && cached.matches(task)) {
+            cached.referenced = true;
+            hits.increment();
+            return cached.json;
+        }
+        misses.increment();
+        byte[] json = taskWriter.writeValueAsBytes(task);
+        if (id != null) {
+            store(id, new Fragment(task, json));
+        }
+        return json;
+    }
+
+    private void store(Long id, Fragment fragment) {
+        Fragment previous = fragments.put(id, fragment);
+        long delta = fragment.weight() - (previous == null ? 0 : previous.weight());
+        if (bytes.addAndGet(delta) > maxBytes) {
+            evict();
+        }
+    }
+
+    // Вытеснение «часами»: фрагменты с битом обращения получают второй шанс
+    private void evict() {
+        synchronized (evictionLock) {
+            int scanned = 0;
+            int limit = fragments.size() * 2;
+            while (bytes.get() > maxBytes && scanned++ < limit) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = fragments.values().iterator();
+                    if (!clockHand.hasNext()) {
+                        return;
+                    }
+                }
+                Fragment fragment = clockHand.next();
+                if (fragment.referenced) {
+                    fragment.referenced = false;
+                } else if (fragments.remove(fragment.id, fragment)) {
+                    bytes.addAndGet(-fragment.weight());
+                }
+            }
+        }
+    }
+
+    // Изменение через TaskService: фрагмент больше не нужен
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        Fragment removed = fragments.remove(event.taskId());
+        if (removed != null) {
+            bytes.addAndGet(-removed.weight());
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // Длина JSON-массива из фрагментов: скобки и запятые между элементами
+    private static long arrayLength(byte[][] encoded) {
+        long length = 2 + Math.max(encoded.length - 1, 0);
+        for (byte[] json : encoded) {
+            length += json.length;
+        }
+        return length;
+    }
+
+    // Запись "[фрагмент,фрагмент,...]" через буфер; возвращает число байт, оставшихся в буфере
+    private static int writeArray(byte[][] encoded, OutputStream out, byte[] chunk, int position)
+            throws IOException {
+        chunk[position++] = '[';
+        for (int i = 0; i < encoded.length; i++) {
+            byte[] json = encoded[i];
+            int needed = json.length + 2;
+            if (position + needed > chunk.length) {
+                out.write(chunk, 0, position);
+                position = 0;
+                if (needed > chunk.length) {
+                    // Фрагмент больше буфера — пишем напрямую
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write(json);
+                    continue;
+                }
+            }
+            if (i > 0) {
+                chunk[position++] = ',';
+            }
+            System.arraycopy(json, 0, chunk, position, json.length);
+            position += json.length;
+        }
+        if (position == chunk.length) {
+            out.write(chunk, 0, position);
+            position = 0;
+        }
+        chunk[position++] = ']';
+        return position;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Закодированная задача и значения полей, из которых получен JSON.
+     */
+    private static final class Fragment {
+
+        final Long id;
+        final String nameTask;
+        final TaskStatus statusTask;
+        final Instant statusChangedAt;
+        final Instant dueAt;
+        final byte[] json;
+
+        // Бит обращения для вытеснения «часами»
+        volatile boolean referenced = true;
+
+        Fragment(TaskEntity task, byte[] json) {
+            this.id = task.getId();
+            this.nameTask = task.getNameTask();
+            this.statusTask = task.getStatusTask();
+            this.statusChangedAt = task.getStatusChangedAt();
+            this.dueAt = task.getDueAt();
+            this.json = json;
+        }
+
+        boolean matches(TaskEntity task) {
+            return statusTask == task.getStatusTask()
+                    && Objects.equals(statusChangedAt, task.getStatusChangedAt())
+                    && Objects.equals(dueAt, task.getDueAt())
+                    && Objects.equals(nameTask, task.getNameTask());
+        }
+
+        long weight() {
+            return json.length + ENTRY_OVERHEAD;
+        }
+    }
+}
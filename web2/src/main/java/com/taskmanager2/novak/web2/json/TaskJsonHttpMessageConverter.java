@@ -0,0 +1,88 @@
+package com.taskmanager2.novak.web2.json;
+
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Конвертер JSON для списков и страниц задач (TaskJsonBody): тело собирается из кэша готовых фрагментов
+ * (TaskJsonFragments) и пишется с Content-Length. Стоит перед конвертером Jackson, поэтому выбирается для JSON;
+ * для CBOR и Smile тело по-прежнему сериализуют соответствующие конвертеры Jackson.
+ */
+public class TaskJsonHttpMessageConverter extends AbstractHttpMessageConverter<TaskJsonBody> {
+
+    private final TaskJsonFragments fragments;
+
+    public TaskJsonHttpMessageConverter(TaskJsonFragments fragments) {
+        super(MediaType.APPLICATION_JSON);
+        this.fragments = fragments;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TaskJsonBody.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected TaskJsonBody readInternal(Class<? extends TaskJsonBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Task lists are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(TaskJsonBody body, HttpOutputMessage outputMessage) throws IOException {
+        RequestTimings.begin(TimingPhase.SERIALIZATION);
+        try {
+            // Заголовки отправляются при первом обращении к getBody(), поэтому длину выставляем до него
+            fragments.write(body, new LazyBody(outputMessage), outputMessage.getHeaders()::setContentLength);
+        } finally {
+            RequestTimings.end(TimingPhase.SERIALIZATION);
+        }
+    }
+
+    /**
+     * Поток, получающий тело ответа только при первой записи — после того как выставлена длина.
+     */
+    private static final class LazyBody extends OutputStream {
+
+        private final HttpOutputMessage message;
+        private OutputStream body;
+
+        LazyBody(HttpOutputMessage message) {
+            this.message = message;
+        }
+
+        private OutputStream body() throws IOException {
+            if (body == null) {
+                body = message.getBody();
+            }
+            return body;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            body().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            body().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            body().flush();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.taskmanager2.novak.web2.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Адаптивный лимит параллельности по задержке (в духе TCP Vegas).
+ *
+ * Лимиттер помнит минимальную задержку без нагрузки (rttNoLoad) и по каждой завершённой операции
+ * оценивает длину очереди: queue = limit * (1 - rttNoLoad / rtt). Почти пустая очередь — лимит растёт,
+ * длинная очередь или ошибка — лимит уменьшается на log10(limit). Если занята меньше половины лимита,
+ * нагрузки недостаточно для выводов, и лимит не меняется.
+ * Базовая задержка периодически переизмеряется, чтобы лимиттер не застрял на давно устаревшем минимуме.
+ *
+ * Захват места не ждёт: если лимит исчерпан, tryAcquire сразу возвращает false.
+ */
+final class AdaptiveLimiter {
+
+    // Через сколько выборок (в долях лимита) переизмерять базовую задержку
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Состояние оценки; меняется под блокировкой this
+    private long rttNoLoadNanos;
+    private long lastRttNanos;
+    private int samplesSinceProbe;
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.limit = Math.min(Math.max(initialLimit, minLimit), this.maxLimit);
+    }
+
+    /**
+     * Захват места без ожидания
+     * @return число операций в работе на момент захвата (включая эту) или -1, если лимит исчерпан
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Освобождение места и учёт задержки операции
+     * @param rttNanos     длительность операции
+     * @param inFlightAtStart сколько операций было в работе при её начале
+     * @param didDrop      операция завершилась ошибкой сервера (перегрузка, тайм-аут БД)
+     */
+    void release(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        inFlight.decrementAndGet();
+        if (didDrop) {
+            dropped.increment();
+        }
+        update(rttNanos, inFlightAtStart, didDrop);
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean didDrop) {
+        lastRttNanos = rttNanos;
+        if (++samplesSinceProbe >= PROBE_MULTIPLIER * limit) {
+            samplesSinceProbe = 0;
+            rttNoLoadNanos = rttNanos;
+            return;
+        }
+        if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+            rttNoLoadNanos = rttNanos;
+            return;
+        }
+
+        int current = limit;
+        double log = Math.max(1, Math.log10(current));
+        double queue = Math.ceil(current * (1 - (double) rttNoLoadNanos / rttNanos));
+        double next;
+        if (didDrop) {
+            next = current - log;
+        } else if (inFlightAtStart * 2 < current) {
+            return;
+        } else if (queue <= log) {
+            next = current + 6 * log;
+        } else if (queue < 3 * log) {
+            next = current + log;
+        } else if (queue > 6 * log) {
+            next = current - log;
+        } else {
+            return;
+        }
+        limit = (int) Math.min(maxLimit, Math.max(minLimit, Math.round(next)));
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    long accepted() {
+        return accepted.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    synchronized long rttNoLoadNanos() {
+        return rttNoLoadNanos;
+    }
+
+    synchronized long lastRttNanos() {
+        return lastRttNanos;
+    }
+}
@@ -0,0 +1,20 @@
+package com.taskmanager2.novak.web2.limit;
+
+/**
+ * Отсек (bulkhead) — группа запросов со своим лимитом параллельности.
+ * Перегрузка одного отсека (например, медленное чтение задач) не занимает потоки других (админка, вход).
+ */
+public enum Bulkhead {
+
+    // Чтение задач и архива
+    TASK_READ,
+
+    // Создание, изменение и удаление задач
+    TASK_WRITE,
+
+    // Админка и управление пользователями
+    ADMIN,
+
+    // Вход и регистрация (хеширование паролей и запросы к users)
+    LOGIN
+}
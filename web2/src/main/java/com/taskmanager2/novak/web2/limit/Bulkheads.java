@@ -0,0 +1,89 @@
+package com.taskmanager2.novak.web2.limit;
+
+/*Отсеки с адаптивными лимитами параллельности:
+Когда база замедляется, запросы держат потоки Tomcat дольше, и без ограничения потоки кончаются у всех страниц сразу.
+Каждый отсек (Bulkhead) получает свой лимит, который подстраивается по наблюдаемой задержке (AdaptiveLimiter):
+ пока задержка близка к минимальной, лимит растёт; когда запросы начинают стоять в очереди к базе — снижается.
+Запрос сверх лимита не ждёт: чтение задач получает последний удачный ответ (StaleSnapshots), остальное — 503.
+Запросы, не попавшие ни в один отсек (статика, страницы входа, импорт с собственным ограничением), не ограничиваются.
+ * */
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class Bulkheads {
+
+    private final Map<Bulkhead, AdaptiveLimiter> limiters = new EnumMap<>(Bulkhead.class);
+
+    public Bulkheads(@Value("${taskmanager.limits.initial-limit:20}") int initialLimit,
+                     @Value("${taskmanager.limits.min-limit:2}") int minLimit,
+                     @Value("${taskmanager.limits.max-limit.task-read:200}") int maxTaskRead,
+                     @Value("${taskmanager.limits.max-limit.task-write:100}") int maxTaskWrite,
+                     @Value("${taskmanager.limits.max-limit.admin:20}") int maxAdmin,
+                     @Value("${taskmanager.limits.max-limit.login:20}") int maxLogin) {
+        limiters.put(Bulkhead.TASK_READ, new AdaptiveLimiter(initialLimit, minLimit, maxTaskRead));
+        limiters.put(Bulkhead.TASK_WRITE, new AdaptiveLimiter(initialLimit, minLimit, maxTaskWrite));
+        limiters.put(Bulkhead.ADMIN, new AdaptiveLimiter(Math.min(initialLimit, maxAdmin), minLimit, maxAdmin));
+        limiters.put(Bulkhead.LOGIN, new AdaptiveLimiter(Math.min(initialLimit, maxLogin), minLimit, maxLogin));
+    }
+
+    /**
+     * Отсек запроса
+     * @return отсек или null, если запрос не ограничивается
+     */
+    public static Bulkhead classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        boolean read = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+
+        if (path.equals("/login") || path.equals("/register")) {
+            return HttpMethod.POST.matches(method) ? Bulkhead.LOGIN : null;
+        }
+        if (path.startsWith("/admin") || path.startsWith("/api/admin") || path.startsWith("/api/users")) {
+            return Bulkhead.ADMIN;
+        }
+        if (path.startsWith("/api/tasks/import")) {
+            return null; // у импорта своё ограничение (taskmanager.import.max-in-flight)
+        }
+        if (path.startsWith("/api/attachments")) {
+            return null; // передача файла длится пропорционально его размеру и исказила бы задержки отсеков
+        }
+        if (path.equals("/tasks") || path.startsWith("/api/archive")) {
+            return read ? Bulkhead.TASK_READ : null;
+        }
+        if (path.startsWith("/api/tasks") || path.startsWith("/api/dependencies")) {
+            return read ? Bulkhead.TASK_READ : Bulkhead.TASK_WRITE;
+        }
+        return null;
+    }
+
+    AdaptiveLimiter limiter(Bulkhead bulkhead) {
+        return limiters.get(bulkhead);
+    }
+
+    /**
+     * Текущее состояние отсеков (для actuator)
+     */
+    public Map<String, Map<String, Object>> describe() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        limiters.forEach((bulkhead, limiter) -> {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("limit", limiter.limit());
+            state.put("inFlight", limiter.inFlight());
+            state.put("accepted", limiter.accepted());
+            state.put("rejected", limiter.rejected());
+            state.put("dropped", limiter.dropped());
+            state.put("rttNoLoadMs", limiter.rttNoLoadNanos() / 1_000_000.0);
+            state.put("lastRttMs", limiter.lastRttNanos() / 1_000_000.0);
+            result.put(bulkhead.name(), state);
+        });
+        return result;
+    }
+}
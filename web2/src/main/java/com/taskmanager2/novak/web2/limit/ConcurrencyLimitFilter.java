@@ -0,0 +1,240 @@
+package com.taskmanager2.novak.web2.limit;
+
+/*Фильтр ограничения параллельности по отсекам:
+Запрос своего отсека занимает место в его адаптивном лимите на всё время обработки; длительность обработки
+ и признак ошибки сервера (5xx) становятся выборкой для подстройки лимита.
+Если места нет, запрос не ставится в очередь:
+ - чтение задач через API получает последний удачный ответ на тот же запрос с заголовками Age и Warning;
+ - остальные запросы (и чтение без снимка) получают 503 с Retry-After в формате problem+json.
+Ответы на чтение задач попутно снимаются (тело копируется по мере записи, без задержки отправки клиенту).
+Фильтр регистрируется дважды (см. FilterConfig): для входа — до Spring Security, который сам обрабатывает POST /login,
+ для остальных отсеков — после неё, чтобы устаревшие данные выдавались только прошедшим авторизацию запросам.
+ * */
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // Через сколько секунд клиенту стоит повторить отклонённый запрос
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Bulkheads bulkheads;
+    private final StaleSnapshots snapshots;
+
+    // Отсеки, которые обслуживает этот экземпляр фильтра
+    private final Set<Bulkhead> handled;
+
+    public ConcurrencyLimitFilter(Bulkheads bulkheads, StaleSnapshots snapshots, Set<Bulkhead> handled) {
+        this.bulkheads = bulkheads;
+        this.snapshots = snapshots;
+        this.handled = handled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = Bulkheads.classify(request);
+        if (bulkhead == null || !handled.contains(bulkhead)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveLimiter limiter = bulkheads.limiter(bulkhead);
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            reject(bulkhead, request, response);
+            return;
+        }
+
+        String key = bulkhead == Bulkhead.TASK_READ ? StaleSnapshots.keyOf(request) : null;
+        long now = System.currentTimeMillis();
+        CapturingResponse capture = key != null && snapshots.needsRefresh(key, now)
+                ? new CapturingResponse(response, snapshots.maxEntryBytes()) : null;
+
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, capture != null ? capture : response);
+            failed = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            limiter.release(System.nanoTime() - started, inFlight, failed);
+        }
+
+        if (capture != null && response.getStatus() == HttpServletResponse.SC_OK) {
+            byte[] body = capture.captured();
+            if (body != null) {
+                snapshots.store(key, new StaleSnapshots.Snapshot(body, response.getContentType(), now));
+            }
+        }
+    }
+
+    // Отказ без ожидания: устаревший ответ для чтения задач, если он есть, иначе 503
+    private void reject(Bulkhead bulkhead, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        String key = bulkhead == Bulkhead.TASK_READ ? StaleSnapshots.keyOf(request) : null;
+        StaleSnapshots.Snapshot snapshot = key != null ? snapshots.find(key, now) : null;
+        if (snapshot != null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (snapshot.contentType() != null) {
+                response.setContentType(snapshot.contentType());
+            }
+            response.setHeader(HttpHeaders.AGE, Long.toString((now - snapshot.capturedAt()) / 1000));
+            response.setHeader(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setContentLength(snapshot.body().length);
+            response.getOutputStream().write(snapshot.body());
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        byte[] body = ("{\"type\":\"about:blank\",\"title\":\"Service Unavailable\",\"status\":503,"
+                + "\"detail\":\"Too many concurrent requests, try again later\",\"instance\":\""
+                + request.getRequestURI().replace("\\", "\\\\").replace("\"", "\\\"") + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Обёртка ответа, копирующая тело (до лимита размера) по мере записи клиенту.
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final int maxBytes;
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private boolean overflow;
+
+        private TeeStream stream;
+        private PrintWriter writer;
+
+        CapturingResponse(HttpServletResponse response, int maxBytes) {
+            super(response);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new TeeStream(super.getOutputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new TeeStream(super.getOutputStream());
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            copy.reset();
+            overflow = false;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            copy.reset();
+            overflow = false;
+        }
+
+        // Снятое тело или null, если оно превысило лимит
+        byte[] captured() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return overflow ? null : copy.toByteArray();
+        }
+
+        private void capture(byte[] bytes, int offset, int length) {
+            if (overflow) {
+                return;
+            }
+            if (copy.size() + length > maxBytes) {
+                overflow = true;
+                copy.reset();
+                return;
+            }
+            copy.write(bytes, offset, length);
+        }
+
+        /**
+         * Поток, пишущий клиенту и в копию.
+         */
+        private final class TeeStream extends ServletOutputStream {
+
+            private final ServletOutputStream target;
+            private final byte[] single = new byte[1];
+
+            TeeStream(ServletOutputStream target) {
+                this.target = target;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target.write(b);
+                single[0] = (byte) b;
+                capture(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                target.write(bytes, offset, length);
+                capture(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target.flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return target.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                target.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.taskmanager2.novak.web2.limit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Эндпоинт actuator /actuator/concurrencylimits: текущие лимиты отсеков, число операций в работе,
+ * принятые и отклонённые запросы, а также выдачи устаревших ответов при перегрузке.
+ */
+@Component
+@Endpoint(id = "concurrencylimits")
+public class ConcurrencyLimitsEndpoint {
+
+    private final Bulkheads bulkheads;
+    private final StaleSnapshots snapshots;
+
+    public ConcurrencyLimitsEndpoint(Bulkheads bulkheads, StaleSnapshots snapshots) {
+        this.bulkheads = bulkheads;
+        this.snapshots = snapshots;
+    }
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bulkheads", bulkheads.describe());
+        result.put("staleSnapshots", snapshots.size());
+        result.put("staleServed", snapshots.served());
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.taskmanager2.novak.web2.limit;
+
+/*Последние удачные ответы на чтение задач — для выдачи при перегрузке:
+Снимок — тело, тип содержимого и время ответа 200 на GET-запрос к API чтения задач.
+Ключ — путь с параметрами и заголовок Accept (JSON, CBOR и Smile хранятся отдельно).
+Чтобы не копировать каждое тело под нагрузкой, снимок ключа обновляется не чаще refresh-interval.
+Число снимков и размер одного снимка ограничены; при переполнении вытесняется самый старый.
+Снимок старше max-age не выдаётся: лучше честный 503, чем сильно устаревшие данные.
+ * */
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class StaleSnapshots {
+
+    /**
+     * Снимок ответа
+     * @param body        тело ответа
+     * @param contentType тип содержимого
+     * @param capturedAt  время ответа (мс epoch)
+     */
+    record Snapshot(byte[] body, String contentType, long capturedAt) {
+    }
+
+    private final int maxEntries;
+    private final int maxEntryBytes;
+    private final long maxAgeMillis;
+    private final long refreshIntervalMillis;
+
+    // Вставка и чтение под блокировкой карты; снимков немного, операции короткие
+    private final LinkedHashMap<String, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final LongAdder served = new LongAdder();
+
+    public StaleSnapshots(@Value("${taskmanager.limits.stale.max-entries:64}") int maxEntries,
+                          @Value("${taskmanager.limits.stale.max-entry-size:1MB}") DataSize maxEntrySize,
+                          @Value("${taskmanager.limits.stale.max-age:10m}") Duration maxAge,
+                          @Value("${taskmanager.limits.stale.refresh-interval:1s}") Duration refreshInterval) {
+        this.maxEntries = maxEntries;
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, maxEntrySize.toBytes());
+        this.maxAgeMillis = maxAge.toMillis();
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    /**
+     * Ключ снимка или null, если ответ на этот запрос не снимается
+     */
+    static String keyOf(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI();
+        if (!path.startsWith(request.getContextPath() + "/api/")) {
+            return null;
+        }
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return path + (query != null ? "?" + query : "") + "|" + (accept != null ? accept : "");
+    }
+
+    /**
+     * Нужно ли снимать ответ на этот ключ сейчас
+     */
+    boolean needsRefresh(String key, long now) {
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(key);
+            return snapshot == null || now - snapshot.capturedAt() >= refreshIntervalMillis;
+        }
+    }
+
+    void store(String key, Snapshot snapshot) {
+        synchronized (snapshots) {
+            snapshots.remove(key); // повторная вставка переносит ключ в конец порядка вытеснения
+            snapshots.put(key, snapshot);
+        }
+    }
+
+    /**
+     * Снимок для выдачи при перегрузке или null, если его нет или он слишком старый
+     */
+    Snapshot find(String key, long now) {
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(key);
+        }
+        if (snapshot == null || now - snapshot.capturedAt() > maxAgeMillis) {
+            return null;
+        }
+        served.increment();
+        return snapshot;
+    }
+
+    int maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public long served() {
+        return served.sum();
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.taskmanager2.novak.web2.timing;
+
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Отметка конца фазы SECURITY: фильтр стоит сразу после цепочки Spring Security,
+ * поэтому до него запрос доходит только пройдя аутентификацию и проверку прав.
+ */
+public class SecurityTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings.end(TimingPhase.SECURITY);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,283 @@
+package com.taskmanager2.novak.web2.timing;
+
+/*Разбивка времени ответа REST API по фазам (заголовок Server-Timing):
+Фильтр стоит первым, перед Spring Security, и открывает замер запроса (RequestTimings). Фазы отмечают:
+ - security: этот фильтр и SecurityTimingFilter сразу после цепочки Spring Security;
+ - service: перехватчик вызовов TaskService/UserService (включает SQL внутри сервиса);
+ - sql: слушатель сессии Hibernate;
+ - serialization: конвертеры Jackson (TimedConverters);
+ - write: обёртка выходного потока ответа — время, пока запись в сокет блокирует поток.
+Заголовок нужно выставить до отправки первых байтов. Обёртка ответа следит за объёмом записанного: пока тело
+ помещается в буфер контейнера, заголовок добавляется в конце обработки с полными цифрами. Если запись
+ переполнит буфер (или ответ сбрасывается явно), заголовок добавляется перед этим с цифрами на этот момент.
+Полная разбивка по завершении запроса пишется строкой журнала: для доли sample-rate запросов
+ и для всех запросов дольше slow-threshold.
+Замер не выделяет память на фазы (массивы в экземпляре потока); на запрос создаются только обёртки ответа.
+Асинхронные запросы замеряются до конца первого прохода и в журнал не пишутся.
+ * */
+
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private static final TimingPhase[] PHASES = TimingPhase.values();
+
+    // Доля запросов, разбивка которых пишется в журнал
+    private final double sampleRate;
+
+    // Запросы не короче порога пишутся в журнал всегда
+    private final long slowThresholdNanos;
+
+    public ServerTimingFilter(double sampleRate, long slowThresholdNanos) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThresholdNanos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.open();
+        TimingResponse wrapper = new TimingResponse(response, timings);
+        try {
+            RequestTimings.begin(TimingPhase.SECURITY);
+            chain.doFilter(request, wrapper);
+        } finally {
+            // Цепочка безопасности сама ответила (перенаправление на вход, 403) — до SecurityTimingFilter не дошли
+            timings.endIfOpen(TimingPhase.SECURITY);
+            if (request.isAsyncStarted()) {
+                wrapper.detach();
+            } else {
+                wrapper.finish();
+                long total = timings.totalNanos();
+                if (total >= slowThresholdNanos || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    log(request, response.getStatus(), timings, total);
+                }
+            }
+            RequestTimings.close();
+        }
+    }
+
+    // Строка журнала в формате ключ=значение для разбора системой сбора логов
+    private static void log(HttpServletRequest request, int status, RequestTimings timings, long total) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        StringBuilder line = new StringBuilder(192)
+                .append("request_timing method=").append(request.getMethod())
+                .append(" route=").append(pattern != null ? pattern : request.getRequestURI())
+                .append(" status=").append(status)
+                .append(" total_ms=");
+        appendMillis(line, total);
+        for (TimingPhase phase : PHASES) {
+            line.append(' ').append(phase.metric()).append("_ms=");
+            appendMillis(line, timings.elapsedNanos(phase));
+        }
+        line.append(" sql_count=").append(timings.count(TimingPhase.SQL));
+        logger.info(line.toString());
+    }
+
+    // Значение Server-Timing: фазы с ненулевым временем и общее время обработки на данный момент
+    private static String headerValue(RequestTimings timings) {
+        StringBuilder value = new StringBuilder(128);
+        for (TimingPhase phase : PHASES) {
+            long nanos = timings.elapsedNanos(phase);
+            if (nanos > 0) {
+                value.append(phase.metric()).append(";dur=");
+                appendMillis(value, nanos);
+                if (phase == TimingPhase.SQL) {
+                    value.append(";desc=\"queries: ").append(timings.count(TimingPhase.SQL)).append('"');
+                }
+                value.append(", ");
+            }
+        }
+        value.append("app;dur=");
+        appendMillis(value, timings.totalNanos());
+        return value.toString();
+    }
+
+    // Миллисекунды с одним знаком после запятой без String.format
+    private static void appendMillis(StringBuilder builder, long nanos) {
+        long tenths = (nanos + 50_000) / 100_000;
+        builder.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    /**
+     * Обёртка ответа: замеряет запись тела и добавляет заголовок Server-Timing до отправки заголовков клиенту.
+     */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+
+        // Байт тела, переданных контейнеру (пока они в его буфере, заголовки ещё не отправлены)
+        private long written;
+        private boolean headerAdded;
+        private boolean detached;
+
+        private TimingStream stream;
+        private PrintWriter writer;
+
+        TimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new TimingStream(super.getOutputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            addHeaderIfPossible();
+            RequestTimings.begin(TimingPhase.WRITE);
+            try {
+                super.flushBuffer();
+            } finally {
+                RequestTimings.end(TimingPhase.WRITE);
+            }
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addHeaderIfPossible();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addHeaderIfPossible();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addHeaderIfPossible();
+            super.sendRedirect(location);
+        }
+
+        // Конец обработки: выталкиваем текст из writer и добавляем заголовок, если ответ ещё не отправлен
+        void finish() {
+            if (writer != null) {
+                writer.flush();
+            }
+            addHeaderIfPossible();
+        }
+
+        void addHeaderIfPossible() {
+            if (!headerAdded && !detached && !isCommitted()) {
+                headerAdded = true;
+                super.addHeader(SERVER_TIMING, headerValue(timings));
+            }
+        }
+
+        // После начала асинхронной обработки экземпляр замера достаётся следующему запросу потока
+        void detach() {
+            detached = true;
+        }
+
+        // Перед записью, которая может переполнить буфер контейнера и отправить заголовки
+        private void beforeWrite(int length) {
+            if (!headerAdded && written + length > getBufferSize()) {
+                addHeaderIfPossible();
+            }
+            written += length;
+        }
+
+        /**
+         * Поток ответа, отмечающий время записи как фазу WRITE.
+         */
+        private final class TimingStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            TimingStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                beforeWrite(1);
+                RequestTimings.begin(TimingPhase.WRITE);
+                try {
+                    delegate.write(b);
+                } finally {
+                    RequestTimings.end(TimingPhase.WRITE);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                beforeWrite(length);
+                RequestTimings.begin(TimingPhase.WRITE);
+                try {
+                    delegate.write(bytes, offset, length);
+                } finally {
+                    RequestTimings.end(TimingPhase.WRITE);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                addHeaderIfPossible();
+                RequestTimings.begin(TimingPhase.WRITE);
+                try {
+                    delegate.flush();
+                } finally {
+                    RequestTimings.end(TimingPhase.WRITE);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                addHeaderIfPossible();
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
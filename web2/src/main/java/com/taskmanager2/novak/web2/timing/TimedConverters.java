@@ -0,0 +1,67 @@
+package com.taskmanager2.novak.web2.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager2.novak.common2.timing.RequestTimings;
+import com.taskmanager2.novak.common2.timing.TimingPhase;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Конвертеры Jackson, отмечающие запись тела ответа как фазу SERIALIZATION замера запроса.
+ * Время, пока запись в сокет блокирует поток, RequestTimings вычитает из сериализации и относит к WRITE.
+ */
+public final class TimedConverters {
+
+    private TimedConverters() {
+    }
+
+    public static MappingJackson2HttpMessageConverter json(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                RequestTimings.begin(TimingPhase.SERIALIZATION);
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestTimings.end(TimingPhase.SERIALIZATION);
+                }
+            }
+        };
+    }
+
+    public static MappingJackson2CborHttpMessageConverter cbor(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                RequestTimings.begin(TimingPhase.SERIALIZATION);
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestTimings.end(TimingPhase.SERIALIZATION);
+                }
+            }
+        };
+    }
+
+    public static MappingJackson2SmileHttpMessageConverter smile(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                RequestTimings.begin(TimingPhase.SERIALIZATION);
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestTimings.end(TimingPhase.SERIALIZATION);
+                }
+            }
+        };
+    }
+}
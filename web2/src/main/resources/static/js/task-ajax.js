@@ -1,18 +1,57 @@
 let currentUserRole = '';
 
+// Состояние постраничной загрузки задач
+let nextCursor = null;      // id последней загруженной задачи или null, если страниц больше нет
+let dataVersion = null;     // версия данных, с которой загружены текущие страницы
+let pageSize = 50;          // размер страницы
+let currentFilter = null;   // текущий фильтр по статусу
+let loadingMore = false;    // идёт загрузка следующей страницы
+let taskTable = null;       // виртуализированная таблица задач (см. task-table.js)
+
+// Состояние постраничного списка пользователей (страница админки)
+let userQuery = { prefix: '', role: '' }; // текущий поиск по префиксу имени и роли
+let userCursors = [null];   // курсоры открытых страниц: последний — курсор текущей страницы
+let userNextCursor = null;  // курсор следующей страницы или null, если это последняя
+
 document.addEventListener('DOMContentLoaded', async () => {
-    await checkUserRole();
-    setupEventHandlers();
-	await loadTasks(); // Явно загружаем задачи при старте
-    
-    // Загружаем задачи или пользователей в зависимости от страницы
-    if (window.location.pathname.includes('/admin/tasks')) {
-        await loadTasks();
-    } else if (window.location.pathname.includes('/admin/users')) {
-        await loadUsers();
+    // Первая страница задач и пользователей уже отрисована сервером —
+    // берём курсор, версию и роль из разметки и не загружаем списки повторно
+    hydrateFromPage();
+    hydrateUsersFromPage();
+    if (!currentUserRole) {
+        await checkUserRole();
     }
+    setupEventHandlers();
 });
 
+function hydrateFromPage() {
+    const taskList = document.getElementById('task-list');
+    if (!taskList) {
+        return;
+    }
+    const data = taskList.dataset;
+    nextCursor = data.nextCursor ? Number(data.nextCursor) : null;
+    dataVersion = data.version ? Number(data.version) : null;
+    pageSize = data.pageSize ? Number(data.pageSize) : pageSize;
+    currentUserRole = data.role || '';
+
+    // Таблица принимает строки, отрисованные сервером, и дальше сама держит в DOM только видимые;
+    // при прокрутке к концу загруженных данных догружается следующая страница
+    taskTable = new VirtualTaskTable(taskList.closest('.scroll-container'), taskList, {
+        onNeedMore: loadMoreTasks
+    });
+    taskTable.adoptRenderedRows();
+}
+
+function hydrateUsersFromPage() {
+    const userList = document.getElementById('user-list');
+    if (!userList) {
+        return;
+    }
+    userNextCursor = userList.dataset.nextCursor || null;
+    updateUserPager();
+}
+
 async function checkUserRole() {
     try {
         const response = await fetch('/api/check-role', {
@@ -24,6 +63,16 @@ async function checkUserRole() {
     }
 }
 
+// Текст ошибки из ответа API: сервер отвечает в формате problem+json (RFC 7807), текст — в поле detail
+async function errorMessage(response) {
+    const contentType = response.headers.get('Content-Type') || '';
+    if (contentType.includes('json')) {
+        const problem = await response.json();
+        return problem.detail || problem.title || `HTTP ${response.status}`;
+    }
+    return await response.text();
+}
+
 function setupEventHandlers() {
     // Обработчик добавления задачи (только для страницы задач)
     if (document.querySelector('.task-form')) {
@@ -43,8 +92,8 @@ function setupEventHandlers() {
                     credentials: 'include'
                 });
                 
-                if (!response.ok) throw new Error(await response.text());
-                await loadTasks();
+                if (!response.ok) throw new Error(await errorMessage(response));
+                taskCreated(await response.json());
                 e.target.reset();
             } catch (error) {
                 console.error('Ошибка:', error);
@@ -94,8 +143,8 @@ function setupEventHandlers() {
                     credentials: 'include'
                 });
                 
-                if (!response.ok) throw new Error(await response.text());
-                await loadTasks();
+                if (!response.ok) throw new Error(await errorMessage(response));
+                taskDeleted(Number(e.target.dataset.id));
             } catch (error) {
                 console.error('Ошибка:', error);
                 alert('Ошибка при удалении задачи: ' + error.message);
@@ -119,7 +168,9 @@ function setupEventHandlers() {
                     credentials: 'include'
                 });
                 
-                if (!response.ok) throw new Error(await response.text());
+                if (!response.ok) throw new Error(await errorMessage(response));
+                // Перезагружаем текущую страницу: на неё подтянется следующий пользователь
+                changeUserCount(-1);
                 await loadUsers();
             } catch (error) {
                 console.error('Ошибка:', error);
@@ -128,6 +179,29 @@ function setupEventHandlers() {
         }
     });
 
+    // Поиск и листание пользователей (только для страницы пользователей)
+    if (document.getElementById('user-search-form')) {
+        document.getElementById('user-search-form').addEventListener('submit', async (e) => {
+            e.preventDefault();
+            const formData = new FormData(e.target);
+            userQuery = { prefix: formData.get('prefix').trim(), role: formData.get('role') };
+            userCursors = [null];
+            await loadUsers();
+        });
+        document.getElementById('users-next-btn').addEventListener('click', async () => {
+            if (userNextCursor) {
+                userCursors.push(userNextCursor);
+                await loadUsers();
+            }
+        });
+        document.getElementById('users-prev-btn').addEventListener('click', async () => {
+            if (userCursors.length > 1) {
+                userCursors.pop();
+                await loadUsers();
+            }
+        });
+    }
+
     // Обработчик формы редактирования (только для страницы задач)
     if (document.getElementById('edit-form')) {
         document.getElementById('edit-form').addEventListener('submit', async (e) => {
@@ -141,11 +215,11 @@ function setupEventHandlers() {
                     credentials: 'include'
                 });
                 
-                if (!response.ok) throw new Error(await response.text());
+                if (!response.ok) throw new Error(await errorMessage(response));
                 
                 // Закрываем модальное окно и обновляем список
                 document.getElementById('editModal').style.display = 'none';
-                await loadTasks();
+                taskUpdated(await response.json());
             } catch (error) {
                 console.error('Ошибка:', error);
                 alert('Ошибка при сохранении изменений: ' + error.message);
@@ -174,84 +248,178 @@ function setupEventHandlers() {
     }
 }
 
+// Загрузка первой страницы задач (после изменений или смены фильтра)
 async function loadTasks(filterStatus = null) {
     try {
-        let url = '/api/tasks';
-        if (filterStatus) {
-            url = `/api/tasks/filter?status=${filterStatus}`;
-        }
-        
-        const response = await fetch(url, {
-            credentials: 'include'
-        });
-        
-        if (!response.ok) throw new Error('Ошибка загрузки задач');
-        
-        const tasks = await response.json();
-        renderTasks(tasks);
-        updateTaskCount(tasks.length);
+        const page = await fetchTasksPage(null, filterStatus);
+        currentFilter = filterStatus;
+        applyPage(page);
+        renderTasks(page.items);
+        updateTaskCount(page.total);
     } catch (error) {
         console.error('Error:', error);
         updateTaskCount(0);
     }
 }
 
+// Догрузка следующей страницы задач по курсору (вызывается таблицей при прокрутке к концу)
+async function loadMoreTasks() {
+    if (nextCursor === null || loadingMore) {
+        return;
+    }
+    loadingMore = true;
+    try {
+        const page = await fetchTasksPage(nextCursor, currentFilter);
+        if (page.version !== dataVersion) {
+            // Данные изменились после загрузки первых страниц — начинаем заново, чтобы не смешивать версии
+            await loadTasks(currentFilter);
+            return;
+        }
+        applyPage(page);
+        renderTasks(page.items, true);
+    } catch (error) {
+        console.error('Error:', error);
+    } finally {
+        loadingMore = false;
+    }
+}
+
+async function fetchTasksPage(after, filterStatus) {
+    const params = new URLSearchParams({ size: pageSize });
+    if (after !== null) {
+        params.set('after', after);
+    }
+    if (filterStatus) {
+        params.set('status', filterStatus);
+    }
+
+    const response = await fetch(`/api/tasks/page?${params}`, {
+        credentials: 'include'
+    });
+
+    if (!response.ok) throw new Error('Ошибка загрузки задач');
+    return response.json();
+}
+
+function applyPage(page) {
+    nextCursor = page.nextCursor;
+    dataVersion = page.version;
+}
+
+// Локальное применение изменений без перезагрузки списка: ответы API содержат итоговую задачу
+function taskCreated(task) {
+    if (!matchesFilter(task)) {
+        return;
+    }
+    // Задачи идут по возрастанию id: новая попадёт в конец и, если загружены не все страницы, придёт с ними
+    if (nextCursor === null) {
+        taskTable.upsertTask(task);
+    }
+    changeTaskCount(1);
+}
+
+function taskUpdated(task) {
+    if (matchesFilter(task)) {
+        taskTable.upsertTask(task);
+    } else {
+        taskDeleted(task.id);
+    }
+}
+
+function taskDeleted(id) {
+    if (taskTable.has(id)) {
+        taskTable.removeTask(id);
+        changeTaskCount(-1);
+    }
+}
+
+function matchesFilter(task) {
+    return !currentFilter || task.statusTask === currentFilter;
+}
+
+function changeTaskCount(delta) {
+    const counter = document.getElementById('task-count');
+    if (counter) {
+        counter.textContent = Math.max(0, Number(counter.textContent) + delta);
+    }
+}
+
+// Загрузка текущей страницы пользователей с учётом поиска; общее число приходит только для первой страницы
 async function loadUsers() {
+    const params = new URLSearchParams();
+    if (userQuery.prefix) params.set('prefix', userQuery.prefix);
+    if (userQuery.role) params.set('role', userQuery.role);
+    const after = userCursors[userCursors.length - 1];
+    if (after) params.set('after', after);
+
     try {
-        const response = await fetch('/api/users', {
+        const response = await fetch(`/api/users/page?${params}`, {
             credentials: 'include'
         });
         
-        if (!response.ok) throw new Error('Ошибка загрузки пользователей');
+        if (!response.ok) throw new Error(await errorMessage(response));
         
-        const users = await response.json();
-        renderUsers(users);
-        updateUserCount(users.length);
+        const page = await response.json();
+        if (page.items.length === 0 && userCursors.length > 1) {
+            // Страница опустела после удаления — возвращаемся на предыдущую
+            userCursors.pop();
+            return loadUsers();
+        }
+        renderUsers(page.items);
+        userNextCursor = page.nextCursor;
+        if (page.total !== null) {
+            updateUserCount(page.total);
+        }
+        updateUserPager();
     } catch (error) {
         console.error('Error:', error);
-        updateUserCount(0);
+        alert('Ошибка загрузки пользователей: ' + error.message);
     }
 }
 
-function renderTasks(tasks) {
-    const taskList = document.getElementById('task-list');
-    if (taskList) {
-        taskList.innerHTML = tasks.map(task => `
-            <tr>
-                <td>${task.nameTask}</td>
-                <td>${task.statusTask}</td>
-                <td>
-                    <button class="edit-btn" 
-                        data-id="${task.id}"
-                        data-name="${task.nameTask}"
-                        data-status="${task.statusTask}">
-                        Редактировать
-                    </button>
-                </td>
-                <td>
-                    <button class="delete-task-btn" data-id="${task.id}">
-                        Удалить
-                    </button>
-                </td>
-            </tr>
-        `).join('');
+function updateUserPager() {
+    const prev = document.getElementById('users-prev-btn');
+    const next = document.getElementById('users-next-btn');
+    if (prev && next) {
+        prev.disabled = userCursors.length <= 1;
+        next.disabled = !userNextCursor;
     }
 }
 
+// Передача задач в виртуализированную таблицу: строки с теми же id обновляются на месте
+function renderTasks(tasks, append = false) {
+    if (!taskTable) {
+        return;
+    }
+    if (append) {
+        taskTable.appendTasks(tasks);
+    } else {
+        taskTable.setTasks(tasks);
+    }
+}
+
+// Строки пользователей собираются через DOM: имя вставляется как текст, а не как разметка
 function renderUsers(users) {
     const userList = document.getElementById('user-list');
-    if (userList) {
-        userList.innerHTML = users.map(user => `
-            <tr>
-                <td>${user.username}</td>
-                <td>
-                    <button class="delete-user-btn" data-id="${user.id}">
-                        Удалить
-                    </button>
-                </td>
-            </tr>
-        `).join('');
+    if (!userList) {
+        return;
     }
+    const rows = users.map(user => {
+        const row = document.createElement('tr');
+        const name = document.createElement('td');
+        name.textContent = user.username;
+        const role = document.createElement('td');
+        role.textContent = user.role ? getRoleName(user.role) : '';
+        const action = document.createElement('td');
+        const button = document.createElement('button');
+        button.className = 'delete-user-btn';
+        button.dataset.id = user.id;
+        button.textContent = 'Удалить';
+        action.append(button);
+        row.append(name, role, action);
+        return row;
+    });
+    userList.replaceChildren(...rows);
 }
 
 function updateTaskCount(count) {
@@ -268,6 +436,13 @@ function updateUserCount(count) {
     }
 }
 
+function changeUserCount(delta) {
+    const counter = document.getElementById('user-count');
+    if (counter) {
+        counter.textContent = Math.max(0, Number(counter.textContent) + delta);
+    }
+}
+
 function getRoleName(role) {
     switch(role) {
         case 'DIRECTOR': return 'Директор';
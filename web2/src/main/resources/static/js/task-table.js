@@ -0,0 +1,230 @@
+// Виртуализированная таблица задач.
+// В DOM находятся только строки, попадающие в видимую область контейнера прокрутки (плюс запас overscan),
+// а высота остальных строк заменяется двумя строками-распорками сверху и снизу.
+// Строки связаны с задачами по id: при изменении данных существующие строки обновляются на месте,
+// лишние удаляются, недостающие создаются — таблица никогда не перестраивается целиком.
+
+class VirtualTaskTable {
+
+    constructor(container, tbody, options = {}) {
+        this.container = container;
+        this.tbody = tbody;
+        this.rowHeight = options.rowHeight || 0;     // 0 — измерить по первой отрисованной строке
+        this.overscan = options.overscan ?? 10;      // запас строк сверху и снизу от видимой области
+        this.onNeedMore = options.onNeedMore || null; // вызывается, когда прокрутка подходит к концу данных
+
+        this.tasks = [];                 // все загруженные задачи в порядке отображения
+        this.indexById = new Map();      // id задачи -> индекс в tasks
+        this.rendered = new Map();       // id задачи -> строка <tr> в DOM
+
+        this.topSpacer = this.createSpacer();
+        this.bottomSpacer = this.createSpacer();
+        this.renderScheduled = false;
+
+        this.container.addEventListener('scroll', () => this.scheduleRender(), { passive: true });
+        window.addEventListener('resize', () => this.scheduleRender());
+    }
+
+    // Принятие строк, уже отрисованных сервером: они становятся первыми задачами таблицы
+    adoptRenderedRows() {
+        const tasks = [];
+        for (const row of this.tbody.querySelectorAll('tr[data-id]')) {
+            const button = row.querySelector('.edit-btn');
+            const task = {
+                id: Number(row.dataset.id),
+                nameTask: button ? button.dataset.name : row.cells[0].textContent,
+                statusTask: button ? button.dataset.status : row.cells[1].textContent
+            };
+            tasks.push(task);
+            this.rendered.set(task.id, row);
+        }
+        this.tbody.prepend(this.topSpacer);
+        this.tbody.append(this.bottomSpacer);
+        this.replaceData(tasks);
+        this.render();
+    }
+
+    // Замена всех данных (новый фильтр или перезагрузка); строки с теми же id переиспользуются
+    setTasks(tasks) {
+        this.replaceData(tasks);
+        this.container.scrollTop = 0;
+        this.scheduleRender();
+    }
+
+    // Добавление следующей страницы в конец
+    appendTasks(tasks) {
+        for (const task of tasks) {
+            if (!this.indexById.has(task.id)) {
+                this.indexById.set(task.id, this.tasks.length);
+                this.tasks.push(task);
+            }
+        }
+        this.scheduleRender();
+    }
+
+    // Добавление или обновление одной задачи
+    upsertTask(task) {
+        const index = this.indexById.get(task.id);
+        if (index === undefined) {
+            this.appendTasks([task]);
+            return;
+        }
+        this.tasks[index] = task;
+        const row = this.rendered.get(task.id);
+        if (row) {
+            this.patchRow(row, task);
+        }
+    }
+
+    // Удаление задачи по id
+    removeTask(id) {
+        const index = this.indexById.get(id);
+        if (index === undefined) {
+            return;
+        }
+        this.tasks.splice(index, 1);
+        this.indexById.delete(id);
+        this.reindex(index);
+        this.scheduleRender();
+    }
+
+    has(id) {
+        return this.indexById.has(id);
+    }
+
+    get size() {
+        return this.tasks.length;
+    }
+
+    replaceData(tasks) {
+        this.tasks = tasks.slice();
+        this.indexById.clear();
+        this.reindex(0);
+    }
+
+    reindex(from) {
+        for (let i = from; i < this.tasks.length; i++) {
+            this.indexById.set(this.tasks[i].id, i);
+        }
+    }
+
+    scheduleRender() {
+        if (this.renderScheduled) {
+            return;
+        }
+        this.renderScheduled = true;
+        requestAnimationFrame(() => {
+            this.renderScheduled = false;
+            this.render();
+        });
+    }
+
+    // Отрисовка видимого окна строк с точечным обновлением DOM
+    render() {
+        const rowHeight = this.rowHeight || this.measureRowHeight();
+        const viewport = this.container.clientHeight || 400;
+        const windowSize = Math.ceil(viewport / rowHeight) + 2 * this.overscan;
+        const first = Math.max(0, Math.min(Math.floor(this.container.scrollTop / rowHeight) - this.overscan,
+            this.tasks.length - windowSize));
+        const last = Math.min(this.tasks.length, first + windowSize);
+
+        // Убираем строки, вышедшие из окна или исчезнувшие из данных
+        for (const [id, row] of this.rendered) {
+            const index = this.indexById.get(id);
+            if (index === undefined || index < first || index >= last) {
+                row.remove();
+                this.rendered.delete(id);
+            }
+        }
+
+        // Создаём недостающие, обновляем существующие и расставляем строки по порядку
+        let previous = this.topSpacer;
+        for (let i = first; i < last; i++) {
+            const task = this.tasks[i];
+            let row = this.rendered.get(task.id);
+            if (row) {
+                this.patchRow(row, task);
+            } else {
+                row = this.createRow(task);
+                this.rendered.set(task.id, row);
+            }
+            if (previous.nextSibling !== row) {
+                previous.after(row);
+            }
+            previous = row;
+        }
+
+        this.topSpacer.firstChild.style.height = `${first * rowHeight}px`;
+        this.bottomSpacer.firstChild.style.height = `${(this.tasks.length - last) * rowHeight}px`;
+
+        if (!this.rowHeight && this.rendered.size > 0) {
+            // Уточняем высоту строки по фактической отрисовке
+            this.rowHeight = this.rendered.values().next().value.offsetHeight || rowHeight;
+        }
+        if (this.onNeedMore && last >= this.tasks.length - this.overscan) {
+            this.onNeedMore();
+        }
+    }
+
+    measureRowHeight() {
+        const row = this.rendered.values().next().value;
+        return (row && row.offsetHeight) || 36;
+    }
+
+    createSpacer() {
+        const row = document.createElement('tr');
+        row.className = 'spacer-row';
+        const cell = document.createElement('td');
+        cell.colSpan = 4;
+        cell.style.padding = '0';
+        cell.style.border = '0';
+        row.append(cell);
+        return row;
+    }
+
+    createRow(task) {
+        const row = document.createElement('tr');
+        row.dataset.id = task.id;
+
+        const name = document.createElement('td');
+        const status = document.createElement('td');
+
+        const editCell = document.createElement('td');
+        const editButton = document.createElement('button');
+        editButton.className = 'edit-btn';
+        editButton.textContent = 'Редактировать';
+        editCell.append(editButton);
+
+        const deleteCell = document.createElement('td');
+        const deleteButton = document.createElement('button');
+        deleteButton.className = 'delete-task-btn';
+        deleteButton.dataset.id = task.id;
+        deleteButton.textContent = 'Удалить';
+        deleteCell.append(deleteButton);
+
+        row.append(name, status, editCell, deleteCell);
+        this.patchRow(row, task);
+        return row;
+    }
+
+    // Обновление строки только в тех местах, где данные отличаются
+    patchRow(row, task) {
+        const [name, status, editCell] = row.cells;
+        if (name.textContent !== task.nameTask) {
+            name.textContent = task.nameTask;
+        }
+        if (status.textContent !== task.statusTask) {
+            status.textContent = task.statusTask;
+        }
+        const button = editCell.firstElementChild;
+        if (button.dataset.id !== String(task.id)) {
+            button.dataset.id = task.id;
+        }
+        if (button.dataset.name !== task.nameTask) {
+            button.dataset.name = task.nameTask;
+        }
+        if (button.dataset.status !== task.statusTask) {
+            button.dataset.status = task.statusTask;
+        }
+    }
+}